@@ -0,0 +1,210 @@
+package ed.inf.adbs.lightdb;
+
+import ed.inf.adbs.lightdb.catalog.DataType;
+
+/**
+ * A batch of rows laid out by column, with a selection vector, for operators that process many rows per call
+ * (see Operator.getNextBatch).
+ *
+ * Each column vector holds the fields of one column the way Tuple holds the fields of one row: a long slot per row
+ * (integers, double bits or booleans, according to the column type) and a side array holding the text of STRING and
+ * null fields. The selection vector lists the rows that are still part of the result, in ascending order; filters
+ * narrow it in place instead of copying the surviving rows. Until a selection is set every row is selected.
+ * Consumers iterate the selected rows as row(0) .. row(count() - 1).
+ *
+ * A batch belongs to the consumer that received it; producers allocate a fresh batch per call. project() returns
+ * a view that shares the column vectors of this batch.
+ */
+public final class Batch {
+    private final DataType[] types;
+    private final long[][] slots;
+    // Per column: text of STRING and null fields; null entries are parsed fields
+    private final String[][] text;
+    private final int capacity;
+    private int size;
+
+    private int[] sel;
+    private int selCount = -1;
+
+    public Batch(int columns, int capacity) {
+        if (columns < 0) throw new IllegalArgumentException("columns must be >= 0");
+        if (capacity < 1) throw new IllegalArgumentException("capacity must be >= 1");
+        this.types = new DataType[columns];
+        this.slots = new long[columns][capacity];
+        this.text = new String[columns][capacity];
+        this.capacity = capacity;
+    }
+
+    private Batch(DataType[] types, long[][] slots, String[][] text, int capacity, int size, int[] sel, int selCount) {
+        this.types = types;
+        this.slots = slots;
+        this.text = text;
+        this.capacity = capacity;
+        this.size = size;
+        this.sel = sel;
+        this.selCount = selCount;
+    }
+
+    public int columnCount() {
+        return types.length;
+    }
+
+    // Number of rows stored, selected or not.
+    public int size() {
+        return size;
+    }
+
+    public boolean isFull() {
+        return size == capacity;
+    }
+
+    // Number of selected rows.
+    public int count() {
+        return (selCount < 0) ? size : selCount;
+    }
+
+    // The k-th selected row.
+    public int row(int k) {
+        return (selCount < 0) ? k : sel[k];
+    }
+
+    // A buffer a filter may write the surviving rows into (in place, since they are a prefix-preserving subset),
+    // before passing it to setSelection. It holds the current selection if there is one.
+    public int[] selectionBuffer() {
+        if (sel == null) sel = new int[capacity];
+        return sel;
+    }
+
+    public void setSelection(int[] rows, int count) {
+        if (count < 0 || count > size) throw new IllegalArgumentException("Invalid selection size: " + count);
+        this.sel = rows;
+        this.selCount = count;
+    }
+
+    public DataType getType(int column) {
+        return (types[column] == null) ? DataType.STRING : types[column];
+    }
+
+    public boolean isNull(int column, int row) {
+        String s = text[column][row];
+        return s != null && s.isEmpty();
+    }
+
+    public long getLong(int column, int row) {
+        if (text[column][row] == null && Tuple.isInteger(types[column])) return slots[column][row];
+        return Long.parseLong(get(column, row).trim());
+    }
+
+    public String get(int column, int row) {
+        String s = text[column][row];
+        return (s != null) ? s : Tuple.format(types[column], slots[column][row]);
+    }
+
+    // Appends the fields of a row, parsing each according to its column type.
+    public void appendParsed(String[] fields, DataType[] columnTypes) {
+        if (fields.length != types.length) {
+            throw new IllegalArgumentException("Row has " + fields.length + " values but " + types.length + " columns are expected");
+        }
+        checkRoom();
+        for (int c = 0; c < fields.length; c++) {
+            if (types[c] == null) types[c] = columnTypes[c];
+            Tuple.parseField(fields[c], types[c], size, slots[c], text[c]);
+        }
+        size++;
+    }
+
+    // Appends a row, copying parsed fields slot to slot.
+    public void append(Tuple t) {
+        if (t.size() != types.length) {
+            throw new IllegalArgumentException("Tuple has " + t.size() + " values but " + types.length + " columns are expected");
+        }
+        checkRoom();
+        for (int c = 0; c < types.length; c++) {
+            if (types[c] == null) types[c] = t.getType(c);
+            if (t.isParsed(c) && t.getType(c) == types[c]) {
+                slots[c][size] = t.slot(c);
+            } else {
+                text[c][size] = t.get(c);
+            }
+        }
+        size++;
+    }
+
+    // Appends the concatenation of a row of one batch and a row of another.
+    public void appendJoined(Batch left, int leftRow, Batch right, int rightRow) {
+        if (left.types.length + right.types.length != types.length) {
+            throw new IllegalArgumentException("Joined row does not have " + types.length + " columns");
+        }
+        checkRoom();
+        copyRow(left, leftRow, 0);
+        copyRow(right, rightRow, left.types.length);
+        size++;
+    }
+
+    private void copyRow(Batch from, int row, int offset) {
+        for (int c = 0; c < from.types.length; c++) {
+            int to = offset + c;
+            if (types[to] == null) types[to] = from.getType(c);
+            String s = from.text[c][row];
+            if (s == null && from.types[c] != types[to]) s = from.get(c, row);
+            if (s == null) slots[to][size] = from.slots[c][row];
+            else text[to][size] = s;
+        }
+    }
+
+    private void checkRoom() {
+        if (size == capacity) throw new IllegalStateException("Batch is full");
+        if (selCount >= 0) throw new IllegalStateException("Cannot append to a batch with a selection");
+    }
+
+    // A view of the given columns, in the given order, sharing this batch's vectors and selection.
+    public Batch project(int[] columns) {
+        DataType[] t = new DataType[columns.length];
+        long[][] s = new long[columns.length][];
+        String[][] x = new String[columns.length][];
+        for (int i = 0; i < columns.length; i++) {
+            t[i] = getType(columns[i]);
+            s[i] = slots[columns[i]];
+            x[i] = text[columns[i]];
+        }
+        return new Batch(t, s, x, capacity, size, sel, selCount);
+    }
+
+    // The given row as a tuple.
+    public Tuple toTuple(int row) {
+        long[] s = new long[types.length];
+        String[] x = new String[types.length];
+        DataType[] t = new DataType[types.length];
+        for (int c = 0; c < types.length; c++) {
+            t[c] = getType(c);
+            s[c] = slots[c][row];
+            x[c] = text[c][row];
+        }
+        return new Tuple(t, s, x);
+    }
+
+    // The given columns of a row as a tuple.
+    public Tuple toTuple(int row, int[] columns) {
+        long[] s = new long[columns.length];
+        String[] x = new String[columns.length];
+        DataType[] t = new DataType[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            int c = columns[i];
+            t[i] = getType(c);
+            s[i] = slots[c][row];
+            x[i] = text[c][row];
+        }
+        return new Tuple(t, s, x);
+    }
+
+    // Appends the row to the builder the way Tuple.toString prints it.
+    public void appendRow(StringBuilder sb, int row) {
+        for (int c = 0; c < types.length; c++) {
+            if (c > 0) sb.append(", ");
+            String s = text[c][row];
+            if (s != null) sb.append(s);
+            else if (Tuple.isInteger(types[c])) sb.append(slots[c][row]);
+            else sb.append(Tuple.format(types[c], slots[c][row]));
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package ed.inf.adbs.lightdb;
+
+import java.util.Arrays;
+
+import ed.inf.adbs.lightdb.catalog.DataType;
+
+/**
+ * A view of the concatenation of tuples, as produced by a join: field i is read from the part that holds it.
+ *
+ * The parts are kept flat: a JoinedTuple built from another JoinedTuple takes over its parts instead of wrapping it,
+ * so each field is one lookup away however many joins a row went through, and building the row of a multi-way join
+ * copies one reference per joined table rather than every field of the rows joined so far.
+ */
+final class JoinedTuple extends Tuple {
+    private final Tuple[] parts;
+    // Index of the first field of each part, followed by the total number of fields
+    private final int[] starts;
+
+    JoinedTuple(Tuple left, Tuple right) {
+        if (left == null) throw new NullPointerException("left cannot be null");
+        if (right == null) throw new NullPointerException("right cannot be null");
+
+        Tuple[] l = parts(left);
+        Tuple[] r = parts(right);
+        this.parts = Arrays.copyOf(l, l.length + r.length);
+        System.arraycopy(r, 0, parts, l.length, r.length);
+
+        this.starts = new int[parts.length + 1];
+        for (int p = 0; p < parts.length; p++) starts[p + 1] = starts[p] + parts[p].size();
+    }
+
+    private static Tuple[] parts(Tuple t) {
+        return (t instanceof JoinedTuple) ? ((JoinedTuple) t).parts : new Tuple[] {t};
+    }
+
+    // The part holding field index.
+    private int part(int index) {
+        if (index < 0 || index >= starts[parts.length]) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size());
+        }
+        int p = 0;
+        while (index >= starts[p + 1]) p++;
+        return p;
+    }
+
+    @Override
+    public int size() {
+        return starts[parts.length];
+    }
+
+    @Override
+    public String get(int index) {
+        int p = part(index);
+        return parts[p].get(index - starts[p]);
+    }
+
+    @Override
+    public DataType getType(int index) {
+        int p = part(index);
+        return parts[p].getType(index - starts[p]);
+    }
+
+    @Override
+    public boolean isNull(int index) {
+        int p = part(index);
+        return parts[p].isNull(index - starts[p]);
+    }
+
+    @Override
+    public long getLong(int index) {
+        int p = part(index);
+        return parts[p].getLong(index - starts[p]);
+    }
+
+    @Override
+    public double getDouble(int index) {
+        int p = part(index);
+        return parts[p].getDouble(index - starts[p]);
+    }
+
+    @Override
+    public boolean getBoolean(int index) {
+        int p = part(index);
+        return parts[p].getBoolean(index - starts[p]);
+    }
+
+    @Override
+    boolean isParsed(int index) {
+        int p = part(index);
+        return parts[p].isParsed(index - starts[p]);
+    }
+
+    @Override
+    long slot(int index) {
+        int p = part(index);
+        return parts[p].slot(index - starts[p]);
+    }
+}
@@ -4,16 +4,25 @@ import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import net.sf.jsqlparser.parser.CCJSqlParserUtil;
 import net.sf.jsqlparser.statement.Statement;
 import net.sf.jsqlparser.statement.select.Select;
 
 import ed.inf.adbs.lightdb.catalog.Catalog;
+import ed.inf.adbs.lightdb.catalog.IndexMeta;
+import ed.inf.adbs.lightdb.catalog.IndexType;
 import ed.inf.adbs.lightdb.catalog.SchemaLoader;
+import ed.inf.adbs.lightdb.catalog.StorageFormat;
+import ed.inf.adbs.lightdb.catalog.TableMeta;
+import ed.inf.adbs.lightdb.index.HashIndex;
 import ed.inf.adbs.lightdb.operator.Operator;
+import ed.inf.adbs.lightdb.planner.PlannerOptions;
 import ed.inf.adbs.lightdb.planner.QueryPlanner;
 
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.Locale;
 
 /**
  * Lightweight in-memory database system.
@@ -37,17 +46,66 @@ public class LightDB {
 
 		String dbRoot = databaseDir != null ? databaseDir : "samples/db/default";
 		Catalog.init(Paths.get(dbRoot));
-		SchemaLoader.loadIntoCatalog(Paths.get("samples/db/schema.txt"), Paths.get("samples/db/data"));	
+		// -Dlightdb.storage=columnar|heap converts each table once into a columnar or heap file copy that later runs reuse
+		// (heap files are cached by a buffer pool of -Dlightdb.bufferpool.pages pages)
+		StorageFormat storage = StorageFormat.valueOf(System.getProperty("lightdb.storage", "csv").trim().toUpperCase(Locale.ROOT));
+		SchemaLoader.loadIntoCatalog(Paths.get("samples/db/schema.txt"), Paths.get("samples/db/data"), storage);
+		// -Dlightdb.indexes=Table.Column[:type],... builds (or reuses) secondary indexes the planner can choose from
+		ensureIndexes(System.getProperty("lightdb.indexes", ""));
+		mapHashIndexes();
 
-		Operator root = QueryPlanner.buildPlan(inputFile);
+		// -Dlightdb.parallelism=N runs joins on N worker threads; with -Dlightdb.morsels=true the whole query pipeline
+		// runs on N workers that share the first table's scan a morsel at a time
+		Operator root = QueryPlanner.buildPlan(inputFile, PlannerOptions.fromSystemProperties());
 		
-		execute(root, outputFile);
+		// -Dlightdb.execution=tuple drains the plan tuple-at-a-time instead of a batch at a time,
+		// and -Dlightdb.execution=push runs the same plan push-based, with the leaves driving rows into the output
+		String execution = System.getProperty("lightdb.execution", "batch").trim();
+		if ("push".equalsIgnoreCase(execution)) {
+			executePushed(root, outputFile);
+		} else {
+			execute(root, outputFile, !"tuple".equalsIgnoreCase(execution));
+		}
 		// Just for demonstration, replace this function call with your logic
 		// parsingExample(inputFile);
 
 		
 	}
 
+	/**
+	 * Makes sure every index listed in the spec exists and is up to date.
+	 * The spec is a comma-separated list of Table.Column entries, each optionally followed by ":type" (default btree).
+	 */
+	static void ensureIndexes(String spec) throws IOException {
+		for (String entry : spec.split(",")) {
+			entry = entry.trim();
+			if (entry.isEmpty()) continue;
+
+			String[] parts = entry.split(":", 2);
+			IndexType type = parts.length > 1 ? IndexType.valueOf(parts[1].trim().toUpperCase(Locale.ROOT)) : IndexType.BTREE;
+
+			int dot = parts[0].indexOf('.');
+			if (dot <= 0 || dot == parts[0].length() - 1) {
+				throw new IllegalArgumentException("Index must be given as Table.Column: " + entry);
+			}
+			Catalog.getInstance().ensureIndex(parts[0].substring(0, dot).trim(), parts[0].substring(dot + 1).trim(), type);
+		}
+	}
+
+	/**
+	 * Memory-maps every up-to-date hash index in the catalog up front, so that queries probing them find them mapped.
+	 */
+	static void mapHashIndexes() throws IOException {
+		for (TableMeta table : Catalog.getInstance().listTables()) {
+			Path csv = Paths.get(table.getDataFile());
+			for (IndexMeta index : Catalog.getInstance().getIndexes(table.getName())) {
+				if (index.getType() == IndexType.HASH && index.isFreshFor(csv)) {
+					HashIndex.open(Paths.get(index.getIndexFile()));
+				}
+			}
+		}
+	}
+
 	/**
 	 * Example method for getting started with JSQLParser. Reads SQL statement
 	 * from a file or a string and prints the SELECT and WHERE clauses to screen.
@@ -77,6 +135,32 @@ public class LightDB {
 	 * @param outputFile The name of the file where the result will be written.
 	 */
 	public static void execute(Operator root, String outputFile) {
+		execute(root, outputFile, false);
+	}
+
+	/**
+	 * Same as execute(root, outputFile), but when batches is true the plan is drained with `getNextBatch()`,
+	 * writing the selected rows of each batch.
+	 */
+	public static void execute(Operator root, String outputFile, boolean batches) {
+		if (batches) {
+			try (BufferedWriter writer = new BufferedWriter(new FileWriter(outputFile))) {
+				StringBuilder line = new StringBuilder();
+				Batch batch;
+				while ((batch = root.getNextBatch()) != null) {
+					for (int k = 0; k < batch.count(); k++) {
+						line.setLength(0);
+						batch.appendRow(line, batch.row(k));
+						writer.append(line);
+						writer.newLine();
+					}
+				}
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+			return;
+		}
+
 		try {
 			// Create a BufferedWriter
 			BufferedWriter writer = new BufferedWriter(new FileWriter(outputFile));
@@ -96,4 +180,23 @@ public class LightDB {
 			e.printStackTrace();
 		}
 	}
+
+	/**
+	 * Same as execute(root, outputFile), but the plan is run push-based with `produce()`: the root pushes its rows
+	 * straight into the writer.
+	 */
+	public static void executePushed(Operator root, String outputFile) {
+		try (BufferedWriter writer = new BufferedWriter(new FileWriter(outputFile))) {
+			root.produce(tuple -> {
+				try {
+					writer.write(tuple.toString());
+					writer.newLine();
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			});
+		} catch (IOException | UncheckedIOException e) {
+			e.printStackTrace();
+		}
+	}
 }
@@ -0,0 +1,74 @@
+package ed.inf.adbs.lightdb;
+
+import ed.inf.adbs.lightdb.catalog.DataType;
+
+/**
+ * A view of some fields of a tuple, in a given order: field i is field indexes[i] of the parent.
+ *
+ * Projecting a projection composes the index maps, so a view never wraps another ProjectedTuple.
+ */
+final class ProjectedTuple extends Tuple {
+    private final Tuple parent;
+    private final int[] indexes;
+
+    ProjectedTuple(Tuple parent, int[] indexes) {
+        if (parent == null) throw new NullPointerException("parent cannot be null");
+        if (indexes == null) throw new NullPointerException("indexes cannot be null");
+
+        if (parent instanceof ProjectedTuple) {
+            ProjectedTuple p = (ProjectedTuple) parent;
+            int[] composed = new int[indexes.length];
+            for (int i = 0; i < indexes.length; i++) composed[i] = p.indexes[indexes[i]];
+            this.parent = p.parent;
+            this.indexes = composed;
+        } else {
+            this.parent = parent;
+            this.indexes = indexes;
+        }
+    }
+
+    @Override
+    public int size() {
+        return indexes.length;
+    }
+
+    @Override
+    public String get(int index) {
+        return parent.get(indexes[index]);
+    }
+
+    @Override
+    public DataType getType(int index) {
+        return parent.getType(indexes[index]);
+    }
+
+    @Override
+    public boolean isNull(int index) {
+        return parent.isNull(indexes[index]);
+    }
+
+    @Override
+    public long getLong(int index) {
+        return parent.getLong(indexes[index]);
+    }
+
+    @Override
+    public double getDouble(int index) {
+        return parent.getDouble(indexes[index]);
+    }
+
+    @Override
+    public boolean getBoolean(int index) {
+        return parent.getBoolean(indexes[index]);
+    }
+
+    @Override
+    boolean isParsed(int index) {
+        return parent.isParsed(indexes[index]);
+    }
+
+    @Override
+    long slot(int index) {
+        return parent.slot(indexes[index]);
+    }
+}
@@ -1,44 +1,326 @@
 package ed.inf.adbs.lightdb;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
 
-public final class Tuple {
-    private final List<String> values;
+import ed.inf.adbs.lightdb.catalog.DataType;
 
+/**
+ * A row flowing between operators.
+ *
+ * Fields live in primitive slots: INT and LONG fields as longs, DOUBLE fields as the bits of a double and BOOLEAN
+ * fields as 0 or 1, each parsed once when the tuple is created (see parse). STRING fields, and null (empty) fields
+ * of any type, keep their text in a side array. The typed accessors (getLong, getDouble, getBoolean, isNull) read the
+ * slots directly; get(int) is a compatibility view that formats a parsed field back to text. Typed columns only hold
+ * canonical values (see TableAnalyser), for which this gives back the original field.
+ *
+ * Subclasses may keep the row in a different form (e.g. a slice of a memory-mapped file) and decode fields only when
+ * they are asked for; they must override size() and get(int). Equality, hashing and printing are defined on the field
+ * values, so tuples of different representations holding the same values are interchangeable.
+ *
+ * joined() and projected() return views that reference the tuples they are built from instead of copying fields
+ * (see JoinedTuple and ProjectedTuple). An operator that retains rows past the call that produced them (a sort
+ * buffer, a hash table), or hands one row to several threads, should use materialise(t) instead, so that it holds
+ * compact, fully decoded rows rather than views or lazily decoded ones.
+ */
+public class Tuple {
+    private final DataType[] types;
+    private final long[] slots;
+    // Text of STRING and null fields; null for parsed fields
+    private final String[] text;
+
+    private List<String> values;
+
+    // A tuple of STRING fields.
     public Tuple(List<String> values){
-        this.values = Collections.unmodifiableList(new ArrayList<String>(Objects.requireNonNull(values, "values cannot be null")));
+        Objects.requireNonNull(values, "values cannot be null");
+        int n = values.size();
+        this.types = new DataType[n];
+        this.slots = new long[n];
+        this.text = new String[n];
+        for (int i = 0; i < n; i++) {
+            types[i] = DataType.STRING;
+            text[i] = Objects.requireNonNull(values.get(i), "values cannot contain null");
+        }
+    }
+
+    // Takes ownership of the arrays; text[i] must be null exactly for the parsed fields. Use parse to build a tuple from text.
+    public Tuple(DataType[] types, long[] slots, String[] text){
+        if (types.length != slots.length || types.length != text.length) {
+            throw new IllegalArgumentException("types, slots and text must have the same length");
+        }
+        this.types = types;
+        this.slots = slots;
+        this.text = text;
+    }
+
+    // For subclasses that provide their own field storage.
+    protected Tuple(){
+        this.types = null;
+        this.slots = null;
+        this.text = null;
+    }
+
+    // Parses the (trimmed) fields of a row. The types array is shared, not copied, so one array can serve a whole scan.
+    public static Tuple parse(String[] fields, DataType[] types){
+        if (fields.length != types.length) {
+            throw new IllegalArgumentException("Row has " + fields.length + " values but " + types.length + " columns are expected");
+        }
+        long[] slots = new long[fields.length];
+        String[] text = new String[fields.length];
+        for (int i = 0; i < fields.length; i++) parseField(fields[i], types[i], i, slots, text);
+        return new Tuple(types, slots, text);
+    }
+
+    // Parses one field into slot i of a tuple under construction.
+    public static void parseField(String value, DataType type, int i, long[] slots, String[] text){
+        if (value.isEmpty()) {
+            text[i] = value;
+            return;
+        }
+        switch (type) {
+            case INT:
+            case LONG:
+                slots[i] = Long.parseLong(value);
+                break;
+            case DOUBLE:
+                slots[i] = Double.doubleToRawLongBits(Double.parseDouble(value));
+                break;
+            case BOOLEAN:
+                if (value.equals("true")) slots[i] = 1;
+                else if (value.equals("false")) slots[i] = 0;
+                else throw new IllegalArgumentException("Not a boolean: \"" + value + "\"");
+                break;
+            default:
+                text[i] = value;
+        }
+    }
+
+    // A tuple of LONG fields.
+    public static Tuple ofLongs(long... values){
+        DataType[] types = new DataType[values.length];
+        Arrays.fill(types, DataType.LONG);
+        return new Tuple(types, values.clone(), new String[values.length]);
+    }
+
+    // Concatenates two tuples, copying parsed slots rather than text.
+    public static Tuple concat(Tuple left, Tuple right){
+        int n = left.size() + right.size();
+        DataType[] types = new DataType[n];
+        long[] slots = new long[n];
+        String[] text = new String[n];
+        left.copyInto(0, types, slots, text);
+        right.copyInto(left.size(), types, slots, text);
+        return new Tuple(types, slots, text);
+    }
+
+    // Returns the given fields of a tuple, copying parsed slots rather than text.
+    public static Tuple project(Tuple t, int[] indexes){
+        int n = indexes.length;
+        DataType[] types = new DataType[n];
+        long[] slots = new long[n];
+        String[] text = new String[n];
+        for (int i = 0; i < n; i++) {
+            t.copyField(indexes[i], i, types, slots, text);
+        }
+        return new Tuple(types, slots, text);
+    }
+
+    // A view of the concatenation of two tuples; no fields are copied. Joining a join view extends it rather than
+    // nesting it, so the rows of a multi-way join stay one level deep.
+    public static Tuple joined(Tuple left, Tuple right){
+        return new JoinedTuple(left, right);
+    }
+
+    // A view of the given fields of a tuple; no fields are copied. The indexes array is shared, not copied.
+    public static Tuple projected(Tuple t, int[] indexes){
+        return new ProjectedTuple(t, indexes);
+    }
+
+    // The tuple itself if it is a plain tuple, otherwise a plain copy of it (for views, lazily decoded rows, ...).
+    public static Tuple materialise(Tuple t){
+        if (t.getClass() == Tuple.class) return t;
+        int n = t.size();
+        DataType[] types = new DataType[n];
+        long[] slots = new long[n];
+        String[] text = new String[n];
+        t.copyInto(0, types, slots, text);
+        return new Tuple(types, slots, text);
+    }
+
+    private void copyInto(int offset, DataType[] types, long[] slots, String[] text){
+        if (this.slots != null) {
+            System.arraycopy(this.types, 0, types, offset, this.types.length);
+            System.arraycopy(this.slots, 0, slots, offset, this.slots.length);
+            System.arraycopy(this.text, 0, text, offset, this.text.length);
+            return;
+        }
+        for (int i = 0; i < size(); i++) copyField(i, offset + i, types, slots, text);
+    }
+
+    private void copyField(int index, int to, DataType[] types, long[] slots, String[] text){
+        if (isParsed(index)) {
+            types[to] = getType(index);
+            slots[to] = slot(index);
+        } else {
+            types[to] = DataType.STRING;
+            text[to] = get(index);
+        }
     }
 
     public int size(){
-        return values.size();
+        return types.length;
     }
 
     public String get(int index){
-        return values.get(index);
+        String s = text[index];
+        return (s != null) ? s : format(types[index], slots[index]);
+    }
+
+    // The text of a parsed field.
+    protected static String format(DataType type, long slot){
+        switch (type) {
+            case DOUBLE:
+                return Double.toString(Double.longBitsToDouble(slot));
+            case BOOLEAN:
+                return slot != 0 ? "true" : "false";
+            default:
+                return Long.toString(slot);
+        }
+    }
+
+    // True if the field is held in its slot (rather than as text), for copying it slot to slot. Subclass tuples count
+    // as parsed when they report a non-STRING type for a non-empty field.
+    boolean isParsed(int index){
+        if (text != null) return text[index] == null;
+        return getType(index) != DataType.STRING && !isNull(index);
+    }
+
+    // The slot of a parsed field.
+    long slot(int index){
+        if (slots != null) return slots[index];
+        switch (getType(index)) {
+            case DOUBLE:
+                return Double.doubleToRawLongBits(getDouble(index));
+            case BOOLEAN:
+                return getBoolean(index) ? 1 : 0;
+            default:
+                return getLong(index);
+        }
+    }
+
+    // The type the field was parsed as (STRING for fields kept as text).
+    public DataType getType(int index){
+        return (types == null) ? DataType.STRING : types[index];
+    }
+
+    // True if the field is empty.
+    public boolean isNull(int index){
+        if (text == null) return get(index).isEmpty();
+        String s = text[index];
+        return s != null && s.isEmpty();
+    }
+
+    // Returns the field as an integer. Subclasses may override this to avoid materialising the field as a String.
+    public long getLong(int index){
+        if (text != null && text[index] == null && isInteger(types[index])) return slots[index];
+        return Long.parseLong(get(index).trim());
+    }
+
+    public double getDouble(int index){
+        if (text != null && text[index] == null) {
+            if (types[index] == DataType.DOUBLE) return Double.longBitsToDouble(slots[index]);
+            if (isInteger(types[index])) return slots[index];
+        }
+        return Double.parseDouble(get(index).trim());
+    }
+
+    public boolean getBoolean(int index){
+        if (text != null && text[index] == null && types[index] == DataType.BOOLEAN) return slots[index] != 0;
+        String s = get(index).trim();
+        if (s.equals("true")) return true;
+        if (s.equals("false")) return false;
+        throw new IllegalArgumentException("Not a boolean: \"" + s + "\"");
     }
 
     public List<String> asList(){
+        if (values == null) {
+            List<String> out = new ArrayList<String>(size());
+            for (int i = 0; i < size(); i++) out.add(get(i));
+            values = Collections.unmodifiableList(out);
+        }
         return values;
     }
 
+    // True if the field is an integer held in its slot.
+    private boolean parsedInteger(int index){
+        if (text != null) return text[index] == null && isInteger(types[index]);
+        return isInteger(getType(index)) && isParsed(index);
+    }
+
+    // The value of a field for which parsedInteger is true.
+    private long integer(int index){
+        return (slots != null) ? slots[index] : slot(index);
+    }
+
+    static boolean isInteger(DataType type){
+        return type == DataType.INT || type == DataType.LONG;
+    }
+
     @Override
     public String toString(){
-        return String.join(", ",values);
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < size(); i++) {
+            if (i > 0) sb.append(", ");
+            if (parsedInteger(i)) sb.append(integer(i));
+            else sb.append(get(i));
+        }
+        return sb.toString();
     }
 
+    // Integer fields held in slots are compared without formatting them.
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
         if (!(o instanceof Tuple)) return false;
         Tuple tuple = (Tuple) o;
-        return values.equals(tuple.values);
+        if (size() != tuple.size()) return false;
+        for (int i = 0; i < size(); i++) {
+            if (parsedInteger(i) && tuple.parsedInteger(i)) {
+                if (integer(i) != tuple.integer(i)) return false;
+            } else if (!get(i).equals(tuple.get(i))) {
+                return false;
+            }
+        }
+        return true;
     }
 
+    // Same value as asList().hashCode(), without materialising the list or formatting integer fields.
     @Override
     public int hashCode() {
-        return values.hashCode();
+        int h = 1;
+        for (int i = 0; i < size(); i++) {
+            h = 31 * h + (parsedInteger(i) ? decimalHash(integer(i)) : get(i).hashCode());
+        }
+        return h;
+    }
+
+    // String.hashCode() of Long.toString(v).
+    static int decimalHash(long v) {
+        int h = 0;
+        // Work with a non-positive value so that Long.MIN_VALUE needs no special case
+        long n = v;
+        if (v < 0) h = '-';
+        else n = -v;
+
+        long pow = 1;
+        while (n / pow <= -10) pow *= 10;
+        for (; pow > 0; pow /= 10) {
+            h = 31 * h + ('0' - (int) ((n / pow) % 10));
+        }
+        return h;
     }
-}
\ No newline at end of file
+}
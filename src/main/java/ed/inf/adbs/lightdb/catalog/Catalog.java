@@ -13,7 +13,9 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.concurrent.locks.ReentrantReadWriteLock;;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import ed.inf.adbs.lightdb.index.IndexBuilder;
 
 /**
  * Singleton class managing the database catalog, which tracks metadata about tables (e.g. their schema and data file location).
@@ -32,6 +34,8 @@ public final class Catalog {
 
     private final Map<Long, TableMeta> tablesById = new HashMap<>();
     private final Map<String, Long> idByName = new HashMap<>();
+    private final Map<Long, TableStats> statsById = new HashMap<>();
+    private final Map<Long, List<IndexMeta>> indexesById = new HashMap<>();
 
     private long lastTableId = 0L;
 
@@ -70,6 +74,11 @@ public final class Catalog {
         return dbRoot;
     }
 
+    // Directory holding files owned by the catalog (created tables and converted storage copies).
+    public Path getTablesDir() {
+        return tablesDir;
+    }
+
     public Optional<TableMeta> getTable(String tableName){
         if (tableName == null) throw new NullPointerException("tableName cannot be null");
         String norm = normaliseName(tableName);
@@ -197,6 +206,8 @@ public final class Catalog {
             if (id == null) return;
 
             removed = tablesById.remove(id);
+            statsById.remove(id);
+            indexesById.remove(id);
             flushInternal();
         } finally {
             rwLock.writeLock().unlock();
@@ -207,6 +218,171 @@ public final class Catalog {
         }
     }
 
+    // Records a new physical storage for an existing table (e.g. after converting its CSV to a columnar copy).
+    // The logical schema and source data file are unchanged.
+
+    public TableMeta updateTableStorage(String tableName, StorageFormat format, Path storageFile) throws IOException {
+        if (tableName == null) throw new NullPointerException("tableName");
+        if (format == null) throw new NullPointerException("format");
+        if (storageFile == null) throw new NullPointerException("storageFile");
+        String norm = normaliseName(tableName);
+
+        rwLock.writeLock().lock();
+        try {
+            Long id = idByName.get(norm);
+            if (id == null) {
+                throw new IllegalArgumentException("Table not found in catalog: " + tableName);
+            }
+
+            TableMeta updated = tablesById.get(id).withStorage(format, storageFile.toString());
+            tablesById.put(id, updated);
+
+            flushInternal();
+            return updated;
+        } finally {
+            rwLock.writeLock().unlock();
+        }
+    }
+
+    // Records new column types (and nullability) for an existing table. The column names and their order must not change.
+
+    public TableMeta updateTableColumns(String tableName, List<ColumnMeta> columns) throws IOException {
+        if (tableName == null) throw new NullPointerException("tableName");
+        if (columns == null) throw new NullPointerException("columns");
+        String norm = normaliseName(tableName);
+
+        rwLock.writeLock().lock();
+        try {
+            Long id = idByName.get(norm);
+            if (id == null) {
+                throw new IllegalArgumentException("Table not found in catalog: " + tableName);
+            }
+
+            TableMeta current = tablesById.get(id);
+            List<ColumnMeta> old = current.getColumns();
+            boolean changed = false;
+            if (old.size() != columns.size()) {
+                throw new IllegalArgumentException("Column count mismatch for table '" + tableName + "'");
+            }
+            for (int i = 0; i < old.size(); i++) {
+                if (!old.get(i).getName().equals(columns.get(i).getName())) {
+                    throw new IllegalArgumentException("Column name mismatch for table '" + tableName + "': "
+                            + old.get(i).getName() + " vs " + columns.get(i).getName());
+                }
+                changed |= old.get(i).getType() != columns.get(i).getType()
+                        || old.get(i).isNullable() != columns.get(i).isNullable();
+            }
+            if (!changed) return current;
+
+            TableMeta updated = current.withColumns(new ArrayList<>(columns));
+            tablesById.put(id, updated);
+
+            flushInternal();
+            return updated;
+        } finally {
+            rwLock.writeLock().unlock();
+        }
+    }
+
+    // Returns the statistics recorded by the last analyzeTable call for the table, if any.
+    // They may be stale if the CSV changed since (see TableStats.isFreshFor).
+
+    public Optional<TableStats> getTableStats(String tableName) {
+        if (tableName == null) throw new NullPointerException("tableName cannot be null");
+        String norm = normaliseName(tableName);
+
+        rwLock.readLock().lock();
+        try {
+            Long id = idByName.get(norm);
+            return (id == null) ? Optional.<TableStats>empty() : Optional.ofNullable(statsById.get(id));
+        } finally {
+            rwLock.readLock().unlock();
+        }
+    }
+
+    // Gathers fresh statistics for the table (a full pass over its CSV) and records them in the catalog.
+    // The pass runs without holding the catalog lock.
+
+    public TableStats analyzeTable(String tableName) throws IOException {
+        TableMeta meta = getTable(tableName)
+                .orElseThrow(() -> new IllegalArgumentException("Table not found in catalog: " + tableName));
+
+        TableStats stats = TableAnalyser.analyse(meta);
+
+        rwLock.writeLock().lock();
+        try {
+            if (!tablesById.containsKey(meta.getTableId())) {
+                throw new IllegalArgumentException("Table was dropped while being analysed: " + tableName);
+            }
+            statsById.put(meta.getTableId(), stats);
+
+            flushInternal();
+            return stats;
+        } finally {
+            rwLock.writeLock().unlock();
+        }
+    }
+
+    // Returns the secondary indexes registered on the table.
+
+    public List<IndexMeta> getIndexes(String tableName) {
+        if (tableName == null) throw new NullPointerException("tableName cannot be null");
+        String norm = normaliseName(tableName);
+
+        rwLock.readLock().lock();
+        try {
+            Long id = idByName.get(norm);
+            List<IndexMeta> list = (id == null) ? null : indexesById.get(id);
+            return (list == null) ? Collections.<IndexMeta>emptyList() : new ArrayList<>(list);
+        } finally {
+            rwLock.readLock().unlock();
+        }
+    }
+
+    // Returns the index of the given type on the column, if one is registered (it may be stale, see IndexMeta.isFreshFor).
+
+    public Optional<IndexMeta> getIndex(String tableName, String columnName, IndexType type) {
+        if (columnName == null) throw new NullPointerException("columnName cannot be null");
+        String col = normaliseName(columnName);
+        for (IndexMeta index : getIndexes(tableName)) {
+            if (index.getColumnName().equals(col) && index.getType() == type) return Optional.of(index);
+        }
+        return Optional.empty();
+    }
+
+    // Makes sure an up-to-date index of the given type exists on the column, building (or rebuilding) it from the
+    // table's CSV into the tables directory if necessary. The build runs without holding the catalog lock.
+
+    public IndexMeta ensureIndex(String tableName, String columnName, IndexType type) throws IOException {
+        if (type == null) throw new NullPointerException("type");
+        TableMeta meta = getTable(tableName)
+                .orElseThrow(() -> new IllegalArgumentException("Table not found in catalog: " + tableName));
+
+        Optional<IndexMeta> existing = getIndex(tableName, columnName, type);
+        if (existing.isPresent() && existing.get().isFreshFor(Paths.get(meta.getDataFile()))) {
+            return existing.get();
+        }
+
+        Path indexFile = tablesDir.resolve(meta.getTableId() + "_" + meta.getName() + "_"
+                + normaliseName(columnName) + "." + type.name().toLowerCase());
+        IndexMeta built = IndexBuilder.build(meta, columnName, type, indexFile);
+
+        rwLock.writeLock().lock();
+        try {
+            if (!tablesById.containsKey(meta.getTableId())) {
+                throw new IllegalArgumentException("Table was dropped while being indexed: " + tableName);
+            }
+            List<IndexMeta> list = indexesById.computeIfAbsent(meta.getTableId(), k -> new ArrayList<>());
+            list.removeIf(i -> i.getColumnName().equals(built.getColumnName()) && i.getType() == type);
+            list.add(built);
+
+            flushInternal();
+            return built;
+        } finally {
+            rwLock.writeLock().unlock();
+        }
+    }
+
     // Flushes the catalog to disk. Should be called after any changes to ensure durability.
     //Hopefully works well with concurrent readers <3
     public void flush() throws IOException {
@@ -231,15 +407,23 @@ public final class Catalog {
         this.lastTableId = snap.getLastTableId();
         this.tablesById.clear();
         this.idByName.clear();
+        this.statsById.clear();
+        this.indexesById.clear();
 
         for (TableMeta table : snap.getTables()) {
             tablesById.put(table.getTableId(), table);
             idByName.put(normaliseName(table.getName()), table.getTableId());
         }
+        for (Map.Entry<Long, TableStats> e : snap.getStats().entrySet()) {
+            if (tablesById.containsKey(e.getKey())) statsById.put(e.getKey(), e.getValue());
+        }
+        for (Map.Entry<Long, List<IndexMeta>> e : snap.getIndexes().entrySet()) {
+            if (tablesById.containsKey(e.getKey())) indexesById.put(e.getKey(), new ArrayList<>(e.getValue()));
+        }
     }
 
     private void flushInternal() throws IOException {
-        CatalogSnapshot snap = new CatalogSnapshot(lastTableId, new ArrayList<>(tablesById.values()));
+        CatalogSnapshot snap = new CatalogSnapshot(lastTableId, new ArrayList<>(tablesById.values()), statsById, indexesById);
 
         Path tmp = catalogFile.resolveSibling(catalogFile.getFileName().toString() + ".tmp");
 
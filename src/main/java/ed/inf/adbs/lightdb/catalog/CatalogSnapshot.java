@@ -1,16 +1,37 @@
 package ed.inf.adbs.lightdb.catalog;
 
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 
 public final class CatalogSnapshot {
     private final long lastTableId;
     private final List<TableMeta> tables;
+    private final Map<Long, TableStats> stats;
+    private final Map<Long, List<IndexMeta>> indexes;
 
     public CatalogSnapshot(long lastTableId, List<TableMeta> tables) {
+        this(lastTableId, tables, Collections.<Long, TableStats>emptyMap());
+    }
+
+    public CatalogSnapshot(long lastTableId, List<TableMeta> tables, Map<Long, TableStats> stats) {
+        this(lastTableId, tables, stats, Collections.<Long, List<IndexMeta>>emptyMap());
+    }
+
+    public CatalogSnapshot(long lastTableId, List<TableMeta> tables, Map<Long, TableStats> stats,
+                           Map<Long, List<IndexMeta>> indexes) {
         this.lastTableId = lastTableId;
         this.tables = Collections.unmodifiableList(Objects.requireNonNull(tables,"tables cannot be null"));
+        this.stats = Collections.unmodifiableMap(new HashMap<Long, TableStats>(Objects.requireNonNull(stats, "stats cannot be null")));
+
+        Map<Long, List<IndexMeta>> idx = new HashMap<Long, List<IndexMeta>>();
+        for (Map.Entry<Long, List<IndexMeta>> e : Objects.requireNonNull(indexes, "indexes cannot be null").entrySet()) {
+            idx.put(e.getKey(), Collections.unmodifiableList(new ArrayList<IndexMeta>(e.getValue())));
+        }
+        this.indexes = Collections.unmodifiableMap(idx);
     }
 
     public long getLastTableId() {
@@ -19,5 +40,15 @@ public final class CatalogSnapshot {
     public List<TableMeta> getTables() {
         return tables;
     }
+
+    // Statistics of analysed tables, keyed by table id.
+    public Map<Long, TableStats> getStats() {
+        return stats;
+    }
+
+    // Secondary indexes, keyed by the id of the indexed table.
+    public Map<Long, List<IndexMeta>> getIndexes() {
+        return indexes;
+    }
     
 }
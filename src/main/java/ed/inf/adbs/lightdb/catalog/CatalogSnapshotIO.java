@@ -3,19 +3,41 @@ package ed.inf.adbs.lightdb.catalog;
 import java.io.*;
 import java.nio.file.*;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 public final class CatalogSnapshotIO {
+    // Versioned snapshots start with this marker. Legacy (version 1) snapshots start directly with the
+    // lastTableId long, whose high 32 bits are always zero, so the two layouts cannot be confused.
+    private static final int MAGIC = 0x4C444243; // "LDBC"
+    private static final int LEGACY_VERSION = 1;
+    private static final int CURRENT_VERSION = 5;
+
     private CatalogSnapshotIO() {
         // Prevent instantiation
     }
 
-    // Implementation for reading a CatalogSnapshot from the file. It reads the snapshot data in a binary format that 
+    // Implementation for reading a CatalogSnapshot from the file. It reads the snapshot data in a binary format that
     // matches the write method.
     public static CatalogSnapshot read(Path file) throws IOException {
         // Implementation for reading a CatalogSnapshot from the file
         try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))){
-            long lastId = in.readLong();
+            int version;
+            long lastId;
+
+            int head = in.readInt();
+            if (head == MAGIC) {
+                version = in.readInt();
+                if (version > CURRENT_VERSION) {
+                    throw new IOException("Unsupported catalog snapshot version " + version + " in " + file);
+                }
+                lastId = in.readLong();
+            } else {
+                version = LEGACY_VERSION;
+                lastId = ((long) head << 32) | (in.readInt() & 0xFFFFFFFFL);
+            }
+
             int nTables = in.readInt();
 
             List<TableMeta> tables = new ArrayList<>();
@@ -23,6 +45,14 @@ public final class CatalogSnapshotIO {
                 long tableId = in.readLong();
                 String tableName = in.readUTF();
                 String dataFile = in.readUTF();
+
+                StorageFormat storageFormat = StorageFormat.CSV;
+                String storageFile = dataFile;
+                if (version >= 2) {
+                    storageFormat = StorageFormat.valueOf(in.readUTF());
+                    storageFile = in.readUTF();
+                }
+
                 int nColumns = in.readInt();
 
                 List<ColumnMeta> columns = new ArrayList<>();
@@ -33,20 +63,42 @@ public final class CatalogSnapshotIO {
                     columns.add(new ColumnMeta(colName, colType, nullable));
                 }
 
-                tables.add(new TableMeta(tableId, tableName, columns, dataFile));
+                tables.add(new TableMeta(tableId, tableName, columns, dataFile, storageFormat, storageFile));
 
             }
 
-            return new CatalogSnapshot(lastId, tables);
+            Map<Long, TableStats> stats = new HashMap<>();
+            if (version >= 3) {
+                int nStats = in.readInt();
+                for (int i = 0; i < nStats; i++) {
+                    long tableId = in.readLong();
+                    stats.put(tableId, readStats(in, version));
+                }
+            }
+
+            Map<Long, List<IndexMeta>> indexes = new HashMap<>();
+            if (version >= 4) {
+                int nIndexes = in.readInt();
+                for (int i = 0; i < nIndexes; i++) {
+                    long tableId = in.readLong();
+                    IndexMeta index = new IndexMeta(in.readUTF(), in.readUTF(), IndexType.valueOf(in.readUTF()),
+                            in.readUTF(), in.readLong(), in.readLong());
+                    indexes.computeIfAbsent(tableId, k -> new ArrayList<>()).add(index);
+                }
+            }
+
+            return new CatalogSnapshot(lastId, tables, stats, indexes);
         }
     }
 
-    // Implementation for writing a CatalogSnapshot to the file. It creates the parent directories if they don't exist, 
+    // Implementation for writing a CatalogSnapshot to the file. It creates the parent directories if they don't exist,
     // and writes the snapshot data in a binary format that matches the read method.
     public static void write(Path file, CatalogSnapshot snap) throws IOException{
         Files.createDirectories(file.getParent());
 
         try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(CURRENT_VERSION);
             out.writeLong(snap.getLastTableId());
             List<TableMeta> tables = snap.getTables();
             out.writeInt(tables.size());
@@ -55,6 +107,8 @@ public final class CatalogSnapshotIO {
                 out.writeLong(table.getTableId());
                 out.writeUTF(table.getName());
                 out.writeUTF(table.getDataFile());
+                out.writeUTF(table.getStorageFormat().name());
+                out.writeUTF(table.getStorageFile());
                 List<ColumnMeta> columns = table.getColumns();
                 out.writeInt(columns.size());
 
@@ -65,8 +119,82 @@ public final class CatalogSnapshotIO {
                 }
             }
 
+            out.writeInt(snap.getStats().size());
+            for (Map.Entry<Long, TableStats> e : snap.getStats().entrySet()) {
+                out.writeLong(e.getKey());
+                writeStats(out, e.getValue());
+            }
+
+            int nIndexes = 0;
+            for (List<IndexMeta> list : snap.getIndexes().values()) nIndexes += list.size();
+            out.writeInt(nIndexes);
+            for (Map.Entry<Long, List<IndexMeta>> e : snap.getIndexes().entrySet()) {
+                for (IndexMeta index : e.getValue()) {
+                    out.writeLong(e.getKey());
+                    out.writeUTF(index.getTableName());
+                    out.writeUTF(index.getColumnName());
+                    out.writeUTF(index.getType().name());
+                    out.writeUTF(index.getIndexFile());
+                    out.writeLong(index.getSourceSize());
+                    out.writeLong(index.getSourceModified());
+                }
+            }
+
             out.flush();
         }
     }
-    
+
+    private static TableStats readStats(DataInputStream in, int version) throws IOException {
+        long rowCount = in.readLong();
+        long sourceSize = in.readLong();
+        long sourceModified = in.readLong();
+
+        int nColumns = in.readInt();
+        List<ColumnStats> columns = new ArrayList<>(nColumns);
+        for (int j = 0; j < nColumns; j++) {
+            String name = in.readUTF();
+            long nullCount = in.readLong();
+            long distinctCount = in.readLong();
+            boolean integer = in.readBoolean();
+            DataType type = (version >= 5) ? DataType.valueOf(in.readUTF()) : null;
+            String min = in.readBoolean() ? in.readUTF() : null;
+            String max = in.readBoolean() ? in.readUTF() : null;
+
+            long[] histogram = new long[in.readInt()];
+            for (int k = 0; k < histogram.length; k++) histogram[k] = in.readLong();
+
+            // Older snapshots only recorded whether the column is integer
+            columns.add((type == null)
+                    ? new ColumnStats(name, nullCount, distinctCount, integer, min, max, histogram)
+                    : new ColumnStats(name, nullCount, distinctCount, type, min, max, histogram));
+        }
+        return new TableStats(rowCount, sourceSize, sourceModified, columns);
+    }
+
+    private static void writeStats(DataOutputStream out, TableStats stats) throws IOException {
+        out.writeLong(stats.getRowCount());
+        out.writeLong(stats.getSourceSize());
+        out.writeLong(stats.getSourceModified());
+
+        out.writeInt(stats.getColumns().size());
+        for (ColumnStats c : stats.getColumns()) {
+            out.writeUTF(c.getName());
+            out.writeLong(c.getNullCount());
+            out.writeLong(c.getDistinctCount());
+            out.writeBoolean(c.isInteger());
+            out.writeUTF(c.getType().name());
+            writeOptionalUTF(out, c.getMin());
+            writeOptionalUTF(out, c.getMax());
+
+            long[] histogram = c.getHistogram();
+            out.writeInt(histogram.length);
+            for (long bound : histogram) out.writeLong(bound);
+        }
+    }
+
+    private static void writeOptionalUTF(DataOutputStream out, String s) throws IOException {
+        out.writeBoolean(s != null);
+        if (s != null) out.writeUTF(s);
+    }
+
 }
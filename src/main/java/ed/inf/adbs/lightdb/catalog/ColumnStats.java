@@ -0,0 +1,139 @@
+package ed.inf.adbs.lightdb.catalog;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Statistics about the values of one column, gathered by TableAnalyser.
+ *
+ * Empty fields count as nulls. The distinct count is an estimate. For integer columns (every non-null value is an
+ * integer) min/max are compared numerically and an equi-depth histogram is kept: histogram[0] is the minimum,
+ * histogram[k] the maximum, and each of the k buckets in between holds roughly the same number of values.
+ * Other columns keep min/max in string order and have no histogram.
+ * The type is the narrowest DataType that every non-null value of the column parses to without loss (STRING if
+ * there are no non-null values); it is what SchemaLoader assigns to columns whose type is not declared.
+ */
+
+public final class ColumnStats {
+    private final String name;
+    private final long nullCount;
+    private final long distinctCount;
+    private final DataType type;
+    private final String min;
+    private final String max;
+    private final long[] histogram;
+
+    public ColumnStats(String name, long nullCount, long distinctCount, boolean integer,
+                       String min, String max, long[] histogram) {
+        this(name, nullCount, distinctCount, integer ? integerType(min, max) : DataType.STRING, min, max, histogram);
+    }
+
+    public ColumnStats(String name, long nullCount, long distinctCount, DataType type,
+                       String min, String max, long[] histogram) {
+        this.name = Objects.requireNonNull(name, "name cannot be null");
+        this.nullCount = nullCount;
+        this.distinctCount = distinctCount;
+        this.type = Objects.requireNonNull(type, "type cannot be null");
+        this.min = min;
+        this.max = max;
+        this.histogram = (histogram == null) ? new long[0] : histogram.clone();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getNullCount() {
+        return nullCount;
+    }
+
+    public long getDistinctCount() {
+        return distinctCount;
+    }
+
+    // True if every non-null value of the column is an integer.
+    public boolean isInteger() {
+        return type == DataType.INT || type == DataType.LONG;
+    }
+
+    public DataType getType() {
+        return type;
+    }
+
+    // Smallest non-null value, or null if the column has no non-null values.
+    public String getMin() {
+        return min;
+    }
+
+    // Largest non-null value, or null if the column has no non-null values.
+    public String getMax() {
+        return max;
+    }
+
+    public long[] getHistogram() {
+        return histogram.clone();
+    }
+
+    // Estimated fraction of the non-null values equal to a given value (uniform over the distinct values).
+    public double equalitySelectivity() {
+        return distinctCount == 0 ? 0.0 : 1.0 / distinctCount;
+    }
+
+    // Estimated fraction of the non-null values strictly below the given value, interpolating within histogram buckets.
+    public double fractionBelow(long value) {
+        if (histogram.length < 2) return 0.5;
+        if (value <= histogram[0]) return 0.0;
+        if (value > histogram[histogram.length - 1]) return 1.0;
+
+        int buckets = histogram.length - 1;
+        for (int b = 0; b < buckets; b++) {
+            long lo = histogram[b];
+            long hi = histogram[b + 1];
+            if (value <= hi) {
+                double within = (hi == lo) ? 0.0 : (double) (value - lo) / (double) (hi - lo);
+                return (b + within) / buckets;
+            }
+        }
+        return 1.0;
+    }
+
+    // INT if both bounds fit in an int, LONG otherwise.
+    private static DataType integerType(String min, String max) {
+        if (min == null || max == null) return DataType.LONG;
+        long lo = Long.parseLong(min);
+        long hi = Long.parseLong(max);
+        return (lo >= Integer.MIN_VALUE && hi <= Integer.MAX_VALUE) ? DataType.INT : DataType.LONG;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof ColumnStats)) return false;
+        ColumnStats that = (ColumnStats) o;
+        return nullCount == that.nullCount
+                && distinctCount == that.distinctCount
+                && type == that.type
+                && name.equals(that.name)
+                && Objects.equals(min, that.min)
+                && Objects.equals(max, that.max)
+                && Arrays.equals(histogram, that.histogram);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(name, nullCount, distinctCount, type, min, max) * 31 + Arrays.hashCode(histogram);
+    }
+
+    @Override
+    public String toString() {
+        return "ColumnStats{" +
+                "name='" + name + '\'' +
+                ", nullCount=" + nullCount +
+                ", distinctCount=" + distinctCount +
+                ", type=" + type +
+                ", min=" + min +
+                ", max=" + max +
+                ", histogram=" + Arrays.toString(histogram) +
+                '}';
+    }
+}
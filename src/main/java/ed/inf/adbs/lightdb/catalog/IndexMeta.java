@@ -0,0 +1,101 @@
+package ed.inf.adbs.lightdb.catalog;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Locale;
+import java.util.Objects;
+
+/**
+ * Immutable metadata about a secondary index: the indexed table and column, the index type and its file.
+ * The size and modification time of the table's CSV at build time are recorded so that the planner can tell
+ * whether the index still describes the data (see isFreshFor).
+ */
+
+public final class IndexMeta {
+    private final String tableName;
+    private final String columnName;
+    private final IndexType type;
+    private final String indexFile;
+    private final long sourceSize;
+    private final long sourceModified;
+
+    public IndexMeta(String tableName, String columnName, IndexType type, String indexFile,
+                     long sourceSize, long sourceModified) {
+        this.tableName = norm(Objects.requireNonNull(tableName, "tableName cannot be null"));
+        this.columnName = norm(Objects.requireNonNull(columnName, "columnName cannot be null"));
+        this.type = Objects.requireNonNull(type, "type cannot be null");
+        this.indexFile = Objects.requireNonNull(indexFile, "indexFile cannot be null");
+        this.sourceSize = sourceSize;
+        this.sourceModified = sourceModified;
+    }
+
+    public String getTableName() {
+        return tableName;
+    }
+
+    public String getColumnName() {
+        return columnName;
+    }
+
+    public IndexType getType() {
+        return type;
+    }
+
+    public String getIndexFile() {
+        return indexFile;
+    }
+
+    public long getSourceSize() {
+        return sourceSize;
+    }
+
+    public long getSourceModified() {
+        return sourceModified;
+    }
+
+    // True if the index was built from the current contents of the CSV.
+    public boolean isFreshFor(Path csv) {
+        try {
+            return Files.isRegularFile(Paths.get(indexFile))
+                    && Files.isRegularFile(csv)
+                    && sourceSize == Files.size(csv)
+                    && sourceModified == Files.getLastModifiedTime(csv).toMillis();
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof IndexMeta)) return false;
+        IndexMeta that = (IndexMeta) o;
+        return sourceSize == that.sourceSize
+                && sourceModified == that.sourceModified
+                && tableName.equals(that.tableName)
+                && columnName.equals(that.columnName)
+                && type == that.type
+                && indexFile.equals(that.indexFile);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(tableName, columnName, type, indexFile, sourceSize, sourceModified);
+    }
+
+    @Override
+    public String toString() {
+        return "IndexMeta{" +
+                "table='" + tableName + '\'' +
+                ", column='" + columnName + '\'' +
+                ", type=" + type +
+                ", indexFile='" + indexFile + '\'' +
+                '}';
+    }
+
+    private static String norm(String s) {
+        return s.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,14 @@
+package ed.inf.adbs.lightdb.catalog;
+
+/**
+ * Kinds of secondary index that can be built on a table column.
+ * BTREE is a disk-resident B+-tree over an integer column, supporting equality and range lookups.
+ * HASH is a memory-mapped static hash table over an integer column, supporting equality lookups only.
+ * BITMAP keeps a compressed bitmap of rows per distinct value, meant for low-cardinality columns; bitmaps of several
+ * predicates can be combined before any row is read.
+ */
+public enum IndexType {
+    BTREE,
+    HASH,
+    BITMAP
+}
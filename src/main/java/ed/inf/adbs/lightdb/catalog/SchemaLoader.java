@@ -6,6 +6,12 @@ import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
+
+import ed.inf.adbs.lightdb.storage.ColumnarTable;
+import ed.inf.adbs.lightdb.storage.ColumnarTableWriter;
+import ed.inf.adbs.lightdb.storage.HeapFile;
+import ed.inf.adbs.lightdb.storage.HeapFileWriter;
 
 public final class SchemaLoader {
     private SchemaLoader() {}
@@ -14,20 +20,42 @@ public final class SchemaLoader {
      * Loads the schema from the specified schema file and data directory into the Catalog.
      * The schema file should have lines in the format:
      * "TableName Column1 Column2 Column3"
+     * where a column may declare its type as "Column:TYPE" (INT, LONG, DOUBLE, STRING or BOOLEAN).
      * For each table, it checks if the table already exists in the Catalog. If not, 
      * it registers the new table with the parsed columns and expected CSV file path. 
      * If it does exist, it verifies that the existing schema matches the parsed schema and expected data file path,
      *  throwing an exception if there is a mismatch.
+     * Once the table's statistics are up to date, every column gets its declared type, or the type inferred by
+     * TableAnalyser if none is declared. A declared type that the data does not fit is rejected.
      * @param schemaFile
      * @param dataDir
      * @throws IOException
      */
 
     public static void loadIntoCatalog(Path schemaFile, Path dataDir) throws IOException {
+        loadIntoCatalog(schemaFile, dataDir, StorageFormat.CSV);
+    }
+
+    /**
+     * Same as loadIntoCatalog(schemaFile, dataDir), but additionally makes sure every table is stored in the requested format.
+     * For COLUMNAR, each CSV is converted once into a columnar copy under the catalog's tables directory and the Catalog records
+     * it as the table's storage. Later loads reuse the copy as long as the CSV has not changed since it was produced.
+     * For CSV, any recorded columnar copy that no longer matches its CSV is dropped in favour of the CSV itself.
+     * In every case, tables without up-to-date statistics are analysed (see Catalog.analyzeTable).
+     * @param schemaFile
+     * @param dataDir
+     * @param format
+     * @throws IOException
+     */
+
+    public static void loadIntoCatalog(Path schemaFile, Path dataDir, StorageFormat format) throws IOException {
 
         if (schemaFile == null || dataDir == null) {
             throw new IllegalArgumentException("schemaFile and dataDir must not be null");
         }
+        if (format == null) {
+            throw new IllegalArgumentException("format must not be null");
+        }
 
         Catalog catalog = Catalog.getInstance();
 
@@ -46,11 +74,20 @@ public final class SchemaLoader {
                 String tableName = parts[0].trim();
 
                 List<ColumnMeta> cols = new ArrayList<ColumnMeta>(parts.length - 1);
+                List<DataType> declared = new ArrayList<DataType>(parts.length - 1);
                 for (int i = 1; i < parts.length; i++) {
                     String colName = parts[i].trim();
-                    if (!colName.isEmpty()) {
-                        cols.add(new ColumnMeta(colName, DataType.STRING, true));
+                    if (colName.isEmpty()) continue;
+
+                    // "Name:TYPE" declares the type; otherwise it is inferred from the data
+                    DataType type = null;
+                    int colon = colName.indexOf(':');
+                    if (colon >= 0) {
+                        type = parseType(colName.substring(colon + 1), line);
+                        colName = colName.substring(0, colon);
                     }
+                    cols.add(new ColumnMeta(colName, DataType.STRING, true));
+                    declared.add(type);
                 }
 
                 if (cols.isEmpty()) {
@@ -63,7 +100,7 @@ public final class SchemaLoader {
                 TableMeta existing = catalog.getTable(tableName).orElse(null);
 
                 if (existing == null) {
-                    catalog.registerTable(tableName, cols, expectedCsv);
+                    existing = catalog.registerTable(tableName, cols, expectedCsv);
                 } else {
                     if (!sameColumns(existing.getColumns(), cols)) {
                         throw new IllegalStateException(
@@ -82,19 +119,100 @@ public final class SchemaLoader {
                         );
                     }
                 }
+
+                applyStorageFormat(catalog, existing, format);
+
+                // (Re)analyse tables whose statistics are missing or predate the current CSV
+                TableStats stats = catalog.getTableStats(tableName).orElse(null);
+                if (stats == null || !stats.isFreshFor(expectedCsv)) {
+                    stats = catalog.analyzeTable(tableName);
+                }
+
+                catalog.updateTableColumns(tableName, resolveTypes(tableName, cols, declared, stats));
+            }
+        }
+    }
+
+    // Brings the recorded storage of a table in line with the requested format, converting the CSV if needed.
+    private static void applyStorageFormat(Catalog catalog, TableMeta meta, StorageFormat format) throws IOException {
+        Path csv = Paths.get(meta.getDataFile());
+
+        if (format != StorageFormat.CSV) {
+            String suffix = (format == StorageFormat.COLUMNAR) ? ".col" : ".heap";
+            Path target = catalog.getTablesDir().resolve(meta.getTableId() + "_" + meta.getName() + suffix);
+
+            if (meta.getStorageFormat() == format
+                    && Paths.get(meta.getStorageFile()).equals(target)
+                    && isFresh(format, target, csv)) {
+                return;
+            }
+
+            List<String> names = new ArrayList<String>(meta.getColumns().size());
+            for (ColumnMeta c : meta.getColumns()) names.add(c.getName());
+
+            if (format == StorageFormat.COLUMNAR) {
+                ColumnarTableWriter.convert(csv, names, target);
+            } else {
+                HeapFileWriter.convert(csv, names, target);
+            }
+            catalog.updateTableStorage(meta.getName(), format, target);
+            return;
+        }
+
+        if (meta.getStorageFormat() != StorageFormat.CSV
+                && !isFresh(meta.getStorageFormat(), Paths.get(meta.getStorageFile()), csv)) {
+            catalog.updateTableStorage(meta.getName(), StorageFormat.CSV, csv);
+        }
+    }
+
+    // The column types to record: the declared type where there is one, otherwise the inferred type.
+    private static List<ColumnMeta> resolveTypes(String tableName, List<ColumnMeta> cols, List<DataType> declared,
+                                                 TableStats stats) {
+        List<ColumnMeta> out = new ArrayList<ColumnMeta>(cols.size());
+        for (int i = 0; i < cols.size(); i++) {
+            ColumnStats cs = stats.getColumns().get(i);
+            DataType inferred = cs.getType();
+            DataType type = declared.get(i);
+            boolean allNull = cs.getNullCount() == stats.getRowCount();
+
+            if (type == null) {
+                type = inferred;
+            } else if (!allNull && !fits(inferred, type)) {
+                throw new IllegalStateException("Column " + tableName + "." + cols.get(i).getName()
+                        + " is declared " + type + " but holds " + inferred + " values");
             }
+            out.add(new ColumnMeta(cols.get(i).getName(), type, true));
         }
+        return out;
+    }
+
+    // True if every value of an inferred type can be stored in a column of the declared type and print back as the
+    // original field. Integers do not fit DOUBLE: "2" would print back as "2.0".
+    private static boolean fits(DataType inferred, DataType declared) {
+        if (declared == DataType.STRING || declared == inferred) return true;
+        return declared == DataType.LONG && inferred == DataType.INT;
+    }
+
+    private static DataType parseType(String name, String line) throws IOException {
+        try {
+            return DataType.valueOf(name.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Unknown column type '" + name + "' in schema line: " + line);
+        }
+    }
+
+    // True if the converted copy of the given format was produced from the current contents of the CSV.
+    private static boolean isFresh(StorageFormat format, Path copy, Path csv) {
+        return (format == StorageFormat.COLUMNAR) ? ColumnarTable.isFresh(copy, csv) : HeapFile.isFresh(copy, csv);
     }
     
     // Helper method to compare two lists of ColumnMeta for equality. 
-    // This checks that the columns have the same names, types, and nullability in the same order.
+    // This checks that the columns have the same names in the same order; types are re-resolved on every load.
     
     private static boolean sameColumns(List<ColumnMeta> a, List<ColumnMeta> b) {
         if (a.size() != b.size()) return false;
         for (int i = 0; i < a.size(); i++) {
             if (!a.get(i).getName().equals(b.get(i).getName())) return false;
-            if (a.get(i).getType() != b.get(i).getType()) return false;
-            if (a.get(i).isNullable() != b.get(i).isNullable()) return false;
         }
         return true;
     }
@@ -0,0 +1,13 @@
+package ed.inf.adbs.lightdb.catalog;
+
+/**
+ * Physical layout of a table's rows on disk.
+ * CSV is the original comma-separated text file referenced by TableMeta.getDataFile().
+ * COLUMNAR is a binary per-column copy produced once from the CSV by SchemaLoader.
+ * HEAP is a slotted-page copy produced once from the CSV by SchemaLoader and read through the shared BufferPool.
+ */
+public enum StorageFormat {
+    CSV,
+    COLUMNAR,
+    HEAP
+}
@@ -0,0 +1,213 @@
+package ed.inf.adbs.lightdb.catalog;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import ed.inf.adbs.lightdb.storage.CsvRows;
+
+/**
+ * TableAnalyser gathers TableStats for a table in a single sequential pass over its CSV file (an ANALYZE).
+ *
+ * Row count, null count and min/max are exact. The distinct count is estimated with a HyperLogLog sketch, and the
+ * equi-depth histogram of an integer column is built from a fixed-size uniform reservoir sample, so memory use does
+ * not grow with the table.
+ * Each column's type is inferred along the way: INT or LONG if every value is a canonical integer, BOOLEAN if every
+ * value is "true" or "false", DOUBLE if every value is a canonical double (as printed by Double.toString), and STRING
+ * otherwise. Only canonical values qualify, so a typed value always prints back as the original field.
+ */
+
+public final class TableAnalyser {
+    static final int HISTOGRAM_BUCKETS = 16;
+    static final int SAMPLE_SIZE = 10_000;
+
+    private TableAnalyser() {}
+
+    public static TableStats analyse(TableMeta meta) throws IOException {
+        if (meta == null) throw new NullPointerException("meta");
+
+        Path csv = Paths.get(meta.getDataFile());
+        long sourceSize = Files.size(csv);
+        long sourceModified = Files.getLastModifiedTime(csv).toMillis();
+
+        int nCols = meta.getColumns().size();
+        ColumnAccumulator[] acc = new ColumnAccumulator[nCols];
+        Random random = new Random(meta.getTableId());
+        for (int c = 0; c < nCols; c++) acc[c] = new ColumnAccumulator(random);
+
+        long rowCount = 0;
+        try (BufferedReader reader = Files.newBufferedReader(csv, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] values = CsvRows.split(line);
+                if (values.length != nCols) {
+                    throw new IOException("Row " + rowCount + " of " + csv + " has " + values.length
+                            + " values but the schema has " + nCols + " columns");
+                }
+                for (int c = 0; c < nCols; c++) acc[c].add(values[c]);
+                rowCount++;
+            }
+        }
+
+        List<ColumnStats> columns = new ArrayList<ColumnStats>(nCols);
+        for (int c = 0; c < nCols; c++) {
+            columns.add(acc[c].finish(meta.getColumns().get(c).getName()));
+        }
+        return new TableStats(rowCount, sourceSize, sourceModified, columns);
+    }
+
+    /**
+     * Running statistics of one column.
+     */
+    private static final class ColumnAccumulator {
+        private final Random random;
+        private final HyperLogLog distinct = new HyperLogLog();
+
+        private long nullCount;
+        private long nonNull;
+
+        private boolean integer = true;
+        private boolean bool = true;
+        private boolean dbl = true;
+        private long minLong = Long.MAX_VALUE;
+        private long maxLong = Long.MIN_VALUE;
+        private String minString;
+        private String maxString;
+
+        private long[] sample = new long[SAMPLE_SIZE];
+        private int sampled;
+
+        ColumnAccumulator(Random random) {
+            this.random = random;
+        }
+
+        void add(String value) {
+            if (value.isEmpty()) {
+                nullCount++;
+                return;
+            }
+            nonNull++;
+            distinct.add(value);
+
+            if (minString == null || value.compareTo(minString) < 0) minString = value;
+            if (maxString == null || value.compareTo(maxString) > 0) maxString = value;
+
+            if (bool && !value.equals("true") && !value.equals("false")) bool = false;
+            if (dbl && !isCanonicalDouble(value)) dbl = false;
+
+            if (!integer) return;
+            if (!CsvRows.isCanonicalLong(value)) {
+                integer = false;
+                sample = null;
+                return;
+            }
+
+            long v = Long.parseLong(value);
+            if (v < minLong) minLong = v;
+            if (v > maxLong) maxLong = v;
+
+            // Reservoir sampling (Algorithm R): every value seen so far is in the sample with equal probability.
+            if (sampled < SAMPLE_SIZE) {
+                sample[sampled++] = v;
+            } else {
+                long j = (long) (random.nextDouble() * nonNull);
+                if (j < SAMPLE_SIZE) sample[(int) j] = v;
+            }
+        }
+
+        ColumnStats finish(String name) {
+            long ndv = Math.min(nonNull, Math.max(nonNull > 0 ? 1 : 0, distinct.estimate()));
+
+            if (nonNull == 0) {
+                return new ColumnStats(name, nullCount, 0, false, null, null, null);
+            }
+            if (!integer) {
+                DataType type = bool ? DataType.BOOLEAN : dbl ? DataType.DOUBLE : DataType.STRING;
+                return new ColumnStats(name, nullCount, ndv, type, minString, maxString, null);
+            }
+            return new ColumnStats(name, nullCount, ndv, true,
+                    Long.toString(minLong), Long.toString(maxLong), histogram());
+        }
+
+        private static boolean isCanonicalDouble(String value) {
+            char first = value.charAt(0);
+            if (first != '-' && (first < '0' || first > '9')) return false;
+            try {
+                return Double.toString(Double.parseDouble(value)).equals(value);
+            } catch (NumberFormatException e) {
+                return false;
+            }
+        }
+
+        // Equi-depth bucket boundaries taken from the sorted sample, with the exact min and max at the ends.
+        private long[] histogram() {
+            long[] sorted = Arrays.copyOf(sample, sampled);
+            Arrays.sort(sorted);
+
+            int buckets = Math.min(HISTOGRAM_BUCKETS, sorted.length);
+            long[] bounds = new long[buckets + 1];
+            for (int b = 0; b <= buckets; b++) {
+                bounds[b] = sorted[(int) ((long) b * (sorted.length - 1) / buckets)];
+            }
+            bounds[0] = minLong;
+            bounds[buckets] = maxLong;
+            return bounds;
+        }
+    }
+
+    /**
+     * HyperLogLog distinct-count sketch with 2^12 registers (about 1.6% standard error), using linear counting
+     * while the sketch is sparse, which keeps estimates for small columns close to exact.
+     */
+    static final class HyperLogLog {
+        private static final int P = 12;
+        private static final int M = 1 << P;
+
+        private final byte[] registers = new byte[M];
+
+        void add(String value) {
+            long h = hash(value);
+            int idx = (int) (h >>> (64 - P));
+            int rank = Long.numberOfLeadingZeros((h << P) | (1L << (P - 1))) + 1;
+            if (rank > registers[idx]) registers[idx] = (byte) rank;
+        }
+
+        long estimate() {
+            double sum = 0;
+            int zeros = 0;
+            for (byte r : registers) {
+                sum += 1.0 / (1L << r);
+                if (r == 0) zeros++;
+            }
+
+            double alpha = 0.7213 / (1 + 1.079 / M);
+            double e = alpha * M * M / sum;
+            if (e <= 2.5 * M && zeros > 0) {
+                e = M * Math.log((double) M / zeros);
+            }
+            return Math.round(e);
+        }
+
+        // 64-bit FNV-1a over the characters, followed by the MurmurHash3 finaliser to spread the bits.
+        private static long hash(String s) {
+            long h = 0xcbf29ce484222325L;
+            for (int i = 0; i < s.length(); i++) {
+                h ^= s.charAt(i);
+                h *= 0x100000001b3L;
+            }
+            h ^= h >>> 33;
+            h *= 0xff51afd7ed558ccdL;
+            h ^= h >>> 33;
+            h *= 0xc4ceb9fe1a85ec53L;
+            h ^= h >>> 33;
+            return h;
+        }
+    }
+}
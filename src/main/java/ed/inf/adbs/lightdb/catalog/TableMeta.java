@@ -6,6 +6,8 @@ import java.util.Objects;
 
 /**
  * Immutable metadata about a table, including its name, columns, and data file location.
+ * The data file is always the source CSV; the storage format and storage file describe where the
+ * rows are actually read from (which is the CSV itself unless the table has been converted).
  */
 
 public final class TableMeta {
@@ -13,12 +15,21 @@ public final class TableMeta {
     private final String name;
     private final List<ColumnMeta> columns;
     private final String dataFile;
+    private final StorageFormat storageFormat;
+    private final String storageFile;
 
     public TableMeta(long tableId, String name, List<ColumnMeta> columns, String dataFile) {
+        this(tableId, name, columns, dataFile, StorageFormat.CSV, dataFile);
+    }
+
+    public TableMeta(long tableId, String name, List<ColumnMeta> columns, String dataFile,
+                     StorageFormat storageFormat, String storageFile) {
         this.tableId = tableId;
         this.name = Objects.requireNonNull(name);
         this.columns = Collections.unmodifiableList(Objects.requireNonNull(columns,"columns cannot be null"));
         this.dataFile = Objects.requireNonNull(dataFile,"dataFile cannot be null");
+        this.storageFormat = Objects.requireNonNull(storageFormat, "storageFormat cannot be null");
+        this.storageFile = Objects.requireNonNull(storageFile, "storageFile cannot be null");
     }
 
     public long getTableId() {
@@ -33,10 +44,35 @@ public final class TableMeta {
         return columns;
     }
 
+    // The column types in column order, e.g. for Tuple.parse.
+    public DataType[] getColumnTypes() {
+        DataType[] types = new DataType[columns.size()];
+        for (int i = 0; i < types.length; i++) types[i] = columns.get(i).getType();
+        return types;
+    }
+
     public String getDataFile() {
         return dataFile;
     }
 
+    public StorageFormat getStorageFormat() {
+        return storageFormat;
+    }
+
+    public String getStorageFile() {
+        return storageFile;
+    }
+
+    // Returns a copy of this metadata pointing at a different physical storage.
+    public TableMeta withStorage(StorageFormat format, String file) {
+        return new TableMeta(tableId, name, columns, dataFile, format, file);
+    }
+
+    // Returns a copy of this metadata with a different column list (e.g. after projection pushdown).
+    public TableMeta withColumns(List<ColumnMeta> newColumns) {
+        return new TableMeta(tableId, name, newColumns, dataFile, storageFormat, storageFile);
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -45,12 +81,14 @@ public final class TableMeta {
         return tableId == tableMeta.tableId &&
                 name.equals(tableMeta.name) &&
                 columns.equals(tableMeta.columns) &&
-                dataFile.equals(tableMeta.dataFile);
+                dataFile.equals(tableMeta.dataFile) &&
+                storageFormat == tableMeta.storageFormat &&
+                storageFile.equals(tableMeta.storageFile);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(tableId, name, columns, dataFile);
+        return Objects.hash(tableId, name, columns, dataFile, storageFormat, storageFile);
     }
 
     @Override
@@ -60,6 +98,8 @@ public final class TableMeta {
                 ", name='" + name + '\'' +
                 ", columns=" + columns +
                 ", dataFile='" + dataFile + '\'' +
+                ", storageFormat=" + storageFormat +
+                ", storageFile='" + storageFile + '\'' +
                 '}';
-    }   
-}
\ No newline at end of file
+    }
+}
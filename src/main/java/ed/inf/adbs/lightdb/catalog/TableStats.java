@@ -0,0 +1,89 @@
+package ed.inf.adbs.lightdb.catalog;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Immutable statistics about a table, gathered by TableAnalyser and kept by the Catalog.
+ * The size and modification time of the source CSV are recorded so that stale statistics can be detected.
+ */
+
+public final class TableStats {
+    private final long rowCount;
+    private final long sourceSize;
+    private final long sourceModified;
+    private final List<ColumnStats> columns;
+
+    public TableStats(long rowCount, long sourceSize, long sourceModified, List<ColumnStats> columns) {
+        this.rowCount = rowCount;
+        this.sourceSize = sourceSize;
+        this.sourceModified = sourceModified;
+        this.columns = Collections.unmodifiableList(Objects.requireNonNull(columns, "columns cannot be null"));
+    }
+
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    public long getSourceSize() {
+        return sourceSize;
+    }
+
+    public long getSourceModified() {
+        return sourceModified;
+    }
+
+    // Column statistics in schema order.
+    public List<ColumnStats> getColumns() {
+        return columns;
+    }
+
+    public Optional<ColumnStats> getColumn(String name) {
+        String norm = name.trim().toLowerCase(Locale.ROOT);
+        for (ColumnStats c : columns) {
+            if (c.getName().trim().toLowerCase(Locale.ROOT).equals(norm)) return Optional.of(c);
+        }
+        return Optional.empty();
+    }
+
+    // True if the statistics were gathered from the current contents of the CSV.
+    public boolean isFreshFor(Path csv) {
+        try {
+            return Files.isRegularFile(csv)
+                    && sourceSize == Files.size(csv)
+                    && sourceModified == Files.getLastModifiedTime(csv).toMillis();
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof TableStats)) return false;
+        TableStats that = (TableStats) o;
+        return rowCount == that.rowCount
+                && sourceSize == that.sourceSize
+                && sourceModified == that.sourceModified
+                && columns.equals(that.columns);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(rowCount, sourceSize, sourceModified, columns);
+    }
+
+    @Override
+    public String toString() {
+        return "TableStats{" +
+                "rowCount=" + rowCount +
+                ", columns=" + columns +
+                '}';
+    }
+}
@@ -0,0 +1,33 @@
+package ed.inf.adbs.lightdb.codegen;
+
+import ed.inf.adbs.lightdb.operator.Operator;
+
+/**
+ * GeneratedPipeline is the base class of the operators PipelineCodegen generates. A generated subclass overrides
+ * getNextTuple() and getNextBatch() with a single loop that pulls rows from the child and applies a selection
+ * and a projection to them inline.
+ *
+ * The generated code depends only on the plan shape; the values that differ between queries of the same shape
+ * (integer constants of the predicate and the projected column indexes) are passed to the constructor.
+ * Generated classes are defined by their own class loader, so everything they use here is public or protected.
+ */
+
+public abstract class GeneratedPipeline extends Operator {
+    protected final Operator child;
+    protected final long[] constants;
+    // Column indexes of the output, or null to pass rows through unprojected
+    protected final int[] projection;
+
+    protected GeneratedPipeline(Operator child, long[] constants, int[] projection) {
+        if (child == null) throw new NullPointerException("child");
+        if (constants == null) throw new NullPointerException("constants");
+        this.child = child;
+        this.constants = constants;
+        this.projection = projection;
+    }
+
+    @Override
+    public void reset() {
+        child.reset();
+    }
+}
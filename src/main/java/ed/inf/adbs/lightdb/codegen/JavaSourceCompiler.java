@@ -0,0 +1,147 @@
+package ed.inf.adbs.lightdb.codegen;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.security.CodeSource;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileManager;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+/**
+ * JavaSourceCompiler compiles generated Java source in memory, with the JDK's system compiler, and defines the
+ * resulting classes in a class loader whose parent is the loader of LightDB's own classes.
+ *
+ * The generated source only refers to LightDB classes, so the compilation class path is the location they were
+ * loaded from. isAvailable() is false when the JVM has no compiler (a JRE); callers then keep the interpreted plan.
+ */
+
+final class JavaSourceCompiler {
+    private static final JavaCompiler COMPILER = ToolProvider.getSystemJavaCompiler();
+
+    private JavaSourceCompiler() {}
+
+    static boolean isAvailable() {
+        return COMPILER != null;
+    }
+
+    // Compiles the source of a single top-level class and loads it.
+    static Class<?> compile(String className, String source) {
+        if (COMPILER == null) throw new IllegalStateException("No Java compiler available");
+
+        MemoryFileManager files;
+        try (StandardJavaFileManager standard = COMPILER.getStandardFileManager(null, null, null)) {
+            files = new MemoryFileManager(standard);
+            StringWriter diagnostics = new StringWriter();
+
+            List<String> options = Arrays.asList("-classpath", classPath(), "-proc:none", "-g:none", "-nowarn");
+            JavaCompiler.CompilationTask task = COMPILER.getTask(diagnostics, files, null, options, null,
+                    Collections.singletonList(new SourceFile(className, source)));
+
+            if (!task.call()) {
+                throw new IllegalStateException("Failed to compile generated class " + className + ":\n" + diagnostics);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to close the compiler's file manager", e);
+        }
+
+        try {
+            return new MemoryClassLoader(files.classes).loadClass(className);
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException("Generated class not found: " + className, e);
+        }
+    }
+
+    // The class path of LightDB's classes, followed by the JVM's own.
+    private static String classPath() {
+        String own = System.getProperty("java.class.path", "");
+        CodeSource cs = GeneratedPipeline.class.getProtectionDomain().getCodeSource();
+        if (cs == null) return own;
+        try {
+            String location = new File(cs.getLocation().toURI()).getPath();
+            return own.isEmpty() ? location : location + File.pathSeparator + own;
+        } catch (URISyntaxException e) {
+            return own;
+        }
+    }
+
+    private static URI uri(String className, JavaFileObject.Kind kind) {
+        return URI.create("mem:///" + className.replace('.', '/') + kind.extension);
+    }
+
+    private static final class SourceFile extends SimpleJavaFileObject {
+        private final String source;
+
+        SourceFile(String className, String source) {
+            super(uri(className, Kind.SOURCE), Kind.SOURCE);
+            this.source = source;
+        }
+
+        @Override
+        public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+            return source;
+        }
+    }
+
+    private static final class ClassFile extends SimpleJavaFileObject {
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        ClassFile(String className) {
+            super(uri(className, Kind.CLASS), Kind.CLASS);
+        }
+
+        @Override
+        public OutputStream openOutputStream() {
+            return bytes;
+        }
+    }
+
+    // Keeps the class files javac writes in memory, by class name.
+    private static final class MemoryFileManager extends ForwardingJavaFileManager<JavaFileManager> {
+        final Map<String, ClassFile> classes = new HashMap<String, ClassFile>();
+
+        MemoryFileManager(JavaFileManager fileManager) {
+            super(fileManager);
+        }
+
+        @Override
+        public JavaFileObject getJavaFileForOutput(Location location, String className, JavaFileObject.Kind kind,
+                                                   FileObject sibling) throws IOException {
+            ClassFile file = new ClassFile(className);
+            classes.put(className, file);
+            return file;
+        }
+    }
+
+    private static final class MemoryClassLoader extends ClassLoader {
+        private final Map<String, ClassFile> classes;
+
+        MemoryClassLoader(Map<String, ClassFile> classes) {
+            super(GeneratedPipeline.class.getClassLoader());
+            this.classes = classes;
+        }
+
+        @Override
+        protected Class<?> findClass(String name) throws ClassNotFoundException {
+            ClassFile file = classes.get(name);
+            if (file == null) throw new ClassNotFoundException(name);
+            byte[] b = file.bytes.toByteArray();
+            return defineClass(name, b, 0, b.length);
+        }
+    }
+}
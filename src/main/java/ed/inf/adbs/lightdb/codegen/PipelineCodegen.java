@@ -0,0 +1,219 @@
+package ed.inf.adbs.lightdb.codegen;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import ed.inf.adbs.lightdb.operator.Operator;
+import ed.inf.adbs.lightdb.util.ColumnResolver;
+import net.sf.jsqlparser.expression.Expression;
+import net.sf.jsqlparser.expression.LongValue;
+import net.sf.jsqlparser.expression.Parenthesis;
+import net.sf.jsqlparser.expression.operators.arithmetic.Multiplication;
+import net.sf.jsqlparser.expression.operators.conditional.AndExpression;
+import net.sf.jsqlparser.expression.operators.conditional.OrExpression;
+import net.sf.jsqlparser.expression.operators.relational.ComparisonOperator;
+import net.sf.jsqlparser.expression.operators.relational.EqualsTo;
+import net.sf.jsqlparser.expression.operators.relational.GreaterThan;
+import net.sf.jsqlparser.expression.operators.relational.GreaterThanEquals;
+import net.sf.jsqlparser.expression.operators.relational.MinorThan;
+import net.sf.jsqlparser.expression.operators.relational.MinorThanEquals;
+import net.sf.jsqlparser.expression.operators.relational.NotEqualsTo;
+import net.sf.jsqlparser.schema.Column;
+
+/**
+ * PipelineCodegen fuses a selection and a projection over a child operator into one generated operator class
+ * (a GeneratedPipeline), so that each row is filtered and projected inside a single loop with the predicate
+ * inlined, instead of passing through a SelectOperator and a ProjectOperator.
+ *
+ * The predicate may combine comparisons of integer expressions (constants, columns and products) with AND and OR.
+ * Columns are bound to tuple indexes in the generated code, and AND/OR short-circuit as Java's && and || do.
+ *
+ * Generated classes are cached by plan shape: the source is generated with the predicate's constants replaced by
+ * fields, so queries that differ only in their constants or in which columns they project reuse the same class.
+ * fuse() returns null when the predicate cannot be generated, its class fails to compile or no compiler is available;
+ * the caller then keeps the interpreted operators. Failed compiles are cached too, so a shape is compiled only once.
+ */
+
+public final class PipelineCodegen {
+    private static final String PACKAGE = "ed.inf.adbs.lightdb.codegen.generated";
+    private static final String CLASS_NAME = "$CLASS$";
+
+    // Constructors of the generated classes, keyed by their source (with a placeholder class name); empty for a
+    // source that failed to compile
+    private static final Map<String, Optional<Constructor<?>>> CACHE = new ConcurrentHashMap<String, Optional<Constructor<?>>>();
+    private static final AtomicInteger COUNTER = new AtomicInteger();
+
+    private PipelineCodegen() {}
+
+    /**
+     * Fuses a selection and a projection over the child.
+     * @param where The selection predicate (may be null).
+     * @param resolver Resolves the columns of the child's tuples.
+     * @param projection Column indexes of the output (may be null to keep all columns).
+     * @return The generated operator, or null if the pipeline cannot be generated.
+     */
+    public static Operator fuse(Operator child, Expression where, ColumnResolver resolver, int[] projection) {
+        if (child == null) throw new NullPointerException("child");
+        if (resolver == null) throw new NullPointerException("resolver");
+        if (!JavaSourceCompiler.isAvailable()) return null;
+
+        Generator tuples = new Generator(resolver, "t.getLong(%d)");
+        Generator batches = new Generator(resolver, "b.getLong(%d, row)");
+        String tuplePredicate = (where == null) ? null : tuples.predicate(where);
+        String batchPredicate = (where == null) ? null : batches.predicate(where);
+        if (where != null && (tuplePredicate == null || batchPredicate == null)) return null;
+
+        String source = source(tuplePredicate, batchPredicate, tuples.constants.size(), projection != null);
+
+        long[] constants = new long[tuples.constants.size()];
+        for (int i = 0; i < constants.length; i++) constants[i] = tuples.constants.get(i);
+
+        Constructor<?> ctor = CACHE.computeIfAbsent(source, PipelineCodegen::define).orElse(null);
+        if (ctor == null) return null;
+        try {
+            return (Operator) ctor.newInstance(child, constants, projection);
+        } catch (InstantiationException | IllegalAccessException | InvocationTargetException e) {
+            return null;
+        }
+    }
+
+    // Number of distinct generated classes, i.e. of plan shapes seen so far.
+    static int cachedClassCount() {
+        int count = 0;
+        for (Optional<Constructor<?>> c : CACHE.values()) {
+            if (c.isPresent()) count++;
+        }
+        return count;
+    }
+
+    // Compiles the source and returns its constructor, or nothing if it cannot be compiled.
+    private static Optional<Constructor<?>> define(String source) {
+        String simpleName = "Pipeline" + COUNTER.incrementAndGet();
+        try {
+            Class<?> c = JavaSourceCompiler.compile(PACKAGE + "." + simpleName, source.replace(CLASS_NAME, simpleName));
+            return Optional.<Constructor<?>>of(c.getConstructor(Operator.class, long[].class, int[].class));
+        } catch (IllegalStateException | NoSuchMethodException e) {
+            return Optional.empty();
+        }
+    }
+
+    // The source of the generated operator. Predicates are null when there is no selection.
+    private static String source(String tuplePredicate, String batchPredicate, int constants, boolean project) {
+        StringBuilder s = new StringBuilder();
+        s.append("package ").append(PACKAGE).append(";\n\n");
+        s.append("import ed.inf.adbs.lightdb.Batch;\n");
+        s.append("import ed.inf.adbs.lightdb.Tuple;\n");
+        s.append("import ed.inf.adbs.lightdb.codegen.GeneratedPipeline;\n");
+        s.append("import ed.inf.adbs.lightdb.operator.Operator;\n\n");
+        s.append("public final class ").append(CLASS_NAME).append(" extends GeneratedPipeline {\n");
+        for (int i = 0; i < constants; i++) s.append("    private final long c").append(i).append(";\n");
+
+        s.append("    public ").append(CLASS_NAME).append("(Operator child, long[] constants, int[] projection) {\n");
+        s.append("        super(child, constants, projection);\n");
+        for (int i = 0; i < constants; i++) s.append("        this.c").append(i).append(" = constants[").append(i).append("];\n");
+        s.append("    }\n\n");
+
+        String tupleOut = project ? "Tuple.projected(t, projection)" : "t";
+        s.append("    @Override\n    public Tuple getNextTuple() {\n");
+        s.append("        Tuple t;\n");
+        s.append("        while ((t = child.getNextTuple()) != null) {\n");
+        if (tuplePredicate != null) s.append("            if (").append(tuplePredicate).append(") return ").append(tupleOut).append(";\n");
+        else s.append("            return ").append(tupleOut).append(";\n");
+        s.append("        }\n        return null;\n    }\n\n");
+
+        String batchOut = project ? "b.project(projection)" : "b";
+        s.append("    @Override\n    public Batch getNextBatch() {\n");
+        s.append("        Batch b;\n");
+        s.append("        while ((b = child.getNextBatch()) != null) {\n");
+        if (batchPredicate != null) {
+            s.append("            int n = b.count();\n");
+            s.append("            int[] out = b.selectionBuffer();\n");
+            s.append("            int kept = 0;\n");
+            s.append("            for (int k = 0; k < n; k++) {\n");
+            s.append("                int row = b.row(k);\n");
+            s.append("                if (").append(batchPredicate).append(") out[kept++] = row;\n");
+            s.append("            }\n");
+            s.append("            if (kept == 0) continue;\n");
+            s.append("            b.setSelection(out, kept);\n");
+        }
+        s.append("            return ").append(batchOut).append(";\n");
+        s.append("        }\n        return null;\n    }\n");
+        s.append("}\n");
+        return s.toString();
+    }
+
+    /** Translates expressions into Java expressions over a tuple or a batch row, collecting the constants. */
+    private static final class Generator {
+        private final ColumnResolver resolver;
+        // Format of a column read, given the column index
+        private final String columnFormat;
+        final List<Long> constants = new ArrayList<Long>();
+
+        Generator(ColumnResolver resolver, String columnFormat) {
+            this.resolver = resolver;
+            this.columnFormat = columnFormat;
+        }
+
+        // A boolean Java expression, or null if the expression is not supported.
+        String predicate(Expression e) {
+            while (e instanceof Parenthesis) e = ((Parenthesis) e).getExpression();
+
+            if (e instanceof AndExpression) {
+                AndExpression a = (AndExpression) e;
+                return binary(predicate(a.getLeftExpression()), "&&", predicate(a.getRightExpression()));
+            }
+            if (e instanceof OrExpression) {
+                OrExpression o = (OrExpression) e;
+                return binary(predicate(o.getLeftExpression()), "||", predicate(o.getRightExpression()));
+            }
+            if (e instanceof ComparisonOperator) {
+                String op = operator(e);
+                if (op == null) return null;
+                ComparisonOperator c = (ComparisonOperator) e;
+                return binary(value(c.getLeftExpression()), op, value(c.getRightExpression()));
+            }
+            return null;
+        }
+
+        // A long Java expression, or null if the expression is not supported.
+        private String value(Expression e) {
+            while (e instanceof Parenthesis) e = ((Parenthesis) e).getExpression();
+
+            if (e instanceof LongValue) {
+                constants.add(((LongValue) e).getValue());
+                return "c" + (constants.size() - 1);
+            }
+            if (e instanceof Column) {
+                Column c = (Column) e;
+                String table = (c.getTable() == null) ? null : c.getTable().getName();
+                return String.format(columnFormat, resolver.indexOf(table, c.getColumnName()));
+            }
+            if (e instanceof Multiplication) {
+                Multiplication m = (Multiplication) e;
+                return binary(value(m.getLeftExpression()), "*", value(m.getRightExpression()));
+            }
+            return null;
+        }
+
+        private static String binary(String left, String op, String right) {
+            if (left == null || right == null) return null;
+            return "(" + left + " " + op + " " + right + ")";
+        }
+
+        private static String operator(Expression e) {
+            if (e instanceof EqualsTo) return "==";
+            if (e instanceof NotEqualsTo) return "!=";
+            if (e instanceof MinorThan) return "<";
+            if (e instanceof MinorThanEquals) return "<=";
+            if (e instanceof GreaterThan) return ">";
+            if (e instanceof GreaterThanEquals) return ">=";
+            return null;
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package ed.inf.adbs.lightdb.execution;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Process-wide pool of daemon worker threads shared by all parallel operators.
+ *
+ * Operators bound their own degree of parallelism (they submit at most that many tasks); the pool itself does not
+ * cap the number of threads. This matters because workers may block handing rows to a consumer on another operator:
+ * with a fixed-size pool, nested parallel operators (e.g. both sides of a join) could starve each other of threads.
+ */
+public final class WorkerPool {
+    private static volatile ExecutorService INSTANCE;
+
+    private WorkerPool() {}
+
+    public static ExecutorService get() {
+        ExecutorService pool = INSTANCE;
+        if (pool == null) {
+            synchronized (WorkerPool.class) {
+                if (INSTANCE == null) {
+                    INSTANCE = Executors.newCachedThreadPool(new DaemonThreadFactory());
+                }
+                pool = INSTANCE;
+            }
+        }
+        return pool;
+    }
+
+    private static final class DaemonThreadFactory implements ThreadFactory {
+        private final AtomicInteger counter = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread t = new Thread(r, "lightdb-worker-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package ed.inf.adbs.lightdb.expression;
+
+import ed.inf.adbs.lightdb.Tuple;
+import ed.inf.adbs.lightdb.util.ColumnResolver;
+
+import net.sf.jsqlparser.expression.Expression;
+import net.sf.jsqlparser.expression.LongValue;
+import net.sf.jsqlparser.expression.Parenthesis;
+import net.sf.jsqlparser.expression.operators.arithmetic.Multiplication;
+import net.sf.jsqlparser.schema.Column;
+
+/**
+ * CompiledLongExpression is an integer expression (a constant, a column, a parenthesised expression or a multiplication)
+ * compiled once against the columns of the tuples it will be evaluated on. Column references are resolved to indexes
+ * when it is compiled, so evaluating it on a tuple is a few primitive reads with no visitor dispatch, name lookups or
+ * boxing. It is used for SUM arguments and for the operands of compiled comparisons.
+ */
+
+public abstract class CompiledLongExpression {
+
+    // Evaluates the expression on a tuple.
+    public abstract long eval(Tuple tuple);
+
+    // Compiles the expression, or throws an IllegalArgumentException if it is not an integer expression.
+    public static CompiledLongExpression compile(Expression e, ColumnResolver resolver) {
+        if (e == null) throw new IllegalArgumentException("Expression is null");
+        if (resolver == null) throw new NullPointerException("resolver cannot be null");
+
+        CompiledLongExpression compiled = tryCompile(e, resolver);
+        if (compiled == null) {
+            throw new IllegalArgumentException("Unsupported integer expression: " + e + " (" + e.getClass() + ")");
+        }
+        return compiled;
+    }
+
+    // Same as compile, but returns null if the expression is not an integer expression.
+    static CompiledLongExpression tryCompile(Expression e, ColumnResolver resolver) {
+        while (e instanceof Parenthesis) e = ((Parenthesis) e).getExpression();
+
+        if (e instanceof LongValue) {
+            return new Constant(((LongValue) e).getValue());
+        }
+
+        if (e instanceof Column) {
+            return new ColumnRef(indexOf((Column) e, resolver));
+        }
+
+        if (e instanceof Multiplication) {
+            Multiplication m = (Multiplication) e;
+            CompiledLongExpression l = tryCompile(m.getLeftExpression(), resolver);
+            CompiledLongExpression r = tryCompile(m.getRightExpression(), resolver);
+            if (l == null || r == null) return null;
+            return new Product(l, r);
+        }
+
+        return null;
+    }
+
+    static int indexOf(Column c, ColumnResolver resolver) {
+        String table = (c.getTable() == null) ? null : c.getTable().getName();
+        return resolver.indexOf(table, c.getColumnName());
+    }
+
+    // The column index if this is a bare column reference, otherwise -1.
+    int column() {
+        return -1;
+    }
+
+    static final class Constant extends CompiledLongExpression {
+        final long value;
+
+        Constant(long value) {
+            this.value = value;
+        }
+
+        @Override
+        public long eval(Tuple tuple) {
+            return value;
+        }
+    }
+
+    static final class ColumnRef extends CompiledLongExpression {
+        private final int index;
+
+        ColumnRef(int index) {
+            this.index = index;
+        }
+
+        @Override
+        public long eval(Tuple tuple) {
+            return tuple.getLong(index);
+        }
+
+        @Override
+        int column() {
+            return index;
+        }
+    }
+
+    private static final class Product extends CompiledLongExpression {
+        private final CompiledLongExpression left;
+        private final CompiledLongExpression right;
+
+        Product(CompiledLongExpression left, CompiledLongExpression right) {
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        public long eval(Tuple tuple) {
+            return left.eval(tuple) * right.eval(tuple);
+        }
+    }
+}
@@ -0,0 +1,243 @@
+package ed.inf.adbs.lightdb.expression;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import ed.inf.adbs.lightdb.Tuple;
+import ed.inf.adbs.lightdb.util.ColumnResolver;
+import net.sf.jsqlparser.expression.BinaryExpression;
+import net.sf.jsqlparser.expression.Expression;
+import net.sf.jsqlparser.expression.Parenthesis;
+import net.sf.jsqlparser.expression.operators.conditional.AndExpression;
+import net.sf.jsqlparser.expression.operators.conditional.OrExpression;
+import net.sf.jsqlparser.expression.operators.relational.EqualsTo;
+import net.sf.jsqlparser.expression.operators.relational.GreaterThan;
+import net.sf.jsqlparser.expression.operators.relational.GreaterThanEquals;
+import net.sf.jsqlparser.expression.operators.relational.MinorThan;
+import net.sf.jsqlparser.expression.operators.relational.MinorThanEquals;
+import net.sf.jsqlparser.expression.operators.relational.NotEqualsTo;
+
+/**
+ * CompiledPredicate is a selection or join predicate compiled once, when an operator is built, against the columns of the
+ * tuples it will be tested on.
+ *
+ * Column references are bound to tuple indexes up front and comparisons read the fields as primitive longs, so testing a
+ * tuple does no visitor dispatch, name lookups or boxing. Chains of ANDs and ORs are flattened and short-circuit.
+ * Comparisons of a column with a constant or with another column get dedicated nodes. Any expression that cannot be
+ * compiled is evaluated with a SelectionExpressionEvaluator, so a compiled predicate accepts the same rows.
+ */
+
+public abstract class CompiledPredicate {
+
+    // True if the tuple satisfies the predicate.
+    public abstract boolean test(Tuple tuple);
+
+    /** The predicate that accepts every tuple, used for an absent (null) predicate. */
+    public static final CompiledPredicate TRUE = new CompiledPredicate() {
+        @Override
+        public boolean test(Tuple tuple) {
+            return true;
+        }
+    };
+
+    // Compiles the predicate against the columns of the tuples it will be tested on; null means "always true".
+    public static CompiledPredicate compile(Expression predicate, ColumnResolver resolver) {
+        if (resolver == null) throw new NullPointerException("resolver cannot be null");
+        if (predicate == null) return TRUE;
+
+        Expression e = predicate;
+        while (e instanceof Parenthesis) e = ((Parenthesis) e).getExpression();
+
+        if (e instanceof AndExpression) {
+            List<Expression> terms = new ArrayList<Expression>();
+            flatten(e, AndExpression.class, terms);
+            return new And(compileAll(terms, resolver));
+        }
+        if (e instanceof OrExpression) {
+            List<Expression> terms = new ArrayList<Expression>();
+            flatten(e, OrExpression.class, terms);
+            return new Or(compileAll(terms, resolver));
+        }
+
+        CompiledPredicate comparison = comparison(e, resolver);
+        return (comparison != null) ? comparison : new Interpreted(predicate, resolver);
+    }
+
+    private static CompiledPredicate[] compileAll(List<Expression> terms, ColumnResolver resolver) {
+        CompiledPredicate[] out = new CompiledPredicate[terms.size()];
+        for (int i = 0; i < out.length; i++) out[i] = compile(terms.get(i), resolver);
+        return out;
+    }
+
+    // Collects the operands of a chain of the same binary connective, left to right.
+    private static void flatten(Expression e, Class<?> connective, List<Expression> out) {
+        while (e instanceof Parenthesis) e = ((Parenthesis) e).getExpression();
+        if (connective.isInstance(e)) {
+            BinaryExpression b = (BinaryExpression) e;
+            flatten(b.getLeftExpression(), connective, out);
+            flatten(b.getRightExpression(), connective, out);
+        } else {
+            out.add(e);
+        }
+    }
+
+    private static CompiledPredicate comparison(Expression e, ColumnResolver resolver) {
+        Op op;
+        if (e instanceof EqualsTo) op = Op.EQ;
+        else if (e instanceof NotEqualsTo) op = Op.NE;
+        else if (e instanceof MinorThan) op = Op.LT;
+        else if (e instanceof MinorThanEquals) op = Op.LE;
+        else if (e instanceof GreaterThan) op = Op.GT;
+        else if (e instanceof GreaterThanEquals) op = Op.GE;
+        else return null;
+
+        BinaryExpression c = (BinaryExpression) e;
+        CompiledLongExpression l = CompiledLongExpression.tryCompile(c.getLeftExpression(), resolver);
+        CompiledLongExpression r = CompiledLongExpression.tryCompile(c.getRightExpression(), resolver);
+        if (l == null || r == null) return null;
+
+        // Put a lone constant on the right, so that "5 < A" runs as "A > 5"
+        if (l instanceof CompiledLongExpression.Constant && !(r instanceof CompiledLongExpression.Constant)) {
+            CompiledLongExpression t = l;
+            l = r;
+            r = t;
+            op = op.flip();
+        }
+
+        if (l.column() >= 0 && r instanceof CompiledLongExpression.Constant) {
+            return new ColumnConstant(op, l.column(), ((CompiledLongExpression.Constant) r).value);
+        }
+        if (l.column() >= 0 && r.column() >= 0) {
+            return new ColumnColumn(op, l.column(), r.column());
+        }
+        return new Comparison(op, l, r);
+    }
+
+    enum Op {
+        EQ, NE, LT, LE, GT, GE;
+
+        boolean test(long a, long b) {
+            switch (this) {
+                case EQ: return a == b;
+                case NE: return a != b;
+                case LT: return a < b;
+                case LE: return a <= b;
+                case GT: return a > b;
+                default: return a >= b;
+            }
+        }
+
+        // The operator that gives the same result with its operands swapped.
+        Op flip() {
+            switch (this) {
+                case LT: return GT;
+                case LE: return GE;
+                case GT: return LT;
+                case GE: return LE;
+                default: return this;
+            }
+        }
+    }
+
+    private static final class And extends CompiledPredicate {
+        private final CompiledPredicate[] terms;
+
+        And(CompiledPredicate[] terms) {
+            this.terms = terms;
+        }
+
+        @Override
+        public boolean test(Tuple tuple) {
+            for (CompiledPredicate p : terms) {
+                if (!p.test(tuple)) return false;
+            }
+            return true;
+        }
+    }
+
+    private static final class Or extends CompiledPredicate {
+        private final CompiledPredicate[] terms;
+
+        Or(CompiledPredicate[] terms) {
+            this.terms = terms;
+        }
+
+        @Override
+        public boolean test(Tuple tuple) {
+            for (CompiledPredicate p : terms) {
+                if (p.test(tuple)) return true;
+            }
+            return false;
+        }
+    }
+
+    /** column op constant */
+    private static final class ColumnConstant extends CompiledPredicate {
+        private final Op op;
+        private final int column;
+        private final long value;
+
+        ColumnConstant(Op op, int column, long value) {
+            this.op = op;
+            this.column = column;
+            this.value = value;
+        }
+
+        @Override
+        public boolean test(Tuple tuple) {
+            return op.test(tuple.getLong(column), value);
+        }
+    }
+
+    /** column op column */
+    private static final class ColumnColumn extends CompiledPredicate {
+        private final Op op;
+        private final int left;
+        private final int right;
+
+        ColumnColumn(Op op, int left, int right) {
+            this.op = op;
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        public boolean test(Tuple tuple) {
+            return op.test(tuple.getLong(left), tuple.getLong(right));
+        }
+    }
+
+    /** Any other comparison of integer expressions. */
+    private static final class Comparison extends CompiledPredicate {
+        private final Op op;
+        private final CompiledLongExpression left;
+        private final CompiledLongExpression right;
+
+        Comparison(Op op, CompiledLongExpression left, CompiledLongExpression right) {
+            this.op = op;
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        public boolean test(Tuple tuple) {
+            return op.test(left.eval(tuple), right.eval(tuple));
+        }
+    }
+
+    /** An expression that could not be compiled, evaluated by walking it. */
+    private static final class Interpreted extends CompiledPredicate {
+        private final Expression expression;
+        private final ColumnResolver resolver;
+
+        Interpreted(Expression expression, ColumnResolver resolver) {
+            this.expression = expression;
+            this.resolver = resolver;
+        }
+
+        @Override
+        public boolean test(Tuple tuple) {
+            return new SelectionExpressionEvaluator(resolver, tuple).eval(expression);
+        }
+    }
+}
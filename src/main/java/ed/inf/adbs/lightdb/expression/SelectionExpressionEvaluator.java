@@ -75,7 +75,7 @@ public final class SelectionExpressionEvaluator extends ExpressionDeParser {
         String tableName = column.getTable() == null ? null : column.getTable().getName();
 
         int idx = resolver.indexOf(tableName, colName);
-        long v = Long.parseLong(tuple.get(idx).trim());
+        long v = tuple.getLong(idx);
         stack.push(Long.valueOf(v));
     }
 
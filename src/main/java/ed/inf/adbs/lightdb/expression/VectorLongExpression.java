@@ -0,0 +1,67 @@
+package ed.inf.adbs.lightdb.expression;
+
+import ed.inf.adbs.lightdb.Batch;
+import ed.inf.adbs.lightdb.util.ColumnResolver;
+
+import net.sf.jsqlparser.expression.Expression;
+import net.sf.jsqlparser.expression.LongValue;
+import net.sf.jsqlparser.expression.Parenthesis;
+import net.sf.jsqlparser.expression.operators.arithmetic.Multiplication;
+import net.sf.jsqlparser.schema.Column;
+
+/**
+ * VectorLongExpression evaluates a SUM argument (the expressions CompiledLongExpression accepts: integer constants,
+ * columns, parentheses and multiplications) on the rows of a Batch. Column references are resolved once, when the
+ * expression is compiled, and values are read straight from the column vectors.
+ */
+
+public abstract class VectorLongExpression {
+
+    // Evaluates the expression on one row of the batch.
+    public abstract long eval(Batch batch, int row);
+
+    public static VectorLongExpression compile(Expression e, ColumnResolver resolver) {
+        if (e == null) throw new IllegalArgumentException("SUM argument is null");
+        if (resolver == null) throw new NullPointerException("resolver");
+
+        if (e instanceof LongValue) {
+            final long value = ((LongValue) e).getValue();
+            return new VectorLongExpression() {
+                @Override
+                public long eval(Batch batch, int row) {
+                    return value;
+                }
+            };
+        }
+
+        if (e instanceof Column) {
+            Column c = (Column) e;
+            String table = (c.getTable() == null) ? null : c.getTable().getName();
+            final int idx = resolver.indexOf(table, c.getColumnName());
+            return new VectorLongExpression() {
+                @Override
+                public long eval(Batch batch, int row) {
+                    return batch.getLong(idx, row);
+                }
+            };
+        }
+
+        if (e instanceof Parenthesis) {
+            return compile(((Parenthesis) e).getExpression(), resolver);
+        }
+
+        if (e instanceof Multiplication) {
+            Multiplication m = (Multiplication) e;
+            final VectorLongExpression l = compile(m.getLeftExpression(), resolver);
+            final VectorLongExpression r = compile(m.getRightExpression(), resolver);
+            return new VectorLongExpression() {
+                @Override
+                public long eval(Batch batch, int row) {
+                    return l.eval(batch, row) * r.eval(batch, row);
+                }
+            };
+        }
+
+        throw new IllegalArgumentException("Unsupported SUM argument expression: " + e + " (" + e.getClass() + ")");
+    }
+}
@@ -0,0 +1,166 @@
+package ed.inf.adbs.lightdb.expression;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import ed.inf.adbs.lightdb.Batch;
+import ed.inf.adbs.lightdb.util.ColumnResolver;
+import ed.inf.adbs.lightdb.util.ExpressionUtils;
+import net.sf.jsqlparser.expression.Expression;
+import net.sf.jsqlparser.expression.LongValue;
+import net.sf.jsqlparser.expression.Parenthesis;
+import net.sf.jsqlparser.expression.operators.relational.ComparisonOperator;
+import net.sf.jsqlparser.expression.operators.relational.EqualsTo;
+import net.sf.jsqlparser.expression.operators.relational.GreaterThan;
+import net.sf.jsqlparser.expression.operators.relational.GreaterThanEquals;
+import net.sf.jsqlparser.expression.operators.relational.MinorThan;
+import net.sf.jsqlparser.expression.operators.relational.MinorThanEquals;
+import net.sf.jsqlparser.expression.operators.relational.NotEqualsTo;
+import net.sf.jsqlparser.schema.Column;
+
+/**
+ * VectorPredicate applies a selection predicate to a whole Batch by narrowing its selection vector.
+ *
+ * The predicate is split into conjuncts once, when it is compiled. Each comparison between columns and/or integer
+ * constants becomes a tight loop over the selected rows that reads the column vectors directly, with the column
+ * indexes resolved up front; conjuncts are applied in turn, so later ones only look at the rows earlier ones kept.
+ * Any other conjunct is compiled into a CompiledPredicate and evaluated row by row.
+ */
+
+public final class VectorPredicate {
+    private final Conjunct[] conjuncts;
+
+    private VectorPredicate(Conjunct[] conjuncts) {
+        this.conjuncts = conjuncts;
+    }
+
+    // Compiles the predicate against the columns of the batches it will be applied to; null means "always true".
+    public static VectorPredicate compile(Expression predicate, ColumnResolver resolver) {
+        if (resolver == null) throw new NullPointerException("resolver cannot be null");
+
+        List<Conjunct> out = new ArrayList<Conjunct>();
+        List<Conjunct> rowWise = new ArrayList<Conjunct>();
+        for (Expression e : ExpressionUtils.splitConjuncts(predicate)) {
+            Conjunct c = Comparison.of(e, resolver);
+            if (c != null) out.add(c);
+            else rowWise.add(new RowWise(e, resolver));
+        }
+        // The cheap comparisons go first, so that rows are only materialised for the rows they keep
+        out.addAll(rowWise);
+        return new VectorPredicate(out.toArray(new Conjunct[0]));
+    }
+
+    // Removes the rows that do not satisfy the predicate from the batch's selection.
+    public void apply(Batch batch) {
+        for (Conjunct c : conjuncts) {
+            if (batch.count() == 0) return;
+            c.apply(batch);
+        }
+    }
+
+    private abstract static class Conjunct {
+        abstract void apply(Batch batch);
+    }
+
+    /** operand op operand, where each operand is a column or an integer constant. */
+    private static final class Comparison extends Conjunct {
+        enum Op { EQ, NE, LT, LE, GT, GE }
+
+        private final Op op;
+        // Column index of each operand, or -1 for a constant
+        private final int leftColumn;
+        private final int rightColumn;
+        private final long leftValue;
+        private final long rightValue;
+
+        private Comparison(Op op, int leftColumn, long leftValue, int rightColumn, long rightValue) {
+            this.op = op;
+            this.leftColumn = leftColumn;
+            this.leftValue = leftValue;
+            this.rightColumn = rightColumn;
+            this.rightValue = rightValue;
+        }
+
+        static Comparison of(Expression e, ColumnResolver resolver) {
+            while (e instanceof Parenthesis) e = ((Parenthesis) e).getExpression();
+            if (!(e instanceof ComparisonOperator)) return null;
+
+            Op op;
+            if (e instanceof EqualsTo) op = Op.EQ;
+            else if (e instanceof NotEqualsTo) op = Op.NE;
+            else if (e instanceof MinorThan) op = Op.LT;
+            else if (e instanceof MinorThanEquals) op = Op.LE;
+            else if (e instanceof GreaterThan) op = Op.GT;
+            else if (e instanceof GreaterThanEquals) op = Op.GE;
+            else return null;
+
+            ComparisonOperator c = (ComparisonOperator) e;
+            Expression l = c.getLeftExpression();
+            Expression r = c.getRightExpression();
+            if (!isOperand(l) || !isOperand(r)) return null;
+
+            return new Comparison(op, column(l, resolver), constant(l), column(r, resolver), constant(r));
+        }
+
+        private static boolean isOperand(Expression e) {
+            return e instanceof Column || e instanceof LongValue;
+        }
+
+        private static int column(Expression e, ColumnResolver resolver) {
+            if (!(e instanceof Column)) return -1;
+            Column c = (Column) e;
+            String table = (c.getTable() == null) ? null : c.getTable().getName();
+            return resolver.indexOf(table, c.getColumnName());
+        }
+
+        private static long constant(Expression e) {
+            return (e instanceof LongValue) ? ((LongValue) e).getValue() : 0;
+        }
+
+        @Override
+        void apply(Batch batch) {
+            int n = batch.count();
+            int[] out = batch.selectionBuffer();
+            int kept = 0;
+            for (int k = 0; k < n; k++) {
+                int row = batch.row(k);
+                long a = (leftColumn < 0) ? leftValue : batch.getLong(leftColumn, row);
+                long b = (rightColumn < 0) ? rightValue : batch.getLong(rightColumn, row);
+                if (test(a, b)) out[kept++] = row;
+            }
+            batch.setSelection(out, kept);
+        }
+
+        private boolean test(long a, long b) {
+            switch (op) {
+                case EQ: return a == b;
+                case NE: return a != b;
+                case LT: return a < b;
+                case LE: return a <= b;
+                case GT: return a > b;
+                default: return a >= b;
+            }
+        }
+    }
+
+    /** Any other conjunct, evaluated on each selected row as a tuple. */
+    private static final class RowWise extends Conjunct {
+        private final CompiledPredicate predicate;
+
+        RowWise(Expression expression, ColumnResolver resolver) {
+            this.predicate = CompiledPredicate.compile(expression, resolver);
+        }
+
+        @Override
+        void apply(Batch batch) {
+            int n = batch.count();
+            int[] out = batch.selectionBuffer();
+            int kept = 0;
+            for (int k = 0; k < n; k++) {
+                int row = batch.row(k);
+                if (predicate.test(batch.toTuple(row))) out[kept++] = row;
+            }
+            batch.setSelection(out, kept);
+        }
+    }
+}
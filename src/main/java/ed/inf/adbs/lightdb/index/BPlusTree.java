@@ -0,0 +1,186 @@
+package ed.inf.adbs.lightdb.index;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+
+import ed.inf.adbs.lightdb.storage.BufferPool;
+import ed.inf.adbs.lightdb.storage.HeapPage;
+
+/**
+ * Read side of a disk-resident B+-tree mapping integer keys to row IDs.
+ *
+ * The tree is stored in pages of HeapPage.PAGE_SIZE bytes and read through the shared BufferPool. Page 0 is the
+ * header; leaf pages hold sorted (key, row ID) entries and are chained left to right, and internal pages hold child
+ * page numbers separated by the first key of each child but the first. Duplicate keys are allowed and may span
+ * several leaves. Trees are bulk-loaded by BPlusTreeBuilder and never modified afterwards.
+ */
+public final class BPlusTree {
+    static final int MAGIC = 0x4C444254; // "LDBT"
+    static final int VERSION = 1;
+
+    static final byte LEAF = 1;
+    static final byte INTERNAL = 2;
+
+    // Leaf: type, count at 4, next leaf at 8, entries (key, rid) from 16
+    static final int LEAF_HEADER = 16;
+    static final int LEAF_CAPACITY = (HeapPage.PAGE_SIZE - LEAF_HEADER) / 16;
+
+    // Internal: type, child count at 4, children from 16, then the separator keys
+    static final int INTERNAL_HEADER = 16;
+    static final int INTERNAL_CAPACITY = (HeapPage.PAGE_SIZE - INTERNAL_HEADER) / 12;
+    static final int INTERNAL_KEYS = INTERNAL_HEADER + 4 * INTERNAL_CAPACITY;
+
+    private final Path file;
+    private final int rootPage;
+    private final int height;
+    private final long entryCount;
+
+    private BPlusTree(Path file, int rootPage, int height, long entryCount) {
+        this.file = file;
+        this.rootPage = rootPage;
+        this.height = height;
+        this.entryCount = entryCount;
+    }
+
+    public static BPlusTree open(Path file) throws IOException {
+        if (file == null) throw new NullPointerException("file");
+
+        try (BufferPool.PinnedPage page = BufferPool.getInstance().pin(file, 0)) {
+            ByteBuffer b = ByteBuffer.wrap(page.data());
+            if (b.getInt(0) != MAGIC) throw new IOException("Not a B+-tree index: " + file);
+            int version = b.getInt(4);
+            if (version != VERSION) throw new IOException("Unsupported B+-tree version " + version + " in " + file);
+
+            return new BPlusTree(file, b.getInt(8), b.getInt(12), b.getLong(16));
+        }
+    }
+
+    public long getEntryCount() {
+        return entryCount;
+    }
+
+    // Number of levels, counting the leaves.
+    public int getHeight() {
+        return height;
+    }
+
+    // Opens a cursor over the entries whose keys fall in the range, in key order.
+    public Cursor range(KeyRange range) throws IOException {
+        if (range.isEmpty()) return new Cursor(range, 0);
+        return new Cursor(range, findLeaf(range.getLow()));
+    }
+
+    // Opens a cursor over no entries, without reading the tree, for lookups that each position it with seek().
+    public Cursor cursor() {
+        return new Cursor(new KeyRange(1, 0), 0);
+    }
+
+    // Descends to the leftmost leaf that may contain the key.
+    private int findLeaf(long key) throws IOException {
+        int pageNo = rootPage;
+        while (true) {
+            try (BufferPool.PinnedPage page = BufferPool.getInstance().pin(file, pageNo)) {
+                ByteBuffer b = ByteBuffer.wrap(page.data());
+                if (b.get(0) == LEAF) return pageNo;
+
+                // Child i holds keys >= separator i-1; duplicates equal to a separator may also end the previous child,
+                // so descend into the child after the last separator strictly below the key.
+                int children = b.getInt(4);
+                int lo = 0;
+                int hi = children - 1;
+                while (lo < hi) {
+                    int mid = (lo + hi) >>> 1;
+                    if (b.getLong(INTERNAL_KEYS + 8 * mid) < key) lo = mid + 1;
+                    else hi = mid;
+                }
+                pageNo = b.getInt(INTERNAL_HEADER + 4 * lo);
+            }
+        }
+    }
+
+    /**
+     * Iterates the entries of a key range. Each leaf is copied out of the buffer pool when it is reached, so the
+     * cursor holds no pinned pages and need not be closed.
+     */
+    public final class Cursor {
+        private KeyRange range;
+        private int nextLeaf;
+
+        private final long[] keys = new long[LEAF_CAPACITY];
+        private final long[] rids = new long[LEAF_CAPACITY];
+        private int count;
+        private int pos;
+        private boolean done;
+
+        private long currentKey;
+        private long currentRid;
+
+        private Cursor(KeyRange range, int firstLeaf) {
+            this.range = range;
+            this.nextLeaf = firstLeaf;
+            this.done = firstLeaf == 0;
+        }
+
+        // Repositions the cursor on another range, reusing its leaf buffers (e.g. for one lookup per join row).
+        public Cursor seek(KeyRange range) throws IOException {
+            this.range = range;
+            this.nextLeaf = range.isEmpty() ? 0 : findLeaf(range.getLow());
+            this.done = nextLeaf == 0;
+            this.count = 0;
+            this.pos = 0;
+            return this;
+        }
+
+        // Moves to the next entry in the range; returns false once the range is exhausted.
+        public boolean next() throws IOException {
+            while (!done) {
+                if (pos < count) {
+                    long k = keys[pos];
+                    if (k > range.getHigh()) {
+                        done = true;
+                        return false;
+                    }
+                    currentKey = k;
+                    currentRid = rids[pos++];
+                    return true;
+                }
+                if (nextLeaf == 0) {
+                    done = true;
+                    return false;
+                }
+                loadLeaf(nextLeaf);
+            }
+            return false;
+        }
+
+        public long key() {
+            return currentKey;
+        }
+
+        public long rid() {
+            return currentRid;
+        }
+
+        private void loadLeaf(int pageNo) throws IOException {
+            try (BufferPool.PinnedPage page = BufferPool.getInstance().pin(file, pageNo)) {
+                ByteBuffer b = ByteBuffer.wrap(page.data());
+                count = b.getInt(4);
+                nextLeaf = b.getInt(8);
+                for (int i = 0; i < count; i++) {
+                    keys[i] = b.getLong(LEAF_HEADER + 16 * i);
+                    rids[i] = b.getLong(LEAF_HEADER + 16 * i + 8);
+                }
+            }
+            // Skip straight to the first key in range within this leaf
+            int lo = 0;
+            int hi = count;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (keys[mid] < range.getLow()) lo = mid + 1;
+                else hi = mid;
+            }
+            pos = lo;
+        }
+    }
+}
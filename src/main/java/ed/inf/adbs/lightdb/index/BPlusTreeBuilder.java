@@ -0,0 +1,114 @@
+package ed.inf.adbs.lightdb.index;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import ed.inf.adbs.lightdb.storage.BufferPool;
+import ed.inf.adbs.lightdb.storage.HeapPage;
+
+/**
+ * Bulk-loads a BPlusTree from entries sorted by key.
+ *
+ * Leaves are filled completely from left to right, then each internal level is built over the level below until a
+ * single root remains, so the tree is as shallow and compact as possible. The file is written to a temporary sibling
+ * and moved into place once complete, after its old pages have been dropped from the BufferPool.
+ */
+public final class BPlusTreeBuilder {
+    private BPlusTreeBuilder() {}
+
+    // Writes a tree over the first n entries of keys/rids, which must be sorted by key.
+    public static BPlusTree build(long[] keys, long[] rids, int n, Path targetFile) throws IOException {
+        if (keys == null || rids == null) throw new NullPointerException("keys/rids");
+        if (targetFile == null) throw new NullPointerException("targetFile");
+
+        Path tmpFile = targetFile.resolveSibling(targetFile.getFileName().toString() + ".tmp");
+        Files.createDirectories(tmpFile.toAbsolutePath().getParent());
+
+        try (FileChannel ch = FileChannel.open(tmpFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer page = ByteBuffer.allocate(HeapPage.PAGE_SIZE);
+            int nextPage = 1;
+
+            // Leaves (an empty tree still has one, empty, leaf as its root)
+            List<Integer> levelPages = new ArrayList<Integer>();
+            List<Long> levelFirstKeys = new ArrayList<Long>();
+            int leaves = Math.max(1, (n + BPlusTree.LEAF_CAPACITY - 1) / BPlusTree.LEAF_CAPACITY);
+            for (int leaf = 0; leaf < leaves; leaf++) {
+                int from = leaf * BPlusTree.LEAF_CAPACITY;
+                int to = Math.min(n, from + BPlusTree.LEAF_CAPACITY);
+
+                clear(page);
+                page.put(0, BPlusTree.LEAF);
+                page.putInt(4, to - from);
+                page.putInt(8, (leaf + 1 < leaves) ? nextPage + 1 : 0);
+                for (int i = from; i < to; i++) {
+                    page.putLong(BPlusTree.LEAF_HEADER + 16 * (i - from), keys[i]);
+                    page.putLong(BPlusTree.LEAF_HEADER + 16 * (i - from) + 8, rids[i]);
+                }
+
+                levelPages.add(nextPage);
+                levelFirstKeys.add(to > from ? keys[from] : 0L);
+                writePage(ch, nextPage++, page);
+            }
+
+            // Internal levels
+            int height = 1;
+            while (levelPages.size() > 1) {
+                List<Integer> parents = new ArrayList<Integer>();
+                List<Long> parentFirstKeys = new ArrayList<Long>();
+
+                for (int from = 0; from < levelPages.size(); from += BPlusTree.INTERNAL_CAPACITY) {
+                    int to = Math.min(levelPages.size(), from + BPlusTree.INTERNAL_CAPACITY);
+
+                    clear(page);
+                    page.put(0, BPlusTree.INTERNAL);
+                    page.putInt(4, to - from);
+                    for (int i = from; i < to; i++) {
+                        page.putInt(BPlusTree.INTERNAL_HEADER + 4 * (i - from), levelPages.get(i));
+                        if (i > from) {
+                            page.putLong(BPlusTree.INTERNAL_KEYS + 8 * (i - from - 1), levelFirstKeys.get(i));
+                        }
+                    }
+
+                    parents.add(nextPage);
+                    parentFirstKeys.add(levelFirstKeys.get(from));
+                    writePage(ch, nextPage++, page);
+                }
+
+                levelPages = parents;
+                levelFirstKeys = parentFirstKeys;
+                height++;
+            }
+
+            clear(page);
+            page.putInt(0, BPlusTree.MAGIC);
+            page.putInt(4, BPlusTree.VERSION);
+            page.putInt(8, levelPages.get(0));
+            page.putInt(12, height);
+            page.putLong(16, n);
+            writePage(ch, 0, page);
+        }
+
+        BufferPool.getInstance().invalidate(targetFile);
+        Files.move(tmpFile, targetFile, StandardCopyOption.REPLACE_EXISTING);
+
+        return BPlusTree.open(targetFile);
+    }
+
+    private static void clear(ByteBuffer page) {
+        for (int i = 0; i < page.capacity(); i += 8) page.putLong(i, 0L);
+    }
+
+    private static void writePage(FileChannel ch, int pageNo, ByteBuffer page) throws IOException {
+        page.clear();
+        long position = (long) pageNo * HeapPage.PAGE_SIZE;
+        while (page.hasRemaining()) ch.write(page, position + page.position());
+    }
+}
@@ -0,0 +1,101 @@
+package ed.inf.adbs.lightdb.index;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Read side of a bitmap index, which keeps one RoaringBitmap of row numbers per distinct value of an integer column.
+ *
+ * Rows are numbered in file order (0 for the first line), so bitmaps of different columns of the same table can be
+ * intersected and united directly. The index also records the row ID (byte offset) of every row, turning row numbers
+ * back into rows that CsvRowFetcher can read. The file is memory-mapped: a header, the row IDs, a directory of
+ * (value, bitmap offset) pairs sorted by value, then the serialized bitmaps, which are decoded only when looked up.
+ * Indexes are written by BitmapIndexBuilder and never modified afterwards.
+ */
+public final class BitmapIndex {
+    static final int MAGIC = 0x4C44424D; // "LDBM"
+    static final int VERSION = 1;
+
+    // Header: magic, version, distinct value count at 8, row count at 16; the row IDs start at 32
+    static final int HEADER_SIZE = 32;
+
+    private final Path file;
+    private final ByteBuffer buf;
+    private final int rowCount;
+    private final int distinctCount;
+    private final int directoryStart;
+
+    private BitmapIndex(Path file, ByteBuffer buf) throws IOException {
+        if (buf.getInt(0) != MAGIC) throw new IOException("Not a bitmap index: " + file);
+        int version = buf.getInt(4);
+        if (version != VERSION) throw new IOException("Unsupported bitmap index version " + version + " in " + file);
+
+        this.file = file;
+        this.buf = buf;
+        this.distinctCount = buf.getInt(8);
+        this.rowCount = (int) buf.getLong(16);
+        this.directoryStart = HEADER_SIZE + 8 * rowCount;
+    }
+
+    public static BitmapIndex open(Path file) throws IOException {
+        if (file == null) throw new NullPointerException("file");
+
+        long size = Files.size(file);
+        if (size > Integer.MAX_VALUE) throw new IOException("Bitmap index too large to map: " + file);
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            return new BitmapIndex(file, ch.map(FileChannel.MapMode.READ_ONLY, 0, size));
+        }
+    }
+
+    // Number of rows in the table, including rows whose value is null.
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    public int getDistinctCount() {
+        return distinctCount;
+    }
+
+    // Row ID (byte offset of the line) of the given row number.
+    public long rowId(int row) {
+        if (row < 0 || row >= rowCount) throw new IndexOutOfBoundsException("Row: " + row + ", Rows: " + rowCount);
+        return buf.getLong(HEADER_SIZE + 8 * row);
+    }
+
+    // Returns the rows whose value lies in the range, as the union of the bitmaps of the values in it.
+    public RoaringBitmap lookup(KeyRange range) {
+        RoaringBitmap out = new RoaringBitmap();
+        if (range.isEmpty()) return out;
+
+        for (int i = firstAtLeast(range.getLow()); i < distinctCount && valueAt(i) <= range.getHigh(); i++) {
+            ByteBuffer in = buf.duplicate();
+            in.position((int) buf.getLong(directoryStart + 16 * i + 8));
+            out = out.isEmpty() ? RoaringBitmap.read(in) : out.or(RoaringBitmap.read(in));
+        }
+        return out;
+    }
+
+    private long valueAt(int i) {
+        return buf.getLong(directoryStart + 16 * i);
+    }
+
+    // Index of the first directory entry whose value is >= key.
+    private int firstAtLeast(long key) {
+        int lo = 0, hi = distinctCount;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (valueAt(mid) < key) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    @Override
+    public String toString() {
+        return "BitmapIndex(" + file + ")";
+    }
+}
@@ -0,0 +1,86 @@
+package ed.inf.adbs.lightdb.index;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+
+/**
+ * Writes a BitmapIndex from entries sorted by key.
+ *
+ * Each entry's row ID is turned into its row number by looking it up among the row IDs of all rows, and the row
+ * numbers of each distinct key are collected into one run-optimized RoaringBitmap. The file is written to a
+ * temporary sibling and moved into place once complete.
+ */
+public final class BitmapIndexBuilder {
+    private BitmapIndexBuilder() {}
+
+    // Writes an index over the first n entries of keys/rids, which must be sorted by key. rowIds holds the row IDs
+    // of all rowCount rows of the table in file order, including rows without an entry.
+    public static BitmapIndex build(long[] keys, long[] rids, int n, long[] rowIds, int rowCount, Path targetFile) throws IOException {
+        if (keys == null || rids == null || rowIds == null) throw new NullPointerException("keys/rids/rowIds");
+        if (targetFile == null) throw new NullPointerException("targetFile");
+
+        long[] values = new long[16];
+        long[] offsets = new long[16];
+        int distinct = 0;
+
+        ByteArrayOutputStream bitmaps = new ByteArrayOutputStream();
+        DataOutputStream bitmapOut = new DataOutputStream(bitmaps);
+
+        for (int from = 0; from < n; ) {
+            int to = from;
+            RoaringBitmap rows = new RoaringBitmap();
+            while (to < n && keys[to] == keys[from]) {
+                int row = Arrays.binarySearch(rowIds, 0, rowCount, rids[to]);
+                if (row < 0) throw new IllegalArgumentException("Row ID " + rids[to] + " is not the start of a row");
+                rows.add(row);
+                to++;
+            }
+            rows.runOptimize();
+
+            if (distinct == values.length) {
+                values = Arrays.copyOf(values, distinct * 2);
+                offsets = Arrays.copyOf(offsets, distinct * 2);
+            }
+            values[distinct] = keys[from];
+            offsets[distinct] = bitmaps.size();
+            distinct++;
+            rows.write(bitmapOut);
+
+            from = to;
+        }
+        bitmapOut.flush();
+
+        long bitmapsStart = BitmapIndex.HEADER_SIZE + 8L * rowCount + 16L * distinct;
+
+        Path tmpFile = targetFile.resolveSibling(targetFile.getFileName().toString() + ".tmp");
+        Files.createDirectories(tmpFile.toAbsolutePath().getParent());
+
+        try (OutputStream os = Files.newOutputStream(tmpFile);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(os, 1 << 16))) {
+            out.writeInt(BitmapIndex.MAGIC);
+            out.writeInt(BitmapIndex.VERSION);
+            out.writeInt(distinct);
+            out.writeInt(0);
+            out.writeLong(rowCount);
+            out.writeLong(0L);
+
+            for (int i = 0; i < rowCount; i++) out.writeLong(rowIds[i]);
+            for (int i = 0; i < distinct; i++) {
+                out.writeLong(values[i]);
+                out.writeLong(bitmapsStart + offsets[i]);
+            }
+            bitmaps.writeTo(out);
+        }
+
+        Files.move(tmpFile, targetFile, StandardCopyOption.REPLACE_EXISTING);
+
+        return BitmapIndex.open(targetFile);
+    }
+}
@@ -0,0 +1,147 @@
+package ed.inf.adbs.lightdb.index;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Read side of a static hash index mapping integer keys to row IDs.
+ *
+ * The file is a header, a bucket directory and the entries grouped by bucket: bucket b holds the (key, row ID)
+ * entries from directory[b] up to directory[b + 1], sorted by key with row IDs ascending within a key. The whole
+ * file is memory-mapped once per process and shared by every reader (see open), and lookups go through a reusable
+ * Probe, so probing allocates nothing and never copies the index into the heap.
+ * Indexes are written by HashIndexBuilder and never modified afterwards.
+ */
+public final class HashIndex {
+    static final int MAGIC = 0x4C444258; // "LDBX"
+    static final int VERSION = 1;
+
+    // Header: magic, version, bucket count at 8, entry count at 16; the directory starts at 32
+    static final int HEADER_SIZE = 32;
+    static final int ENTRY_SIZE = 16;
+
+    private static final ConcurrentMap<Path, HashIndex> OPEN = new ConcurrentHashMap<Path, HashIndex>();
+
+    private final Path file;
+    private final long fileSize;
+    private final long fileModified;
+    private final ByteBuffer buf;
+    private final int mask;
+    private final int entryCount;
+    private final int entriesStart;
+
+    private HashIndex(Path file, long fileSize, long fileModified, ByteBuffer buf) throws IOException {
+        if (buf.getInt(0) != MAGIC) throw new IOException("Not a hash index: " + file);
+        int version = buf.getInt(4);
+        if (version != VERSION) throw new IOException("Unsupported hash index version " + version + " in " + file);
+
+        int buckets = buf.getInt(8);
+        if (buckets <= 0 || Integer.bitCount(buckets) != 1) throw new IOException("Corrupt hash index: " + file);
+
+        this.file = file;
+        this.fileSize = fileSize;
+        this.fileModified = fileModified;
+        this.buf = buf;
+        this.mask = buckets - 1;
+        this.entryCount = (int) buf.getLong(16);
+        this.entriesStart = HEADER_SIZE + 4 * (buckets + 1);
+    }
+
+    // Returns the mapped index in the file, mapping it on first use. The mapping is reused until the file changes.
+    public static HashIndex open(Path file) throws IOException {
+        if (file == null) throw new NullPointerException("file");
+        Path key = file.toAbsolutePath().normalize();
+
+        long size = Files.size(key);
+        long modified = Files.getLastModifiedTime(key).toMillis();
+
+        HashIndex cached = OPEN.get(key);
+        if (cached != null && cached.fileSize == size && cached.fileModified == modified) return cached;
+
+        if (size > Integer.MAX_VALUE) throw new IOException("Hash index too large to map: " + file);
+        try (FileChannel ch = FileChannel.open(key, StandardOpenOption.READ)) {
+            HashIndex index = new HashIndex(key, size, modified, ch.map(FileChannel.MapMode.READ_ONLY, 0, size));
+            OPEN.put(key, index);
+            return index;
+        }
+    }
+
+    // Forgets the mapping of a file that is about to be rewritten.
+    static void evict(Path file) {
+        OPEN.remove(file.toAbsolutePath().normalize());
+    }
+
+    public long getEntryCount() {
+        return entryCount;
+    }
+
+    public int getBucketCount() {
+        return mask + 1;
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    // Creates a probe for looking up keys; a single probe can be reused for any number of lookups.
+    public Probe probe() {
+        return new Probe();
+    }
+
+    // Finalizer of the murmur3 64-bit hash, spreading sequential ids over all buckets.
+    static int bucketOf(long key, int mask) {
+        long h = key;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return (int) h & mask;
+    }
+
+    /**
+     * Iterates over the row IDs of one key at a time: find(key) positions the probe, then next() advances to each
+     * matching entry in turn and rid() returns its row ID.
+     */
+    public final class Probe {
+        private long key;
+        private int pos;
+        private int end;
+        private long rid;
+
+        private Probe() {}
+
+        public Probe find(long key) {
+            int b = bucketOf(key, mask);
+            this.key = key;
+            this.pos = buf.getInt(HEADER_SIZE + 4 * b);
+            this.end = buf.getInt(HEADER_SIZE + 4 * (b + 1));
+            return this;
+        }
+
+        public boolean next() {
+            while (pos < end) {
+                int off = entriesStart + ENTRY_SIZE * pos++;
+                long k = buf.getLong(off);
+                if (k == key) {
+                    rid = buf.getLong(off + 8);
+                    return true;
+                }
+                // Entries are sorted by key within a bucket
+                if (k > key) break;
+            }
+            pos = end;
+            return false;
+        }
+
+        public long rid() {
+            return rid;
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package ed.inf.adbs.lightdb.index;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Writes a HashIndex from entries sorted by key.
+ *
+ * The bucket count is the smallest power of two not below the number of distinct keys, so a bucket holds about one
+ * key on average. Entries are distributed over the buckets with a stable counting sort, which keeps them sorted by
+ * key within each bucket. The file is written to a temporary sibling and moved into place once complete.
+ */
+public final class HashIndexBuilder {
+    private HashIndexBuilder() {}
+
+    // Writes an index over the first n entries of keys/rids, which must be sorted by key.
+    public static HashIndex build(long[] keys, long[] rids, int n, Path targetFile) throws IOException {
+        if (keys == null || rids == null) throw new NullPointerException("keys/rids");
+        if (targetFile == null) throw new NullPointerException("targetFile");
+
+        int distinct = 0;
+        for (int i = 0; i < n; i++) {
+            if (i == 0 || keys[i] != keys[i - 1]) distinct++;
+        }
+        int buckets = 1;
+        while (buckets < distinct) buckets <<= 1;
+        int mask = buckets - 1;
+
+        // directory[b] = index of the first entry of bucket b; directory[buckets] = n
+        int[] directory = new int[buckets + 1];
+        int[] bucketOf = new int[n];
+        for (int i = 0; i < n; i++) {
+            bucketOf[i] = HashIndex.bucketOf(keys[i], mask);
+            directory[bucketOf[i] + 1]++;
+        }
+        for (int b = 0; b < buckets; b++) directory[b + 1] += directory[b];
+
+        int[] slot = new int[n];
+        int[] fill = new int[buckets];
+        System.arraycopy(directory, 0, fill, 0, buckets);
+        for (int i = 0; i < n; i++) slot[fill[bucketOf[i]]++] = i;
+
+        Path tmpFile = targetFile.resolveSibling(targetFile.getFileName().toString() + ".tmp");
+        Files.createDirectories(tmpFile.toAbsolutePath().getParent());
+
+        try (OutputStream os = Files.newOutputStream(tmpFile);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(os, 1 << 16))) {
+            out.writeInt(HashIndex.MAGIC);
+            out.writeInt(HashIndex.VERSION);
+            out.writeInt(buckets);
+            out.writeInt(0);
+            out.writeLong(n);
+            out.writeLong(0L);
+
+            for (int d : directory) out.writeInt(d);
+            for (int i = 0; i < n; i++) {
+                out.writeLong(keys[slot[i]]);
+                out.writeLong(rids[slot[i]]);
+            }
+        }
+
+        HashIndex.evict(targetFile);
+        Files.move(tmpFile, targetFile, StandardCopyOption.REPLACE_EXISTING);
+
+        return HashIndex.open(targetFile);
+    }
+}
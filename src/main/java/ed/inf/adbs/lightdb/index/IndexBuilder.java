@@ -0,0 +1,133 @@
+package ed.inf.adbs.lightdb.index;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+import ed.inf.adbs.lightdb.catalog.ColumnMeta;
+import ed.inf.adbs.lightdb.catalog.IndexMeta;
+import ed.inf.adbs.lightdb.catalog.IndexType;
+import ed.inf.adbs.lightdb.catalog.TableMeta;
+import ed.inf.adbs.lightdb.storage.CsvLineReader;
+import ed.inf.adbs.lightdb.storage.CsvRows;
+
+/**
+ * Builds secondary indexes from a table's CSV file.
+ *
+ * The indexed column is read in one sequential pass, pairing each integer value with the row ID of its row (the
+ * byte offset of the line, see CsvRowFetcher). Empty fields are nulls and are not indexed; any other non-integer
+ * value makes the column unsuitable for indexing. The pairs are sorted by key (row IDs stay ascending within a key)
+ * and handed to the writer for the requested index type. Bitmap indexes additionally get the row IDs of all rows,
+ * to number the rows.
+ */
+public final class IndexBuilder {
+    private IndexBuilder() {}
+
+    public static IndexMeta build(TableMeta table, String column, IndexType type, Path indexFile) throws IOException {
+        if (table == null) throw new NullPointerException("table");
+        if (column == null) throw new NullPointerException("column");
+        if (type == null) throw new NullPointerException("type");
+        if (indexFile == null) throw new NullPointerException("indexFile");
+
+        int col = indexOf(table.getColumns(), column);
+        Path csv = Paths.get(table.getDataFile());
+        long sourceSize = Files.size(csv);
+        long sourceModified = Files.getLastModifiedTime(csv).toMillis();
+
+        long[] keys = new long[1024];
+        long[] rids = new long[1024];
+        int n = 0;
+
+        // Row IDs of every row, nulls included (bitmap indexes only)
+        boolean allRows = type == IndexType.BITMAP;
+        long[] rowIds = new long[allRows ? 1024 : 0];
+        int rowCount = 0;
+
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(csv), 1 << 16)) {
+            CsvLineReader reader = new CsvLineReader(in);
+            long rid = reader.position();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] values = CsvRows.split(line);
+                String v = (col < values.length) ? values[col] : "";
+
+                if (allRows) {
+                    if (rowCount == rowIds.length) rowIds = Arrays.copyOf(rowIds, rowCount * 2);
+                    rowIds[rowCount++] = rid;
+                }
+
+                if (!v.isEmpty()) {
+                    if (!CsvRows.isCanonicalLong(v)) {
+                        throw new IllegalArgumentException("Cannot index non-integer value '" + v + "' in column "
+                                + table.getName() + "." + column);
+                    }
+                    if (n == keys.length) {
+                        keys = Arrays.copyOf(keys, n * 2);
+                        rids = Arrays.copyOf(rids, n * 2);
+                    }
+                    keys[n] = Long.parseLong(v);
+                    rids[n] = rid;
+                    n++;
+                }
+                rid = reader.position();
+            }
+        }
+
+        sortByKey(keys, rids, n);
+
+        switch (type) {
+            case BTREE:
+                BPlusTreeBuilder.build(keys, rids, n, indexFile);
+                break;
+            case HASH:
+                HashIndexBuilder.build(keys, rids, n, indexFile);
+                break;
+            case BITMAP:
+                BitmapIndexBuilder.build(keys, rids, n, rowIds, rowCount, indexFile);
+                break;
+            default:
+                throw new IllegalArgumentException("Unsupported index type: " + type);
+        }
+
+        return new IndexMeta(table.getName(), column, type, indexFile.toString(), sourceSize, sourceModified);
+    }
+
+    // Stable merge sort of the (key, rid) pairs by key, so rows with equal keys keep their file order.
+    static void sortByKey(long[] keys, long[] rids, int n) {
+        long[] tk = new long[n];
+        long[] tr = new long[n];
+        for (int width = 1; width < n; width *= 2) {
+            for (int lo = 0; lo < n; lo += 2 * width) {
+                int mid = Math.min(lo + width, n);
+                int hi = Math.min(lo + 2 * width, n);
+                int i = lo, j = mid, k = lo;
+                while (i < mid && j < hi) {
+                    if (keys[j] < keys[i]) { tk[k] = keys[j]; tr[k++] = rids[j++]; }
+                    else { tk[k] = keys[i]; tr[k++] = rids[i++]; }
+                }
+                while (i < mid) { tk[k] = keys[i]; tr[k++] = rids[i++]; }
+                while (j < hi) { tk[k] = keys[j]; tr[k++] = rids[j++]; }
+            }
+            System.arraycopy(tk, 0, keys, 0, n);
+            System.arraycopy(tr, 0, rids, 0, n);
+        }
+    }
+
+    private static int indexOf(List<ColumnMeta> schema, String column) {
+        String c = norm(column);
+        for (int i = 0; i < schema.size(); i++) {
+            if (norm(schema.get(i).getName()).equals(c)) return i;
+        }
+        throw new IllegalArgumentException("Column not found: " + column);
+    }
+
+    private static String norm(String s) {
+        return s.trim().toLowerCase(Locale.ROOT);
+    }
+}
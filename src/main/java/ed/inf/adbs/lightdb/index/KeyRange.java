@@ -0,0 +1,80 @@
+package ed.inf.adbs.lightdb.index;
+
+import java.util.List;
+
+import ed.inf.adbs.lightdb.util.ColumnComparison;
+
+/**
+ * A closed range [low, high] of integer keys, the form in which index lookups are expressed.
+ * Strict bounds are converted to inclusive ones (x < 5 becomes x <= 4), so a range with low > high is empty.
+ */
+public final class KeyRange {
+    private final long low;
+    private final long high;
+
+    public KeyRange(long low, long high) {
+        this.low = low;
+        this.high = high;
+    }
+
+    public static KeyRange all() {
+        return new KeyRange(Long.MIN_VALUE, Long.MAX_VALUE);
+    }
+
+    public static KeyRange point(long key) {
+        return new KeyRange(key, key);
+    }
+
+    // Intersects the ranges described by comparisons on a single column. Returns null if any of them is a
+    // not-equals comparison, which cannot be expressed as a single range.
+    public static KeyRange of(List<ColumnComparison> comparisons) {
+        KeyRange r = all();
+        for (ColumnComparison c : comparisons) {
+            r = r.intersect(c);
+            if (r == null) return null;
+        }
+        return r;
+    }
+
+    // The part of this range that also satisfies the comparison, or null for a not-equals comparison.
+    public KeyRange intersect(ColumnComparison c) {
+        long v = c.getValue();
+        switch (c.getOp()) {
+            case EQ: return new KeyRange(Math.max(low, v), Math.min(high, v));
+            case LT: return (v == Long.MIN_VALUE) ? empty() : new KeyRange(low, Math.min(high, v - 1));
+            case LE: return new KeyRange(low, Math.min(high, v));
+            case GT: return (v == Long.MAX_VALUE) ? empty() : new KeyRange(Math.max(low, v + 1), high);
+            case GE: return new KeyRange(Math.max(low, v), high);
+            default: return null;
+        }
+    }
+
+    private static KeyRange empty() {
+        return new KeyRange(Long.MAX_VALUE, Long.MIN_VALUE);
+    }
+
+    public long getLow() {
+        return low;
+    }
+
+    public long getHigh() {
+        return high;
+    }
+
+    public boolean isEmpty() {
+        return low > high;
+    }
+
+    public boolean isPoint() {
+        return low == high;
+    }
+
+    public boolean contains(long key) {
+        return low <= key && key <= high;
+    }
+
+    @Override
+    public String toString() {
+        return isEmpty() ? "[]" : "[" + low + ", " + high + "]";
+    }
+}
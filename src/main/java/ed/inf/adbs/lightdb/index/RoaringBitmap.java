@@ -0,0 +1,569 @@
+package ed.inf.adbs.lightdb.index;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * A compressed set of non-negative ints, organised like a Roaring bitmap.
+ *
+ * Values are split by their high 16 bits into chunks of 65536, and each non-empty chunk keeps its low 16 bits in the
+ * most compact of three containers: a sorted array (up to 4096 values), a 65536-bit bitmap, or a list of runs of
+ * consecutive values (chosen by runOptimize). Intersections and unions work container by container, so chunks
+ * present in only one operand of an intersection are never looked at.
+ * Bitmaps are mutable while being built with add; the results of and/or never share containers with their operands.
+ */
+public final class RoaringBitmap {
+    static final int ARRAY_MAX = 4096;
+
+    private static final byte ARRAY = 1;
+    private static final byte BITMAP = 2;
+    private static final byte RUN = 3;
+
+    private char[] keys;
+    private Container[] containers;
+    private int size;
+
+    public RoaringBitmap() {
+        this.keys = new char[4];
+        this.containers = new Container[4];
+        this.size = 0;
+    }
+
+    public static RoaringBitmap of(int... values) {
+        RoaringBitmap b = new RoaringBitmap();
+        for (int v : values) b.add(v);
+        return b;
+    }
+
+    public void add(int x) {
+        if (x < 0) throw new IllegalArgumentException("Negative value: " + x);
+        char hi = (char) (x >>> 16);
+
+        // Values usually arrive in ascending order, so try the last chunk first
+        int i = (size > 0 && keys[size - 1] == hi) ? size - 1 : Arrays.binarySearch(keys, 0, size, hi);
+        if (i < 0) {
+            i = -i - 1;
+            insert(i, hi, new ArrayContainer());
+        }
+        containers[i] = containers[i].add((char) x);
+    }
+
+    public boolean contains(int x) {
+        if (x < 0) return false;
+        int i = Arrays.binarySearch(keys, 0, size, (char) (x >>> 16));
+        return i >= 0 && containers[i].contains((char) x);
+    }
+
+    public long getCardinality() {
+        long c = 0;
+        for (int i = 0; i < size; i++) c += containers[i].cardinality();
+        return c;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public RoaringBitmap and(RoaringBitmap other) {
+        RoaringBitmap out = new RoaringBitmap();
+        int i = 0, j = 0;
+        while (i < size && j < other.size) {
+            if (keys[i] < other.keys[j]) {
+                i++;
+            } else if (keys[i] > other.keys[j]) {
+                j++;
+            } else {
+                Container c = and(containers[i], other.containers[j]);
+                if (c.cardinality() > 0) out.insert(out.size, keys[i], c);
+                i++;
+                j++;
+            }
+        }
+        return out;
+    }
+
+    public RoaringBitmap or(RoaringBitmap other) {
+        RoaringBitmap out = new RoaringBitmap();
+        int i = 0, j = 0;
+        while (i < size || j < other.size) {
+            if (j == other.size || (i < size && keys[i] < other.keys[j])) {
+                out.insert(out.size, keys[i], containers[i].copy());
+                i++;
+            } else if (i == size || keys[i] > other.keys[j]) {
+                out.insert(out.size, other.keys[j], other.containers[j].copy());
+                j++;
+            } else {
+                out.insert(out.size, keys[i], or(containers[i], other.containers[j]));
+                i++;
+                j++;
+            }
+        }
+        return out;
+    }
+
+    // Converts every container to whichever of the three representations is smallest.
+    public void runOptimize() {
+        for (int i = 0; i < size; i++) containers[i] = optimize(containers[i]);
+    }
+
+    // Iterates over the values in ascending order.
+    public Cursor cursor() {
+        return new Cursor();
+    }
+
+    // ---------------- Serialization ----------------
+
+    public void write(DataOutput out) throws IOException {
+        out.writeInt(size);
+        for (int i = 0; i < size; i++) {
+            out.writeChar(keys[i]);
+            containers[i].write(out);
+        }
+    }
+
+    // Reads a bitmap written by write, starting at the buffer's position and advancing it.
+    public static RoaringBitmap read(ByteBuffer in) {
+        RoaringBitmap b = new RoaringBitmap();
+        int n = in.getInt();
+        for (int i = 0; i < n; i++) {
+            char key = in.getChar();
+            byte type = in.get();
+            Container c;
+            switch (type) {
+                case ARRAY: {
+                    ArrayContainer a = new ArrayContainer(in.getChar());
+                    for (int k = 0; k < a.card; k++) a.values[k] = in.getChar();
+                    c = a;
+                    break;
+                }
+                case BITMAP: {
+                    BitmapContainer m = new BitmapContainer();
+                    for (int k = 0; k < m.words.length; k++) {
+                        m.words[k] = in.getLong();
+                        m.card += Long.bitCount(m.words[k]);
+                    }
+                    c = m;
+                    break;
+                }
+                case RUN: {
+                    char[] runs = new char[2 * in.getChar()];
+                    for (int k = 0; k < runs.length; k++) runs[k] = in.getChar();
+                    c = new RunContainer(runs);
+                    break;
+                }
+                default:
+                    throw new IllegalArgumentException("Unknown bitmap container type: " + type);
+            }
+            b.insert(b.size, key, c);
+        }
+        return b;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof RoaringBitmap)) return false;
+        RoaringBitmap other = (RoaringBitmap) o;
+        if (getCardinality() != other.getCardinality()) return false;
+        return getCardinality() == and(other).getCardinality();
+    }
+
+    @Override
+    public int hashCode() {
+        int h = 1;
+        Cursor c = cursor();
+        for (int v = c.next(); v >= 0; v = c.next()) h = 31 * h + v;
+        return h;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("{");
+        Cursor c = cursor();
+        for (int v = c.next(); v >= 0; v = c.next()) {
+            if (sb.length() > 1) sb.append(", ");
+            sb.append(v);
+        }
+        return sb.append('}').toString();
+    }
+
+    private void insert(int i, char key, Container c) {
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size * 2);
+            containers = Arrays.copyOf(containers, size * 2);
+        }
+        System.arraycopy(keys, i, keys, i + 1, size - i);
+        System.arraycopy(containers, i, containers, i + 1, size - i);
+        keys[i] = key;
+        containers[i] = c;
+        size++;
+    }
+
+    /**
+     * Returns the values one at a time: next() gives the next value, or -1 once all have been returned.
+     * Values are decoded a container at a time into a reusable buffer.
+     */
+    public final class Cursor {
+        private int container = -1;
+        private int[] buf = new int[0];
+        private int pos;
+        private int count;
+
+        private Cursor() {}
+
+        public int next() {
+            while (pos == count) {
+                if (++container >= size) {
+                    container = size;
+                    return -1;
+                }
+                Container c = containers[container];
+                if (buf.length < c.cardinality()) buf = new int[Math.max(c.cardinality(), 2 * buf.length)];
+                count = c.toArray(buf, keys[container] << 16);
+                pos = 0;
+            }
+            return buf[pos++];
+        }
+    }
+
+    // ---------------- Containers ----------------
+
+    private static Container and(Container a, Container b) {
+        if (a instanceof RunContainer) a = ((RunContainer) a).expand();
+        if (b instanceof RunContainer) b = ((RunContainer) b).expand();
+
+        if (a instanceof ArrayContainer && b instanceof ArrayContainer) {
+            ArrayContainer x = (ArrayContainer) a, y = (ArrayContainer) b;
+            ArrayContainer out = new ArrayContainer(Math.min(x.card, y.card));
+            int i = 0, j = 0, k = 0;
+            while (i < x.card && j < y.card) {
+                if (x.values[i] < y.values[j]) i++;
+                else if (x.values[i] > y.values[j]) j++;
+                else { out.values[k++] = x.values[i]; i++; j++; }
+            }
+            out.card = k;
+            return out;
+        }
+        if (a instanceof BitmapContainer && b instanceof BitmapContainer) {
+            BitmapContainer x = (BitmapContainer) a, y = (BitmapContainer) b;
+            BitmapContainer out = new BitmapContainer();
+            for (int w = 0; w < out.words.length; w++) {
+                out.words[w] = x.words[w] & y.words[w];
+                out.card += Long.bitCount(out.words[w]);
+            }
+            return out.shrink();
+        }
+
+        ArrayContainer arr = (ArrayContainer) ((a instanceof ArrayContainer) ? a : b);
+        BitmapContainer bits = (BitmapContainer) ((a instanceof ArrayContainer) ? b : a);
+        ArrayContainer out = new ArrayContainer(arr.card);
+        int k = 0;
+        for (int i = 0; i < arr.card; i++) {
+            if (bits.contains(arr.values[i])) out.values[k++] = arr.values[i];
+        }
+        out.card = k;
+        return out;
+    }
+
+    private static Container or(Container a, Container b) {
+        if (a instanceof RunContainer) a = ((RunContainer) a).expand();
+        if (b instanceof RunContainer) b = ((RunContainer) b).expand();
+
+        if (a instanceof ArrayContainer && b instanceof ArrayContainer) {
+            ArrayContainer x = (ArrayContainer) a, y = (ArrayContainer) b;
+            if (x.card + y.card > ARRAY_MAX) {
+                BitmapContainer out = x.toBitmap();
+                for (int j = 0; j < y.card; j++) out.add(y.values[j]);
+                return out.shrink();
+            }
+            ArrayContainer out = new ArrayContainer(x.card + y.card);
+            int i = 0, j = 0, k = 0;
+            while (i < x.card || j < y.card) {
+                if (j == y.card || (i < x.card && x.values[i] < y.values[j])) out.values[k++] = x.values[i++];
+                else if (i == x.card || x.values[i] > y.values[j]) out.values[k++] = y.values[j++];
+                else { out.values[k++] = x.values[i]; i++; j++; }
+            }
+            out.card = k;
+            return out;
+        }
+
+        BitmapContainer out;
+        if (a instanceof BitmapContainer && b instanceof BitmapContainer) {
+            BitmapContainer x = (BitmapContainer) a, y = (BitmapContainer) b;
+            out = new BitmapContainer();
+            for (int w = 0; w < out.words.length; w++) {
+                out.words[w] = x.words[w] | y.words[w];
+                out.card += Long.bitCount(out.words[w]);
+            }
+            return out;
+        }
+
+        ArrayContainer arr = (ArrayContainer) ((a instanceof ArrayContainer) ? a : b);
+        out = (BitmapContainer) ((a instanceof ArrayContainer) ? b : a).copy();
+        for (int i = 0; i < arr.card; i++) out.add(arr.values[i]);
+        return out;
+    }
+
+    // Picks the smallest representation: 2 bytes per value (array), 8 KB (bitmap) or 4 bytes per run.
+    private static Container optimize(Container c) {
+        int[] values = new int[c.cardinality()];
+        int n = c.toArray(values, 0);
+
+        int runs = 0;
+        for (int i = 0; i < n; i++) {
+            if (i == 0 || values[i] != values[i - 1] + 1) runs++;
+        }
+
+        int arrayBytes = 2 * n;
+        int bitmapBytes = 8192;
+        int runBytes = 4 * runs;
+        if (runBytes < Math.min(arrayBytes, bitmapBytes)) {
+            char[] r = new char[2 * runs];
+            int k = -1;
+            for (int i = 0; i < n; i++) {
+                if (i == 0 || values[i] != values[i - 1] + 1) {
+                    k++;
+                    r[2 * k] = (char) values[i];
+                } else {
+                    r[2 * k + 1]++;
+                }
+            }
+            return new RunContainer(r);
+        }
+
+        if (c instanceof RunContainer) return ((RunContainer) c).expand();
+        if (c instanceof BitmapContainer) return ((BitmapContainer) c).shrink();
+        return c;
+    }
+
+    private abstract static class Container {
+        // Adds a value, returning the container that now holds the set (this one, or a converted one).
+        abstract Container add(char v);
+
+        abstract boolean contains(char v);
+
+        abstract int cardinality();
+
+        // Writes (high | v) for every value v in ascending order, returning the number written.
+        abstract int toArray(int[] out, int high);
+
+        abstract Container copy();
+
+        abstract void write(DataOutput out) throws IOException;
+    }
+
+    private static final class ArrayContainer extends Container {
+        char[] values;
+        int card;
+
+        ArrayContainer() {
+            this.values = new char[4];
+        }
+
+        ArrayContainer(int capacity) {
+            this.values = new char[Math.max(1, capacity)];
+            this.card = capacity;
+        }
+
+        @Override
+        Container add(char v) {
+            // Fast path for ascending inserts
+            int i = (card > 0 && values[card - 1] < v) ? -(card + 1) : Arrays.binarySearch(values, 0, card, v);
+            if (i >= 0) return this;
+            if (card == ARRAY_MAX) {
+                BitmapContainer b = toBitmap();
+                b.add(v);
+                return b;
+            }
+            i = -i - 1;
+            if (card == values.length) values = Arrays.copyOf(values, Math.min(ARRAY_MAX, card * 2));
+            System.arraycopy(values, i, values, i + 1, card - i);
+            values[i] = v;
+            card++;
+            return this;
+        }
+
+        @Override
+        boolean contains(char v) {
+            return Arrays.binarySearch(values, 0, card, v) >= 0;
+        }
+
+        @Override
+        int cardinality() {
+            return card;
+        }
+
+        @Override
+        int toArray(int[] out, int high) {
+            for (int i = 0; i < card; i++) out[i] = high | values[i];
+            return card;
+        }
+
+        @Override
+        Container copy() {
+            ArrayContainer c = new ArrayContainer(card);
+            System.arraycopy(values, 0, c.values, 0, card);
+            return c;
+        }
+
+        BitmapContainer toBitmap() {
+            BitmapContainer b = new BitmapContainer();
+            for (int i = 0; i < card; i++) b.add(values[i]);
+            return b;
+        }
+
+        @Override
+        void write(DataOutput out) throws IOException {
+            out.writeByte(ARRAY);
+            out.writeChar(card);
+            for (int i = 0; i < card; i++) out.writeChar(values[i]);
+        }
+    }
+
+    private static final class BitmapContainer extends Container {
+        final long[] words = new long[1024];
+        int card;
+
+        @Override
+        Container add(char v) {
+            long bit = 1L << v;
+            if ((words[v >>> 6] & bit) == 0) {
+                words[v >>> 6] |= bit;
+                card++;
+            }
+            return this;
+        }
+
+        @Override
+        boolean contains(char v) {
+            return (words[v >>> 6] & (1L << v)) != 0;
+        }
+
+        @Override
+        int cardinality() {
+            return card;
+        }
+
+        @Override
+        int toArray(int[] out, int high) {
+            int k = 0;
+            for (int w = 0; w < words.length; w++) {
+                long word = words[w];
+                while (word != 0) {
+                    out[k++] = high | (w << 6) | Long.numberOfTrailingZeros(word);
+                    word &= word - 1;
+                }
+            }
+            return k;
+        }
+
+        @Override
+        Container copy() {
+            BitmapContainer c = new BitmapContainer();
+            System.arraycopy(words, 0, c.words, 0, words.length);
+            c.card = card;
+            return c;
+        }
+
+        // Converts to an array container if that is smaller.
+        Container shrink() {
+            if (card > ARRAY_MAX) return this;
+            ArrayContainer a = new ArrayContainer(card);
+            int k = 0;
+            for (int w = 0; w < words.length; w++) {
+                long word = words[w];
+                while (word != 0) {
+                    a.values[k++] = (char) ((w << 6) | Long.numberOfTrailingZeros(word));
+                    word &= word - 1;
+                }
+            }
+            return a;
+        }
+
+        @Override
+        void write(DataOutput out) throws IOException {
+            out.writeByte(BITMAP);
+            for (long w : words) out.writeLong(w);
+        }
+    }
+
+    private static final class RunContainer extends Container {
+        // [start0, length0, start1, length1, ...], where a run of length L covers start..start+L
+        final char[] runs;
+        final int card;
+
+        RunContainer(char[] runs) {
+            this.runs = runs;
+            int c = 0;
+            for (int i = 1; i < runs.length; i += 2) c += runs[i] + 1;
+            this.card = c;
+        }
+
+        @Override
+        Container add(char v) {
+            return contains(v) ? this : expand().add(v);
+        }
+
+        @Override
+        boolean contains(char v) {
+            int lo = 0, hi = runs.length / 2 - 1;
+            while (lo <= hi) {
+                int mid = (lo + hi) >>> 1;
+                int start = runs[2 * mid];
+                if (v < start) hi = mid - 1;
+                else if (v > start + runs[2 * mid + 1]) lo = mid + 1;
+                else return true;
+            }
+            return false;
+        }
+
+        @Override
+        int cardinality() {
+            return card;
+        }
+
+        @Override
+        int toArray(int[] out, int high) {
+            int k = 0;
+            for (int r = 0; r < runs.length; r += 2) {
+                int end = runs[r] + runs[r + 1];
+                for (int v = runs[r]; v <= end; v++) out[k++] = high | v;
+            }
+            return k;
+        }
+
+        @Override
+        Container copy() {
+            return this; // never modified in place
+        }
+
+        // The same set as an array or bitmap container.
+        Container expand() {
+            if (card <= ARRAY_MAX) {
+                ArrayContainer a = new ArrayContainer(card);
+                int k = 0;
+                for (int r = 0; r < runs.length; r += 2) {
+                    int end = runs[r] + runs[r + 1];
+                    for (int v = runs[r]; v <= end; v++) a.values[k++] = (char) v;
+                }
+                return a;
+            }
+            BitmapContainer b = new BitmapContainer();
+            for (int r = 0; r < runs.length; r += 2) {
+                int end = runs[r] + runs[r + 1];
+                for (int v = runs[r]; v <= end; v++) b.words[v >>> 6] |= 1L << v;
+            }
+            b.card = card;
+            return b;
+        }
+
+        @Override
+        void write(DataOutput out) throws IOException {
+            out.writeByte(RUN);
+            out.writeChar(runs.length / 2);
+            for (char c : runs) out.writeChar(c);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package ed.inf.adbs.lightdb.operator;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+
+import ed.inf.adbs.lightdb.Tuple;
+import ed.inf.adbs.lightdb.catalog.Catalog;
+import ed.inf.adbs.lightdb.catalog.IndexMeta;
+import ed.inf.adbs.lightdb.catalog.IndexType;
+import ed.inf.adbs.lightdb.catalog.TableMeta;
+import ed.inf.adbs.lightdb.index.BitmapIndex;
+import ed.inf.adbs.lightdb.index.RoaringBitmap;
+import ed.inf.adbs.lightdb.storage.CsvRowFetcher;
+
+/**
+ * BitmapScanOperator is a leaf operator that returns the rows of a table whose row numbers are in a bitmap, typically
+ * the result of combining bitmap index lookups for the table's selection predicate (see BitmapSelector).
+ * Row numbers are turned into row IDs through a bitmap index of the table, and rows are fetched in file order.
+ * Rows have the table's full schema; predicates not answered by the bitmap must still be applied above this operator.
+ * The operator supports resetting, which starts again from the first row in the bitmap.
+ *
+ * @PARAM tableName The name of the table to scan, which must exist in the Catalog.
+ * @PARAM index Any up-to-date bitmap index of the table, used for its row IDs.
+ * @PARAM rows The row numbers to return.
+ */
+
+public class BitmapScanOperator extends Operator {
+
+    private final TableMeta tableMeta;
+    private final BitmapIndex index;
+    private final RoaringBitmap rows;
+    private final CsvRowFetcher fetcher;
+
+    private RoaringBitmap.Cursor cursor;
+
+    public BitmapScanOperator(String tableName, IndexMeta index, RoaringBitmap rows) {
+        if (tableName == null) throw new NullPointerException("tableName cannot be null");
+        if (index == null) throw new NullPointerException("index cannot be null");
+        if (rows == null) throw new NullPointerException("rows cannot be null");
+        if (index.getType() != IndexType.BITMAP) throw new IllegalArgumentException("Not a bitmap index: " + index);
+
+        this.tableMeta = Catalog.getInstance()
+                .getTable(tableName)
+                .orElseThrow(() -> new IllegalArgumentException("Table not found in catalog: " + tableName));
+        this.rows = rows;
+
+        try {
+            this.index = BitmapIndex.open(Paths.get(index.getIndexFile()));
+            this.fetcher = new CsvRowFetcher(Paths.get(tableMeta.getDataFile()), tableMeta.getColumnTypes());
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to open index: " + index.getIndexFile(), e);
+        }
+    }
+
+    @Override
+    public Tuple getNextTuple() {
+        if (cursor == null) cursor = rows.cursor();
+
+        int row = cursor.next();
+        if (row < 0) return null;
+        try {
+            return fetcher.fetch(index.rowId(row));
+        } catch (IOException e) {
+            throw new RuntimeException("Error reading bitmap scan of table: " + tableMeta.getName(), e);
+        }
+    }
+
+    @Override
+    public void reset() {
+        cursor = null;
+    }
+}
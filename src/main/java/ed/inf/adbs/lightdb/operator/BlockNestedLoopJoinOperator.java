@@ -0,0 +1,429 @@
+package ed.inf.adbs.lightdb.operator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import ed.inf.adbs.lightdb.Batch;
+import ed.inf.adbs.lightdb.Tuple;
+import ed.inf.adbs.lightdb.catalog.TableMeta;
+import ed.inf.adbs.lightdb.expression.CompiledPredicate;
+import ed.inf.adbs.lightdb.expression.VectorPredicate;
+import ed.inf.adbs.lightdb.util.MultiTableColumnIndexResolver;
+import net.sf.jsqlparser.expression.Expression;
+
+/**
+ * BlockNestedLoopJoinOperator is a binary operator that joins two child operators on an arbitrary join condition
+ * (e.g. a comparison between columns of the two sides), reading the left (outer) input in blocks of rows held in memory.
+ * The right (inner) input is read once per block rather than once per outer row, and each inner row is compared
+ * against the whole block before the next one is read.
+ *
+ * The inner rows are also cached in memory during the first pass, as long as they fit within a row limit; later passes
+ * then replay the cache instead of rescanning the inner input. An inner input that overflows the limit is rescanned
+ * once per block instead. Conjuncts that equate a left column with a right column are checked on the integer fields
+ * of the two rows before they are combined, so non-matching pairs cost neither a combined row nor an expression
+ * evaluation. Output rows hold the left fields first; within a block they come out by inner row.
+ *
+ * getNextBatch() joins the same way on column vectors: a block is made of the selected rows of one or more outer
+ * batches, the inner input is read (or replayed) a batch at a time, key equalities are checked on the vectors and the
+ * rest of the condition is applied to each output batch at once. produce() collects each block from the rows the outer
+ * input pushes and matches it against the rows the inner input pushes. Both return the rows in the same order as
+ * getNextTuple().
+ *
+ * Resetting restarts the outer input; a complete inner cache is kept.
+ *
+ * @PARAM blockRows Number of outer rows per block.
+ * @PARAM innerCacheRows Maximum number of inner rows to cache.
+ */
+
+public final class BlockNestedLoopJoinOperator extends Operator {
+    static final int DEFAULT_BLOCK_ROWS = 4096;
+    static final int DEFAULT_INNER_CACHE_ROWS = 1 << 20;
+
+    private final Operator leftChild;
+    private final Operator rightChild;
+    private final int[] leftKeys;
+    private final int[] rightKeys;
+    private final Expression residual;
+    private final int blockRows;
+    private final int innerCacheRows;
+
+    private final List<TableMeta> tableMetas;
+    private final MultiTableColumnIndexResolver resolver;
+    private final int width;
+    // The residual compiled on first use, for rows and for batches
+    private CompiledPredicate compiledResidual;
+    private VectorPredicate vectorResidual;
+
+    // The outer rows of the current block, and the next one to pair with the current inner row
+    private List<Tuple> block;
+    private int blockPos;
+    private boolean outerExhausted;
+    private Tuple innerRow;
+
+    // The inner rows read so far while building the cache (null once the inner input overflowed the limit), and
+    // whether the cache holds the whole inner input; cachePos is the position of the next row to replay
+    private List<Tuple> cache = new ArrayList<Tuple>();
+    private boolean cacheComplete;
+    private int cachePos;
+
+    // State of getNextBatch, as above: the outer batches of the current block (from blockStart in the first to blockEnd
+    // in the last) and the position of the next outer row to pair with the current inner row, the rest of an outer
+    // batch that did not fit the block, the current inner batch and the position of that row in it, and the cache of
+    // inner batches with the number of rows it holds
+    private List<Batch> batchBlock;
+    private int blockStart;
+    private int blockEnd;
+    private int blockBatch;
+    private int blockBatchPos;
+    private Batch outerRest;
+    private int outerRestPos;
+    private boolean batchOuterExhausted;
+    private Batch innerBatch;
+    private int innerBatchPos;
+    private List<Batch> batchCache = new ArrayList<Batch>();
+    private int batchCacheRows;
+    private boolean batchCacheComplete;
+    private int batchCachePos;
+
+    // Whether the inner input has been read since it was last reset, and whether it was read to its end
+    private boolean innerRead;
+    private boolean innerAtEnd;
+
+    public BlockNestedLoopJoinOperator(Operator leftChild, Operator rightChild, Expression joinCondition,
+                                       List<TableMeta> leftTables, List<TableMeta> rightTables) {
+        this(leftChild, rightChild, joinCondition, leftTables, rightTables, DEFAULT_BLOCK_ROWS, DEFAULT_INNER_CACHE_ROWS);
+    }
+
+    BlockNestedLoopJoinOperator(Operator leftChild, Operator rightChild, Expression joinCondition,
+                                List<TableMeta> leftTables, List<TableMeta> rightTables, int blockRows, int innerCacheRows) {
+        if (leftChild == null) throw new NullPointerException("leftChild cannot be null");
+        if (rightChild == null) throw new NullPointerException("rightChild cannot be null");
+        if (leftTables == null) throw new NullPointerException("leftTables cannot be null");
+        if (rightTables == null) throw new NullPointerException("rightTables cannot be null");
+        if (blockRows < 1) throw new IllegalArgumentException("blockRows must be >= 1");
+        if (innerCacheRows < 0) throw new IllegalArgumentException("innerCacheRows must be >= 0");
+
+        this.leftChild = leftChild;
+        this.rightChild = rightChild;
+        this.blockRows = blockRows;
+        this.innerCacheRows = innerCacheRows;
+
+        JoinCondition condition = JoinCondition.split(joinCondition, leftTables, rightTables);
+        this.leftKeys = condition.leftKeys;
+        this.rightKeys = condition.rightKeys;
+        this.residual = condition.residual;
+
+        this.tableMetas = new ArrayList<TableMeta>(leftTables.size() + rightTables.size());
+        this.tableMetas.addAll(leftTables);
+        this.tableMetas.addAll(rightTables);
+        this.resolver = new MultiTableColumnIndexResolver(this.tableMetas);
+
+        int w = 0;
+        for (TableMeta t : this.tableMetas) w += t.getColumns().size();
+        this.width = w;
+    }
+
+    @Override
+    public Tuple getNextTuple() {
+        while (true) {
+            if (block == null) {
+                if (outerExhausted || !readBlock()) return null;
+                startInnerPass();
+            }
+
+            if (innerRow != null) {
+                while (blockPos < block.size()) {
+                    Tuple outer = block.get(blockPos++);
+                    if (!keysMatch(outer, innerRow)) continue;
+
+                    Tuple combined = Tuple.joined(outer, innerRow);
+                    if (residual == null || residual().test(combined)) return combined;
+                }
+            }
+
+            innerRow = nextInner();
+            blockPos = 0;
+            if (innerRow == null) block = null; // this block is done
+        }
+    }
+
+    // Pairs each inner row of a pass with the block's outer rows, filling the output batch, then applies the rest of
+    // the condition to the whole output batch.
+    @Override
+    public Batch getNextBatch() {
+        while (true) {
+            Batch out = new Batch(width, BATCH_SIZE);
+            boolean exhausted = false;
+
+            while (!out.isFull()) {
+                if (batchBlock == null) {
+                    if (batchOuterExhausted || !readBatchBlock()) {
+                        exhausted = true;
+                        break;
+                    }
+                    startInnerBatchPass();
+                }
+                if (innerBatch == null || innerBatchPos >= innerBatch.count()) {
+                    innerBatch = nextInnerBatch();
+                    innerBatchPos = 0;
+                    blockBatch = 0;
+                    blockBatchPos = blockStart;
+                    if (innerBatch == null) batchBlock = null; // this block is done
+                    continue;
+                }
+
+                int r = innerBatch.row(innerBatchPos);
+                while (blockBatch < batchBlock.size() && !out.isFull()) {
+                    Batch outer = batchBlock.get(blockBatch);
+                    int end = (blockBatch == batchBlock.size() - 1) ? blockEnd : outer.count();
+                    int l = outer.row(blockBatchPos++);
+                    if (blockBatchPos >= end) {
+                        blockBatch++;
+                        blockBatchPos = 0;
+                    }
+                    if (keysMatch(outer, l, innerBatch, r)) out.appendJoined(outer, l, innerBatch, r);
+                }
+                if (blockBatch >= batchBlock.size()) {
+                    innerBatchPos++;
+                    blockBatch = 0;
+                    blockBatchPos = blockStart;
+                }
+            }
+
+            if (residual != null && out.size() > 0) {
+                if (vectorResidual == null) vectorResidual = VectorPredicate.compile(residual, resolver);
+                vectorResidual.apply(out);
+            }
+            if (out.count() > 0) return out;
+            if (exhausted) return null;
+        }
+    }
+
+    // Collects the rows the outer input pushes into blocks and joins each full block (and the last one) with a pass
+    // over the inner input, in the same order as getNextTuple.
+    @Override
+    public void produce(Consumer<Tuple> consumer) {
+        final List<Tuple> rows = new ArrayList<Tuple>(Math.min(blockRows, 1024));
+        leftChild.produce(t -> {
+            rows.add(Tuple.materialise(t));
+            if (rows.size() == blockRows) {
+                joinBlock(rows, consumer);
+                rows.clear();
+            }
+        });
+        if (!rows.isEmpty()) joinBlock(rows, consumer);
+    }
+
+    @Override
+    public void reset() {
+        leftChild.reset();
+        // Stop an inner input read part of the way; one read to its end is only rewound if a later pass needs it
+        if (innerRead && !innerAtEnd) rewindInner();
+        // A partial cache cannot be resumed: the next pass reads the inner input from the start
+        if (!cacheComplete) cache = (cache == null) ? null : new ArrayList<Tuple>();
+        if (!batchCacheComplete) {
+            batchCache = (batchCache == null) ? null : new ArrayList<Batch>();
+            batchCacheRows = 0;
+        }
+        block = null;
+        blockPos = 0;
+        outerExhausted = false;
+        innerRow = null;
+        cachePos = 0;
+        batchBlock = null;
+        blockBatch = 0;
+        blockBatchPos = 0;
+        outerRest = null;
+        outerRestPos = 0;
+        batchOuterExhausted = false;
+        innerBatch = null;
+        innerBatchPos = 0;
+        batchCachePos = 0;
+    }
+
+    // Returns the list of TableMeta objects representing the tables in the output of this operator,
+    // in the order they appear in the combined tuples.
+    public List<TableMeta> getOutputTablesInOrder() {
+        return this.tableMetas;
+    }
+
+    // Reads the next block of outer rows, materialised since the block outlives the calls that produced them; returns
+    // false if there are none left.
+    private boolean readBlock() {
+        List<Tuple> rows = new ArrayList<Tuple>(Math.min(blockRows, 1024));
+        Tuple t;
+        while (rows.size() < blockRows && (t = leftChild.getNextTuple()) != null) rows.add(Tuple.materialise(t));
+        if (rows.size() < blockRows) outerExhausted = true;
+
+        if (rows.isEmpty()) return false;
+        block = rows;
+        blockPos = 0;
+        return true;
+    }
+
+    private void startInnerPass() {
+        innerRow = null;
+        cachePos = 0;
+        // The first pass reads the inner input as it is; later passes without a complete cache rescan it
+        if (!cacheComplete) {
+            rewindInner();
+            if (cache != null) cache.clear();
+        }
+    }
+
+    // The next inner row of the current pass, or null at the end of the pass.
+    private Tuple nextInner() {
+        if (cacheComplete) return (cachePos < cache.size()) ? cache.get(cachePos++) : null;
+
+        Tuple t = readInner();
+        if (cache != null) {
+            if (t == null) {
+                cacheComplete = true;
+                cachePos = cache.size();
+            } else if (cache.size() < innerCacheRows) {
+                t = Tuple.materialise(t);
+                cache.add(t);
+            } else {
+                cache = null; // too large to cache: rescan it for every block
+            }
+        }
+        return t;
+    }
+
+    // Reads the next block of blockRows outer rows (fewer if the outer input runs out) from the rest of the last
+    // batch and the next ones; returns false if there are none left.
+    private boolean readBatchBlock() {
+        List<Batch> batches = new ArrayList<Batch>();
+        int rows = 0;
+        while (rows < blockRows) {
+            Batch b = outerRest;
+            int from = outerRestPos;
+            if (b == null) {
+                b = leftChild.getNextBatch();
+                from = 0;
+                if (b == null) break;
+            }
+            outerRest = null;
+
+            int take = Math.min(b.count() - from, blockRows - rows);
+            if (batches.isEmpty()) blockStart = from;
+            blockEnd = from + take;
+            batches.add(b);
+            rows += take;
+            if (blockEnd < b.count()) {
+                outerRest = b;
+                outerRestPos = blockEnd;
+            }
+        }
+        if (rows < blockRows) batchOuterExhausted = true;
+
+        if (batches.isEmpty()) return false;
+        batchBlock = batches;
+        blockBatch = 0;
+        blockBatchPos = blockStart;
+        return true;
+    }
+
+    private void startInnerBatchPass() {
+        innerBatch = null;
+        innerBatchPos = 0;
+        batchCachePos = 0;
+        if (!batchCacheComplete) {
+            rewindInner();
+            if (batchCache != null) {
+                batchCache.clear();
+                batchCacheRows = 0;
+            }
+        }
+    }
+
+    // The next inner batch of the current pass, or null at the end of the pass. Batches belong to their consumer, so
+    // the cache keeps the inner input's own batches.
+    private Batch nextInnerBatch() {
+        if (batchCacheComplete) return (batchCachePos < batchCache.size()) ? batchCache.get(batchCachePos++) : null;
+
+        innerRead = true;
+        Batch b = rightChild.getNextBatch();
+        if (b == null) innerAtEnd = true;
+        if (batchCache != null) {
+            if (b == null) {
+                batchCacheComplete = true;
+                batchCachePos = batchCache.size();
+            } else if (batchCacheRows + b.count() <= innerCacheRows) {
+                batchCache.add(b);
+                batchCacheRows += b.count();
+            } else {
+                batchCache = null; // too large to cache: rescan it for every block
+            }
+        }
+        return b;
+    }
+
+    // Matches a block of outer rows against one pass over the inner input, replayed from the cache once it is complete.
+    private void joinBlock(List<Tuple> rows, Consumer<Tuple> consumer) {
+        if (cacheComplete) {
+            for (Tuple inner : cache) matchBlock(rows, inner, consumer);
+            return;
+        }
+
+        startInnerPass();
+        innerRead = true;
+        rightChild.produce(inner -> {
+            if (cache != null) {
+                if (cache.size() < innerCacheRows) {
+                    inner = Tuple.materialise(inner);
+                    cache.add(inner);
+                } else {
+                    cache = null; // too large to cache: rescan it for every block
+                }
+            }
+            matchBlock(rows, inner, consumer);
+        });
+        innerAtEnd = true;
+        if (cache != null) cacheComplete = true;
+    }
+
+    private void matchBlock(List<Tuple> rows, Tuple inner, Consumer<Tuple> consumer) {
+        for (Tuple outer : rows) {
+            if (!keysMatch(outer, inner)) continue;
+
+            Tuple combined = Tuple.joined(outer, inner);
+            if (residual == null || residual().test(combined)) consumer.accept(combined);
+        }
+    }
+
+    private Tuple readInner() {
+        innerRead = true;
+        Tuple t = rightChild.getNextTuple();
+        if (t == null) innerAtEnd = true;
+        return t;
+    }
+
+    // Rewinds the inner input if it has been read since its last reset.
+    private void rewindInner() {
+        if (!innerRead) return;
+        rightChild.reset();
+        innerRead = false;
+        innerAtEnd = false;
+    }
+
+    private boolean keysMatch(Batch left, int leftRow, Batch right, int rightRow) {
+        for (int i = 0; i < leftKeys.length; i++) {
+            if (left.getLong(leftKeys[i], leftRow) != right.getLong(rightKeys[i], rightRow)) return false;
+        }
+        return true;
+    }
+
+    private boolean keysMatch(Tuple left, Tuple right) {
+        for (int i = 0; i < leftKeys.length; i++) {
+            if (left.getLong(leftKeys[i]) != right.getLong(rightKeys[i])) return false;
+        }
+        return true;
+    }
+
+    private CompiledPredicate residual() {
+        if (compiledResidual == null) compiledResidual = CompiledPredicate.compile(residual, resolver);
+        return compiledResidual;
+    }
+}
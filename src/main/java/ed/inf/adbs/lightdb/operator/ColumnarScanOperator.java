@@ -0,0 +1,136 @@
+package ed.inf.adbs.lightdb.operator;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Locale;
+
+import ed.inf.adbs.lightdb.Tuple;
+import ed.inf.adbs.lightdb.catalog.Catalog;
+import ed.inf.adbs.lightdb.catalog.ColumnMeta;
+import ed.inf.adbs.lightdb.catalog.DataType;
+import ed.inf.adbs.lightdb.catalog.StorageFormat;
+import ed.inf.adbs.lightdb.catalog.TableMeta;
+import ed.inf.adbs.lightdb.storage.ColumnarTable;
+
+/**
+ * ColumnarScanOperator is a leaf operator that reads tuples from a table stored in the columnar format.
+ * Only the requested columns are opened and decoded; the output tuples contain those columns in the order given.
+ * Integer columns stored as binary longs go straight into the typed slots of the output tuples.
+ * The operator supports resetting, which reopens the column files to allow for re-scanning from the beginning.
+ *
+ * @PARAM tableName The name of the table to scan, which must exist in the Catalog with COLUMNAR storage.
+ * @PARAM columns The names of the columns to decode, in output order.
+ */
+
+public class ColumnarScanOperator extends Operator {
+
+    private final TableMeta tableMeta;
+    private final int[] columnIndexes;
+    private final DataType[] types;
+
+    private ColumnarTable table;
+    private ColumnarTable.ColumnReader[] readers;
+    private long rowsRead;
+
+    public ColumnarScanOperator(String tableName, List<String> columns) {
+        if (tableName == null) throw new NullPointerException("tableName cannot be null");
+        if (columns == null) throw new NullPointerException("columns cannot be null");
+
+        this.tableMeta = Catalog.getInstance()
+                .getTable(tableName)
+                .orElseThrow(() -> new IllegalArgumentException("Table not found in catalog: " + tableName));
+
+        if (tableMeta.getStorageFormat() != StorageFormat.COLUMNAR) {
+            throw new IllegalArgumentException("Table is not stored in columnar format: " + tableName);
+        }
+
+        List<ColumnMeta> schema = tableMeta.getColumns();
+        this.columnIndexes = new int[columns.size()];
+        this.types = new DataType[columns.size()];
+        for (int i = 0; i < columns.size(); i++) {
+            columnIndexes[i] = indexOf(schema, columns.get(i));
+            types[i] = schema.get(columnIndexes[i]).getType();
+        }
+
+        open();
+    }
+
+    @Override
+    public Tuple getNextTuple() {
+        if (rowsRead >= table.getRowCount()) return null;
+
+        try {
+            long[] slots = new long[readers.length];
+            String[] text = new String[readers.length];
+            for (int i = 0; i < readers.length; i++) {
+                ColumnarTable.ColumnReader r = readers[i];
+                if (r.isLongEncoded() && isInteger(types[i])) {
+                    slots[i] = r.nextLong();
+                    continue;
+                }
+                String v = r.next();
+                if (v == null) {
+                    throw new IllegalStateException("Column file ended early in " + tableMeta.getStorageFile());
+                }
+                Tuple.parseField(v, types[i], i, slots, text);
+            }
+            rowsRead++;
+            return new Tuple(types, slots, text);
+        } catch (EOFException e) {
+            throw new IllegalStateException("Column file ended early in " + tableMeta.getStorageFile(), e);
+        } catch (IOException e) {
+            throw new RuntimeException("Error reading columnar table: " + tableMeta.getStorageFile(), e);
+        }
+    }
+
+    @Override
+    public void reset() {
+        close();
+        open();
+    }
+
+    private void open() {
+        try {
+            this.table = ColumnarTable.open(Paths.get(tableMeta.getStorageFile()));
+            this.readers = new ColumnarTable.ColumnReader[columnIndexes.length];
+            for (int i = 0; i < columnIndexes.length; i++) {
+                readers[i] = table.openColumn(columnIndexes[i]);
+            }
+            this.rowsRead = 0;
+        } catch (IOException e) {
+            close();
+            throw new RuntimeException("Failed to open columnar table: " + tableMeta.getStorageFile(), e);
+        }
+    }
+
+    private void close() {
+        if (readers == null) return;
+        try {
+            for (ColumnarTable.ColumnReader r : readers) {
+                if (r != null) r.close();
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to close columnar table: " + tableMeta.getStorageFile(), e);
+        } finally {
+            readers = null;
+        }
+    }
+
+    private static int indexOf(List<ColumnMeta> schema, String column) {
+        String col = norm(column);
+        for (int i = 0; i < schema.size(); i++) {
+            if (norm(schema.get(i).getName()).equals(col)) return i;
+        }
+        throw new IllegalArgumentException("Column not found: " + column);
+    }
+
+    private static boolean isInteger(DataType type) {
+        return type == DataType.INT || type == DataType.LONG;
+    }
+
+    private static String norm(String s) {
+        return s.trim().toLowerCase(Locale.ROOT);
+    }
+}
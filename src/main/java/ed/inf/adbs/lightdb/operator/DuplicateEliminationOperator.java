@@ -3,9 +3,11 @@ package ed.inf.adbs.lightdb.operator;
 import ed.inf.adbs.lightdb.Tuple;
 
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.function.Consumer;
 
 /**
  * Operator that eliminates duplicate tuples from its child operator. It materializes all tuples from the child,
@@ -36,6 +38,18 @@ public final class DuplicateEliminationOperator extends Operator{
         return distinctTuples.get(pos++);
     }
 
+    // Pushes each row the first time it is seen, so unlike getNextTuple it does not wait for the whole input.
+    @Override
+    public void produce(Consumer<Tuple> consumer){
+        Set<Tuple> seen = new HashSet<Tuple>();
+        child.produce(t -> {
+            if (!seen.contains(t)) {
+                seen.add(Tuple.materialise(t));
+                consumer.accept(t);
+            }
+        });
+    }
+
     @Override
     public void reset(){
         child.reset();
@@ -50,7 +64,7 @@ public final class DuplicateEliminationOperator extends Operator{
         Tuple t;
 
         while ((t = child.getNextTuple()) != null){
-            seen.add(t);
+            if (!seen.contains(t)) seen.add(Tuple.materialise(t));
         }
 
         distinctTuples = new ArrayList<Tuple>(seen);
@@ -0,0 +1,281 @@
+package ed.inf.adbs.lightdb.operator;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicReference;
+
+import ed.inf.adbs.lightdb.Tuple;
+
+/**
+ * Exchange splits the rows of one input across several consumers, for plans that run a subtree once per partition
+ * (see GatherOperator). It has no operator of its own: the factory methods return its outputs, one operator per
+ * consumer, and a worker thread started on the first read of any output pulls the input and routes each row:
+ * - hashPartition sends every row to one output, chosen by the hash of its integer key columns, so rows with equal
+ *   keys meet in the same partition (e.g. both inputs of an equi-join, partitioned on their join keys);
+ * - roundRobin sends every row to one output in turn, for inputs that do not need to be partitioned by key;
+ * - broadcast sends every row to all outputs (as one shared materialised copy).
+ *
+ * Rows travel in small chunks over a queue per output. Non-replayable outputs use bounded queues, so the worker waits
+ * for the slowest consumer rather than buffering the input; resetting any of them runs the whole exchange again from
+ * a reset input, and its sibling outputs read the new run once they are reset as well (all outputs are meant to be
+ * reset together). Replayable outputs (for inputs that are rescanned, such as the inner side of a nested-loop join)
+ * use unbounded queues and keep every chunk they receive, so resetting one only rewinds it; the input is run once.
+ * Since the worker never waits on a replayable output, consumers of different outputs cannot hold each other up
+ * through the exchange.
+ */
+
+public final class Exchange {
+    private static final int CHUNK_SIZE = 256;
+    private static final int QUEUED_CHUNKS_PER_OUTPUT = 4;
+
+    private static final Tuple[] END = new Tuple[0];
+
+    private enum Routing { HASH, ROUND_ROBIN, BROADCAST }
+
+    private final Operator input;
+    private final Routing routing;
+    private final int[] keyColumns;
+    private final boolean replayable;
+    private final int width;
+
+    // Guarded by this
+    private Run run;
+    private int generation;
+
+    private Exchange(Operator input, Routing routing, int[] keyColumns, int width, boolean replayable) {
+        if (input == null) throw new NullPointerException("input cannot be null");
+        if (width < 1) throw new IllegalArgumentException("number of outputs must be >= 1");
+        this.input = input;
+        this.routing = routing;
+        this.keyColumns = keyColumns;
+        this.width = width;
+        this.replayable = replayable;
+    }
+
+    /**
+     * Partitions the input on the given integer columns.
+     * @param keyColumns Column indexes of the key (at least one).
+     * @param partitions Number of outputs.
+     * @param replayable Whether the outputs keep their rows, so that resetting them only rewinds them.
+     */
+    public static List<Operator> hashPartition(Operator input, int[] keyColumns, int partitions, boolean replayable) {
+        if (keyColumns == null) throw new NullPointerException("keyColumns cannot be null");
+        if (keyColumns.length == 0) throw new IllegalArgumentException("keyColumns cannot be empty");
+        return new Exchange(input, Routing.HASH, keyColumns.clone(), partitions, replayable).outputs();
+    }
+
+    /**
+     * Deals the rows of the input out to the outputs in turn.
+     * @param partitions Number of outputs.
+     * @param replayable Whether the outputs keep their rows, so that resetting them only rewinds them.
+     */
+    public static List<Operator> roundRobin(Operator input, int partitions, boolean replayable) {
+        return new Exchange(input, Routing.ROUND_ROBIN, null, partitions, replayable).outputs();
+    }
+
+    /**
+     * Sends every row of the input to every output.
+     * @param consumers Number of outputs.
+     * @param replayable Whether the outputs keep their rows, so that resetting them only rewinds them.
+     */
+    public static List<Operator> broadcast(Operator input, int consumers, boolean replayable) {
+        return new Exchange(input, Routing.BROADCAST, null, consumers, replayable).outputs();
+    }
+
+    private List<Operator> outputs() {
+        List<Operator> outputs = new ArrayList<Operator>(width);
+        for (int i = 0; i < width; i++) outputs.add(new Output(i));
+        return Collections.unmodifiableList(outputs);
+    }
+
+    // The current run, started on first use.
+    private synchronized Run run() {
+        if (run == null) {
+            run = new Run();
+            run.producer.start();
+        }
+        return run;
+    }
+
+    // Stops the current run and resets the input, so that the next read starts a new run.
+    private synchronized void restart() {
+        if (run != null) run.stop();
+        run = null;
+        generation++;
+        input.reset();
+    }
+
+    // Output for a row, by the hash of its key columns.
+    private int partitionOf(Tuple t) {
+        long h = 1;
+        for (int c : keyColumns) h = 31 * h + t.getLong(c);
+        int mixed = (int) (h ^ (h >>> 32));
+        mixed ^= (mixed >>> 16);
+        return Math.floorMod(mixed * 0x9E3779B9, width);
+    }
+
+    /**
+     * One execution of the input: the worker routing its rows and the queue of each output.
+     */
+    private final class Run {
+        private final List<BlockingQueue<Tuple[]>> queues = new ArrayList<BlockingQueue<Tuple[]>>(width);
+        private final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+        private final ExchangeTask producer;
+
+        Run() {
+            for (int i = 0; i < width; i++) {
+                queues.add(replayable
+                        ? new LinkedBlockingQueue<Tuple[]>()
+                        : new ArrayBlockingQueue<Tuple[]>(QUEUED_CHUNKS_PER_OUTPUT + 1));
+            }
+            this.producer = new ExchangeTask() {
+                @Override
+                void work() {
+                    route(this);
+                }
+
+                @Override
+                void failed(Throwable t) {
+                    failure.compareAndSet(null, t);
+                }
+
+                @Override
+                void finish() {
+                    for (BlockingQueue<Tuple[]> q : queues) ExchangeTask.put(q, END);
+                }
+            };
+        }
+
+        // Returns the next chunk for an output, or null once the input is exhausted.
+        Tuple[] take(int output) {
+            Tuple[] chunk = ExchangeTask.take(queues.get(output));
+            if (chunk != END) return chunk;
+
+            Throwable t = failure.get();
+            if (t != null) throw new RuntimeException("Input of an exchange failed", t);
+            return null;
+        }
+
+        // Stops the worker, then ends every queue so that a reader still holding this run stops too.
+        void stop() {
+            producer.stop();
+            for (BlockingQueue<Tuple[]> q : queues) {
+                q.clear();
+                q.offer(END);
+            }
+        }
+
+        // Worker loop: pull the input until it is exhausted, routing its rows a chunk at a time.
+        private void route(ExchangeTask worker) {
+            Tuple[][] pending = new Tuple[width][CHUNK_SIZE];
+            int[] counts = new int[width];
+            int next = 0;
+
+            Tuple t;
+            while (!worker.isCancelled() && (t = input.getNextTuple()) != null) {
+                switch (routing) {
+                    case HASH:
+                        add(pending, counts, partitionOf(t), t);
+                        break;
+                    case ROUND_ROBIN:
+                        add(pending, counts, next, t);
+                        next = (next + 1 == width) ? 0 : next + 1;
+                        break;
+                    default:
+                        Tuple copy = Tuple.materialise(t);
+                        for (int o = 0; o < width; o++) add(pending, counts, o, copy);
+                }
+            }
+
+            for (int o = 0; o < width; o++) {
+                if (counts[o] == 0) continue;
+                Tuple[] last = new Tuple[counts[o]];
+                System.arraycopy(pending[o], 0, last, 0, counts[o]);
+                if (!ExchangeTask.put(queues.get(o), last)) return;
+            }
+        }
+
+        private void add(Tuple[][] pending, int[] counts, int output, Tuple t) {
+            pending[output][counts[output]++] = t;
+            if (counts[output] < CHUNK_SIZE) return;
+
+            if (!ExchangeTask.put(queues.get(output), pending[output])) throw new CancellationException();
+            pending[output] = new Tuple[CHUNK_SIZE];
+            counts[output] = 0;
+        }
+    }
+
+    /**
+     * One output of the exchange.
+     */
+    private final class Output extends Operator {
+        private final int index;
+
+        // The run this output reads, and the exchange generation it last saw
+        private Run reading;
+        private int seenGeneration;
+
+        // Replayable outputs: every chunk received so far, and the position of the next one to return
+        private final List<Tuple[]> received = new ArrayList<Tuple[]>();
+        private int replayPos;
+        // Whether the run this output reads has ended
+        private boolean ended;
+
+        private Tuple[] current;
+        private int currentPos;
+
+        Output(int index) {
+            this.index = index;
+        }
+
+        @Override
+        public Tuple getNextTuple() {
+            while (current == null || currentPos >= current.length) {
+                current = nextChunk();
+                currentPos = 0;
+                if (current == null) return null;
+            }
+            return current[currentPos++];
+        }
+
+        private Tuple[] nextChunk() {
+            if (replayable && replayPos < received.size()) return received.get(replayPos++);
+            if (ended) return null;
+
+            if (reading == null) reading = run();
+            Tuple[] chunk = reading.take(index);
+            if (chunk == null) {
+                ended = true;
+                return null;
+            }
+            if (replayable) {
+                received.add(chunk);
+                replayPos++;
+            }
+            return chunk;
+        }
+
+        @Override
+        public void reset() {
+            current = null;
+            currentPos = 0;
+            if (replayable) {
+                replayPos = 0;
+                return;
+            }
+
+            // The first output reset since the last run restarts the exchange; its siblings then read the new run
+            synchronized (Exchange.this) {
+                if (seenGeneration == generation) restart();
+                seenGeneration = generation;
+            }
+            reading = null;
+            ended = false;
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package ed.inf.adbs.lightdb.operator;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import ed.inf.adbs.lightdb.execution.WorkerPool;
+
+/**
+ * A task run on the WorkerPool by an exchange (GatherOperator or Exchange), with cooperative cancellation.
+ *
+ * Threads are never interrupted, since an interrupt would close any FileChannel the task happens to be reading.
+ * Instead every blocking queue operation of the exchanges waits in short slices and gives up once the task running
+ * it is cancelled: put() returns false and take() throws a CancellationException, which ends the task. A task blocked
+ * in a nested exchange below it therefore stops as well. stop() cancels the task and waits until it has ended, after
+ * which the operators it was pulling from may be reset.
+ */
+abstract class ExchangeTask implements Runnable {
+    private static final ThreadLocal<ExchangeTask> CURRENT = new ThreadLocal<ExchangeTask>();
+    private static final long WAIT_MILLIS = 50;
+
+    private volatile boolean cancelled;
+    private final CountDownLatch done = new CountDownLatch(1);
+
+    // The task body; a CancellationException from it is not a failure.
+    abstract void work() throws Exception;
+
+    // Called with any other exception thrown by work().
+    abstract void failed(Throwable t);
+
+    // Called last, whether work() completed, failed or was cancelled (e.g. to signal the end of the task's output).
+    void finish() {}
+
+    final void start() {
+        WorkerPool.get().execute(this);
+    }
+
+    @Override
+    public final void run() {
+        CURRENT.set(this);
+        try {
+            if (!cancelled) work();
+        } catch (CancellationException e) {
+            // stopped
+        } catch (Throwable t) {
+            failed(t);
+        } finally {
+            try {
+                finish();
+            } finally {
+                CURRENT.remove();
+                done.countDown();
+            }
+        }
+    }
+
+    boolean isCancelled() {
+        return cancelled;
+    }
+
+    // Asks the task to stop, without waiting for it.
+    final void cancel() {
+        cancelled = true;
+    }
+
+    // Cancels the task and waits for it to end.
+    final void stop() {
+        cancelled = true;
+        boolean interrupted = false;
+        while (true) {
+            try {
+                done.await();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) Thread.currentThread().interrupt();
+    }
+
+    // Puts an item on the queue, waiting while it is full. Returns false if the calling task is cancelled first.
+    static <T> boolean put(BlockingQueue<T> queue, T item) {
+        ExchangeTask task = CURRENT.get();
+        try {
+            while (!queue.offer(item, WAIT_MILLIS, TimeUnit.MILLISECONDS)) {
+                if (task != null && task.cancelled) return false;
+            }
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while handing rows to an exchange", e);
+        }
+    }
+
+    // Takes an item from the queue, waiting while it is empty. Throws a CancellationException if the calling task is
+    // cancelled first; callers that are not exchange tasks wait until an item arrives.
+    static <T> T take(BlockingQueue<T> queue) {
+        ExchangeTask task = CURRENT.get();
+        try {
+            T item;
+            while ((item = queue.poll(WAIT_MILLIS, TimeUnit.MILLISECONDS)) == null) {
+                if (task != null && task.cancelled) throw new CancellationException();
+            }
+            return item;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for rows from an exchange", e);
+        }
+    }
+}
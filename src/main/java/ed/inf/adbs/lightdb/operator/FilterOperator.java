@@ -1,18 +1,21 @@
 package ed.inf.adbs.lightdb.operator;
 
+import ed.inf.adbs.lightdb.Batch;
 import ed.inf.adbs.lightdb.Tuple;
 import ed.inf.adbs.lightdb.catalog.TableMeta;
-import ed.inf.adbs.lightdb.expression.SelectionExpressionEvaluator;
+import ed.inf.adbs.lightdb.expression.CompiledPredicate;
+import ed.inf.adbs.lightdb.expression.VectorPredicate;
 import ed.inf.adbs.lightdb.util.MultiTableColumnIndexResolver;
 
 import net.sf.jsqlparser.expression.Expression;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * FilterOperator is a unary operator that applies a selection predicate to the tuples produced by its child operator. 
- * It uses a SelectionExpressionEvaluator to evaluate the predicate on each tuple, and only returns those tuples for 
- * which the predicate evaluates to true. If the predicate is null, it simply passes through all tuples from the child. 
+ * The predicate is compiled once, with its columns bound to tuple indexes, and only tuples for which it evaluates
+ * to true are returned. If the predicate is null, it simply passes through all tuples from the child. 
  * The operator also supports resetting, which resets the child operator to allow for re-scanning.
  */
 
@@ -21,6 +24,10 @@ public final class FilterOperator extends Operator {
     private final Expression predicate;
     private final MultiTableColumnIndexResolver resolver;
 
+    // Compiled on first use by getNextTuple and getNextBatch respectively
+    private CompiledPredicate compiled;
+    private VectorPredicate vectorPredicate;
+
 
     public FilterOperator(Operator child, Expression predicate, List<TableMeta> tablesInOrder){
         if (child == null) throw new NullPointerException("child");
@@ -36,12 +43,36 @@ public final class FilterOperator extends Operator {
         Tuple t;
         while (((t = child.getNextTuple()) != null)){
             if (predicate == null) return t;
-            SelectionExpressionEvaluator eval = new SelectionExpressionEvaluator(resolver, t);
-            if (eval.eval(predicate)) return t;
+            if (compiled == null) compiled = CompiledPredicate.compile(predicate, resolver);
+            if (compiled.test(t)) return t;
+        }
+        return null;
+    }
+
+    // Narrows the selection vector of each child batch, skipping batches in which no row survives.
+    @Override
+    public Batch getNextBatch(){
+        Batch batch;
+        while ((batch = child.getNextBatch()) != null){
+            if (predicate == null) return batch;
+            if (vectorPredicate == null) vectorPredicate = VectorPredicate.compile(predicate, resolver);
+
+            vectorPredicate.apply(batch);
+            if (batch.count() > 0) return batch;
         }
         return null;
     }
 
+    // Pushes the child's rows that satisfy the predicate.
+    @Override
+    public void produce(Consumer<Tuple> consumer){
+        if (compiled == null) compiled = CompiledPredicate.compile(predicate, resolver);
+        final CompiledPredicate p = compiled;
+        child.produce(t -> {
+            if (p.test(t)) consumer.accept(t);
+        });
+    }
+
     @Override
     public void reset(){
         child.reset();
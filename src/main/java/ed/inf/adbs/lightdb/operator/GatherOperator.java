@@ -0,0 +1,148 @@
+package ed.inf.adbs.lightdb.operator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicReference;
+
+import ed.inf.adbs.lightdb.Tuple;
+
+/**
+ * GatherOperator is an exchange operator that runs each of its inputs on its own worker thread and merges their rows
+ * into a single stream, so that the inputs (typically the partitions of a partitioned plan, see Exchange) execute in
+ * parallel while the consumer sees one ordinary operator.
+ *
+ * Workers hand their rows over in small chunks through a bounded queue, so a slow consumer holds them back rather than
+ * letting them buffer whole inputs. Output order is not deterministic. A failure in any input is rethrown to the
+ * consumer. Resetting stops the running workers, resets every input and starts them again on the next call to
+ * getNextTuple().
+ *
+ * @PARAM inputs The operators to run in parallel; they must produce rows of the same schema.
+ */
+
+public final class GatherOperator extends Operator {
+    private static final int CHUNK_SIZE = 256;
+    private static final int QUEUED_CHUNKS_PER_INPUT = 4;
+
+    private static final Tuple[] END = new Tuple[0];
+
+    private final List<Operator> inputs;
+
+    private Run run;
+    private Tuple[] current;
+    private int currentPos;
+
+    public GatherOperator(List<Operator> inputs) {
+        if (inputs == null) throw new NullPointerException("inputs cannot be null");
+        if (inputs.isEmpty()) throw new IllegalArgumentException("inputs cannot be empty");
+        for (Operator input : inputs) {
+            if (input == null) throw new NullPointerException("inputs cannot contain null");
+        }
+        this.inputs = new ArrayList<Operator>(inputs);
+    }
+
+    public List<Operator> getInputs() {
+        return inputs;
+    }
+
+    @Override
+    public Tuple getNextTuple() {
+        if (run == null) run = new Run();
+
+        while (current == null || currentPos >= current.length) {
+            current = run.take();
+            currentPos = 0;
+            if (current == null) return null;
+        }
+        return current[currentPos++];
+    }
+
+    @Override
+    public void reset() {
+        if (run != null) run.stop();
+        run = null;
+        current = null;
+        currentPos = 0;
+        for (Operator input : inputs) input.reset();
+    }
+
+    /**
+     * One execution of the inputs: a worker per input and the queue they feed.
+     */
+    private final class Run {
+        private final BlockingQueue<Tuple[]> queue;
+        private final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+        private final List<ExchangeTask> workers = new ArrayList<ExchangeTask>();
+        private int finishedWorkers;
+
+        Run() {
+            this.queue = new ArrayBlockingQueue<Tuple[]>(inputs.size() * (QUEUED_CHUNKS_PER_INPUT + 1));
+            for (Operator input : inputs) {
+                ExchangeTask worker = new ExchangeTask() {
+                    @Override
+                    void work() {
+                        drain(this, input);
+                    }
+
+                    @Override
+                    void failed(Throwable t) {
+                        failure.compareAndSet(null, t);
+                    }
+
+                    @Override
+                    void finish() {
+                        ExchangeTask.put(queue, END);
+                    }
+                };
+                workers.add(worker);
+                worker.start();
+            }
+        }
+
+        // Returns the next chunk of rows, or null once every input is exhausted.
+        Tuple[] take() {
+            while (finishedWorkers < workers.size()) {
+                Tuple[] chunk = ExchangeTask.take(queue);
+                if (chunk != END) return chunk;
+
+                finishedWorkers++;
+                Throwable t = failure.get();
+                if (t != null) {
+                    stop();
+                    throw new RuntimeException("Parallel input of a gather failed", t);
+                }
+            }
+            return null;
+        }
+
+        // Stops every worker and waits until none of them touches its input any more.
+        void stop() {
+            for (ExchangeTask worker : workers) worker.cancel();
+            queue.clear();
+            for (ExchangeTask worker : workers) worker.stop();
+        }
+
+        // Worker loop: pull the input until it is exhausted, handing its rows over a chunk at a time.
+        private void drain(ExchangeTask worker, Operator input) {
+            Tuple[] chunk = new Tuple[CHUNK_SIZE];
+            int n = 0;
+
+            Tuple t;
+            while (!worker.isCancelled() && (t = input.getNextTuple()) != null) {
+                chunk[n++] = t;
+                if (n == CHUNK_SIZE) {
+                    if (!ExchangeTask.put(queue, chunk)) return;
+                    chunk = new Tuple[CHUNK_SIZE];
+                    n = 0;
+                }
+            }
+
+            if (n > 0) {
+                Tuple[] last = new Tuple[n];
+                System.arraycopy(chunk, 0, last, 0, n);
+                ExchangeTask.put(queue, last);
+            }
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package ed.inf.adbs.lightdb.operator;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import ed.inf.adbs.lightdb.Tuple;
+import ed.inf.adbs.lightdb.catalog.TableMeta;
+import ed.inf.adbs.lightdb.expression.CompiledPredicate;
+import ed.inf.adbs.lightdb.operator.JoinCondition.KeyValues;
+import ed.inf.adbs.lightdb.util.MultiTableColumnIndexResolver;
+import net.sf.jsqlparser.expression.Expression;
+
+/**
+ * HashJoinOperator is a binary operator that joins two child operators on the conjuncts of the join condition that
+ * equate a left column with a right column. It reads one input (the build side) once into a hash table on its key
+ * columns, then streams the other input (the probe side) and looks each of its rows up in the table, so each input is
+ * read once instead of the right input being rescanned for every left row. The rest of the condition is applied to
+ * each matching pair.
+ *
+ * The build side is normally the right input; the planner may choose the left one when it is expected to be smaller.
+ * Output rows always hold the left fields first. With the right side built they come out by left row, as from a
+ * tuple-at-a-time nested-loop join. The hash table is kept across resets, which only restart the probe side.
+ *
+ * shared() builds one table for several probe inputs (the pipelines of a morsel-driven plan): the first probe to need
+ * it builds it, and the others wait for it and share it.
+ *
+ * @PARAM joinCondition Must contain at least one column equality between the two inputs.
+ * @PARAM buildLeft Whether to build the hash table on the left input instead of the right one.
+ */
+
+public final class HashJoinOperator extends Operator {
+    private final Operator probe;
+    private final int[] probeKeys;
+    private final BuildSide build;
+    private final boolean buildLeft;
+    private final Expression residual;
+    // The build side's hash table, once this join has read it
+    private Map<KeyValues, List<Tuple>> table;
+
+    private final List<TableMeta> tableMetas;
+    private final MultiTableColumnIndexResolver resolver;
+    // The residual compiled on first use
+    private CompiledPredicate compiledResidual;
+
+    private Tuple probeRow;
+    private List<Tuple> matches;
+    private int matchPos;
+
+    public HashJoinOperator(Operator leftChild, Operator rightChild, Expression joinCondition,
+                            List<TableMeta> leftTables, List<TableMeta> rightTables) {
+        this(leftChild, rightChild, joinCondition, leftTables, rightTables, false);
+    }
+
+    public HashJoinOperator(Operator leftChild, Operator rightChild, Expression joinCondition,
+                            List<TableMeta> leftTables, List<TableMeta> rightTables, boolean buildLeft) {
+        this(checkChild(leftChild, "leftChild"), checkChild(rightChild, "rightChild"),
+                JoinCondition.split(joinCondition, checkTables(leftTables), checkTables(rightTables)),
+                leftTables, rightTables, buildLeft, null);
+    }
+
+    private HashJoinOperator(Operator leftChild, Operator rightChild, JoinCondition condition,
+                             List<TableMeta> leftTables, List<TableMeta> rightTables, boolean buildLeft, BuildSide shared) {
+        if (!condition.hasKeys()) throw new IllegalArgumentException("joinCondition has no column equality between the inputs");
+
+        this.buildLeft = buildLeft;
+        this.probe = buildLeft ? rightChild : leftChild;
+        this.probeKeys = buildLeft ? condition.rightKeys : condition.leftKeys;
+        this.build = (shared != null) ? shared
+                : new BuildSide(buildLeft ? leftChild : rightChild, buildLeft ? condition.leftKeys : condition.rightKeys);
+        this.residual = condition.residual;
+
+        this.tableMetas = new ArrayList<TableMeta>(leftTables.size() + rightTables.size());
+        this.tableMetas.addAll(leftTables);
+        this.tableMetas.addAll(rightTables);
+        this.resolver = new MultiTableColumnIndexResolver(this.tableMetas);
+    }
+
+    /**
+     * Joins each of the left inputs to the same right input, whose hash table is built once and shared.
+     * @return One join per left input, in the same order.
+     */
+    public static List<Operator> shared(List<Operator> leftChildren, Operator rightChild, Expression joinCondition,
+                                        List<TableMeta> leftTables, List<TableMeta> rightTables) {
+        if (leftChildren == null) throw new NullPointerException("leftChildren cannot be null");
+        if (rightChild == null) throw new NullPointerException("rightChild cannot be null");
+
+        JoinCondition condition = JoinCondition.split(joinCondition, checkTables(leftTables), checkTables(rightTables));
+        BuildSide build = new BuildSide(rightChild, condition.rightKeys);
+
+        List<Operator> joins = new ArrayList<Operator>(leftChildren.size());
+        for (Operator left : leftChildren) {
+            checkChild(left, "leftChildren");
+            joins.add(new HashJoinOperator(left, null, condition, leftTables, rightTables, false, build));
+        }
+        return Collections.unmodifiableList(joins);
+    }
+
+    @Override
+    public Tuple getNextTuple() {
+        if (table == null) table = build.table();
+
+        while (true) {
+            if (matches != null) {
+                while (matchPos < matches.size()) {
+                    Tuple out = combine(probeRow, matches.get(matchPos++));
+                    if (residual == null || residual().test(out)) return out;
+                }
+                matches = null;
+            }
+
+            probeRow = probe.getNextTuple();
+            if (probeRow == null) return null;
+            matches = table.get(new KeyValues(probeRow, probeKeys));
+            matchPos = 0;
+        }
+    }
+
+    // Pushes the probe side's rows through the hash table.
+    @Override
+    public void produce(Consumer<Tuple> consumer) {
+        if (table == null) table = build.table();
+        final Map<KeyValues, List<Tuple>> table = this.table;
+        final CompiledPredicate p = (residual == null) ? null : residual();
+
+        probe.produce(t -> {
+            List<Tuple> found = table.get(new KeyValues(t, probeKeys));
+            if (found == null) return;
+            for (Tuple m : found) {
+                Tuple out = combine(t, m);
+                if (p == null || p.test(out)) consumer.accept(out);
+            }
+        });
+    }
+
+    @Override
+    public void reset() {
+        probe.reset();
+        probeRow = null;
+        matches = null;
+        matchPos = 0;
+    }
+
+    // Returns the list of TableMeta objects representing the tables in the output of this operator,
+    // in the order they appear in the combined tuples.
+    public List<TableMeta> getOutputTablesInOrder() {
+        return this.tableMetas;
+    }
+
+    // The output row for a probe row and a matching build row, left fields first.
+    private Tuple combine(Tuple probeRow, Tuple buildRow) {
+        return buildLeft ? Tuple.joined(buildRow, probeRow) : Tuple.joined(probeRow, buildRow);
+    }
+
+    private CompiledPredicate residual() {
+        if (compiledResidual == null) compiledResidual = CompiledPredicate.compile(residual, resolver);
+        return compiledResidual;
+    }
+
+    private static Operator checkChild(Operator child, String name) {
+        if (child == null) throw new NullPointerException(name + " cannot be null");
+        return child;
+    }
+
+    private static List<TableMeta> checkTables(List<TableMeta> tables) {
+        if (tables == null) throw new NullPointerException("tables cannot be null");
+        return tables;
+    }
+
+    /**
+     * The build input and its hash table, built on first use (by whichever probe needs it first).
+     */
+    private static final class BuildSide {
+        private final Operator input;
+        private final int[] keys;
+        private Map<KeyValues, List<Tuple>> table;
+
+        BuildSide(Operator input, int[] keys) {
+            this.input = input;
+            this.keys = keys;
+        }
+
+        synchronized Map<KeyValues, List<Tuple>> table() {
+            if (table == null) {
+                Map<KeyValues, List<Tuple>> t = new HashMap<KeyValues, List<Tuple>>();
+                try {
+                    Tuple row;
+                    while ((row = input.getNextTuple()) != null) {
+                        t.computeIfAbsent(new KeyValues(row, keys), k -> new ArrayList<Tuple>()).add(Tuple.materialise(row));
+                    }
+                } catch (RuntimeException e) {
+                    input.reset(); // so that a later attempt reads the whole input again
+                    throw e;
+                }
+                table = t;
+            }
+            return table;
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package ed.inf.adbs.lightdb.operator;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.List;
+
+import ed.inf.adbs.lightdb.Tuple;
+import ed.inf.adbs.lightdb.catalog.Catalog;
+import ed.inf.adbs.lightdb.catalog.DataType;
+import ed.inf.adbs.lightdb.catalog.StorageFormat;
+import ed.inf.adbs.lightdb.catalog.TableMeta;
+import ed.inf.adbs.lightdb.storage.HeapFile;
+
+/**
+ * HeapScanOperator is a leaf operator that reads tuples from a table stored as a heap file.
+ * Pages are read one at a time through the shared BufferPool, so re-scanning a table that fits in the pool
+ * (e.g. the inner side of a nested loop join, which is reset for every outer tuple) does not touch the disk.
+ * The operator supports resetting, which restarts the scan from the first data page.
+ *
+ * @PARAM tableName The name of the table to scan, which must exist in the Catalog with HEAP storage.
+ */
+
+public class HeapScanOperator extends Operator {
+
+    private final TableMeta tableMeta;
+    private final HeapFile heapFile;
+    private final DataType[] types;
+
+    private int pageNo;
+    private List<Tuple> pageRows;
+    private int slot;
+
+    public HeapScanOperator(String tableName) {
+        if (tableName == null) throw new NullPointerException("tableName cannot be null");
+
+        this.tableMeta = Catalog.getInstance()
+                .getTable(tableName)
+                .orElseThrow(() -> new IllegalArgumentException("Table not found in catalog: " + tableName));
+
+        if (tableMeta.getStorageFormat() != StorageFormat.HEAP) {
+            throw new IllegalArgumentException("Table is not stored as a heap file: " + tableName);
+        }
+
+        this.types = tableMeta.getColumnTypes();
+        try {
+            this.heapFile = HeapFile.open(Paths.get(tableMeta.getStorageFile()));
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to open heap file: " + tableMeta.getStorageFile(), e);
+        }
+        reset();
+    }
+
+    @Override
+    public Tuple getNextTuple() {
+        while (pageRows == null || slot >= pageRows.size()) {
+            if (pageNo >= heapFile.getPageCount()) return null;
+            try {
+                pageRows = heapFile.readPage(++pageNo, types);
+            } catch (IOException e) {
+                throw new RuntimeException("Error reading heap file: " + tableMeta.getStorageFile(), e);
+            }
+            slot = 0;
+        }
+        return pageRows.get(slot++);
+    }
+
+    @Override
+    public void reset() {
+        pageNo = 0;
+        pageRows = null;
+        slot = 0;
+    }
+}
@@ -0,0 +1,185 @@
+package ed.inf.adbs.lightdb.operator;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import ed.inf.adbs.lightdb.Tuple;
+import ed.inf.adbs.lightdb.catalog.Catalog;
+import ed.inf.adbs.lightdb.catalog.ColumnMeta;
+import ed.inf.adbs.lightdb.catalog.IndexMeta;
+import ed.inf.adbs.lightdb.catalog.IndexType;
+import ed.inf.adbs.lightdb.catalog.TableMeta;
+import ed.inf.adbs.lightdb.expression.CompiledPredicate;
+import ed.inf.adbs.lightdb.index.BPlusTree;
+import ed.inf.adbs.lightdb.index.HashIndex;
+import ed.inf.adbs.lightdb.index.KeyRange;
+import ed.inf.adbs.lightdb.storage.CsvRowFetcher;
+import ed.inf.adbs.lightdb.util.ColumnIndexResolver;
+import ed.inf.adbs.lightdb.util.EquiJoinKey;
+import ed.inf.adbs.lightdb.util.MultiTableColumnIndexResolver;
+import net.sf.jsqlparser.expression.Expression;
+
+/**
+ * IndexNestedLoopJoinOperator joins the tuples of its outer child with the rows of an inner base table by looking
+ * each outer key up in an index on the inner table's join column, instead of rescanning the inner table per outer
+ * tuple. The index is either a hash index (one bucket probe per key) or a B+-tree index (one descent per key, whose
+ * cursor is reused across lookups). Matching inner rows are fetched by row ID, filtered by the inner table's own
+ * selection predicate, narrowed to the inner columns the plan needs and appended to the outer tuple, exactly as a
+ * nested-loop join over the inner table's base plan would produce them. The full join condition is then checked on
+ * the combined tuple.
+ *
+ * @PARAM outer The outer child operator.
+ * @PARAM outerTables The tables whose fields make up the outer tuples, in tuple order.
+ * @PARAM key The equi-join conjunct, oriented so that its right side is the inner table's indexed column.
+ * @PARAM innerIndex A hash or B+-tree index on the inner table's join column.
+ * @PARAM innerPredicate Single-table selection predicate of the inner table (may be null).
+ * @PARAM innerOutput The inner table's schema as seen above this operator (all of its columns or a subset).
+ * @PARAM joinCondition The join condition between the outer tuples and the inner table (may be null).
+ */
+
+public final class IndexNestedLoopJoinOperator extends Operator {
+    private final Operator outer;
+    private final TableMeta innerMeta;
+    private final int outerKey;
+    private final int[] innerColumns;
+    private final CompiledPredicate innerPredicate;
+    private final CompiledPredicate joinCondition;
+    private final List<TableMeta> tableMetas;
+
+    // Exactly one of these is set, depending on the index type
+    private final HashIndex.Probe probe;
+    private final BPlusTree.Cursor cursor;
+    private final CsvRowFetcher fetcher;
+
+    private Tuple currentOuter;
+
+    public IndexNestedLoopJoinOperator(Operator outer, List<TableMeta> outerTables, EquiJoinKey key, IndexMeta innerIndex,
+                                       Expression innerPredicate, TableMeta innerOutput, Expression joinCondition) {
+        if (outer == null) throw new NullPointerException("outer cannot be null");
+        if (outerTables == null) throw new NullPointerException("outerTables cannot be null");
+        if (key == null) throw new NullPointerException("key cannot be null");
+        if (innerIndex == null) throw new NullPointerException("innerIndex cannot be null");
+        if (innerOutput == null) throw new NullPointerException("innerOutput cannot be null");
+        if (innerIndex.getType() != IndexType.HASH && innerIndex.getType() != IndexType.BTREE) {
+            throw new IllegalArgumentException("Not a hash or B+-tree index: " + innerIndex);
+        }
+        if (!innerIndex.getColumnName().equals(key.getRightColumn())) {
+            throw new IllegalArgumentException("Index " + innerIndex + " is not on the join column " + key);
+        }
+
+        this.outer = outer;
+        this.innerMeta = Catalog.getInstance()
+                .getTable(innerIndex.getTableName())
+                .orElseThrow(() -> new IllegalArgumentException("Table not found in catalog: " + innerIndex.getTableName()));
+        this.outerKey = new MultiTableColumnIndexResolver(outerTables).indexOf(key.getLeftTable(), key.getLeftColumn());
+
+        List<String> innerNames = new ArrayList<String>();
+        for (ColumnMeta c : innerMeta.getColumns()) innerNames.add(c.getName());
+        ColumnIndexResolver innerResolver = new ColumnIndexResolver(innerMeta.getName(), innerNames);
+        this.innerPredicate = CompiledPredicate.compile(innerPredicate, innerResolver);
+
+        this.innerColumns = new int[innerOutput.getColumns().size()];
+        for (int i = 0; i < innerColumns.length; i++) {
+            innerColumns[i] = innerResolver.indexOf(null, innerOutput.getColumns().get(i).getName());
+        }
+
+        this.tableMetas = new ArrayList<TableMeta>(outerTables.size() + 1);
+        this.tableMetas.addAll(outerTables);
+        this.tableMetas.add(innerOutput);
+        this.joinCondition = CompiledPredicate.compile(joinCondition, new MultiTableColumnIndexResolver(this.tableMetas));
+
+        try {
+            if (innerIndex.getType() == IndexType.HASH) {
+                this.probe = HashIndex.open(Paths.get(innerIndex.getIndexFile())).probe();
+                this.cursor = null;
+            } else {
+                this.probe = null;
+                this.cursor = BPlusTree.open(Paths.get(innerIndex.getIndexFile())).cursor();
+            }
+            this.fetcher = new CsvRowFetcher(Paths.get(innerMeta.getDataFile()), innerMeta.getColumnTypes());
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to open index: " + innerIndex.getIndexFile(), e);
+        }
+    }
+
+    @Override
+    public Tuple getNextTuple() {
+        try {
+            while (true) {
+                if (currentOuter == null) {
+                    currentOuter = outer.getNextTuple();
+                    if (currentOuter == null) return null;
+                    find(currentOuter.getLong(outerKey));
+                }
+
+                while (nextMatch()) {
+                    Tuple inner = fetcher.fetch(rid());
+                    if (!innerPredicate.test(inner)) continue;
+
+                    Tuple combined = concat(currentOuter, inner);
+                    if (joinCondition.test(combined)) {
+                        return combined;
+                    }
+                }
+
+                currentOuter = null;
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Error reading index join of table: " + innerMeta.getName(), e);
+        }
+    }
+
+    // Probes the index for every outer row the outer input pushes.
+    @Override
+    public void produce(Consumer<Tuple> consumer) {
+        outer.produce(o -> {
+            try {
+                find(o.getLong(outerKey));
+                while (nextMatch()) {
+                    Tuple inner = fetcher.fetch(rid());
+                    if (!innerPredicate.test(inner)) continue;
+
+                    Tuple combined = concat(o, inner);
+                    if (joinCondition.test(combined)) consumer.accept(combined);
+                }
+            } catch (IOException e) {
+                throw new RuntimeException("Error reading index join of table: " + innerMeta.getName(), e);
+            }
+        });
+    }
+
+    @Override
+    public void reset() {
+        outer.reset();
+        currentOuter = null;
+    }
+
+    // Starts the lookup of an outer key in the index.
+    private void find(long key) throws IOException {
+        if (probe != null) probe.find(key);
+        else cursor.seek(KeyRange.point(key));
+    }
+
+    // Moves to the next inner row ID matching the key; returns false once there are none left.
+    private boolean nextMatch() throws IOException {
+        return (probe != null) ? probe.next() : cursor.next();
+    }
+
+    private long rid() {
+        return (probe != null) ? probe.rid() : cursor.rid();
+    }
+
+    // Appends the inner columns seen above this operator to the outer tuple, as a view of both.
+    private Tuple concat(Tuple left, Tuple inner) {
+        return Tuple.joined(left, Tuple.projected(inner, innerColumns));
+    }
+
+    // Returns the list of TableMeta objects representing the tables in the output of this operator,
+    // in the order they appear in the combined tuples.
+    public List<TableMeta> getOutputTablesInOrder() {
+        return this.tableMetas;
+    }
+}
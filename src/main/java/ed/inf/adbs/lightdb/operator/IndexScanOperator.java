@@ -0,0 +1,93 @@
+package ed.inf.adbs.lightdb.operator;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+
+import ed.inf.adbs.lightdb.Tuple;
+import ed.inf.adbs.lightdb.catalog.Catalog;
+import ed.inf.adbs.lightdb.catalog.IndexMeta;
+import ed.inf.adbs.lightdb.catalog.IndexType;
+import ed.inf.adbs.lightdb.catalog.TableMeta;
+import ed.inf.adbs.lightdb.index.BPlusTree;
+import ed.inf.adbs.lightdb.index.HashIndex;
+import ed.inf.adbs.lightdb.index.KeyRange;
+import ed.inf.adbs.lightdb.storage.CsvRowFetcher;
+
+/**
+ * IndexScanOperator is a leaf operator that returns the rows of a table whose indexed column falls in a key range,
+ * using an index to find them instead of reading the whole table. With a B+-tree index a lookup costs one
+ * root-to-leaf descent plus one row fetch per match, and rows are returned in key order; a hash index answers
+ * equality lookups only (the range must be a single key) with one probe of the memory-mapped table.
+ * Rows have the table's full schema. Only the indexed column is guaranteed to satisfy the range, so other predicates
+ * must still be applied above this operator.
+ * The operator supports resetting, which repeats the lookup from the start of the range.
+ *
+ * @PARAM tableName The name of the table to scan, which must exist in the Catalog.
+ * @PARAM index A B+-tree or hash index on one of the table's columns.
+ * @PARAM range The key range to return.
+ */
+
+public class IndexScanOperator extends Operator {
+
+    private final TableMeta tableMeta;
+    private final BPlusTree tree;
+    private final HashIndex.Probe probe;
+    private final KeyRange range;
+    private final CsvRowFetcher fetcher;
+
+    private BPlusTree.Cursor cursor;
+    private boolean probed;
+
+    public IndexScanOperator(String tableName, IndexMeta index, KeyRange range) {
+        if (tableName == null) throw new NullPointerException("tableName cannot be null");
+        if (index == null) throw new NullPointerException("index cannot be null");
+        if (range == null) throw new NullPointerException("range cannot be null");
+        if (index.getType() == IndexType.HASH && !range.isPoint() && !range.isEmpty()) {
+            throw new IllegalArgumentException("A hash index only supports equality lookups: " + index);
+        }
+
+        this.tableMeta = Catalog.getInstance()
+                .getTable(tableName)
+                .orElseThrow(() -> new IllegalArgumentException("Table not found in catalog: " + tableName));
+        this.range = range;
+
+        try {
+            if (index.getType() == IndexType.HASH) {
+                this.tree = null;
+                this.probe = HashIndex.open(Paths.get(index.getIndexFile())).probe();
+            } else {
+                this.tree = BPlusTree.open(Paths.get(index.getIndexFile()));
+                this.probe = null;
+            }
+            this.fetcher = new CsvRowFetcher(Paths.get(tableMeta.getDataFile()), tableMeta.getColumnTypes());
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to open index: " + index.getIndexFile(), e);
+        }
+    }
+
+    @Override
+    public Tuple getNextTuple() {
+        try {
+            if (probe != null) {
+                if (!probed) {
+                    if (range.isEmpty()) return null;
+                    probe.find(range.getLow());
+                    probed = true;
+                }
+                return probe.next() ? fetcher.fetch(probe.rid()) : null;
+            }
+
+            if (cursor == null) cursor = tree.range(range);
+            if (!cursor.next()) return null;
+            return fetcher.fetch(cursor.rid());
+        } catch (IOException e) {
+            throw new RuntimeException("Error reading index scan of table: " + tableMeta.getName(), e);
+        }
+    }
+
+    @Override
+    public void reset() {
+        cursor = null;
+        probed = false;
+    }
+}
@@ -0,0 +1,91 @@
+package ed.inf.adbs.lightdb.operator;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+import ed.inf.adbs.lightdb.Tuple;
+import ed.inf.adbs.lightdb.catalog.TableMeta;
+import ed.inf.adbs.lightdb.util.EquiJoinKey;
+import ed.inf.adbs.lightdb.util.ExpressionUtils;
+import ed.inf.adbs.lightdb.util.MultiTableColumnIndexResolver;
+import net.sf.jsqlparser.expression.Expression;
+
+/**
+ * A join condition split for the join operators: the conjuncts that equate a left column with a right column, as
+ * column indexes into the left and right tuples, and the rest of the condition (null if there is none).
+ */
+final class JoinCondition {
+    final int[] leftKeys;
+    final int[] rightKeys;
+    final Expression residual;
+
+    private JoinCondition(int[] leftKeys, int[] rightKeys, Expression residual) {
+        this.leftKeys = leftKeys;
+        this.rightKeys = rightKeys;
+        this.residual = residual;
+    }
+
+    static JoinCondition split(Expression joinCondition, List<TableMeta> leftTables, List<TableMeta> rightTables) {
+        Set<String> leftNames = tableNames(leftTables);
+        Set<String> rightNames = tableNames(rightTables);
+        MultiTableColumnIndexResolver leftResolver = new MultiTableColumnIndexResolver(leftTables);
+        MultiTableColumnIndexResolver rightResolver = new MultiTableColumnIndexResolver(rightTables);
+
+        List<Integer> lk = new ArrayList<Integer>();
+        List<Integer> rk = new ArrayList<Integer>();
+        List<Expression> rest = new ArrayList<Expression>();
+        for (Expression e : ExpressionUtils.splitConjuncts(joinCondition)) {
+            EquiJoinKey key = EquiJoinKey.of(e);
+            if (key != null && rightNames.contains(key.getLeftTable()) && leftNames.contains(key.getRightTable())) {
+                key = key.swap();
+            }
+            if (key != null && leftNames.contains(key.getLeftTable()) && rightNames.contains(key.getRightTable())) {
+                lk.add(leftResolver.indexOf(key.getLeftTable(), key.getLeftColumn()));
+                rk.add(rightResolver.indexOf(key.getRightTable(), key.getRightColumn()));
+            } else {
+                rest.add(e);
+            }
+        }
+        return new JoinCondition(toArray(lk), toArray(rk), rest.isEmpty() ? null : ExpressionUtils.andAll(rest));
+    }
+
+    boolean hasKeys() {
+        return leftKeys.length > 0;
+    }
+
+    private static Set<String> tableNames(List<TableMeta> tables) {
+        Set<String> names = new HashSet<String>();
+        for (TableMeta t : tables) names.add(t.getName().trim().toLowerCase(Locale.ROOT));
+        return names;
+    }
+
+    private static int[] toArray(List<Integer> list) {
+        int[] out = new int[list.size()];
+        for (int i = 0; i < out.length; i++) out[i] = list.get(i);
+        return out;
+    }
+
+    /** The integer values of a row's key columns, as a hash key (no columns: every row has the same key). */
+    static final class KeyValues {
+        private final long[] values;
+
+        KeyValues(Tuple t, int[] columns) {
+            this.values = new long[columns.length];
+            for (int i = 0; i < columns.length; i++) values[i] = t.getLong(columns[i]);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return (o instanceof KeyValues) && Arrays.equals(values, ((KeyValues) o).values);
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(values);
+        }
+    }
+}
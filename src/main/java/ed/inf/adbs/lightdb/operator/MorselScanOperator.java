@@ -0,0 +1,166 @@
+package ed.inf.adbs.lightdb.operator;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import ed.inf.adbs.lightdb.Tuple;
+import ed.inf.adbs.lightdb.catalog.Catalog;
+import ed.inf.adbs.lightdb.catalog.ColumnMeta;
+import ed.inf.adbs.lightdb.catalog.TableMeta;
+import ed.inf.adbs.lightdb.expression.CompiledPredicate;
+import ed.inf.adbs.lightdb.storage.CsvChunks;
+import ed.inf.adbs.lightdb.storage.MappedCsvReader;
+import ed.inf.adbs.lightdb.util.ColumnIndexResolver;
+import net.sf.jsqlparser.expression.Expression;
+
+/**
+ * MorselScanOperator is a leaf operator for morsel-driven execution: one scan per worker, all drawing from the same
+ * table. The table's CSV file is cut into small byte ranges aligned to line starts ("morsels"), and each scan claims
+ * the next unclaimed morsel whenever it has finished its current one, so the worker running a scan's pipeline keeps
+ * claiming work until the whole table is consumed. Workers whose pipelines are slower (e.g. because their rows have
+ * more join matches) simply claim fewer morsels, instead of leaving the others idle as a static partitioning would.
+ *
+ * Each scan evaluates the pushed-down selection predicate on the rows of its morsels. The scans of one table are meant
+ * to be reset together (e.g. by a GatherOperator); the first of them to be reset after a run hands the morsels out
+ * again from the start.
+ *
+ * @PARAM tableName The name of the table to scan, which must exist in the Catalog.
+ * @PARAM predicate Single-table selection predicate to apply (may be null).
+ * @PARAM workers The number of scans to create.
+ */
+
+public final class MorselScanOperator extends Operator {
+    static final long DEFAULT_MORSEL_BYTES = 1L << 20;
+
+    private final Morsels morsels;
+    private final CompiledPredicate predicate;
+
+    private MappedCsvReader reader;
+    // The generation of the morsels this scan last saw
+    private int seenGeneration;
+
+    private MorselScanOperator(Morsels morsels, CompiledPredicate predicate) {
+        this.morsels = morsels;
+        this.predicate = predicate;
+    }
+
+    public static List<Operator> workers(String tableName, Expression predicate, int workers) {
+        return workers(tableName, predicate, workers, DEFAULT_MORSEL_BYTES);
+    }
+
+    static List<Operator> workers(String tableName, Expression predicate, int workers, long morselBytes) {
+        if (tableName == null) throw new NullPointerException("tableName cannot be null");
+        if (workers < 1) throw new IllegalArgumentException("workers must be >= 1");
+
+        TableMeta meta = Catalog.getInstance()
+                .getTable(tableName)
+                .orElseThrow(() -> new IllegalArgumentException("Table not found in catalog: " + tableName));
+
+        List<String> columnNames = new ArrayList<String>();
+        for (ColumnMeta c : meta.getColumns()) {
+            columnNames.add(c.getName());
+        }
+        ColumnIndexResolver resolver = new ColumnIndexResolver(meta.getName(), columnNames);
+
+        Morsels morsels = new Morsels(Paths.get(meta.getDataFile()), morselBytes);
+        List<Operator> scans = new ArrayList<Operator>(workers);
+        for (int i = 0; i < workers; i++) {
+            scans.add(new MorselScanOperator(morsels, CompiledPredicate.compile(predicate, resolver)));
+        }
+        return Collections.unmodifiableList(scans);
+    }
+
+    @Override
+    public Tuple getNextTuple() {
+        try {
+            while (true) {
+                if (reader == null) {
+                    long[] morsel = morsels.claim();
+                    if (morsel == null) return null;
+                    reader = new MappedCsvReader(morsels.file, morsel[0], morsel[1]);
+                }
+
+                Tuple t;
+                while ((t = reader.next()) != null) {
+                    if (predicate.test(t)) return t;
+                }
+                closeReader();
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to scan " + morsels.file, e);
+        }
+    }
+
+    @Override
+    public void reset() {
+        try {
+            closeReader();
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to close " + morsels.file, e);
+        }
+        seenGeneration = morsels.rewind(seenGeneration);
+    }
+
+    private void closeReader() throws IOException {
+        if (reader == null) return;
+        MappedCsvReader r = reader;
+        reader = null;
+        r.close();
+    }
+
+    /**
+     * The morsels of one table, shared by its scans: their bounds (computed on first use) and the next one to claim.
+     */
+    private static final class Morsels {
+        final Path file;
+        private final long morselBytes;
+
+        private volatile long[] bounds;
+        private final AtomicInteger next = new AtomicInteger();
+        // Guarded by this
+        private int generation;
+
+        Morsels(Path file, long morselBytes) {
+            this.file = file;
+            this.morselBytes = morselBytes;
+        }
+
+        // Returns the [start, end) bounds of the next morsel, or null once all have been claimed.
+        long[] claim() throws IOException {
+            long[] b = bounds();
+            int i = next.getAndIncrement();
+            if (i >= b.length - 1) return null;
+            return new long[]{b[i], b[i + 1]};
+        }
+
+        // Hands the morsels out from the start again, unless that was already done since the caller last saw them.
+        // Returns the generation the caller now sees.
+        synchronized int rewind(int seen) {
+            if (seen == generation) {
+                next.set(0);
+                generation++;
+            }
+            return generation;
+        }
+
+        private long[] bounds() throws IOException {
+            long[] b = bounds;
+            if (b == null) {
+                synchronized (this) {
+                    if (bounds == null) {
+                        long size = file.toFile().length();
+                        int target = (int) Math.min(Integer.MAX_VALUE, size / morselBytes + 1);
+                        bounds = CsvChunks.split(file, target, morselBytes);
+                    }
+                    b = bounds;
+                }
+            }
+            return b;
+        }
+    }
+}
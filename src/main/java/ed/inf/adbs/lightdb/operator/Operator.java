@@ -1,22 +1,61 @@
 package ed.inf.adbs.lightdb.operator;
 
+import ed.inf.adbs.lightdb.Batch;
 import ed.inf.adbs.lightdb.Tuple;
 
+import java.util.function.Consumer;
+
 /**
  * The abstract Operator class for the iterator model.
  *
  * Feel free to modify this class, but must keep getNextTuple() and reset()
+ *
+ * Besides tuple-at-a-time iteration, every operator can be drained a batch at a time with getNextBatch(). The default
+ * implementation gathers tuples from getNextTuple(), so operators without a native batch implementation keep working
+ * under batch consumers; operators that override it process whole column vectors per call.
+ *
+ * Plans can also be run push-based with produce(): each operator drives its rows into the consumer it is given,
+ * and passes its own children a consumer that does its work on each row, so a pipeline runs as nested callbacks
+ * driven by its leaf. Only pipeline breakers (join build sides, sorts, aggregations) hold rows back. The default
+ * implementation pushes the rows of getNextTuple(), so leaves and operators without a native implementation work
+ * under push consumers as well. A consumer should use one of the three methods between resets, not several.
  */
 public abstract class Operator {
 
+    /** The number of rows a batch holds at most. */
+    public static final int BATCH_SIZE = 1024;
+
     /**
      * Retrieves the next tuple from the iterator.
      * @return A Tuple object representing the row of data, or NULL if EOF reached.
      */
     public abstract Tuple getNextTuple();
 
+    /**
+     * Retrieves the next batch of rows.
+     * @return A Batch with at least one selected row, or NULL if EOF reached.
+     */
+    public Batch getNextBatch() {
+        Tuple t = getNextTuple();
+        if (t == null) return null;
+
+        Batch batch = new Batch(t.size(), BATCH_SIZE);
+        batch.append(t);
+        while (!batch.isFull() && (t = getNextTuple()) != null) batch.append(t);
+        return batch;
+    }
+
+    /**
+     * Pushes every remaining row to the consumer, in the order getNextTuple() would return them.
+     * @param consumer Receives the rows; it is called on the thread that calls produce().
+     */
+    public void produce(Consumer<Tuple> consumer) {
+        Tuple t;
+        while ((t = getNextTuple()) != null) consumer.accept(t);
+    }
+
     /**
      * Resets the iterator to the start.
      */
     public abstract void reset();
-}
\ No newline at end of file
+}
@@ -0,0 +1,205 @@
+package ed.inf.adbs.lightdb.operator;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import ed.inf.adbs.lightdb.Tuple;
+import ed.inf.adbs.lightdb.catalog.Catalog;
+import ed.inf.adbs.lightdb.catalog.ColumnMeta;
+import ed.inf.adbs.lightdb.catalog.TableMeta;
+import ed.inf.adbs.lightdb.execution.WorkerPool;
+import ed.inf.adbs.lightdb.expression.CompiledPredicate;
+import ed.inf.adbs.lightdb.storage.CsvChunks;
+import ed.inf.adbs.lightdb.storage.MappedCsvReader;
+import ed.inf.adbs.lightdb.util.ColumnIndexResolver;
+import net.sf.jsqlparser.expression.Expression;
+
+/**
+ * ParallelScanOperator is a leaf operator that scans a table's CSV file on several worker threads at once.
+ *
+ * The file is split into byte ranges aligned to line starts (CsvChunks). Workers from the shared WorkerPool repeatedly claim
+ * the next unscanned range, tokenize it through a memory-mapped reader and evaluate the pushed-down selection predicate,
+ * handing the surviving rows to the consumer in small batches over a bounded queue. It therefore replaces a
+ * ScanOperator + SelectOperator pair. Output order is not deterministic.
+ * Resetting cancels the running workers and starts a fresh scan on the next call to getNextTuple().
+ *
+ * @PARAM tableName The name of the table to scan, which must exist in the Catalog.
+ * @PARAM predicate Single-table selection predicate to apply in the workers (may be null).
+ * @PARAM parallelism Maximum number of worker threads used by this scan.
+ */
+
+public final class ParallelScanOperator extends Operator {
+    static final long DEFAULT_MIN_CHUNK_BYTES = 4L << 20;
+    private static final int CHUNKS_PER_WORKER = 4;
+    private static final int CHUNK_ROWS = 256;
+    private static final int QUEUED_BATCHES_PER_WORKER = 4;
+
+    private static final Tuple[] END = new Tuple[0];
+
+    private final TableMeta tableMeta;
+    private final Path dataFilePath;
+    private final CompiledPredicate predicate;
+    private final int parallelism;
+    private final long minChunkBytes;
+
+    private Run run;
+    private Tuple[] current;
+    private int currentPos;
+
+    public ParallelScanOperator(String tableName, Expression predicate, int parallelism) {
+        this(tableName, predicate, parallelism, DEFAULT_MIN_CHUNK_BYTES);
+    }
+
+    ParallelScanOperator(String tableName, Expression predicate, int parallelism, long minChunkBytes) {
+        if (tableName == null) throw new NullPointerException("tableName cannot be null");
+        if (parallelism < 1) throw new IllegalArgumentException("parallelism must be >= 1");
+
+        this.tableMeta = Catalog.getInstance()
+                .getTable(tableName)
+                .orElseThrow(() -> new IllegalArgumentException("Table not found in catalog: " + tableName));
+        this.dataFilePath = Paths.get(tableMeta.getDataFile());
+        this.parallelism = parallelism;
+        this.minChunkBytes = minChunkBytes;
+
+        List<String> columnNames = new ArrayList<String>();
+        for (ColumnMeta c : tableMeta.getColumns()) {
+            columnNames.add(c.getName());
+        }
+        this.predicate = CompiledPredicate.compile(predicate, new ColumnIndexResolver(tableMeta.getName(), columnNames));
+    }
+
+    @Override
+    public Tuple getNextTuple() {
+        if (run == null) run = new Run();
+
+        while (current == null || currentPos >= current.length) {
+            current = run.take();
+            currentPos = 0;
+            if (current == null) return null;
+        }
+        return current[currentPos++];
+    }
+
+    @Override
+    public void reset() {
+        if (run != null) run.cancel();
+        run = null;
+        current = null;
+        currentPos = 0;
+    }
+
+    /**
+     * One execution of the scan: the chunk bounds, the workers scanning them and the queue they feed.
+     */
+    private final class Run {
+        private final long[] bounds;
+        private final AtomicInteger nextChunk = new AtomicInteger();
+        private final BlockingQueue<Tuple[]> queue;
+        private final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+        private final int workers;
+        private int finishedWorkers;
+        private volatile boolean cancelled;
+
+        Run() {
+            try {
+                this.bounds = CsvChunks.split(dataFilePath, parallelism * CHUNKS_PER_WORKER, minChunkBytes);
+            } catch (IOException e) {
+                throw new RuntimeException("Failed to split data file: " + dataFilePath, e);
+            }
+
+            int chunks = Math.max(0, bounds.length - 1);
+            this.workers = Math.min(parallelism, chunks);
+            this.queue = new ArrayBlockingQueue<Tuple[]>(Math.max(1, workers) * QUEUED_BATCHES_PER_WORKER + workers);
+
+            for (int i = 0; i < workers; i++) {
+                WorkerPool.get().execute(this::work);
+            }
+        }
+
+        // Returns the next batch of rows, or null once every worker has finished.
+        Tuple[] take() {
+            try {
+                while (finishedWorkers < workers) {
+                    Tuple[] batch = queue.take();
+                    if (batch != END) return batch;
+
+                    finishedWorkers++;
+                    Throwable t = failure.get();
+                    if (t != null) {
+                        cancel();
+                        throw new RuntimeException("Parallel scan of " + dataFilePath + " failed", t);
+                    }
+                }
+                return null;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted while scanning " + dataFilePath, e);
+            }
+        }
+
+        void cancel() {
+            cancelled = true;
+            queue.clear();
+        }
+
+        // Worker loop: claim chunks until none are left, then signal completion.
+        private void work() {
+            try {
+                int chunk;
+                while (!cancelled && (chunk = nextChunk.getAndIncrement()) < bounds.length - 1) {
+                    scanChunk(bounds[chunk], bounds[chunk + 1]);
+                }
+            } catch (Throwable t) {
+                failure.compareAndSet(null, t);
+            } finally {
+                offer(END);
+            }
+        }
+
+        private void scanChunk(long start, long end) throws IOException {
+            try (MappedCsvReader reader = new MappedCsvReader(dataFilePath, start, end)) {
+                Tuple[] batch = new Tuple[CHUNK_ROWS];
+                int n = 0;
+
+                Tuple t;
+                while (!cancelled && (t = reader.next()) != null) {
+                    if (!predicate.test(t)) continue;
+
+                    batch[n++] = t;
+                    if (n == CHUNK_ROWS) {
+                        if (!offer(batch)) return;
+                        batch = new Tuple[CHUNK_ROWS];
+                        n = 0;
+                    }
+                }
+
+                if (n > 0) {
+                    Tuple[] last = new Tuple[n];
+                    System.arraycopy(batch, 0, last, 0, n);
+                    offer(last);
+                }
+            }
+        }
+
+        // Hands a batch to the consumer, giving up if the run is cancelled while the queue is full.
+        private boolean offer(Tuple[] batch) {
+            try {
+                while (!cancelled) {
+                    if (queue.offer(batch, 50, TimeUnit.MILLISECONDS)) return true;
+                }
+                return false;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package ed.inf.adbs.lightdb.operator;
 
+import ed.inf.adbs.lightdb.Batch;
 import ed.inf.adbs.lightdb.Tuple;
 import ed.inf.adbs.lightdb.catalog.TableMeta;
 import ed.inf.adbs.lightdb.util.MultiTableColumnIndexResolver;
@@ -7,13 +8,14 @@ import ed.inf.adbs.lightdb.util.MultiTableColumnIndexResolver;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.function.Consumer;
 
 
 /**
  * ProjectOperator is a unary operator that performs projection on the tuples produced by its child operator. 
  * It takes a list of selected column references and a list of table metadata to resolve those references to column indices.
  * When getNextTuple() is called, it retrieves the next tuple from the child operator, extracts the values corresponding
- * to the selected columns based on the resolved indices, and returns a new tuple containing only those projected values. 
+ * to the selected columns based on the resolved indices, and returns a view of those fields of the child's tuple (nothing is copied). 
  * The operator also supports resetting, which resets the child operator to allow for re-scanning.
  * 
  * @PARAM child The child operator from which to retrieve tuples for projection.
@@ -71,10 +73,19 @@ public final class ProjectOperator extends Operator {
         Tuple t = child.getNextTuple();
         if (t == null) return null;
 
-        List<String> out = new ArrayList<String>(projectionIndexes.length);
-        for (int idx : projectionIndexes) out.add(t.get(idx));
+        return Tuple.projected(t, projectionIndexes);
+    }
 
-        return new Tuple(out);
+    // Projects a whole batch as a view of the child's column vectors; nothing is copied.
+    @Override
+    public Batch getNextBatch() {
+        Batch batch = child.getNextBatch();
+        return (batch == null) ? null : batch.project(projectionIndexes);
+    }
+
+    @Override
+    public void produce(Consumer<Tuple> consumer) {
+        child.produce(t -> consumer.accept(Tuple.projected(t, projectionIndexes)));
     }
 
     @Override
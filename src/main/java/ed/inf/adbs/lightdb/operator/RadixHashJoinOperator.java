@@ -0,0 +1,394 @@
+package ed.inf.adbs.lightdb.operator;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
+
+import ed.inf.adbs.lightdb.Tuple;
+import ed.inf.adbs.lightdb.catalog.TableMeta;
+import ed.inf.adbs.lightdb.execution.WorkerPool;
+import ed.inf.adbs.lightdb.expression.CompiledPredicate;
+import ed.inf.adbs.lightdb.util.MultiTableColumnIndexResolver;
+import net.sf.jsqlparser.expression.Expression;
+
+/**
+ * RadixHashJoinOperator is a binary operator that joins two child operators on the conjuncts of the join condition that
+ * equate a left column with a right column, in parallel on the WorkerPool. Both inputs are read into memory and
+ * radix-partitioned on the high bits of a hash of their key columns, into partitions small enough (about
+ * PARTITION_ROWS build rows) for a partition's hash table to stay in a core's cache. Workers then claim the partitions
+ * one at a time and join each on its own: they build a table on the smaller side of the partition and probe it with
+ * the other side.
+ *
+ * Keys are read once into primitive long arrays alongside their hashes, and the per-partition tables are arrays of
+ * row positions chained by those hashes, so matching compares longs rather than hashing tuples or key objects. The
+ * partitioning itself runs in parallel too: each worker counts the partition sizes of a chunk of the rows, and then
+ * scatters that chunk into its slots of the partitioned arrays.
+ *
+ * Joined partitions come out in partition order; workers may run ahead of the consumer by at most two partitions
+ * each. Output rows hold the left fields first, and the rest of the condition is applied to each matching pair.
+ * The partitioned right input is kept across resets, which only restart the left input. A failed partition abandons
+ * the pass: its workers stop instead of waiting for the consumer to make room.
+ *
+ * @PARAM joinCondition Must contain at least one column equality between the two inputs.
+ * @PARAM workers Number of worker threads that partition and join the inputs.
+ */
+
+public final class RadixHashJoinOperator extends Operator {
+    static final int PARTITION_ROWS = 4096;
+    // Partitioning stops refining beyond this many bits (16K partitions)
+    private static final int MAX_BITS = 14;
+    // Fewer rows than this per worker are partitioned by a single thread
+    private static final int MIN_CHUNK_ROWS = 4096;
+
+    private final Operator leftChild;
+    private final Operator rightChild;
+    private final int[] leftKeys;
+    private final int[] rightKeys;
+    private final Expression residual;
+    private final int workers;
+    private final int partitionRows;
+
+    private final List<TableMeta> tableMetas;
+    private final MultiTableColumnIndexResolver resolver;
+
+    // The partitioned right input, once read
+    private Partitioned right;
+    // The join of the current pass, and the partition being returned
+    private Run run;
+    private int partition;
+    private List<Tuple> output;
+    private int outputPos;
+
+    public RadixHashJoinOperator(Operator leftChild, Operator rightChild, Expression joinCondition,
+                                 List<TableMeta> leftTables, List<TableMeta> rightTables, int workers) {
+        this(leftChild, rightChild, joinCondition, leftTables, rightTables, workers, PARTITION_ROWS);
+    }
+
+    RadixHashJoinOperator(Operator leftChild, Operator rightChild, Expression joinCondition,
+                          List<TableMeta> leftTables, List<TableMeta> rightTables, int workers, int partitionRows) {
+        if (leftChild == null) throw new NullPointerException("leftChild cannot be null");
+        if (rightChild == null) throw new NullPointerException("rightChild cannot be null");
+        if (leftTables == null) throw new NullPointerException("leftTables cannot be null");
+        if (rightTables == null) throw new NullPointerException("rightTables cannot be null");
+        if (workers < 1) throw new IllegalArgumentException("workers must be >= 1");
+        if (partitionRows < 1) throw new IllegalArgumentException("partitionRows must be >= 1");
+
+        JoinCondition condition = JoinCondition.split(joinCondition, leftTables, rightTables);
+        if (!condition.hasKeys()) throw new IllegalArgumentException("joinCondition has no column equality between the inputs");
+
+        this.leftChild = leftChild;
+        this.rightChild = rightChild;
+        this.leftKeys = condition.leftKeys;
+        this.rightKeys = condition.rightKeys;
+        this.residual = condition.residual;
+        this.workers = workers;
+        this.partitionRows = partitionRows;
+
+        this.tableMetas = new ArrayList<TableMeta>(leftTables.size() + rightTables.size());
+        this.tableMetas.addAll(leftTables);
+        this.tableMetas.addAll(rightTables);
+        this.resolver = new MultiTableColumnIndexResolver(this.tableMetas);
+    }
+
+    @Override
+    public Tuple getNextTuple() {
+        if (run == null) run = start();
+
+        while (true) {
+            if (output != null) {
+                if (outputPos < output.size()) return output.get(outputPos++);
+                output = null;
+                run.window.release();
+            }
+            if (partition == run.results.size()) return null;
+            output = await(run);
+            partition++;
+            outputPos = 0;
+        }
+    }
+
+    @Override
+    public void reset() {
+        if (run != null) run.cancelled = true;
+        run = null;
+        leftChild.reset();
+        partition = 0;
+        output = null;
+        outputPos = 0;
+    }
+
+    // Returns the list of TableMeta objects representing the tables in the output of this operator,
+    // in the order they appear in the combined tuples.
+    public List<TableMeta> getOutputTablesInOrder() {
+        return this.tableMetas;
+    }
+
+    // Partitions the inputs (the right one only on the first pass) and starts the workers joining the partitions.
+    private Run start() {
+        if (right == null) {
+            Tuple[] rows = readAll(rightChild);
+            right = partition(rows, rightKeys, bits(rows.length), workers);
+        }
+        Partitioned left = partition(readAll(leftChild), leftKeys, right.bits, workers);
+
+        Run r = new Run(left, right, leftKeys.length, workers);
+        for (int w = 0; w < workers; w++) {
+            CompiledPredicate p = (residual == null) ? null : CompiledPredicate.compile(residual, resolver);
+            WorkerPool.get().submit(() -> r.work(p));
+        }
+        return r;
+    }
+
+    // Number of hash bits to partition on: enough for PARTITION_ROWS build rows per partition, and for one partition
+    // per worker.
+    private int bits(int rows) {
+        int partitions = Math.max(workers, (int) (((long) rows + partitionRows - 1) / partitionRows));
+        return Math.min(MAX_BITS, 32 - Integer.numberOfLeadingZeros(partitions - 1));
+    }
+
+    private static Tuple[] readAll(Operator input) {
+        List<Tuple> rows = new ArrayList<Tuple>();
+        try {
+            Tuple t;
+            while ((t = input.getNextTuple()) != null) rows.add(Tuple.materialise(t));
+        } catch (RuntimeException e) {
+            input.reset(); // so that a later attempt reads the whole input again
+            throw e;
+        }
+        return rows.toArray(new Tuple[0]);
+    }
+
+    // Radix-partitions the rows on the top bits of their key hashes: each chunk of rows is hashed and counted per
+    // partition, the counts give every chunk its own slots in each partition, and the chunks are scattered into them.
+    private static Partitioned partition(Tuple[] rows, int[] keyColumns, int bits, int workers) {
+        int n = rows.length;
+        int k = keyColumns.length;
+        int partitions = 1 << bits;
+        int chunks = Math.max(1, Math.min(workers, n / MIN_CHUNK_ROWS));
+
+        long[] keys = new long[n * k];
+        long[] hashes = new long[n];
+        int[][] counts = new int[chunks][partitions];
+
+        inParallel(chunks, c -> {
+            int[] count = counts[c];
+            for (int i = n * c / chunks, end = n * (c + 1) / chunks; i < end; i++) {
+                for (int j = 0; j < k; j++) keys[i * k + j] = rows[i].getLong(keyColumns[j]);
+                hashes[i] = hash(keys, i * k, k);
+                count[partitionOf(hashes[i], bits)]++;
+            }
+        });
+
+        // Turn the counts into each chunk's next slot in each partition
+        int[] offsets = new int[partitions + 1];
+        int pos = 0;
+        for (int p = 0; p < partitions; p++) {
+            offsets[p] = pos;
+            for (int c = 0; c < chunks; c++) {
+                int count = counts[c][p];
+                counts[c][p] = pos;
+                pos += count;
+            }
+        }
+        offsets[partitions] = pos;
+
+        Partitioned out = new Partitioned(bits, new Tuple[n], new long[n * k], new long[n], offsets);
+        inParallel(chunks, c -> {
+            int[] next = counts[c];
+            for (int i = n * c / chunks, end = n * (c + 1) / chunks; i < end; i++) {
+                int slot = next[partitionOf(hashes[i], bits)]++;
+                out.rows[slot] = rows[i];
+                out.hashes[slot] = hashes[i];
+                System.arraycopy(keys, i * k, out.keys, slot * k, k);
+            }
+        });
+        return out;
+    }
+
+    // Runs the tasks 0..tasks-1 on the WorkerPool (or on this thread if there is only one) and waits for all of them.
+    private static void inParallel(int tasks, IntConsumer task) {
+        if (tasks == 1) {
+            task.accept(0);
+            return;
+        }
+
+        List<Future<?>> futures = new ArrayList<Future<?>>(tasks);
+        for (int t = 0; t < tasks; t++) {
+            final int id = t;
+            futures.add(WorkerPool.get().submit(() -> task.accept(id)));
+        }
+
+        RuntimeException failure = null;
+        for (Future<?> f : futures) {
+            try {
+                f.get();
+            } catch (ExecutionException e) {
+                if (failure == null) failure = new RuntimeException("Partitioning of a join input failed", e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted while partitioning a join input", e);
+            }
+        }
+        if (failure != null) throw failure;
+    }
+
+    // Waits for the joined rows of the next partition. If they cannot be had, the run is abandoned, so that its
+    // workers stop, and the same failure is reported again until the join is reset.
+    private List<Tuple> await(Run run) {
+        try {
+            return run.results.get(partition).get();
+        } catch (ExecutionException e) {
+            run.cancelled = true;
+            throw new RuntimeException("Join of a partition failed", e.getCause());
+        } catch (InterruptedException e) {
+            run.cancelled = true;
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while joining partitions", e);
+        }
+    }
+
+    private static long hash(long[] keys, int from, int k) {
+        long h = 0;
+        for (int j = 0; j < k; j++) h = h * 31 + keys[from + j];
+        // Murmur3's finaliser, so that every key bit reaches the top bits used for partitioning
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    private static int partitionOf(long hash, int bits) {
+        return (bits == 0) ? 0 : (int) (hash >>> (64 - bits));
+    }
+
+    /**
+     * A radix-partitioned input: its rows, keys (k per row) and key hashes, grouped by partition. Partition p holds
+     * the positions offsets[p] to offsets[p + 1] - 1.
+     */
+    private static final class Partitioned {
+        final int bits;
+        final Tuple[] rows;
+        final long[] keys;
+        final long[] hashes;
+        final int[] offsets;
+
+        Partitioned(int bits, Tuple[] rows, long[] keys, long[] hashes, int[] offsets) {
+            this.bits = bits;
+            this.rows = rows;
+            this.keys = keys;
+            this.hashes = hashes;
+            this.offsets = offsets;
+        }
+
+        int size(int p) {
+            return offsets[p + 1] - offsets[p];
+        }
+    }
+
+    /**
+     * One pass of the join: the workers claim partitions in order, each waiting for a permit of the window so that
+     * they stay at most two partitions each ahead of the consumer, and publish the joined rows of a partition in its
+     * result. A reset or a failed partition cancels the pass; its workers stop at their next claim.
+     */
+    private static final class Run {
+        final Partitioned left;
+        final Partitioned right;
+        final int keyCount;
+        final List<CompletableFuture<List<Tuple>>> results;
+        final AtomicInteger next = new AtomicInteger();
+        final Semaphore window;
+        volatile boolean cancelled;
+
+        Run(Partitioned left, Partitioned right, int keyCount, int workers) {
+            this.left = left;
+            this.right = right;
+            this.keyCount = keyCount;
+            int partitions = right.offsets.length - 1;
+            this.results = new ArrayList<CompletableFuture<List<Tuple>>>(partitions);
+            for (int p = 0; p < partitions; p++) results.add(new CompletableFuture<List<Tuple>>());
+            this.window = new Semaphore(2 * workers);
+        }
+
+        void work(CompiledPredicate residual) {
+            // Hash table arrays, grown as needed and reused across this worker's partitions
+            int[] heads = new int[0];
+            int[] chain = new int[0];
+
+            try {
+                while (!cancelled) {
+                    if (!window.tryAcquire(50, TimeUnit.MILLISECONDS)) continue;
+                    int p = next.getAndIncrement();
+                    if (p >= results.size()) {
+                        window.release();
+                        return;
+                    }
+
+                    // Build on the smaller side of the partition
+                    boolean buildLeft = left.size(p) < right.size(p);
+                    Partitioned build = buildLeft ? left : right;
+                    int buckets = Integer.highestOneBit(Math.max(1, build.size(p)) * 2);
+                    if (heads.length < buckets) heads = new int[buckets];
+                    if (chain.length < build.size(p)) chain = new int[build.size(p)];
+
+                    try {
+                        results.get(p).complete(join(p, buildLeft, heads, buckets, chain, residual));
+                    } catch (RuntimeException | Error e) {
+                        results.get(p).completeExceptionally(e);
+                        cancelled = true; // the consumer stops at this partition, so the rest are not needed
+                    }
+                }
+            } catch (InterruptedException e) {
+                // The pool is shutting down: the consumer is gone
+            }
+        }
+
+        // Joins partition p, with the build side's rows chained by bucket in the first buckets entries of heads.
+        private List<Tuple> join(int p, boolean buildLeft, int[] heads, int buckets, int[] chain, CompiledPredicate residual) {
+            Partitioned build = buildLeft ? left : right;
+            Partitioned probe = buildLeft ? right : left;
+            int k = keyCount;
+            int mask = buckets - 1;
+            int buildStart = build.offsets[p];
+            int buildSize = build.size(p);
+
+            // Chains are built backwards so that they list the build rows in order
+            Arrays.fill(heads, 0, buckets, -1);
+            for (int i = buildSize - 1; i >= 0; i--) {
+                int b = (int) build.hashes[buildStart + i] & mask;
+                chain[i] = heads[b];
+                heads[b] = i;
+            }
+
+            List<Tuple> out = new ArrayList<Tuple>();
+            if (buildSize == 0) return out;
+
+            for (int j = probe.offsets[p], end = probe.offsets[p + 1]; j < end; j++) {
+                long h = probe.hashes[j];
+                for (int i = heads[(int) h & mask]; i >= 0; i = chain[i]) {
+                    int b = buildStart + i;
+                    if (build.hashes[b] != h || !keysEqual(build.keys, b * k, probe.keys, j * k, k)) continue;
+
+                    Tuple row = buildLeft ? Tuple.joined(build.rows[b], probe.rows[j]) : Tuple.joined(probe.rows[j], build.rows[b]);
+                    if (residual == null || residual.test(row)) out.add(row);
+                }
+            }
+            return out;
+        }
+
+        private static boolean keysEqual(long[] a, int from, long[] b, int bFrom, int k) {
+            for (int j = 0; j < k; j++) {
+                if (a[from + j] != b[bFrom + j]) return false;
+            }
+            return true;
+        }
+    }
+}
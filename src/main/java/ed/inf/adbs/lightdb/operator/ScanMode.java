@@ -0,0 +1,11 @@
+package ed.inf.adbs.lightdb.operator;
+
+/**
+ * How a ScanOperator reads a table's CSV file.
+ * BUFFERED reads it line by line through a BufferedReader and splits every line eagerly.
+ * MAPPED memory-maps the file and returns tuples that decode fields straight from the mapped bytes on demand.
+ */
+public enum ScanMode {
+    BUFFERED,
+    MAPPED
+}
@@ -7,31 +7,45 @@ import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.List;
 import java.util.Optional;
 
+import ed.inf.adbs.lightdb.Batch;
 import ed.inf.adbs.lightdb.Tuple;
 import ed.inf.adbs.lightdb.catalog.Catalog;
+import ed.inf.adbs.lightdb.catalog.DataType;
 import ed.inf.adbs.lightdb.catalog.TableMeta;
+import ed.inf.adbs.lightdb.storage.CsvLineTuple;
+import ed.inf.adbs.lightdb.storage.CsvRows;
+import ed.inf.adbs.lightdb.storage.MappedCsvReader;
 
 /**
  * ScanOperator is a leaf operator that reads tuples from a specified table. It uses the Catalog to find the corresponding data file 
  * for the table and reads it line by line, converting each line into a Tuple. 
+ * Each tuple keeps its raw line and parses a field, once and according to its column type in the catalog, only when it is first read,
+ * so fields that a selection or projection never looks at are never parsed. Batches are parsed eagerly into their column vectors.
  * The operator supports resetting, which reopens the data file to allow for re-scanning from the beginning.
+ * In MAPPED mode the file is memory-mapped instead, and each tuple decodes its fields from the mapped bytes only when they are accessed.
  * 
  * @PARAM tableName The name of the table to scan, which must exist in the Catalog. The operator will read from the data file associated with this table.
+ * @PARAM mode How the data file is read (BUFFERED if not given).
  */
 
 public class ScanOperator extends Operator {
-    private static final String DELIMITER_REGEX = ",";
-    
     private final TableMeta tableMeta;
+    private final ScanMode mode;
+    private final DataType[] types;
     private Path dataFilePath;
 
     private BufferedReader reader;
+    private MappedCsvReader mappedReader;
 
     public ScanOperator(String tableName){
+        this(tableName, ScanMode.BUFFERED);
+    }
+
+    public ScanOperator(String tableName, ScanMode mode){
         if (tableName == null) throw new NullPointerException("tableName cannot be null");
+        if (mode == null) throw new NullPointerException("mode cannot be null");
 
         Catalog catalog = Catalog.getInstance();
         Optional<TableMeta> tableMetaOpt = catalog.getTable(tableName);
@@ -40,6 +54,8 @@ public class ScanOperator extends Operator {
         }
 
         this.tableMeta = tableMetaOpt.get();
+        this.mode = mode;
+        this.types = this.tableMeta.getColumnTypes();
         this.dataFilePath = Paths.get(this.tableMeta.getDataFile());
 
         openReader(); 
@@ -48,18 +64,33 @@ public class ScanOperator extends Operator {
     @Override
     public Tuple getNextTuple() {
         try {
+            if (mode == ScanMode.MAPPED) {
+                return mappedReader.next();
+            }
+
             String line = reader.readLine();
             if (line == null) return null;
 
-            String[] values = line.split(DELIMITER_REGEX, -1);
+            // Fields are located, trimmed and parsed only when a consumer first reads them
+            return new CsvLineTuple(line, types);
+        } catch (IOException e) {
+            throw new RuntimeException("Error reading data file: " + this.dataFilePath, e);
+        }
+    }
 
-            // Trim values so tuples are canonical regardless of CSV spacing
-            List<String> valueList = new java.util.ArrayList<String>(values.length);
-            for (String v : values) {
-                valueList.add(v.trim());
-            }
+    // Parses lines straight into the column vectors of a batch, without creating a tuple per row.
+    @Override
+    public Batch getNextBatch() {
+        if (mode == ScanMode.MAPPED) return super.getNextBatch();
 
-            return new Tuple(valueList);
+        try {
+            Batch batch = null;
+            String line;
+            while ((batch == null || !batch.isFull()) && (line = reader.readLine()) != null) {
+                if (batch == null) batch = new Batch(types.length, BATCH_SIZE);
+                batch.appendParsed(CsvRows.split(line), types);
+            }
+            return batch;
         } catch (IOException e) {
             throw new RuntimeException("Error reading data file: " + this.dataFilePath, e);
         }
@@ -67,13 +98,22 @@ public class ScanOperator extends Operator {
 
     @Override
     public void reset() {
+        if (mode == ScanMode.MAPPED) {
+            // The mapping stays valid; just start again from the first window
+            mappedReader.rewind();
+            return;
+        }
         closeReader();
         openReader();
     }
 
     private void openReader() {
         try {
-            this.reader = Files.newBufferedReader(this.dataFilePath, StandardCharsets.UTF_8);
+            if (mode == ScanMode.MAPPED) {
+                this.mappedReader = new MappedCsvReader(this.dataFilePath);
+            } else {
+                this.reader = Files.newBufferedReader(this.dataFilePath, StandardCharsets.UTF_8);
+            }
         } catch (IOException e) {
             throw new RuntimeException("Failed to open data file: " + this.dataFilePath, e);
         }
@@ -1,8 +1,10 @@
 package ed.inf.adbs.lightdb.operator;
 
+import ed.inf.adbs.lightdb.Batch;
 import ed.inf.adbs.lightdb.Tuple;
 import ed.inf.adbs.lightdb.catalog.TableMeta;
-import ed.inf.adbs.lightdb.expression.SelectionExpressionEvaluator;
+import ed.inf.adbs.lightdb.expression.CompiledPredicate;
+import ed.inf.adbs.lightdb.expression.VectorPredicate;
 import ed.inf.adbs.lightdb.catalog.ColumnMeta;
 import ed.inf.adbs.lightdb.util.ColumnIndexResolver;
 
@@ -10,10 +12,11 @@ import net.sf.jsqlparser.expression.Expression;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * SelectOperator is a unary operator that applies a selection predicate (WHERE clause) to the tuples produced by its child operator.
- * It uses a SelectionExpressionEvaluator to evaluate the predicate on each tuple, and only returns those tuples for which the predicate evaluates to true.
+ * The predicate is compiled once, with its columns bound to tuple indexes, and only tuples for which it evaluates to true are returned.
  * If the predicate is null, it simply passes through all tuples from the child. The operator also supports resetting, which resets the child operator
  *  to allow for re-scanning.
  */
@@ -24,6 +27,10 @@ public final class SelectOperator extends Operator {
     private final Expression where;
     private final ColumnIndexResolver resolver;
 
+    // Compiled on first use by getNextTuple and getNextBatch respectively
+    private CompiledPredicate predicate;
+    private VectorPredicate vectorPredicate;
+
     public SelectOperator(Operator child,
                           Expression where,
                           TableMeta tableMeta) {
@@ -52,11 +59,9 @@ public final class SelectOperator extends Operator {
         while ((t = child.getNextTuple()) != null) {
 
             if (where == null) return t;
+            if (predicate == null) predicate = CompiledPredicate.compile(where, resolver);
 
-            SelectionExpressionEvaluator evaluator =
-                    new SelectionExpressionEvaluator(resolver,t);
-
-            if (evaluator.eval(where)) {
+            if (predicate.test(t)) {
                 return t;
             }
         }
@@ -64,6 +69,30 @@ public final class SelectOperator extends Operator {
         return null;
     }
 
+    // Narrows the selection vector of each child batch, skipping batches in which no row survives.
+    @Override
+    public Batch getNextBatch() {
+        Batch batch;
+        while ((batch = child.getNextBatch()) != null) {
+            if (where == null) return batch;
+            if (vectorPredicate == null) vectorPredicate = VectorPredicate.compile(where, resolver);
+
+            vectorPredicate.apply(batch);
+            if (batch.count() > 0) return batch;
+        }
+        return null;
+    }
+
+    // Pushes the child's rows that satisfy the predicate.
+    @Override
+    public void produce(Consumer<Tuple> consumer) {
+        if (predicate == null) predicate = CompiledPredicate.compile(where, resolver);
+        final CompiledPredicate p = predicate;
+        child.produce(t -> {
+            if (p.test(t)) consumer.accept(t);
+        });
+    }
+
     @Override
     public void reset() {
         child.reset();
@@ -0,0 +1,249 @@
+package ed.inf.adbs.lightdb.operator;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import ed.inf.adbs.lightdb.Tuple;
+import ed.inf.adbs.lightdb.catalog.TableMeta;
+import ed.inf.adbs.lightdb.expression.CompiledPredicate;
+import ed.inf.adbs.lightdb.util.MultiTableColumnIndexResolver;
+import net.sf.jsqlparser.expression.Expression;
+
+/**
+ * SortMergeJoinOperator is a binary operator that joins two child operators on the conjuncts of the join condition
+ * that equate a left column with a right column. Both inputs are brought into ascending order of their (integer) key
+ * columns and then merged in a single pass over each: the side with the smaller key advances until the keys meet.
+ *
+ * An input that the planner knows to be ordered on its key already (e.g. read through a B+-tree index on the key
+ * column) is streamed as it is; any other input is read into memory and sorted. For duplicate keys only the right
+ * input's run of rows with the current key is buffered: each left row with that key is matched against the run, and
+ * the next left row with the same key replays it, so the output streams without building the cross product of the
+ * two runs. The rest of the condition is applied to each matching pair. Output rows come out in key order, with the
+ * left fields first.
+ *
+ * Sorted inputs are kept across resets, which only rewind them; presorted inputs are reset.
+ *
+ * @PARAM joinCondition Must contain at least one column equality between the two inputs.
+ * @PARAM leftOrdered Whether the left input already returns its rows in key order.
+ * @PARAM rightOrdered Whether the right input already returns its rows in key order.
+ */
+
+public final class SortMergeJoinOperator extends Operator {
+    private final SortedInput left;
+    private final SortedInput right;
+    private final Expression residual;
+
+    private final List<TableMeta> tableMetas;
+    private final MultiTableColumnIndexResolver resolver;
+    // The residual compiled on first use
+    private CompiledPredicate compiledResidual;
+
+    // The current left row and the run of right rows with its key
+    private Tuple leftRow;
+    private long[] leftKey;
+    private List<Tuple> run;
+    private long[] runKey;
+    private int runPos;
+    // The first right row after the current run, and its key
+    private Tuple rightPeek;
+    private long[] rightPeekKey;
+    private boolean started;
+
+    public SortMergeJoinOperator(Operator leftChild, Operator rightChild, Expression joinCondition,
+                                 List<TableMeta> leftTables, List<TableMeta> rightTables) {
+        this(leftChild, rightChild, joinCondition, leftTables, rightTables, false, false);
+    }
+
+    public SortMergeJoinOperator(Operator leftChild, Operator rightChild, Expression joinCondition,
+                                 List<TableMeta> leftTables, List<TableMeta> rightTables,
+                                 boolean leftOrdered, boolean rightOrdered) {
+        if (leftChild == null) throw new NullPointerException("leftChild cannot be null");
+        if (rightChild == null) throw new NullPointerException("rightChild cannot be null");
+        if (leftTables == null) throw new NullPointerException("leftTables cannot be null");
+        if (rightTables == null) throw new NullPointerException("rightTables cannot be null");
+
+        JoinCondition condition = JoinCondition.split(joinCondition, leftTables, rightTables);
+        if (!condition.hasKeys()) throw new IllegalArgumentException("joinCondition has no column equality between the inputs");
+
+        this.left = new SortedInput(leftChild, condition.leftKeys, leftOrdered);
+        this.right = new SortedInput(rightChild, condition.rightKeys, rightOrdered);
+        this.residual = condition.residual;
+
+        this.tableMetas = new ArrayList<TableMeta>(leftTables.size() + rightTables.size());
+        this.tableMetas.addAll(leftTables);
+        this.tableMetas.addAll(rightTables);
+        this.resolver = new MultiTableColumnIndexResolver(this.tableMetas);
+    }
+
+    @Override
+    public Tuple getNextTuple() {
+        if (!started) {
+            advanceRight();
+            started = true;
+        }
+
+        while (true) {
+            if (leftRow != null && run != null) {
+                while (runPos < run.size()) {
+                    Tuple out = Tuple.joined(leftRow, run.get(runPos++));
+                    if (residual == null || residual().test(out)) return out;
+                }
+            }
+
+            leftRow = left.next();
+            if (leftRow == null) return null;
+            leftKey = left.key(leftRow);
+
+            // The next left row with the same key replays the current run
+            if (run != null && compare(leftKey, runKey) == 0) {
+                runPos = 0;
+                continue;
+            }
+
+            // Skip right rows with smaller keys; once the right input is exhausted nothing else can match
+            while (rightPeek != null && compare(rightPeekKey, leftKey) < 0) advanceRight();
+            if (rightPeek == null) {
+                run = null;
+                return null;
+            }
+            if (compare(rightPeekKey, leftKey) > 0) {
+                run = null;
+                continue;
+            }
+
+            // Buffer the run of right rows with this key
+            run = new ArrayList<Tuple>();
+            runKey = rightPeekKey;
+            runPos = 0;
+            while (rightPeek != null && compare(rightPeekKey, runKey) == 0) {
+                run.add(Tuple.materialise(rightPeek));
+                advanceRight();
+            }
+        }
+    }
+
+    @Override
+    public void reset() {
+        left.reset();
+        right.reset();
+        leftRow = null;
+        leftKey = null;
+        run = null;
+        runKey = null;
+        runPos = 0;
+        rightPeek = null;
+        rightPeekKey = null;
+        started = false;
+    }
+
+    private void advanceRight() {
+        rightPeek = right.next();
+        rightPeekKey = (rightPeek == null) ? null : right.key(rightPeek);
+    }
+
+    // Returns the list of TableMeta objects representing the tables in the output of this operator,
+    // in the order they appear in the combined tuples.
+    public List<TableMeta> getOutputTablesInOrder() {
+        return this.tableMetas;
+    }
+
+    private CompiledPredicate residual() {
+        if (compiledResidual == null) compiledResidual = CompiledPredicate.compile(residual, resolver);
+        return compiledResidual;
+    }
+
+    // Compares two keys column by column.
+    static int compare(long[] a, long[] b) {
+        for (int i = 0; i < a.length; i++) {
+            int c = Long.compare(a[i], b[i]);
+            if (c != 0) return c;
+        }
+        return 0;
+    }
+
+    /**
+     * One input in key order: streamed from the child if it is ordered already, otherwise read and sorted in memory.
+     */
+    private static final class SortedInput {
+        private final Operator child;
+        private final int[] keys;
+        private final boolean ordered;
+
+        private Tuple[] sorted;
+        private int pos;
+
+        SortedInput(Operator child, int[] keys, boolean ordered) {
+            this.child = child;
+            this.keys = keys;
+            this.ordered = ordered;
+        }
+
+        long[] key(Tuple t) {
+            long[] k = new long[keys.length];
+            for (int i = 0; i < keys.length; i++) k[i] = t.getLong(keys[i]);
+            return k;
+        }
+
+        Tuple next() {
+            if (ordered) return child.getNextTuple();
+
+            if (sorted == null) sort();
+            return (pos < sorted.length) ? sorted[pos++] : null;
+        }
+
+        void reset() {
+            if (ordered) child.reset();
+            pos = 0;
+        }
+
+        // Reads the child into memory and sorts it. Each row's key is read once into one flat array, and the rows are
+        // ordered by a stable merge sort over their positions, so the sort allocates no per-row objects.
+        private void sort() {
+            List<Tuple> rows = new ArrayList<Tuple>();
+            Tuple t;
+            while ((t = child.getNextTuple()) != null) rows.add(Tuple.materialise(t));
+
+            int n = rows.size();
+            int width = keys.length;
+            long[] rowKeys = new long[n * width];
+            int[] order = new int[n];
+            for (int i = 0; i < n; i++) {
+                Tuple row = rows.get(i);
+                for (int k = 0; k < width; k++) rowKeys[i * width + k] = row.getLong(keys[k]);
+                order[i] = i;
+            }
+            mergeSort(order, new int[n], 0, n, rowKeys, width);
+
+            Tuple[] out = new Tuple[n];
+            for (int i = 0; i < n; i++) out[i] = rows.get(order[i]);
+            this.sorted = out;
+            this.pos = 0;
+        }
+
+        // Sorts order[from, to) by the keys of the rows it names, using buffer as scratch space.
+        private static void mergeSort(int[] order, int[] buffer, int from, int to, long[] rowKeys, int width) {
+            if (to - from < 2) return;
+            int mid = (from + to) >>> 1;
+            mergeSort(order, buffer, from, mid, rowKeys, width);
+            mergeSort(order, buffer, mid, to, rowKeys, width);
+            if (compareRows(rowKeys, width, order[mid - 1], order[mid]) <= 0) return;
+
+            System.arraycopy(order, from, buffer, from, to - from);
+            int i = from, j = mid, k = from;
+            while (i < mid && j < to) {
+                // Taking the left row on ties keeps the sort stable
+                order[k++] = (compareRows(rowKeys, width, buffer[j], buffer[i]) < 0) ? buffer[j++] : buffer[i++];
+            }
+            while (i < mid) order[k++] = buffer[i++];
+            while (j < to) order[k++] = buffer[j++];
+        }
+
+        private static int compareRows(long[] rowKeys, int width, int a, int b) {
+            for (int k = 0; k < width; k++) {
+                int c = Long.compare(rowKeys[a * width + k], rowKeys[b * width + k]);
+                if (c != 0) return c;
+            }
+            return 0;
+        }
+    }
+}
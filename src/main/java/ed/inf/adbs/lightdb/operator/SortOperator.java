@@ -3,6 +3,7 @@ package ed.inf.adbs.lightdb.operator;
 import ed.inf.adbs.lightdb.Tuple;
 
 import java.util.*;
+import java.util.function.Consumer;
 
 
 
@@ -87,6 +88,13 @@ public final class SortOperator extends Operator {
         return sorted.get(pos++);
     }
 
+    // The sort is a pipeline breaker: the child's rows are collected, sorted, then pushed.
+    @Override
+    public void produce(Consumer<Tuple> consumer) {
+        if (sorted == null) materializeAndSort();
+        while (pos < sorted.size()) consumer.accept(sorted.get(pos++));
+    }
+
     @Override
     public void reset() {
         child.reset();
@@ -98,8 +106,7 @@ public final class SortOperator extends Operator {
     // and store the sorted tuples in a list for serving on demand.
     private void materializeAndSort() {
         List<Tuple> all = new ArrayList<Tuple>();
-        Tuple t;
-        while ((t = child.getNextTuple()) != null) all.add(t);
+        child.produce(t -> all.add(Tuple.materialise(t)));
 
         Collections.sort(all, new Comparator<Tuple>() {
             @Override
@@ -107,8 +114,8 @@ public final class SortOperator extends Operator {
                 for (int i = 0; i < orderByIndexes.length; i++) {
                     int idx = orderByIndexes[i];
 
-                    long av = Long.parseLong(a.get(idx).trim());
-                    long bv = Long.parseLong(b.get(idx).trim());
+                    long av = a.getLong(idx);
+                    long bv = b.getLong(idx);
 
                     // Compare as longs for numeric sorting, based on assumption that all fields are ints.
                     int cmp = (av < bv) ? -1 : (av > bv) ? 1 : 0;
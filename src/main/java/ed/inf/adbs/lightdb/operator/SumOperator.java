@@ -1,23 +1,34 @@
 package ed.inf.adbs.lightdb.operator;
 
+import ed.inf.adbs.lightdb.Batch;
 import ed.inf.adbs.lightdb.Tuple;
 import ed.inf.adbs.lightdb.catalog.TableMeta;
-import ed.inf.adbs.lightdb.expression.SumExprEvaluator;
+import ed.inf.adbs.lightdb.execution.WorkerPool;
+import ed.inf.adbs.lightdb.expression.CompiledLongExpression;
+import ed.inf.adbs.lightdb.expression.VectorLongExpression;
 import ed.inf.adbs.lightdb.util.ColumnResolver;
 import ed.inf.adbs.lightdb.util.MultiTableColumnIndexResolver;
 import net.sf.jsqlparser.expression.Expression;
 
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
 
 /**
  * SumOperator is a unary operator that computes the sum of specified expressions over groups of tuples produced by its child operator. 
  * It supports grouping by specified columns and outputs the group keys along with the computed sums. The operator materializes all 
  * input tuples to perform the aggregation and serves the aggregated results on demand.
+ *
+ * For morsel-driven plans, merging() aggregates several per-worker pipelines instead of one child: each pipeline is
+ * drained into its own groups on a worker thread, and the per-worker groups are then merged by adding their sums.
  */
 
 public final class SumOperator extends Operator {
 
     private final Operator child;
+    // The per-worker pipelines aggregated in parallel (null for a single child)
+    private final List<Operator> partitions;
 
     // used for grouping (from GROUP BY clause)
     private final int[] groupKeyIndexes;
@@ -25,6 +36,9 @@ public final class SumOperator extends Operator {
     // printed in output before sums (from non-agg SELECT items)
     private final int[] outputKeyIndexes;
 
+    // The single group of a global aggregation (no GROUP BY)
+    private static final Tuple EMPTY_KEY = Tuple.ofLongs();
+
     private final List<Expression> sumArgs;
     private final ColumnResolver resolver;
 
@@ -36,14 +50,36 @@ public final class SumOperator extends Operator {
                        List<String> outputGroupRefs,
                        List<Expression> sumArgs,
                        List<TableMeta> tablesInOrder) {
+        this(child, null, groupByRefs, outputGroupRefs, sumArgs, tablesInOrder);
+    }
+
+    /**
+     * Aggregates the rows of several pipelines of the same schema, each drained on its own worker thread.
+     */
+    public static SumOperator merging(List<Operator> partitions,
+                                      List<String> groupByRefs,
+                                      List<String> outputGroupRefs,
+                                      List<Expression> sumArgs,
+                                      List<TableMeta> tablesInOrder) {
+        if (partitions == null) throw new NullPointerException("partitions");
+        if (partitions.isEmpty()) throw new IllegalArgumentException("partitions cannot be empty");
+        return new SumOperator(null, new ArrayList<Operator>(partitions), groupByRefs, outputGroupRefs, sumArgs, tablesInOrder);
+    }
 
-        if (child == null) throw new NullPointerException("child");
+    private SumOperator(Operator child,
+                        List<Operator> partitions,
+                        List<String> groupByRefs,
+                        List<String> outputGroupRefs,
+                        List<Expression> sumArgs,
+                        List<TableMeta> tablesInOrder) {
+        if (child == null && partitions == null) throw new NullPointerException("child");
         if (groupByRefs == null) throw new NullPointerException("groupByRefs");
         if (outputGroupRefs == null) throw new NullPointerException("outputGroupRefs");
         if (sumArgs == null) throw new NullPointerException("sumArgs");
         if (tablesInOrder == null) throw new NullPointerException("tablesInOrder");
 
         this.child = child;
+        this.partitions = partitions;
         this.sumArgs = sumArgs;
 
         this.resolver = new MultiTableColumnIndexResolver(tablesInOrder);
@@ -87,115 +123,155 @@ public final class SumOperator extends Operator {
         return out.get(pos++);
     }
 
+    // Serves the aggregated rows a batch at a time.
+    @Override
+    public Batch getNextBatch() {
+        if (out == null) materialise();
+        if (pos >= out.size()) return null;
+
+        Batch batch = new Batch(out.get(pos).size(), BATCH_SIZE);
+        while (pos < out.size() && !batch.isFull()) batch.append(out.get(pos++));
+        return batch;
+    }
+
+    // The aggregation is a pipeline breaker: the child pushes every row into the groups, then the results are pushed.
+    @Override
+    public void produce(Consumer<Tuple> consumer) {
+        if (out == null) {
+            if (partitions != null) materialise();
+            else aggregatePushed();
+        }
+        while (pos < out.size()) consumer.accept(out.get(pos++));
+    }
+
     @Override
     public void reset() {
-        child.reset();
+        if (partitions != null) {
+            for (Operator p : partitions) p.reset();
+        } else {
+            child.reset();
+        }
         out = null;
         pos = 0;
     }
 
     // Materialises all input tuples from the child operator, groups them according to the specified group keys, 
     // computes the sums for each group, and stores the results in a list for serving on demand.
+    // Group keys are tuples of the grouping fields, so integer keys are hashed and compared from their slots.
     private void materialise() {
+        serve(partitions != null ? aggregatePartitions() : aggregate(child));
+    }
+
+    // Groups the rows of one input. The input is drained a batch at a time, with the SUM arguments compiled against
+    // its column vectors.
+    private Map<Tuple, AggState> aggregate(Operator input) {
         // For each group: store output key values + sums
-        Map<GroupKey, AggState> acc = new LinkedHashMap<GroupKey, AggState>();
+        Map<Tuple, AggState> acc = new LinkedHashMap<Tuple, AggState>();
+
+        VectorLongExpression[] args = new VectorLongExpression[sumArgs.size()];
+        for (int i = 0; i < args.length; i++) args[i] = VectorLongExpression.compile(sumArgs.get(i), resolver);
+
+        Batch batch;
+        while ((batch = input.getNextBatch()) != null) {
+            for (int k = 0; k < batch.count(); k++) {
+                int row = batch.row(k);
+                Tuple key = (groupKeyIndexes.length == 0) ? EMPTY_KEY : batch.toTuple(row, groupKeyIndexes);
+
+                AggState state = acc.get(key);
+                if (state == null) {
+                    state = new AggState(batch.toTuple(row, outputKeyIndexes), args.length);
+                    acc.put(key, state);
+                }
+
+                for (int i = 0; i < args.length; i++) {
+                    state.sums[i] += args[i].eval(batch, row);
+                }
+            }
+        }
+        return acc;
+    }
 
-        Tuple t;
-        while ((t = child.getNextTuple()) != null) {
-            GroupKey key = makeGroupKey(t);
+    // Groups each partition on its own worker, then merges the groups in partition order.
+    private Map<Tuple, AggState> aggregatePartitions() {
+        List<Future<Map<Tuple, AggState>>> partials = new ArrayList<Future<Map<Tuple, AggState>>>(partitions.size());
+        for (Operator p : partitions) {
+            partials.add(WorkerPool.get().submit(() -> aggregate(p)));
+        }
 
-            AggState state = acc.get(key);
-            if (state == null) {
-                state = new AggState(extractOutputKeys(t), sumArgs.size());
-                acc.put(key, state);
+        Map<Tuple, AggState> acc = new LinkedHashMap<Tuple, AggState>();
+        RuntimeException failure = null;
+        for (Future<Map<Tuple, AggState>> partial : partials) {
+            try {
+                Map<Tuple, AggState> groups = partial.get();
+                if (failure == null) merge(acc, groups);
+            } catch (ExecutionException e) {
+                if (failure == null) failure = new RuntimeException("Aggregation of a partition failed", e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted while aggregating partitions", e);
             }
+        }
+        if (failure != null) throw failure;
+        return acc;
+    }
 
-            SumExprEvaluator eval = new SumExprEvaluator(t, resolver);
-            for (int i = 0; i < sumArgs.size(); i++) {
-                state.sums[i] += eval.eval(sumArgs.get(i));
+    private static void merge(Map<Tuple, AggState> acc, Map<Tuple, AggState> groups) {
+        for (Map.Entry<Tuple, AggState> e : groups.entrySet()) {
+            AggState state = acc.get(e.getKey());
+            if (state == null) {
+                acc.put(e.getKey(), e.getValue());
+                continue;
             }
+            long[] sums = e.getValue().sums;
+            for (int i = 0; i < sums.length; i++) state.sums[i] += sums[i];
         }
+    }
 
-        List<Tuple> result = new ArrayList<Tuple>(acc.size());
-        for (AggState st : acc.values()) {
-            List<String> row = new ArrayList<String>(st.outputKeys.size() + st.sums.length);
+    // Same as materialise, but with the child pushing its rows one at a time.
+    private void aggregatePushed() {
+        final Map<Tuple, AggState> acc = new LinkedHashMap<Tuple, AggState>();
 
-            // output group columns (maybe none)
-            row.addAll(st.outputKeys);
+        final CompiledLongExpression[] args = new CompiledLongExpression[sumArgs.size()];
+        for (int i = 0; i < args.length; i++) args[i] = CompiledLongExpression.compile(sumArgs.get(i), resolver);
 
-            // sums
-            for (int i = 0; i < st.sums.length; i++) {
-                row.add(Long.toString(st.sums[i]));
+        child.produce(t -> {
+            Tuple key = (groupKeyIndexes.length == 0) ? EMPTY_KEY : Tuple.project(t, groupKeyIndexes);
+
+            AggState state = acc.get(key);
+            if (state == null) {
+                state = new AggState(Tuple.project(t, outputKeyIndexes), args.length);
+                acc.put(key, state);
             }
 
-            result.add(new Tuple(row));
-        }
+            for (int i = 0; i < args.length; i++) {
+                state.sums[i] += args[i].eval(t);
+            }
+        });
 
-        this.out = result;
-        this.pos = 0;
+        serve(acc);
     }
 
-    // Helper method to construct a GroupKey object for a given tuple based on the group key indexes. 
-    // If there are no group keys (global aggregation), it returns a special empty GroupKey instance.
-
-    private GroupKey makeGroupKey(Tuple t) {
-        if (groupKeyIndexes.length == 0) {
-            return GroupKey.EMPTY; // global aggregation single group
-        }
-
-        List<String> vals = new ArrayList<String>(groupKeyIndexes.length);
-        for (int idx : groupKeyIndexes) {
-            vals.add(t.get(idx));
+    // Turns the groups into output rows, to be served from the start.
+    private void serve(Map<Tuple, AggState> acc) {
+        List<Tuple> result = new ArrayList<Tuple>(acc.size());
+        for (AggState st : acc.values()) {
+            // output group columns (maybe none), then the sums
+            result.add(Tuple.concat(st.outputKeys, Tuple.ofLongs(st.sums)));
         }
-        return new GroupKey(vals);
-    }
 
-    // Helper method to extract the output key values from a tuple based on the output key indexes.
-    //  These are the values that will be included in the output tuples before the computed sums.
-    private List<String> extractOutputKeys(Tuple t) {
-        if (outputKeyIndexes.length == 0) return Collections.emptyList();
-        List<String> vals = new ArrayList<String>(outputKeyIndexes.length);
-        for (int idx : outputKeyIndexes) {
-            vals.add(t.get(idx));
-        }
-        return vals;
+        this.out = result;
+        this.pos = 0;
     }
 
     // Internal class to hold the aggregation state for each group, 
     // including the output key values and the running sums for each expression.
     private static final class AggState {
-        final List<String> outputKeys;
+        final Tuple outputKeys;
         final long[] sums;
 
-        AggState(List<String> outputKeys, int numSums) {
+        AggState(Tuple outputKeys, int numSums) {
             this.outputKeys = outputKeys;
             this.sums = new long[numSums];
         }
     }
-
-    // Internal class to represent a group key, which is a combination of values from the group key columns.
-    // It implements equals and hashCode to be used as keys in a HashMap for aggregation.
-    // If there are no group keys (global aggregation), the EMPTY instance is used as the single group key.
-    private static final class GroupKey {
-        static final GroupKey EMPTY = new GroupKey(Collections.<String>emptyList());
-
-        final List<String> values;
-
-        GroupKey(List<String> values) {
-            this.values = Collections.unmodifiableList(new ArrayList<String>(values));
-        }
-
-        @Override
-        public boolean equals(Object o) {
-            if (this == o) return true;
-            if (!(o instanceof GroupKey)) return false;
-            GroupKey other = (GroupKey) o;
-            return values.equals(other.values);
-        }
-
-        @Override
-        public int hashCode() {
-            return values.hashCode();
-        }
-    }
-}
\ No newline at end of file
+}
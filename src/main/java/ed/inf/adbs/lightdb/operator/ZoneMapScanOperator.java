@@ -0,0 +1,158 @@
+package ed.inf.adbs.lightdb.operator;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import ed.inf.adbs.lightdb.Tuple;
+import ed.inf.adbs.lightdb.catalog.Catalog;
+import ed.inf.adbs.lightdb.catalog.ColumnMeta;
+import ed.inf.adbs.lightdb.catalog.TableMeta;
+import ed.inf.adbs.lightdb.storage.MappedCsvReader;
+import ed.inf.adbs.lightdb.storage.ZoneMap;
+import ed.inf.adbs.lightdb.util.ColumnComparison;
+import net.sf.jsqlparser.expression.Expression;
+
+/**
+ * ZoneMapScanOperator is a leaf operator that scans a table's CSV file but skips every block of rows whose zone map
+ * (per-block min/max of each column) shows that it cannot satisfy the given single-table conjuncts.
+ * Only conjuncts of the form "column op constant" are used for skipping; the rows of the remaining blocks are returned
+ * unfiltered, so the full predicate must still be applied above this operator (e.g. by a SelectOperator).
+ * The zone map is stored next to the catalog and rebuilt automatically when the CSV changes.
+ * The operator supports resetting, which restarts the scan from the first matching block.
+ *
+ * @PARAM tableName The name of the table to scan, which must exist in the Catalog.
+ * @PARAM conjuncts The single-table predicates on this table (as returned by WhereClassifier.extractSingleTable).
+ */
+
+public class ZoneMapScanOperator extends Operator {
+
+    private final TableMeta tableMeta;
+    private final Path dataFilePath;
+
+    // Byte ranges [runs[2i], runs[2i+1]) of consecutive blocks that may contain matches
+    private final long[] runs;
+    private final int blocksSkipped;
+
+    private int nextRun;
+    private MappedCsvReader reader;
+
+    public ZoneMapScanOperator(String tableName, List<Expression> conjuncts) {
+        if (tableName == null) throw new NullPointerException("tableName cannot be null");
+        if (conjuncts == null) throw new NullPointerException("conjuncts cannot be null");
+
+        Catalog catalog = Catalog.getInstance();
+        this.tableMeta = catalog
+                .getTable(tableName)
+                .orElseThrow(() -> new IllegalArgumentException("Table not found in catalog: " + tableName));
+        this.dataFilePath = Paths.get(tableMeta.getDataFile());
+
+        Path zoneFile = catalog.getTablesDir().resolve(tableMeta.getTableId() + "_" + tableMeta.getName() + ".zonemap");
+        ZoneMap zoneMap;
+        try {
+            zoneMap = ZoneMap.loadOrBuild(dataFilePath, tableMeta.getColumns().size(), zoneFile);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to load zone map for table: " + tableName, e);
+        }
+
+        List<ColumnComparison> comparisons = new ArrayList<ColumnComparison>();
+        List<Integer> columns = new ArrayList<Integer>();
+        for (Expression e : conjuncts) {
+            ColumnComparison cmp = ColumnComparison.of(e);
+            if (cmp == null) continue;
+            if (cmp.getTableName() != null && !cmp.getTableName().equals(norm(tableMeta.getName()))) continue;
+
+            int idx = indexOf(tableMeta.getColumns(), cmp.getColumnName());
+            if (idx < 0) continue;
+            comparisons.add(cmp);
+            columns.add(idx);
+        }
+
+        // Merge adjacent surviving blocks into runs so that each run is read sequentially
+        List<Long> out = new ArrayList<Long>();
+        int skipped = 0;
+        for (int b = 0; b < zoneMap.getBlockCount(); b++) {
+            if (!mayMatch(zoneMap, b, comparisons, columns)) {
+                skipped++;
+                continue;
+            }
+            long start = zoneMap.getBlockStart(b);
+            long end = zoneMap.getBlockEnd(b);
+            if (!out.isEmpty() && out.get(out.size() - 1) == start) {
+                out.set(out.size() - 1, end);
+            } else {
+                out.add(start);
+                out.add(end);
+            }
+        }
+
+        this.runs = new long[out.size()];
+        for (int i = 0; i < runs.length; i++) runs[i] = out.get(i);
+        this.blocksSkipped = skipped;
+    }
+
+    @Override
+    public Tuple getNextTuple() {
+        try {
+            while (true) {
+                if (reader == null) {
+                    if (nextRun * 2 >= runs.length) return null;
+                    reader = new MappedCsvReader(dataFilePath, runs[nextRun * 2], runs[nextRun * 2 + 1]);
+                    nextRun++;
+                }
+
+                Tuple t = reader.next();
+                if (t != null) return t;
+
+                reader.close();
+                reader = null;
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Error reading data file: " + dataFilePath, e);
+        }
+    }
+
+    @Override
+    public void reset() {
+        closeReader();
+        nextRun = 0;
+    }
+
+    // Number of blocks the zone map ruled out.
+    public int getBlocksSkipped() {
+        return blocksSkipped;
+    }
+
+    private static boolean mayMatch(ZoneMap zoneMap, int block, List<ColumnComparison> comparisons, List<Integer> columns) {
+        for (int i = 0; i < comparisons.size(); i++) {
+            int c = columns.get(i);
+            if (!comparisons.get(i).mayMatch(zoneMap.getMin(block, c), zoneMap.getMax(block, c))) return false;
+        }
+        return true;
+    }
+
+    private void closeReader() {
+        if (reader == null) return;
+        try {
+            reader.close();
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to close data file: " + dataFilePath, e);
+        } finally {
+            reader = null;
+        }
+    }
+
+    private static int indexOf(List<ColumnMeta> schema, String column) {
+        for (int i = 0; i < schema.size(); i++) {
+            if (norm(schema.get(i).getName()).equals(column)) return i;
+        }
+        return -1;
+    }
+
+    private static String norm(String s) {
+        return s.trim().toLowerCase(Locale.ROOT);
+    }
+}
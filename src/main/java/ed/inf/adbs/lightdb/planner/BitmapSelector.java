@@ -0,0 +1,148 @@
+package ed.inf.adbs.lightdb.planner;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import ed.inf.adbs.lightdb.catalog.Catalog;
+import ed.inf.adbs.lightdb.catalog.IndexMeta;
+import ed.inf.adbs.lightdb.catalog.IndexType;
+import ed.inf.adbs.lightdb.catalog.TableMeta;
+import ed.inf.adbs.lightdb.index.BitmapIndex;
+import ed.inf.adbs.lightdb.index.KeyRange;
+import ed.inf.adbs.lightdb.index.RoaringBitmap;
+import ed.inf.adbs.lightdb.util.ColumnComparison;
+import net.sf.jsqlparser.expression.Expression;
+import net.sf.jsqlparser.expression.Parenthesis;
+import net.sf.jsqlparser.expression.operators.conditional.AndExpression;
+import net.sf.jsqlparser.expression.operators.conditional.OrExpression;
+
+/**
+ * BitmapSelector answers as much of a table's pushed-down selection as it can from the table's bitmap indexes,
+ * without reading the table.
+ *
+ * Every "column op constant" comparison on a column with an up-to-date bitmap index becomes the union of the bitmaps
+ * of the matching values. AND combines its operands by intersection (an operand that cannot be answered is skipped,
+ * as the selection is still applied to the fetched rows), and OR by union (all operands must be answerable). The
+ * conjuncts are intersected in turn, and the resulting rows are read by a BitmapScanOperator if they are a small
+ * enough fraction of the table. Since the bitmaps are exact, so is the selectivity.
+ */
+
+final class BitmapSelector {
+    private BitmapSelector() {}
+
+    /** The rows matching the answerable part of the selection, and a bitmap index to translate them to row IDs. */
+    static final class Choice {
+        final IndexMeta index;
+        final RoaringBitmap rows;
+        final double selectivity;
+
+        Choice(IndexMeta index, RoaringBitmap rows, double selectivity) {
+            this.index = index;
+            this.rows = rows;
+            this.selectivity = selectivity;
+        }
+    }
+
+    // Returns the rows to fetch for the table, or null if its bitmap indexes cannot narrow the selection enough.
+    static Choice choose(TableMeta table, List<Expression> singles) {
+        if (singles.isEmpty()) return null;
+
+        Path csv = Paths.get(table.getDataFile());
+        Map<String, IndexMeta> indexes = new HashMap<String, IndexMeta>();
+        for (IndexMeta index : Catalog.getInstance().getIndexes(table.getName())) {
+            if (index.getType() == IndexType.BITMAP && index.isFreshFor(csv)) indexes.put(index.getColumnName(), index);
+        }
+        if (indexes.isEmpty()) return null;
+
+        Lookup lookup = new Lookup(norm(table.getName()), indexes);
+        RoaringBitmap rows = null;
+        for (Expression e : singles) {
+            RoaringBitmap b = lookup.eval(e);
+            if (b != null) rows = (rows == null) ? b : rows.and(b);
+        }
+        if (rows == null) return null;
+
+        double selectivity = (lookup.rowCount == 0) ? 0.0 : (double) rows.getCardinality() / lookup.rowCount;
+        if (selectivity > IndexSelector.MAX_SELECTIVITY) return null;
+        return new Choice(lookup.anyIndex, rows, selectivity);
+    }
+
+    /** Evaluates predicates against the bitmap indexes of one table, opening each index at most once. */
+    private static final class Lookup {
+        private final String tableName;
+        private final Map<String, IndexMeta> indexes;
+        private final Map<String, BitmapIndex> open = new HashMap<String, BitmapIndex>();
+
+        IndexMeta anyIndex;
+        int rowCount;
+
+        Lookup(String tableName, Map<String, IndexMeta> indexes) {
+            this.tableName = tableName;
+            this.indexes = indexes;
+        }
+
+        // The rows satisfying the expression, a superset of them for a partially answerable AND, or null.
+        RoaringBitmap eval(Expression e) {
+            while (e instanceof Parenthesis) e = ((Parenthesis) e).getExpression();
+
+            if (e instanceof AndExpression) {
+                RoaringBitmap l = eval(((AndExpression) e).getLeftExpression());
+                RoaringBitmap r = eval(((AndExpression) e).getRightExpression());
+                if (l == null) return r;
+                if (r == null) return l;
+                return l.and(r);
+            }
+            if (e instanceof OrExpression) {
+                RoaringBitmap l = eval(((OrExpression) e).getLeftExpression());
+                if (l == null) return null;
+                RoaringBitmap r = eval(((OrExpression) e).getRightExpression());
+                if (r == null) return null;
+                return l.or(r);
+            }
+
+            ColumnComparison c = ColumnComparison.of(e);
+            if (c == null || (c.getTableName() != null && !c.getTableName().equals(tableName))) return null;
+
+            BitmapIndex index = index(c.getColumnName());
+            if (index == null) return null;
+
+            if (c.getOp() == ColumnComparison.Op.NE) {
+                RoaringBitmap below = (c.getValue() == Long.MIN_VALUE)
+                        ? new RoaringBitmap() : index.lookup(new KeyRange(Long.MIN_VALUE, c.getValue() - 1));
+                RoaringBitmap above = (c.getValue() == Long.MAX_VALUE)
+                        ? new RoaringBitmap() : index.lookup(new KeyRange(c.getValue() + 1, Long.MAX_VALUE));
+                return below.or(above);
+            }
+            return index.lookup(KeyRange.all().intersect(c));
+        }
+
+        private BitmapIndex index(String column) {
+            IndexMeta meta = indexes.get(column);
+            if (meta == null) return null;
+
+            BitmapIndex index = open.get(column);
+            if (index == null) {
+                try {
+                    index = BitmapIndex.open(Paths.get(meta.getIndexFile()));
+                } catch (IOException e) {
+                    throw new RuntimeException("Failed to open index: " + meta.getIndexFile(), e);
+                }
+                open.put(column, index);
+                if (anyIndex == null) {
+                    anyIndex = meta;
+                    rowCount = index.getRowCount();
+                }
+            }
+            return index;
+        }
+    }
+
+    private static String norm(String s) {
+        return s.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,140 @@
+package ed.inf.adbs.lightdb.planner;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import ed.inf.adbs.lightdb.catalog.Catalog;
+import ed.inf.adbs.lightdb.catalog.ColumnStats;
+import ed.inf.adbs.lightdb.catalog.IndexMeta;
+import ed.inf.adbs.lightdb.catalog.IndexType;
+import ed.inf.adbs.lightdb.catalog.TableMeta;
+import ed.inf.adbs.lightdb.catalog.TableStats;
+import ed.inf.adbs.lightdb.index.KeyRange;
+import ed.inf.adbs.lightdb.util.ColumnComparison;
+import net.sf.jsqlparser.expression.Expression;
+
+/**
+ * IndexSelector decides whether a base table should be read through one of its indexes instead of a full scan.
+ *
+ * The "column op constant" conjuncts of the table's pushed-down selection are grouped by column, and every column
+ * with a representable key range and an up-to-date index that can answer it is a candidate: a hash index for a
+ * single key (preferred, as a probe is cheaper than a tree descent), otherwise a B+-tree index. The candidate with the lowest
+ * estimated selectivity wins (using the table's statistics when available, otherwise preferring equality lookups),
+ * provided it is selective enough that fetching rows one by one beats a sequential scan.
+ */
+
+final class IndexSelector {
+    // Above this fraction of the table, a sequential scan is assumed to be cheaper than random row fetches
+    static final double MAX_SELECTIVITY = 0.3;
+
+    private static final double DEFAULT_POINT_SELECTIVITY = 0.01;
+    private static final double DEFAULT_RANGE_SELECTIVITY = 0.25;
+
+    private IndexSelector() {}
+
+    /** The chosen index and the key range to look up. */
+    static final class Choice {
+        final IndexMeta index;
+        final KeyRange range;
+        final double selectivity;
+
+        Choice(IndexMeta index, KeyRange range, double selectivity) {
+            this.index = index;
+            this.range = range;
+            this.selectivity = selectivity;
+        }
+    }
+
+    // Returns the best index access path for the table, or null if a scan should be used.
+    static Choice choose(TableMeta table, List<Expression> singles) {
+        Map<String, List<ColumnComparison>> byColumn = comparisonsByColumn(table, singles);
+        if (byColumn.isEmpty()) return null;
+
+        Catalog catalog = Catalog.getInstance();
+        Path csv = Paths.get(table.getDataFile());
+        TableStats stats = catalog.getTableStats(table.getName()).orElse(null);
+        if (stats != null && !stats.isFreshFor(csv)) stats = null;
+
+        Choice best = null;
+        for (Map.Entry<String, List<ColumnComparison>> e : byColumn.entrySet()) {
+            KeyRange range = KeyRange.of(e.getValue());
+            if (range == null) continue;
+
+            IndexMeta index = range.isPoint() ? freshIndex(table, e.getKey(), IndexType.HASH, csv) : null;
+            if (index == null) index = freshIndex(table, e.getKey(), IndexType.BTREE, csv);
+            if (index == null) continue;
+
+            ColumnStats colStats = (stats == null) ? null : stats.getColumn(e.getKey()).orElse(null);
+            double selectivity = estimateSelectivity(range, colStats);
+            if (best == null || selectivity < best.selectivity) best = new Choice(index, range, selectivity);
+        }
+
+        return (best != null && best.selectivity <= MAX_SELECTIVITY) ? best : null;
+    }
+
+    // Estimated fraction of the table's rows that pass its pushed-down selection, taking the columns' key ranges as
+    // independent. Conjuncts other than "column op constant" are not counted.
+    static double selectionSelectivity(TableMeta table, List<Expression> singles) {
+        TableStats stats = Catalog.getInstance().getTableStats(table.getName()).orElse(null);
+        if (stats != null && !stats.isFreshFor(Paths.get(table.getDataFile()))) stats = null;
+
+        double selectivity = 1.0;
+        for (Map.Entry<String, List<ColumnComparison>> e : comparisonsByColumn(table, singles).entrySet()) {
+            KeyRange range = KeyRange.of(e.getValue());
+            if (range == null) continue;
+
+            ColumnStats colStats = (stats == null) ? null : stats.getColumn(e.getKey()).orElse(null);
+            selectivity *= estimateSelectivity(range, colStats);
+        }
+        return selectivity;
+    }
+
+    // Returns the column's index of the given type if it exists and is up to date with the table's data file.
+    static IndexMeta freshIndex(TableMeta table, String column, IndexType type, Path csv) {
+        IndexMeta index = Catalog.getInstance().getIndex(table.getName(), column, type).orElse(null);
+        return (index != null && index.isFreshFor(csv)) ? index : null;
+    }
+
+    // Groups the table's "column op constant" conjuncts by (normalised) column name, ignoring not-equals.
+    static Map<String, List<ColumnComparison>> comparisonsByColumn(TableMeta table, List<Expression> singles) {
+        String tableName = norm(table.getName());
+        Map<String, List<ColumnComparison>> out = new LinkedHashMap<String, List<ColumnComparison>>();
+
+        for (Expression e : singles) {
+            ColumnComparison c = ColumnComparison.of(e);
+            if (c == null || c.getOp() == ColumnComparison.Op.NE) continue;
+            if (c.getTableName() != null && !c.getTableName().equals(tableName)) continue;
+
+            List<ColumnComparison> list = out.get(c.getColumnName());
+            if (list == null) {
+                list = new ArrayList<ColumnComparison>();
+                out.put(c.getColumnName(), list);
+            }
+            list.add(c);
+        }
+        return out;
+    }
+
+    // Estimated fraction of the table's rows whose column value lies in the range.
+    static double estimateSelectivity(KeyRange range, ColumnStats stats) {
+        if (range.isEmpty()) return 0.0;
+
+        if (stats == null || !stats.isInteger()) {
+            return range.isPoint() ? DEFAULT_POINT_SELECTIVITY : DEFAULT_RANGE_SELECTIVITY;
+        }
+        if (range.isPoint()) return stats.equalitySelectivity();
+
+        double below = (range.getLow() == Long.MIN_VALUE) ? 0.0 : stats.fractionBelow(range.getLow());
+        double upTo = (range.getHigh() == Long.MAX_VALUE) ? 1.0 : stats.fractionBelow(range.getHigh() + 1);
+        return Math.max(0.0, upTo - below);
+    }
+
+    private static String norm(String s) {
+        return s.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -1,6 +1,10 @@
 package ed.inf.adbs.lightdb.planner;
 
+import java.io.File;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -10,16 +14,38 @@ import java.util.Map;
 import java.util.Set;
 
 import ed.inf.adbs.lightdb.catalog.Catalog;
+import ed.inf.adbs.lightdb.catalog.ColumnMeta;
+import ed.inf.adbs.lightdb.catalog.IndexMeta;
+import ed.inf.adbs.lightdb.catalog.IndexType;
+import ed.inf.adbs.lightdb.catalog.StorageFormat;
 import ed.inf.adbs.lightdb.catalog.TableMeta;
+import ed.inf.adbs.lightdb.catalog.TableStats;
+import ed.inf.adbs.lightdb.codegen.PipelineCodegen;
+import ed.inf.adbs.lightdb.operator.BitmapScanOperator;
+import ed.inf.adbs.lightdb.operator.BlockNestedLoopJoinOperator;
+import ed.inf.adbs.lightdb.operator.ColumnarScanOperator;
 import ed.inf.adbs.lightdb.operator.DuplicateEliminationOperator;
+import ed.inf.adbs.lightdb.operator.Exchange;
 import ed.inf.adbs.lightdb.operator.FilterOperator;
-import ed.inf.adbs.lightdb.operator.JoinOperator;
+import ed.inf.adbs.lightdb.operator.GatherOperator;
+import ed.inf.adbs.lightdb.operator.HashJoinOperator;
+import ed.inf.adbs.lightdb.operator.HeapScanOperator;
+import ed.inf.adbs.lightdb.operator.IndexNestedLoopJoinOperator;
+import ed.inf.adbs.lightdb.operator.IndexScanOperator;
+import ed.inf.adbs.lightdb.operator.MorselScanOperator;
 import ed.inf.adbs.lightdb.operator.Operator;
+import ed.inf.adbs.lightdb.operator.ParallelScanOperator;
 import ed.inf.adbs.lightdb.operator.ProjectOperator;
+import ed.inf.adbs.lightdb.operator.RadixHashJoinOperator;
 import ed.inf.adbs.lightdb.operator.ScanOperator;
 import ed.inf.adbs.lightdb.operator.SelectOperator;
+import ed.inf.adbs.lightdb.operator.SortMergeJoinOperator;
 import ed.inf.adbs.lightdb.operator.SortOperator;
 import ed.inf.adbs.lightdb.operator.SumOperator;
+import ed.inf.adbs.lightdb.operator.ZoneMapScanOperator;
+import ed.inf.adbs.lightdb.util.ColumnComparison;
+import ed.inf.adbs.lightdb.util.ColumnIndexResolver;
+import ed.inf.adbs.lightdb.util.EquiJoinKey;
 import ed.inf.adbs.lightdb.util.ExpressionUtils;
 import net.sf.jsqlparser.expression.Expression;
 import net.sf.jsqlparser.expression.Function;
@@ -33,11 +59,36 @@ import net.sf.jsqlparser.statement.select.PlainSelect;
  * PlanBuilder is the main class responsible for constructing a query execution plan (a tree of Operator instances) from a parsed SQL query (represented as a PlainSelect).
  * It performs the following stages:
  * 1) Base plan construction: builds a plan with Scan, Select, Join, and Filter operators based on the FROM and WHERE clauses.
+ *    Tables stored in columnar format are read with a ColumnarScanOperator that decodes only the required columns,
+ *    and tables stored as heap files with a HeapScanOperator. CSV tables may instead be read by a ZoneMapScanOperator
+ *    or a ParallelScanOperator, depending on the PlannerOptions. A table with a selective comparison on a column that
+ *    has a B+-tree or hash index is read by an IndexScanOperator instead (see IndexSelector), and one whose selection
+ *    narrows it down through bitmap indexes by a BitmapScanOperator (see BitmapSelector). A join whose right table
+ *    has a hash or B+-tree index on an equi-join column probes that index per left tuple (IndexNestedLoopJoinOperator),
+ *    unless statistics put the left input above IndexSelector.MAX_SELECTIVITY of the right table's rows. Other
+ *    joins with column equalities between their inputs are sort-merge joins (SortMergeJoinOperator) when an input is
+ *    already ordered on its key (e.g. read through a B+-tree index), with the other one sorted in memory, and hash
+ *    joins (HashJoinOperator) otherwise, built on the smaller input when both are base tables and on the right one
+ *    otherwise; the rest are block nested-loop joins (BlockNestedLoopJoinOperator), which read the left input in
+ *    blocks and the right one once per block, from memory when it fits.
+ *    With code generation enabled, the selection and projection pushed down onto a table are fused into one
+ *    generated operator (see PipelineCodegen) instead of a SelectOperator and a ProjectOperator.
+ *    With a parallelism above 1, every other join runs on that many worker threads: equi-joins as radix hash joins
+ *    (RadixHashJoinOperator), which partition both inputs on a hash of their keys and join the partitions in
+ *    parallel, and other joins as one join per partition of their inputs, where exchanges deal the left input out
+ *    and broadcast the right one, and a GatherOperator merges the partitions' results.
+ *    Morsel-driven plans instead give each worker its own copy of the pipeline of the first table: its scan claims
+ *    morsels of that table from a shared MorselScanOperator source, and each join probes an index or a shared copy of
+ *    its inner input. The pipelines are merged by the aggregation (per-worker groups, see SumOperator.merging) or,
+ *    without one, by a GatherOperator.
  * 2) Aggregation: if there are aggregate functions or GROUP BY, it adds a SumOperator to perform the aggregation.
  * 3) Projection: if there is a SELECT list that is not just *, it adds a ProjectOperator to produce the desired output columns.
  * 4) DISTINCT: if SELECT DISTINCT is specified, it adds a DuplicateEliminationOperator.
  * 5) ORDER BY: if there is an ORDER BY clause, it adds a SortOperator at the end of the plan.
  *
+ * Every plan can be run either pull-based (getNextTuple/getNextBatch from the root) or push-based (produce on the
+ * root, which has the leaves drive rows up to the pipeline breakers), so both engines execute the same plans.
+ *
  * The PlanBuilder relies on QueryAnalyser to analyze the structure of the query and determine what features are present (e.g., aggregates, grouping keys, projected columns), which informs how the plan is constructed.
  */
 
@@ -45,12 +96,19 @@ public final class PlanBuilder {
     private PlanBuilder() {}
 
     public static Operator build(PlainSelect ps) {
+        return build(ps, PlannerOptions.defaults());
+    }
+
+    public static Operator build(PlainSelect ps, PlannerOptions options) {
+        if (options == null) throw new NullPointerException("options");
+
         QueryAnalysis qa = QueryAnalyser.analyze(ps);
         Map<String, Set<String>> requiredByTable = RequiredColumnsAnalyser.analyse(ps, qa);
 
-        PlanContext ctx = buildBase(ps, qa, requiredByTable);
+        PlanContext ctx = buildBase(ps, qa, requiredByTable, options);
 
         ctx = applyAggregationIfPresent(ctx, qa);
+        ctx = gatherPipelines(ctx);
         ctx = applyProjectionIfNeeded(ctx, qa);
         ctx = applyDistinct(ps, ctx);
         ctx = applyOrderBy(ps, ctx);
@@ -61,7 +119,7 @@ public final class PlanBuilder {
     // ===================== Stage 1: base plan =====================
 
     // Builds the base plan consisting of Scan, Select, Join, and Filter operators based on the FROM and WHERE clauses of the query.
-    private static PlanContext buildBase(PlainSelect ps,QueryAnalysis qa,Map<String, Set<String>> requiredByTable) {
+    private static PlanContext buildBase(PlainSelect ps, QueryAnalysis qa, Map<String, Set<String>> requiredByTable, PlannerOptions options) {
         List<Table> fromTables = extractFromTables(ps);
         if (fromTables.isEmpty()) {
             throw new IllegalArgumentException("FROM clause is required.");
@@ -70,6 +128,7 @@ public final class PlanBuilder {
         WhereClassifier wc = new WhereClassifier(ps.getWhere());
 
         Map<String, Plan> base = new HashMap<String, Plan>();
+        boolean morsels = options.isMorselDriven() && options.getParallelism() > 1;
 
         // Build optimized base plans:
         // Scan -> Select(single-table predicates) -> Project(required columns)
@@ -80,34 +139,78 @@ public final class PlanBuilder {
                     .getTable(name)
                     .orElseThrow(() -> new IllegalArgumentException("Table not found in catalog: " + name));
 
-            Operator op = new ScanOperator(name);
-
-            // 1) Push down single-table selection first
             List<Expression> singles = wc.extractSingleTable(name);
             Expression singleWhere = ExpressionUtils.andAll(singles);
-            if (singleWhere != null) {
-                op = new SelectOperator(op, singleWhere, originalMeta);
-            }
+            Set<String> neededCols = qa.isStar ? null : requiredByTable.get(name);
+
+            Operator op = null;
+            // The scans of a morsel-driven first table, one per worker (null otherwise)
+            List<Operator> morselScans = null;
+            boolean selectionApplied = false;
+            // The column the scan returns its rows in ascending order of, if any
+            String orderedColumn = null;
 
             // Default schema flowing upward is the original one
             TableMeta flowedMeta = originalMeta;
 
-            // 2) Push down projection only if this is NOT a SELECT * query
-            if (!qa.isStar) {
-                Set<String> neededCols = requiredByTable.get(name);
+            IndexSelector.Choice index = IndexSelector.choose(originalMeta, singles);
+            BitmapSelector.Choice bitmap = BitmapSelector.choose(originalMeta, singles);
+
+            // 0) Selective lookups on indexed columns read only the matching rows.
+            //    Columnar tables decode only the columns needed above the scan
+            if (bitmap != null && (index == null || bitmap.selectivity <= index.selectivity)) {
+                op = new BitmapScanOperator(name, bitmap.index, bitmap.rows);
+            } else if (index != null) {
+                op = new IndexScanOperator(name, index.index, index.range);
+                if (index.index.getType() == IndexType.BTREE) orderedColumn = norm(index.index.getColumnName());
+            } else if (originalMeta.getStorageFormat() == StorageFormat.COLUMNAR) {
+                Set<String> decodeCols = columnarDecodeColumns(originalMeta, neededCols, singleWhere);
+                flowedMeta = projectedTableMeta(originalMeta, decodeCols);
+
+                List<String> names = new ArrayList<String>(flowedMeta.getColumns().size());
+                for (ColumnMeta c : flowedMeta.getColumns()) names.add(c.getName());
+                op = new ColumnarScanOperator(name, names);
+            } else if (originalMeta.getStorageFormat() == StorageFormat.HEAP) {
+                op = new HeapScanOperator(name);
+            } else if (morsels && t == fromTables.get(0)) {
+                // Every worker runs the pipeline above its own scan, which evaluates the pushed-down selection
+                morselScans = MorselScanOperator.workers(name, singleWhere, options.getParallelism());
+                selectionApplied = true;
+            } else if (options.isZoneMaps() && hasColumnComparison(singles)) {
+                // Blocks are only skipped; the selection below is still applied to the rows that are read
+                op = new ZoneMapScanOperator(name, singles);
+            } else if (options.getScanParallelism() > 1) {
+                // Parallel scans evaluate the pushed-down selection in their workers
+                op = new ParallelScanOperator(name, singleWhere, options.getScanParallelism());
+                selectionApplied = true;
+            } else {
+                op = new ScanOperator(name, options.getScanMode());
+            }
 
-                if (neededCols != null && !neededCols.isEmpty()) {
-                    List<String> refs = requiredRefsInSchemaOrder(originalMeta, neededCols);
+            Expression pendingWhere = selectionApplied ? null : singleWhere;
 
-                    // Only add ProjectOperator if it actually removes columns
-                    if (refs.size() < originalMeta.getColumns().size()) {
-                        op = new ProjectOperator(op, refs, Collections.singletonList(originalMeta));
-                        flowedMeta = projectedTableMeta(originalMeta, neededCols);
-                    }
-                }
+            // Push down projection only if this is NOT a SELECT * query, and only if it actually removes columns
+            List<String> refs = null;
+            if (neededCols != null && !neededCols.isEmpty()) {
+                refs = requiredRefsInSchemaOrder(flowedMeta, neededCols);
+                if (refs.size() >= flowedMeta.getColumns().size()) refs = null;
             }
 
-            base.put(name, new Plan(op, Collections.singletonList(flowedMeta)));
+            List<Operator> pipelines = null;
+            if (morselScans != null) {
+                pipelines = new ArrayList<Operator>(morselScans.size());
+                for (Operator scan : morselScans) pipelines.add(pushDown(scan, pendingWhere, flowedMeta, refs, options));
+            } else {
+                op = pushDown(op, pendingWhere, flowedMeta, refs, options);
+            }
+            if (refs != null) flowedMeta = projectedTableMeta(flowedMeta, neededCols);
+
+            Plan plan = new Plan(op, pipelines, Collections.singletonList(flowedMeta), originalMeta, singleWhere);
+            long rows = rowCount(originalMeta);
+            if (rows >= 0) plan.estimatedRows = rows * IndexSelector.selectionSelectivity(originalMeta, singles);
+            // A B+-tree index scan returns its rows in key order, which the selection and projection keep
+            if (orderedColumn != null) plan.orderedBy = Collections.singleton(name + "." + orderedColumn);
+            base.put(name, plan);
         }
 
         // Build left-deep join tree in FROM order
@@ -125,29 +228,218 @@ public final class PlanBuilder {
             List<Expression> joinConds = wc.extractJoinPredicates(leftNames, rightName);
             Expression joinExpr = ExpressionUtils.andAll(joinConds);
 
-            Operator joined = new JoinOperator(acc.op, right.op, joinExpr, acc.tables, right.tables);
-
             List<TableMeta> merged = new ArrayList<TableMeta>(acc.tables.size() + right.tables.size());
             merged.addAll(acc.tables);
             merged.addAll(right.tables);
 
-            acc = new Plan(joined, merged);
-        }
+            if (acc.pipelines != null) {
+                acc = new Plan(null, morselJoins(acc, right, rightName, leftNames, joinConds, joinExpr), merged, null, null);
+                continue;
+            }
 
-        Operator root = acc.op;
+            acc = join(acc, right, rightName, leftNames, joinConds, joinExpr, merged, options);
+        }
 
-        // Apply any remaining predicates above the join tree
+        // Apply any remaining predicates above the join tree (in every pipeline of a morsel-driven plan)
         List<Expression> leftover = wc.getRemaining();
-        if (!leftover.isEmpty()) {
-            root = new FilterOperator(root, ExpressionUtils.andAll(leftover), acc.tables);
+        Expression leftoverWhere = leftover.isEmpty() ? null : ExpressionUtils.andAll(leftover);
+
+        if (acc.pipelines != null) {
+            List<Operator> pipelines = new ArrayList<Operator>(acc.pipelines.size());
+            for (Operator p : acc.pipelines) {
+                pipelines.add(leftoverWhere == null ? p : new FilterOperator(p, leftoverWhere, acc.tables));
+            }
+            PlanContext ctx = new PlanContext(null, acc.tables, null);
+            ctx.pipelines = pipelines;
+            return ctx;
+        }
+
+        Operator root = acc.op;
+        if (leftoverWhere != null) {
+            root = new FilterOperator(root, leftoverWhere, acc.tables);
         }
 
         return new PlanContext(root, acc.tables, null);
     }
 
+    // Whether a hash join should build its table on the left input rather than the right one: only when both inputs
+    // are single base tables and the left one is smaller, by row count when both have fresh statistics and by data
+    // file size otherwise.
+    private static boolean buildLeft(Plan left, Plan right) {
+        if (left.baseMeta == null || right.baseMeta == null) return false;
+
+        long l = rowCount(left.baseMeta);
+        long r = rowCount(right.baseMeta);
+        if (l < 0 || r < 0) {
+            l = new File(left.baseMeta.getDataFile()).length();
+            r = new File(right.baseMeta.getDataFile()).length();
+        }
+        return l < r;
+    }
+
+    // The table's row count from its statistics, or -1 if it has none that are up to date.
+    private static long rowCount(TableMeta table) {
+        TableStats stats = Catalog.getInstance().getTableStats(table.getName()).orElse(null);
+        if (stats == null || !stats.isFreshFor(Paths.get(table.getDataFile()))) return -1;
+        return stats.getRowCount();
+    }
+
+    // Pushes a base table's selection and projection down onto its scan: a SelectOperator and a ProjectOperator, or
+    // one generated operator when code generation is enabled and the pipeline can be generated.
+    private static Operator pushDown(Operator scan, Expression where, TableMeta meta, List<String> refs, PlannerOptions options) {
+        Operator fused = options.isCodegen() ? fusePipeline(scan, where, meta, refs) : null;
+        if (fused != null) return fused;
+
+        Operator op = scan;
+
+        // 1) Push down single-table selection first
+        if (where != null) {
+            op = new SelectOperator(op, where, meta);
+        }
+
+        // 2) Then the projection
+        if (refs != null) {
+            op = new ProjectOperator(op, refs, Collections.singletonList(meta));
+        }
+        return op;
+    }
+
+    // Joins every pipeline of a morsel-driven plan to the right table: by probing the right table's index when it has
+    // one on a join column, otherwise against the right input, which is read once and shared by all pipelines (as one
+    // hash table for equi-joins).
+    private static List<Operator> morselJoins(Plan left, Plan right, String rightName, Set<String> leftNames,
+                                              List<Expression> joinConds, Expression joinExpr) {
+        int workers = left.pipelines.size();
+        Operator first = indexJoinIfPossible(new Plan(left.pipelines.get(0), left.tables), right, leftNames, joinConds, joinExpr);
+        if (first == null && !EquiJoinKey.findAll(joinConds, leftNames, rightName).isEmpty()) {
+            return HashJoinOperator.shared(left.pipelines, right.op, joinExpr, left.tables, right.tables);
+        }
+
+        List<Operator> joined = new ArrayList<Operator>(workers);
+        List<Operator> inner = null;
+
+        for (int i = 0; i < workers; i++) {
+            Plan pipeline = new Plan(left.pipelines.get(i), left.tables);
+            Operator join = (i == 0) ? first : indexJoinIfPossible(pipeline, right, leftNames, joinConds, joinExpr);
+            if (join == null) {
+                if (inner == null) inner = Exchange.broadcast(right.op, workers, true);
+                join = new BlockNestedLoopJoinOperator(pipeline.op, inner.get(i), joinExpr, left.tables, right.tables);
+            }
+            joined.add(join);
+        }
+        return joined;
+    }
+
+    // Picks the physical operator for joining the next table, in order of preference: an index nested-loop join, a
+    // partitioned join (with a parallelism above 1), a sort-merge join on column equalities when an input is already
+    // ordered on its key, a hash join on column equalities, and otherwise a nested-loop join.
+    // The joined plan records the order of its rows where the join keeps or establishes one.
+    private static Plan join(Plan left, Plan right, String rightName, Set<String> leftNames, List<Expression> joinConds,
+                             Expression joinExpr, List<TableMeta> merged, PlannerOptions options) {
+        // Index joins return their rows by left row
+        Operator indexJoin = indexJoinIfPossible(left, right, leftNames, joinConds, joinExpr);
+        if (indexJoin != null) return new Plan(indexJoin, merged).ordered(left.orderedBy);
+
+        if (options.getParallelism() > 1) {
+            return new Plan(partitionedJoin(left, right, rightName, leftNames, joinConds, joinExpr, options.getParallelism()), merged);
+        }
+
+        List<EquiJoinKey> keys = EquiJoinKey.findAll(joinConds, leftNames, rightName);
+        if (keys.isEmpty()) {
+            // A block nested-loop join returns each block's rows by right row, so no order survives it
+            return new Plan(new BlockNestedLoopJoinOperator(left.op, right.op, joinExpr, left.tables, right.tables), merged);
+        }
+
+        // An existing order can only be used when it is the order of the whole key
+        EquiJoinKey first = keys.get(0);
+        String leftRef = first.getLeftTable() + "." + first.getLeftColumn();
+        String rightRef = first.getRightTable() + "." + first.getRightColumn();
+        boolean leftOrdered = keys.size() == 1 && left.orderedBy.contains(leftRef);
+        boolean rightOrdered = keys.size() == 1 && right.orderedBy.contains(rightRef);
+
+        // The other input is sorted in memory, which holds no more of it than a hash join's build side would
+        if (leftOrdered || rightOrdered) {
+            Operator smj = new SortMergeJoinOperator(left.op, right.op, joinExpr, left.tables, right.tables, leftOrdered, rightOrdered);
+            return new Plan(smj, merged).ordered(new HashSet<String>(Arrays.asList(leftRef, rightRef)));
+        }
+
+        // A hash join returns its rows by probe row
+        boolean buildLeft = buildLeft(left, right);
+        Operator hash = new HashJoinOperator(left.op, right.op, joinExpr, left.tables, right.tables, buildLeft);
+        return new Plan(hash, merged).ordered(buildLeft ? right.orderedBy : left.orderedBy);
+    }
+
+    // Probes an index on the right table's join column for each left tuple when an equi-join conjunct allows it and
+    // the left input is selective enough (see selectiveOuter), preferring a hash index to a B+-tree one. Returns null
+    // if no such index is available.
+    private static Operator indexJoinIfPossible(Plan left, Plan right, Set<String> leftNames, List<Expression> joinConds, Expression joinExpr) {
+        if (right.baseMeta == null || !selectiveOuter(left, right)) return null;
+        Path csv = Paths.get(right.baseMeta.getDataFile());
+
+        for (EquiJoinKey key : EquiJoinKey.findAll(joinConds, leftNames, right.baseMeta.getName())) {
+            IndexMeta index = IndexSelector.freshIndex(right.baseMeta, key.getRightColumn(), IndexType.HASH, csv);
+            if (index == null) index = IndexSelector.freshIndex(right.baseMeta, key.getRightColumn(), IndexType.BTREE, csv);
+            if (index != null) {
+                return new IndexNestedLoopJoinOperator(left.op, left.tables, key, index, right.singleWhere,
+                        right.tables.get(0), joinExpr);
+            }
+        }
+        return null;
+    }
+
+    // Whether the left input is expected to be small enough for one index lookup per left row to beat reading the
+    // right table: at most IndexSelector.MAX_SELECTIVITY of the right table's rows, as for index scans. Assumed when
+    // either size is unknown (e.g. the left input is itself a join, or a table has no up-to-date statistics).
+    private static boolean selectiveOuter(Plan left, Plan right) {
+        long inner = rowCount(right.baseMeta);
+        if (left.estimatedRows < 0 || inner < 0) return true;
+        return left.estimatedRows <= IndexSelector.MAX_SELECTIVITY * inner;
+    }
+
+    // Runs a join on several worker threads. Equi-joins are radix hash joins, which partition both inputs on a hash
+    // of their join columns and join the partitions on the workers. Other joins run as one block nested-loop join per
+    // partition of their inputs, gathered into one stream: the left input is dealt out round-robin and the right one
+    // broadcast to every partition, replayably since each join reads it once per block.
+    private static Operator partitionedJoin(Plan left, Plan right, String rightName, Set<String> leftNames,
+                                            List<Expression> joinConds, Expression joinExpr, int partitions) {
+        if (!EquiJoinKey.findAll(joinConds, leftNames, rightName).isEmpty()) {
+            return new RadixHashJoinOperator(left.op, right.op, joinExpr, left.tables, right.tables, partitions);
+        }
+
+        List<Operator> lefts = Exchange.roundRobin(left.op, partitions, false);
+        List<Operator> rights = Exchange.broadcast(right.op, partitions, true);
+
+        List<Operator> joins = new ArrayList<Operator>(partitions);
+        for (int i = 0; i < partitions; i++) {
+            joins.add(new BlockNestedLoopJoinOperator(lefts.get(i), rights.get(i), joinExpr, left.tables, right.tables));
+        }
+        return new GatherOperator(joins);
+    }
+
+    // Fuses the selection and projection pushed down onto a base table into one generated operator.
+    // Returns null if there is nothing to fuse or the pipeline cannot be generated.
+    private static Operator fusePipeline(Operator scan, Expression where, TableMeta meta, List<String> refs) {
+        if (where == null && refs == null) return null;
+
+        List<String> names = new ArrayList<String>(meta.getColumns().size());
+        for (ColumnMeta c : meta.getColumns()) names.add(c.getName());
+        ColumnIndexResolver resolver = new ColumnIndexResolver(meta.getName(), names);
+
+        int[] projection = null;
+        if (refs != null) {
+            projection = new int[refs.size()];
+            for (int i = 0; i < projection.length; i++) {
+                String[] parts = refs.get(i).split("\\.");
+                projection[i] = resolver.indexOf(parts[0], parts[1]);
+            }
+        }
+        return PipelineCodegen.fuse(scan, where, resolver, projection);
+    }
+
     // ===================== Stage 2: Aggregation =====================
 
     // If the query has aggregate functions or GROUP BY, adds a SumOperator to perform the aggregation.
+    // The pipelines of a morsel-driven plan are each aggregated by their own worker, and the groups merged.
     private static PlanContext applyAggregationIfPresent(PlanContext ctx, QueryAnalysis qa) {
         if (!qa.hasAggregation()) return ctx;
 
@@ -169,7 +461,12 @@ public final class PlanBuilder {
         List<Expression> sumArgs = new ArrayList<Expression>(qa.aggregates.size());
         for (QueryAnalysis.AggCall a : qa.aggregates) sumArgs.add(a.arg);
 
-        ctx.root = new SumOperator(ctx.root, groupingRefs, outputGroupRefs, sumArgs, ctx.baseTables);
+        if (ctx.pipelines != null) {
+            ctx.root = SumOperator.merging(ctx.pipelines, groupingRefs, outputGroupRefs, sumArgs, ctx.baseTables);
+            ctx.pipelines = null;
+        } else {
+            ctx.root = new SumOperator(ctx.root, groupingRefs, outputGroupRefs, sumArgs, ctx.baseTables);
+        }
 
         // Schema after aggregation: outputGroupRefs + sum(...)
         ctx.outputRefs = qa.expectedOutputRefsForAgg();
@@ -177,6 +474,16 @@ public final class PlanBuilder {
         return ctx;
     }
 
+    // Merges the rows of a morsel-driven plan's pipelines that were not aggregated into one stream, on which the
+    // remaining stages run.
+    private static PlanContext gatherPipelines(PlanContext ctx) {
+        if (ctx.pipelines == null) return ctx;
+
+        ctx.root = new GatherOperator(ctx.pipelines);
+        ctx.pipelines = null;
+        return ctx;
+    }
+
     // ===================== Stage 3: Projection =====================
 
     // If the SELECT list is not just *, adds a ProjectOperator to produce the desired output columns.
@@ -223,22 +530,40 @@ public final class PlanBuilder {
     // This is used to inform the ScanOperator and other operators about the schema of the data they are processing 
     // after pushing down projections.
     private static TableMeta projectedTableMeta(TableMeta original, Set<String> requiredCols) {
-        List<ed.inf.adbs.lightdb.catalog.ColumnMeta> projectedCols =
-                new ArrayList<ed.inf.adbs.lightdb.catalog.ColumnMeta>();
+        List<ColumnMeta> projectedCols = new ArrayList<ColumnMeta>();
 
         for (int i = 0; i < original.getColumns().size(); i++) {
-            ed.inf.adbs.lightdb.catalog.ColumnMeta col = original.getColumns().get(i);
+            ColumnMeta col = original.getColumns().get(i);
             if (requiredCols.contains(norm(col.getName()))) {
                 projectedCols.add(col);
             }
         }
 
-        return new TableMeta(
-                original.getTableId(),
-                original.getName(),
-                projectedCols,
-                original.getDataFile()
-        );
+        return original.withColumns(projectedCols);
+    }
+
+    // Helper method to decide which columns a columnar scan has to decode: everything the rest of the plan needs
+    // (as computed by RequiredColumnsAnalyser) plus every column the pushed-down selection refers to, qualified or not.
+    // Falls back to all columns when the required set is unknown (SELECT * or no qualified references).
+    private static Set<String> columnarDecodeColumns(TableMeta meta, Set<String> neededCols, Expression singleWhere) {
+        Set<String> all = new HashSet<String>();
+        for (ColumnMeta c : meta.getColumns()) all.add(norm(c.getName()));
+
+        if (neededCols == null || neededCols.isEmpty()) return all;
+
+        Set<String> decode = new HashSet<String>(neededCols);
+        for (String col : ExpressionUtils.referencedColumns(singleWhere)) {
+            if (all.contains(col)) decode.add(col);
+        }
+        return decode;
+    }
+
+    // Helper method to check whether any pushed-down conjunct is a "column op constant" comparison that a zone map can use.
+    private static boolean hasColumnComparison(List<Expression> conjuncts) {
+        for (Expression e : conjuncts) {
+            if (ColumnComparison.of(e) != null) return true;
+        }
+        return false;
     }
 
     // Helper method to determine which columns are required from a table based on the analysis of the query.
@@ -340,6 +665,8 @@ public final class PlanBuilder {
 
     private static final class PlanContext {
         Operator root;
+        // The per-worker pipelines of a morsel-driven plan, until they are aggregated or gathered into root
+        List<Operator> pipelines;
         final List<TableMeta> baseTables;
         List<String> outputRefs;
 
@@ -352,10 +679,31 @@ public final class PlanBuilder {
 
     private static final class Plan {
         final Operator op;
+        // For a morsel-driven plan: one pipeline per worker, instead of op
+        final List<Operator> pipelines;
         final List<TableMeta> tables;
+        // For the plan of a single base table: its full schema and pushed-down selection (null for joins)
+        final TableMeta baseMeta;
+        final Expression singleWhere;
+        // Column refs ("table.col") the rows are known to be in ascending order of (several when the columns are
+        // equal in every row, like the two keys of a merge join)
+        Set<String> orderedBy = Collections.emptySet();
+        // Estimated number of rows, for the plan of a single base table with up-to-date statistics (-1 otherwise)
+        double estimatedRows = -1;
+
         Plan(Operator op, List<TableMeta> tables) {
+            this(op, null, tables, null, null);
+        }
+        Plan(Operator op, List<Operator> pipelines, List<TableMeta> tables, TableMeta baseMeta, Expression singleWhere) {
             this.op = op;
+            this.pipelines = pipelines;
             this.tables = tables;
+            this.baseMeta = baseMeta;
+            this.singleWhere = singleWhere;
+        }
+        Plan ordered(Set<String> columns) {
+            this.orderedBy = columns;
+            return this;
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,130 @@
+package ed.inf.adbs.lightdb.planner;
+
+import java.util.Locale;
+
+import ed.inf.adbs.lightdb.operator.ScanMode;
+
+/**
+ * PlannerOptions holds the physical choices PlanBuilder makes that are not dictated by the query itself
+ * (e.g. how base tables are scanned). The defaults plan every query to run serially: CSV tables are read by a buffered
+ * ScanOperator, without zone maps, code generation, exchanges or morsels. The choices no option controls are made
+ * whatever the options: tables with fresh indexes may be read through index or bitmap scans, and joins are index
+ * nested-loop, hash, sort-merge or block nested-loop joins (see PlanBuilder). How a plan is run (tuple-at-a-time, in
+ * batches or push-based) is up to the caller; LightDB drains plans in batches unless -Dlightdb.execution says otherwise.
+ *
+ * Options can be set programmatically, or read from JVM system properties by fromSystemProperties():
+ * - lightdb.scan = buffered | mapped
+ * - lightdb.scan.parallelism = number of worker threads per CSV table scan (1 = single-threaded)
+ * - lightdb.scan.zonemaps = true | false
+ * - lightdb.codegen = true | false
+ * - lightdb.parallelism = number of partitions each join is run in, on as many worker threads (1 = no exchanges)
+ * - lightdb.morsels = true | false (with a parallelism above 1: run the query morsel-driven instead)
+ */
+
+public final class PlannerOptions {
+    private ScanMode scanMode = ScanMode.BUFFERED;
+    private int scanParallelism = 1;
+    private boolean zoneMaps = false;
+    private boolean codegen = false;
+    private int parallelism = 1;
+    private boolean morselDriven = false;
+
+    public static PlannerOptions defaults() {
+        return new PlannerOptions();
+    }
+
+    public static PlannerOptions fromSystemProperties() {
+        PlannerOptions options = new PlannerOptions();
+
+        String scan = System.getProperty("lightdb.scan");
+        if (scan != null) options.setScanMode(ScanMode.valueOf(upper(scan)));
+
+        String scanParallelism = System.getProperty("lightdb.scan.parallelism");
+        if (scanParallelism != null) options.setScanParallelism(Integer.parseInt(scanParallelism.trim()));
+
+        String zoneMaps = System.getProperty("lightdb.scan.zonemaps");
+        if (zoneMaps != null) options.setZoneMaps(Boolean.parseBoolean(zoneMaps.trim()));
+
+        String codegen = System.getProperty("lightdb.codegen");
+        if (codegen != null) options.setCodegen(Boolean.parseBoolean(codegen.trim()));
+
+        String parallelism = System.getProperty("lightdb.parallelism");
+        if (parallelism != null) options.setParallelism(Integer.parseInt(parallelism.trim()));
+
+        String morsels = System.getProperty("lightdb.morsels");
+        if (morsels != null) options.setMorselDriven(Boolean.parseBoolean(morsels.trim()));
+
+        return options;
+    }
+
+    public ScanMode getScanMode() {
+        return scanMode;
+    }
+
+    public PlannerOptions setScanMode(ScanMode scanMode) {
+        if (scanMode == null) throw new NullPointerException("scanMode");
+        this.scanMode = scanMode;
+        return this;
+    }
+
+    public int getScanParallelism() {
+        return scanParallelism;
+    }
+
+    // With more than one thread, CSV tables are scanned by a ParallelScanOperator that also evaluates the pushed-down selection.
+    public PlannerOptions setScanParallelism(int scanParallelism) {
+        if (scanParallelism < 1) throw new IllegalArgumentException("scanParallelism must be >= 1");
+        this.scanParallelism = scanParallelism;
+        return this;
+    }
+
+    public boolean isZoneMaps() {
+        return zoneMaps;
+    }
+
+    // When enabled, CSV tables with a "column op constant" selection are read by a ZoneMapScanOperator that skips blocks
+    // whose min/max summaries rule the selection out.
+    public PlannerOptions setZoneMaps(boolean zoneMaps) {
+        this.zoneMaps = zoneMaps;
+        return this;
+    }
+
+    public boolean isCodegen() {
+        return codegen;
+    }
+
+    // When enabled, the selection and projection pushed down onto each base table are fused into one generated
+    // operator class (see PipelineCodegen), where the JVM has a compiler available.
+    public PlannerOptions setCodegen(boolean codegen) {
+        this.codegen = codegen;
+        return this;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    // With more than one partition, each join that does not probe an index is run as that many copies over
+    // partitions of its inputs, connected by exchanges (see Exchange and GatherOperator).
+    public PlannerOptions setParallelism(int parallelism) {
+        if (parallelism < 1) throw new IllegalArgumentException("parallelism must be >= 1");
+        this.parallelism = parallelism;
+        return this;
+    }
+
+    public boolean isMorselDriven() {
+        return morselDriven;
+    }
+
+    // When enabled with a parallelism above 1, the first table of the query is scanned in morsels by that many workers,
+    // each running the query's pipeline (selections, joins against shared inner sides, grouping) on the morsels it
+    // claims (see MorselScanOperator), instead of joins being run over static partitions.
+    public PlannerOptions setMorselDriven(boolean morselDriven) {
+        this.morselDriven = morselDriven;
+        return this;
+    }
+
+    private static String upper(String s) {
+        return s.trim().toUpperCase(Locale.ROOT);
+    }
+}
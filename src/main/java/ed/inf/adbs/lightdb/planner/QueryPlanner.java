@@ -23,6 +23,11 @@ public final class QueryPlanner {
      */
 
      public static Operator buildPlan(String fileName) {
+        return buildPlan(fileName, PlannerOptions.defaults());
+     }
+
+     // Same as buildPlan(fileName), with explicit physical planning options.
+     public static Operator buildPlan(String fileName, PlannerOptions options) {
         try {
             Statement statement = CCJSqlParserUtil.parse(new FileReader(fileName));
 
@@ -37,7 +42,7 @@ public final class QueryPlanner {
                 throw new IllegalArgumentException("Only simple SELECT queries supported (no UNION/subqueries).");
             }
 
-            return PlanBuilder.build(ps);
+            return PlanBuilder.build(ps, options);
 
         } catch (Exception e) {
             throw new RuntimeException("Error building query plan from file: " + fileName, e);
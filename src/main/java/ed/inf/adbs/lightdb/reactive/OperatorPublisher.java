@@ -0,0 +1,166 @@
+package ed.inf.adbs.lightdb.reactive;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import ed.inf.adbs.lightdb.Tuple;
+import ed.inf.adbs.lightdb.execution.WorkerPool;
+import ed.inf.adbs.lightdb.operator.Operator;
+
+/**
+ * OperatorPublisher publishes the rows of an operator tree to a Subscriber, with demand-driven backpressure.
+ *
+ * Rows are pulled from the root with getNextTuple() only while the subscriber has outstanding demand, by a task on
+ * an executor (the shared WorkerPool by default). When demand runs out the task ends: a slow subscriber stops the
+ * plan, down to its scans, without holding a thread, and the next request() schedules a new task that continues
+ * where the last one stopped. At most one task runs at a time, so the operator tree is only ever used by one thread
+ * at a time and the subscriber is signalled serially.
+ *
+ * An operator tree is stateful, so a publisher accepts a single subscriber; later ones are sent onError.
+ * Cancelling or failing resets the plan, from the drain task so that it stays on one thread at a time; this stops the
+ * worker threads of any parallel operators in it, which would otherwise run on until their queues fill. A completed
+ * plan is left as it is. Either way the plan can be published again by a new publisher.
+ */
+
+public final class OperatorPublisher implements Publisher<Tuple> {
+    private final Operator root;
+    private final Executor executor;
+    private final AtomicBoolean subscribed = new AtomicBoolean();
+
+    public OperatorPublisher(Operator root) {
+        this(root, WorkerPool.get());
+    }
+
+    public OperatorPublisher(Operator root, Executor executor) {
+        if (root == null) throw new NullPointerException("root");
+        if (executor == null) throw new NullPointerException("executor");
+        this.root = root;
+        this.executor = executor;
+    }
+
+    @Override
+    public void subscribe(Subscriber<? super Tuple> subscriber) {
+        if (subscriber == null) throw new NullPointerException("subscriber");
+
+        if (!subscribed.compareAndSet(false, true)) {
+            subscriber.onSubscribe(new Subscription() {
+                @Override
+                public void request(long n) {}
+
+                @Override
+                public void cancel() {}
+            });
+            subscriber.onError(new IllegalStateException("OperatorPublisher accepts a single subscriber"));
+            return;
+        }
+
+        RowSubscription s = new RowSubscription(subscriber);
+        subscriber.onSubscribe(s);
+    }
+
+    private final class RowSubscription implements Subscription, Runnable {
+        private final Subscriber<? super Tuple> subscriber;
+        private final AtomicLong requested = new AtomicLong();
+        // Number of times the drain has been asked to run; non-zero while a drain task is scheduled or running
+        private final AtomicInteger wip = new AtomicInteger();
+        private volatile boolean done;
+        private volatile boolean cancelled;
+        private volatile Throwable invalidRequest;
+        // Whether the plan has been reset after a cancel or failure; only touched by the drain
+        private boolean released;
+
+        RowSubscription(Subscriber<? super Tuple> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request(long n) {
+            if (done) return;
+            if (n <= 0) {
+                invalidRequest = new IllegalArgumentException("request must be positive, got " + n);
+            } else {
+                addDemand(n);
+            }
+            schedule();
+        }
+
+        @Override
+        public void cancel() {
+            if (done) return;
+            cancelled = true;
+            done = true;
+            // The drain resets the plan, once any drain already running has stopped using it
+            schedule();
+        }
+
+        private void addDemand(long n) {
+            long current;
+            long next;
+            do {
+                current = requested.get();
+                if (current == Long.MAX_VALUE) return;
+                next = current + n;
+                if (next < 0) next = Long.MAX_VALUE; // unbounded
+            } while (!requested.compareAndSet(current, next));
+        }
+
+        private void schedule() {
+            if (wip.getAndIncrement() == 0) executor.execute(this);
+        }
+
+        // Emits rows while there is demand, then gives the thread back.
+        @Override
+        public void run() {
+            int missed = 1;
+            while (true) {
+                drain();
+                missed = wip.addAndGet(-missed);
+                if (missed == 0) return;
+            }
+        }
+
+        private void drain() {
+            boolean failed = false;
+            try {
+                while (!done) {
+                    Throwable invalid = invalidRequest;
+                    if (invalid != null) {
+                        done = true;
+                        failed = true;
+                        subscriber.onError(invalid);
+                        break;
+                    }
+                    if (requested.get() == 0) return;
+
+                    Tuple t = root.getNextTuple();
+                    if (t == null) {
+                        done = true;
+                        subscriber.onComplete();
+                        return;
+                    }
+                    subscriber.onNext(t);
+                    if (requested.get() != Long.MAX_VALUE) requested.decrementAndGet();
+                }
+            } catch (Throwable e) {
+                if (!done) {
+                    done = true;
+                    failed = true;
+                    subscriber.onError(e);
+                }
+            }
+            if ((failed || cancelled) && !released) release();
+        }
+
+        // Resets the plan after a cancel or failure, which stops the workers of its parallel operators.
+        private void release() {
+            released = true;
+            try {
+                root.reset();
+            } catch (Throwable ignored) {
+                // The subscriber has been signalled already and there is no one left to report to
+            }
+        }
+    }
+}
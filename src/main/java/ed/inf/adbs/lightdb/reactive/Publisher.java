@@ -0,0 +1,15 @@
+package ed.inf.adbs.lightdb.reactive;
+
+/**
+ * A source of items delivered to a Subscriber on demand.
+ *
+ * This mirrors java.util.concurrent.Flow.Publisher method for method (Flow is not available at the Java 8 level this
+ * project compiles for), so a Java 9+ caller can bridge the two with a one-line adapter.
+ */
+public interface Publisher<T> {
+
+    /**
+     * Adds the subscriber. Its onSubscribe is called first; items follow only as it requests them.
+     */
+    void subscribe(Subscriber<? super T> subscriber);
+}
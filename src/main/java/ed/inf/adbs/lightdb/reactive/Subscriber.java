@@ -0,0 +1,18 @@
+package ed.inf.adbs.lightdb.reactive;
+
+/**
+ * A receiver of items from a Publisher, mirroring java.util.concurrent.Flow.Subscriber.
+ *
+ * Calls are made one at a time, never concurrently: onSubscribe, then onNext at most as many times as requested,
+ * then at most one of onComplete or onError.
+ */
+public interface Subscriber<T> {
+
+    void onSubscribe(Subscription subscription);
+
+    void onNext(T item);
+
+    void onError(Throwable throwable);
+
+    void onComplete();
+}
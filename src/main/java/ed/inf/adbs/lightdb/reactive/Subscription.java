@@ -0,0 +1,18 @@
+package ed.inf.adbs.lightdb.reactive;
+
+/**
+ * The link between a Publisher and one Subscriber, mirroring java.util.concurrent.Flow.Subscription.
+ */
+public interface Subscription {
+
+    /**
+     * Adds n items to the outstanding demand. A non-positive n fails the subscription with an
+     * IllegalArgumentException.
+     */
+    void request(long n);
+
+    /**
+     * Stops delivery; items already in flight may still arrive.
+     */
+    void cancel();
+}
@@ -0,0 +1,282 @@
+package ed.inf.adbs.lightdb.storage;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Process-wide cache of heap file pages.
+ *
+ * The pool holds a fixed number of page-sized frames. A caller pins a page while it reads it and unpins it
+ * (by closing the returned PinnedPage) when done; pinned frames are never evicted. When a page is not cached, a
+ * victim frame is chosen with the CLOCK policy: the hand sweeps the frames, clearing the reference bit of recently
+ * used ones and evicting the first unpinned frame whose bit is already clear.
+ * Heap files are read-only once written, so frames are never dirty and eviction needs no write-back.
+ *
+ * A miss reserves its frame (pinned, and registered for the page) under the pool's lock, but reads the page outside
+ * it, so that other threads' hits and misses are not held up by the disk. Threads that pin a page while it is being
+ * read wait on that frame's load latch only.
+ *
+ * The capacity (in pages) is taken from the lightdb.bufferpool.pages system property when the pool is first used,
+ * or set explicitly with configure().
+ */
+public final class BufferPool {
+    static final int DEFAULT_CAPACITY = 1024; // 8 MB of 8 KB pages
+
+    private static BufferPool instance;
+
+    private final Frame[] frames;
+    private final Map<PageKey, Frame> resident = new HashMap<PageKey, Frame>();
+    private final Map<Path, FileChannel> channels = new HashMap<Path, FileChannel>();
+    private int used;
+    private int hand;
+
+    private long hits;
+    private long misses;
+
+    private BufferPool(int capacity) {
+        this.frames = new Frame[capacity];
+    }
+
+    public static synchronized BufferPool getInstance() {
+        if (instance == null) {
+            instance = new BufferPool(Integer.getInteger("lightdb.bufferpool.pages", DEFAULT_CAPACITY));
+        }
+        return instance;
+    }
+
+    // Replaces the shared pool with an empty one of the given capacity (in pages).
+    public static synchronized void configure(int capacity) {
+        if (capacity < 1) throw new IllegalArgumentException("capacity must be >= 1");
+        if (instance != null) instance.closeChannels();
+        instance = new BufferPool(capacity);
+    }
+
+    public int getCapacity() {
+        return frames.length;
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    // Returns the page, reading it from the file if it is not cached. The page stays in memory until it is closed.
+    public PinnedPage pin(Path file, int pageNo) throws IOException {
+        PageKey key = new PageKey(file.toAbsolutePath().normalize(), pageNo);
+
+        Frame frame;
+        Load load;
+        FileChannel channel = null;
+        synchronized (this) {
+            frame = resident.get(key);
+            if (frame != null) {
+                hits++;
+            } else {
+                misses++;
+                frame = victim();
+                if (frame.key != null) resident.remove(frame.key);
+                frame.key = key;
+                frame.load = new Load();
+                resident.put(key, frame);
+                channel = channel(key.file);
+            }
+            frame.pinCount++;
+            frame.referenced = true;
+            load = frame.load;
+        }
+
+        if (channel != null) {
+            try {
+                read(channel, key, frame.data);
+            } catch (IOException | RuntimeException e) {
+                // Give the frame up, and fail the threads waiting for the page too
+                synchronized (this) {
+                    if (resident.get(key) == frame) resident.remove(key);
+                    frame.key = null;
+                }
+                load.fail(e);
+                unpin(frame);
+                throw e;
+            }
+            load.done.countDown();
+        } else {
+            load.await();
+            if (load.failure != null) {
+                unpin(frame);
+                throw new IOException("Failed to read page " + pageNo + " of " + key.file, load.failure);
+            }
+        }
+        return new PinnedPage(this, frame);
+    }
+
+    // Drops every cached page of the file and closes it. Must be called before the file is replaced.
+    public synchronized void invalidate(Path file) throws IOException {
+        Path path = file.toAbsolutePath().normalize();
+        for (Iterator<Map.Entry<PageKey, Frame>> it = resident.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<PageKey, Frame> e = it.next();
+            if (!e.getKey().file.equals(path)) continue;
+            if (e.getValue().pinCount > 0) {
+                throw new IllegalStateException("Cannot invalidate pinned page " + e.getKey().pageNo + " of " + path);
+            }
+            e.getValue().key = null;
+            it.remove();
+        }
+
+        FileChannel ch = channels.remove(path);
+        if (ch != null) ch.close();
+    }
+
+    private synchronized void unpin(Frame frame) {
+        if (frame.pinCount <= 0) throw new IllegalStateException("Page is not pinned");
+        frame.pinCount--;
+    }
+
+    // Chooses a frame for a new page: an unused one while the pool is filling up, otherwise by CLOCK.
+    private Frame victim() {
+        if (used < frames.length) {
+            Frame f = new Frame();
+            frames[used++] = f;
+            return f;
+        }
+
+        // Two full sweeps clear every reference bit, so a frame is found unless all of them are pinned.
+        for (int i = 0; i < 2 * frames.length; i++) {
+            Frame f = frames[hand];
+            hand = (hand + 1) % frames.length;
+
+            if (f.pinCount > 0) continue;
+            if (f.referenced) {
+                f.referenced = false;
+                continue;
+            }
+            return f;
+        }
+        throw new IllegalStateException("All " + frames.length + " buffer pool frames are pinned");
+    }
+
+    // The open channel of the file, opening it on first use.
+    private FileChannel channel(Path file) throws IOException {
+        FileChannel ch = channels.get(file);
+        if (ch == null) {
+            ch = FileChannel.open(file, StandardOpenOption.READ);
+            channels.put(file, ch);
+        }
+        return ch;
+    }
+
+    // Reads a page with a positional read, which needs no lock on the channel.
+    private static void read(FileChannel ch, PageKey key, byte[] data) throws IOException {
+        ByteBuffer dst = ByteBuffer.wrap(data);
+        long position = (long) key.pageNo * HeapPage.PAGE_SIZE;
+        while (dst.hasRemaining()) {
+            int n = ch.read(dst, position + dst.position());
+            if (n < 0) throw new IOException("Page " + key.pageNo + " is past the end of " + key.file);
+        }
+    }
+
+    private void closeChannels() {
+        for (FileChannel ch : channels.values()) {
+            try {
+                ch.close();
+            } catch (IOException ignored) {
+                // the pool is being discarded
+            }
+        }
+        channels.clear();
+    }
+
+    /**
+     * A page pinned in the pool. Its bytes are valid until close() is called.
+     */
+    public static final class PinnedPage implements Closeable {
+        private final BufferPool pool;
+        private final Frame frame;
+        private boolean closed;
+
+        private PinnedPage(BufferPool pool, Frame frame) {
+            this.pool = pool;
+            this.frame = frame;
+        }
+
+        public byte[] data() {
+            if (closed) throw new IllegalStateException("Page has been unpinned");
+            return frame.data;
+        }
+
+        @Override
+        public void close() {
+            if (closed) return;
+            closed = true;
+            pool.unpin(frame);
+        }
+    }
+
+    private static final class Frame {
+        final byte[] data = new byte[HeapPage.PAGE_SIZE];
+        PageKey key;
+        // The read of the frame's current page, released once its bytes are in data
+        Load load;
+        int pinCount;
+        boolean referenced;
+    }
+
+    /**
+     * The latch of one page read. The loading thread's writes to the frame happen before any await() returns.
+     */
+    private static final class Load {
+        final CountDownLatch done = new CountDownLatch(1);
+        volatile Throwable failure;
+
+        void fail(Throwable t) {
+            failure = t;
+            done.countDown();
+        }
+
+        void await() {
+            boolean interrupted = false;
+            while (true) {
+                try {
+                    done.await();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) Thread.currentThread().interrupt();
+        }
+    }
+
+    private static final class PageKey {
+        final Path file;
+        final int pageNo;
+
+        PageKey(Path file, int pageNo) {
+            this.file = file;
+            this.pageNo = pageNo;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof PageKey)) return false;
+            PageKey k = (PageKey) o;
+            return pageNo == k.pageNo && file.equals(k.file);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * file.hashCode() + pageNo;
+        }
+    }
+}
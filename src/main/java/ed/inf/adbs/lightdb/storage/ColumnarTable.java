@@ -0,0 +1,161 @@
+package ed.inf.adbs.lightdb.storage;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Read side of the columnar table format.
+ *
+ * A columnar table is a directory containing a header file (columns.meta) and one file per column (&lt;index&gt;.col).
+ * The header records the row count, the size and modification time of the source CSV (used to detect stale copies),
+ * and for each column its name and encoding. Column files hold the values of a single column in row order, so a scan
+ * only has to open and decode the columns it actually needs.
+ */
+public final class ColumnarTable {
+    static final String HEADER_FILE = "columns.meta";
+    static final int MAGIC = 0x4C444243; // "LDBC"
+    static final int VERSION = 1;
+
+    /** Physical encoding of a column file. */
+    public enum Encoding {
+        LONG,   // 8-byte big-endian integers
+        STRING  // 4-byte length followed by UTF-8 bytes
+    }
+
+    private final Path dir;
+    private final long rowCount;
+    private final long sourceSize;
+    private final long sourceModified;
+    private final List<String> columnNames;
+    private final List<Encoding> encodings;
+
+    private ColumnarTable(Path dir, long rowCount, long sourceSize, long sourceModified,
+                          List<String> columnNames, List<Encoding> encodings) {
+        this.dir = dir;
+        this.rowCount = rowCount;
+        this.sourceSize = sourceSize;
+        this.sourceModified = sourceModified;
+        this.columnNames = Collections.unmodifiableList(columnNames);
+        this.encodings = Collections.unmodifiableList(encodings);
+    }
+
+    // Reads the header of the columnar table stored in the given directory.
+    public static ColumnarTable open(Path dir) throws IOException {
+        if (dir == null) throw new NullPointerException("dir");
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(dir.resolve(HEADER_FILE))))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a columnar table: " + dir);
+            }
+            int version = in.readInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported columnar table version " + version + " in " + dir);
+            }
+
+            long rowCount = in.readLong();
+            long sourceSize = in.readLong();
+            long sourceModified = in.readLong();
+
+            int nCols = in.readInt();
+            List<String> names = new ArrayList<String>(nCols);
+            List<Encoding> encodings = new ArrayList<Encoding>(nCols);
+            for (int i = 0; i < nCols; i++) {
+                names.add(in.readUTF());
+                encodings.add(Encoding.valueOf(in.readUTF()));
+            }
+
+            return new ColumnarTable(dir, rowCount, sourceSize, sourceModified, names, encodings);
+        }
+    }
+
+    // True if the directory holds a columnar copy that was produced from the current contents of sourceCsv.
+    public static boolean isFresh(Path dir, Path sourceCsv) {
+        if (!Files.isRegularFile(dir.resolve(HEADER_FILE)) || !Files.isRegularFile(sourceCsv)) return false;
+        try {
+            ColumnarTable table = open(dir);
+            return table.sourceSize == Files.size(sourceCsv)
+                    && table.sourceModified == Files.getLastModifiedTime(sourceCsv).toMillis();
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    public List<String> getColumnNames() {
+        return columnNames;
+    }
+
+    public Encoding getEncoding(int column) {
+        return encodings.get(column);
+    }
+
+    // Opens a sequential reader over a single column.
+    public ColumnReader openColumn(int column) throws IOException {
+        if (column < 0 || column >= columnNames.size()) {
+            throw new IndexOutOfBoundsException("Column index out of range: " + column);
+        }
+        return new ColumnReader(columnFile(dir, column), encodings.get(column));
+    }
+
+    static Path columnFile(Path dir, int column) {
+        return dir.resolve(column + ".col");
+    }
+
+    /**
+     * Sequential reader over the values of one column. Values are returned in their canonical textual form.
+     */
+    public static final class ColumnReader implements Closeable {
+        private final DataInputStream in;
+        private final Encoding encoding;
+        private byte[] buf = new byte[64];
+
+        private ColumnReader(Path file, Encoding encoding) throws IOException {
+            this.in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16));
+            this.encoding = encoding;
+        }
+
+        // True if the column is stored as binary longs, which nextLong reads without going through text.
+        public boolean isLongEncoded() {
+            return encoding == Encoding.LONG;
+        }
+
+        // Returns the next value of a long-encoded column; throws EOFException once every row has been read.
+        public long nextLong() throws IOException {
+            if (encoding != Encoding.LONG) throw new IllegalStateException("Column is not long-encoded");
+            return in.readLong();
+        }
+
+        // Returns the next value of the column, or null once every row has been read.
+        public String next() throws IOException {
+            try {
+                if (encoding == Encoding.LONG) {
+                    return Long.toString(in.readLong());
+                }
+
+                int len = in.readInt();
+                if (len > buf.length) buf = new byte[Math.max(len, buf.length * 2)];
+                in.readFully(buf, 0, len);
+                return new String(buf, 0, len, StandardCharsets.UTF_8);
+            } catch (EOFException e) {
+                return null;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package ed.inf.adbs.lightdb.storage;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Converts a table's CSV file into the columnar format read by ColumnarTable.
+ *
+ * The conversion makes two sequential passes over the CSV: the first picks an encoding per column
+ * (LONG if every value is a canonical integer, STRING otherwise) and counts rows, the second streams every
+ * value into its column file. Memory use is independent of the table size.
+ * The output is written to a temporary sibling directory and moved into place only once complete, so a
+ * crashed conversion never leaves a half-written table behind.
+ */
+public final class ColumnarTableWriter {
+    private ColumnarTableWriter() {}
+
+    public static ColumnarTable convert(Path csvFile, List<String> columnNames, Path targetDir) throws IOException {
+        if (csvFile == null) throw new NullPointerException("csvFile");
+        if (columnNames == null) throw new NullPointerException("columnNames");
+        if (targetDir == null) throw new NullPointerException("targetDir");
+
+        int nCols = columnNames.size();
+        long sourceSize = Files.size(csvFile);
+        long sourceModified = Files.getLastModifiedTime(csvFile).toMillis();
+
+        // Pass 1: infer encodings and count rows
+        boolean[] allLong = new boolean[nCols];
+        Arrays.fill(allLong, true);
+        long rowCount = 0;
+
+        try (BufferedReader reader = Files.newBufferedReader(csvFile, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] values = splitChecked(line, nCols, rowCount);
+                for (int c = 0; c < nCols; c++) {
+                    if (allLong[c] && !CsvRows.isCanonicalLong(values[c])) allLong[c] = false;
+                }
+                rowCount++;
+            }
+        }
+
+        List<ColumnarTable.Encoding> encodings = new ArrayList<ColumnarTable.Encoding>(nCols);
+        for (int c = 0; c < nCols; c++) {
+            encodings.add(allLong[c] ? ColumnarTable.Encoding.LONG : ColumnarTable.Encoding.STRING);
+        }
+
+        Path tmpDir = targetDir.resolveSibling(targetDir.getFileName().toString() + ".tmp");
+        deleteRecursively(tmpDir);
+        Files.createDirectories(tmpDir);
+
+        // Pass 2: stream values into one file per column
+        DataOutputStream[] outs = new DataOutputStream[nCols];
+        try (BufferedReader reader = Files.newBufferedReader(csvFile, StandardCharsets.UTF_8)) {
+            for (int c = 0; c < nCols; c++) {
+                outs[c] = new DataOutputStream(new BufferedOutputStream(
+                        Files.newOutputStream(ColumnarTable.columnFile(tmpDir, c)), 1 << 16));
+            }
+
+            String line;
+            long row = 0;
+            while ((line = reader.readLine()) != null) {
+                String[] values = splitChecked(line, nCols, row++);
+                for (int c = 0; c < nCols; c++) {
+                    if (encodings.get(c) == ColumnarTable.Encoding.LONG) {
+                        outs[c].writeLong(Long.parseLong(values[c]));
+                    } else {
+                        byte[] bytes = values[c].getBytes(StandardCharsets.UTF_8);
+                        outs[c].writeInt(bytes.length);
+                        outs[c].write(bytes);
+                    }
+                }
+            }
+        } finally {
+            for (DataOutputStream out : outs) {
+                if (out != null) out.close();
+            }
+        }
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                Files.newOutputStream(tmpDir.resolve(ColumnarTable.HEADER_FILE))))) {
+            out.writeInt(ColumnarTable.MAGIC);
+            out.writeInt(ColumnarTable.VERSION);
+            out.writeLong(rowCount);
+            out.writeLong(sourceSize);
+            out.writeLong(sourceModified);
+            out.writeInt(nCols);
+            for (int c = 0; c < nCols; c++) {
+                out.writeUTF(columnNames.get(c));
+                out.writeUTF(encodings.get(c).name());
+            }
+        }
+
+        deleteRecursively(targetDir);
+        Files.move(tmpDir, targetDir);
+
+        return ColumnarTable.open(targetDir);
+    }
+
+    // Splits a CSV line and checks that it has one value per schema column.
+    private static String[] splitChecked(String line, int nCols, long row) throws IOException {
+        String[] values = CsvRows.split(line);
+        if (values.length != nCols) {
+            throw new IOException("Row " + row + " has " + values.length + " values but the schema has " + nCols + " columns");
+        }
+        return values;
+    }
+
+    static void deleteRecursively(Path dir) throws IOException {
+        if (!Files.exists(dir)) return;
+        try (Stream<Path> paths = Files.walk(dir)) {
+            Path[] all = paths.sorted(Comparator.reverseOrder()).toArray(Path[]::new);
+            for (Path p : all) Files.deleteIfExists(p);
+        }
+    }
+}
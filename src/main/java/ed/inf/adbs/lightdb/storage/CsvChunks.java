@@ -0,0 +1,68 @@
+package ed.inf.adbs.lightdb.storage;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Splits a CSV file into contiguous byte ranges whose bounds fall on line starts, so that each range
+ * can be scanned independently (e.g. by MappedCsvReader on a different thread) without splitting a row.
+ */
+public final class CsvChunks {
+    private CsvChunks() {}
+
+    /**
+     * Returns chunk bounds b0 = 0 &lt; b1 &lt; ... &lt; bn = file size; chunk i is [b(i), b(i+1)).
+     * The file is cut into at most targetChunks pieces of roughly equal size, each at least minChunkBytes long
+     * (except possibly the last), and every cut is moved forward to the start of the next line.
+     */
+    public static long[] split(Path file, int targetChunks, long minChunkBytes) throws IOException {
+        if (file == null) throw new NullPointerException("file");
+        if (targetChunks < 1) throw new IllegalArgumentException("targetChunks must be >= 1");
+        if (minChunkBytes < 1) throw new IllegalArgumentException("minChunkBytes must be >= 1");
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long step = Math.max(minChunkBytes, (size + targetChunks - 1) / targetChunks);
+
+            List<Long> bounds = new ArrayList<Long>();
+            bounds.add(0L);
+
+            ByteBuffer buf = ByteBuffer.allocate(8192);
+            long prev = 0;
+            while (true) {
+                long cut = nextLineStart(channel, prev + step, size, buf);
+                if (cut >= size) break;
+                bounds.add(cut);
+                prev = cut;
+            }
+            if (size > 0) bounds.add(size);
+
+            long[] out = new long[bounds.size()];
+            for (int i = 0; i < out.length; i++) out[i] = bounds.get(i);
+            return out;
+        }
+    }
+
+    // Smallest line start >= pos, or size if there is none.
+    private static long nextLineStart(FileChannel channel, long pos, long size, ByteBuffer buf) throws IOException {
+        if (pos >= size) return size;
+
+        // pos is a line start iff the byte before it is a newline
+        long p = pos - 1;
+        while (p < size) {
+            buf.clear();
+            int n = channel.read(buf, p);
+            if (n <= 0) return size;
+            for (int i = 0; i < n; i++) {
+                if (buf.get(i) == '\n') return p + i + 1;
+            }
+            p += n;
+        }
+        return size;
+    }
+}
@@ -0,0 +1,46 @@
+package ed.inf.adbs.lightdb.storage;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reads the lines of a CSV file like BufferedReader.readLine while tracking the byte offset of the next line,
+ * so that callers can record where each row starts (zone map blocks, index row IDs).
+ * The stream should be buffered, since it is read one byte at a time.
+ */
+public final class CsvLineReader {
+    private final InputStream in;
+    private final ByteArrayOutputStream line = new ByteArrayOutputStream(256);
+    private long position;
+
+    public CsvLineReader(InputStream in) {
+        if (in == null) throw new NullPointerException("in");
+        this.in = in;
+    }
+
+    // Returns the next line without its terminator, or null at the end of the stream.
+    public String readLine() throws IOException {
+        line.reset();
+        int b;
+        boolean any = false;
+        while ((b = in.read()) >= 0) {
+            position++;
+            any = true;
+            if (b == '\n') break;
+            line.write(b);
+        }
+        if (!any) return null;
+
+        byte[] bytes = line.toByteArray();
+        int len = bytes.length;
+        if (len > 0 && bytes[len - 1] == '\r') len--;
+        return new String(bytes, 0, len, StandardCharsets.UTF_8);
+    }
+
+    // Byte offset of the start of the next line.
+    public long position() {
+        return position;
+    }
+}
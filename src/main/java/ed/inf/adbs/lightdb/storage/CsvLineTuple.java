@@ -0,0 +1,160 @@
+package ed.inf.adbs.lightdb.storage;
+
+import ed.inf.adbs.lightdb.Tuple;
+import ed.inf.adbs.lightdb.catalog.DataType;
+
+/**
+ * A tuple backed by the raw text of one CSV line, parsed lazily.
+ *
+ * Nothing is split when the tuple is created. The trimmed field boundaries are located on the first field access and
+ * cached; each field is then parsed according to its column type (or cut out as a String) only when it is first
+ * asked for, and the result is cached. Integer fields are parsed straight from the line's characters. A row rejected
+ * by a selection on one column, or projected down to a few columns, so never pays for the fields it does not touch.
+ * Fields are trimmed exactly like CsvRows.split, so the tuple is equal to the one Tuple.parse would produce.
+ */
+public final class CsvLineTuple extends Tuple {
+    private static final byte UNREAD = 0;
+    private static final byte SLOT = 1;
+    private static final byte TEXT = 2;
+
+    private final String line;
+    private final DataType[] types;
+
+    // [start0, end0, start1, end1, ...] of the trimmed fields, located on first access
+    private int[] bounds;
+    private byte[] state;
+    private long[] slots;
+    private String[] text;
+
+    // The types array is shared, not copied, so one array can serve a whole scan.
+    public CsvLineTuple(String line, DataType[] types) {
+        if (line == null) throw new NullPointerException("line cannot be null");
+        if (types == null) throw new NullPointerException("types cannot be null");
+        this.line = line;
+        this.types = types;
+    }
+
+    @Override
+    public int size() {
+        return types.length;
+    }
+
+    @Override
+    public DataType getType(int index) {
+        return types[index];
+    }
+
+    @Override
+    public String get(int index) {
+        read(index);
+        return (state[index] == TEXT) ? text[index] : format(types[index], slots[index]);
+    }
+
+    @Override
+    public boolean isNull(int index) {
+        read(index);
+        return state[index] == TEXT && text[index].isEmpty();
+    }
+
+    @Override
+    public long getLong(int index) {
+        read(index);
+        if (state[index] == SLOT && (types[index] == DataType.INT || types[index] == DataType.LONG)) return slots[index];
+        return super.getLong(index);
+    }
+
+    @Override
+    public double getDouble(int index) {
+        read(index);
+        if (state[index] == SLOT && types[index] == DataType.DOUBLE) return Double.longBitsToDouble(slots[index]);
+        return super.getDouble(index);
+    }
+
+    @Override
+    public boolean getBoolean(int index) {
+        read(index);
+        if (state[index] == SLOT && types[index] == DataType.BOOLEAN) return slots[index] != 0;
+        return super.getBoolean(index);
+    }
+
+    // Parses the field into its slot, or keeps its text, unless that was done before.
+    private void read(int index) {
+        int[] b = bounds();
+        if (state[index] != UNREAD) return;
+
+        int start = b[2 * index];
+        int end = b[2 * index + 1];
+        DataType type = types[index];
+
+        if (start < end && (type == DataType.INT || type == DataType.LONG) && end - start <= 18) {
+            if (parseLong(start, end, index)) {
+                state[index] = SLOT;
+                return;
+            }
+        }
+
+        long[] slot = new long[1];
+        String[] t = new String[1];
+        Tuple.parseField(line.substring(start, end), type, 0, slot, t);
+        if (t[0] != null) {
+            text[index] = t[0];
+            state[index] = TEXT;
+        } else {
+            slots[index] = slot[0];
+            state[index] = SLOT;
+        }
+    }
+
+    // Parses the field into its slot, without boxing. Up to 18 digits with an optional minus sign cannot overflow;
+    // returns false (leaving the slot unspecified) for anything else.
+    private boolean parseLong(int start, int end, int index) {
+        int p = start;
+        boolean negative = line.charAt(p) == '-';
+        if (negative) p++;
+        if (p == end) return false;
+
+        long v = 0;
+        for (; p < end; p++) {
+            int d = line.charAt(p) - '0';
+            if (d < 0 || d > 9) return false;
+            v = v * 10 + d;
+        }
+        slots[index] = negative ? -v : v;
+        return true;
+    }
+
+    // Locates the trimmed field boundaries within the line.
+    private int[] bounds() {
+        if (bounds != null) return bounds;
+
+        int fields = 1;
+        for (int p = 0; p < line.length(); p++) {
+            if (line.charAt(p) == ',') fields++;
+        }
+        if (fields != types.length) {
+            throw new IllegalArgumentException("Row has " + fields + " values but " + types.length + " columns are expected");
+        }
+
+        int[] b = new int[2 * fields];
+        int f = 0;
+        int start = 0;
+        int n = line.length();
+        for (int p = 0; p <= n; p++) {
+            if (p == n || line.charAt(p) == ',') {
+                int s = start;
+                int e = p;
+                while (s < e && line.charAt(s) <= ' ') s++;
+                while (e > s && line.charAt(e - 1) <= ' ') e--;
+                b[f++] = s;
+                b[f++] = e;
+                start = p + 1;
+            }
+        }
+
+        state = new byte[fields];
+        slots = new long[fields];
+        text = new String[fields];
+        bounds = b;
+        return b;
+    }
+}
@@ -0,0 +1,85 @@
+package ed.inf.adbs.lightdb.storage;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import ed.inf.adbs.lightdb.Tuple;
+import ed.inf.adbs.lightdb.catalog.DataType;
+
+/**
+ * Random access to the rows of a CSV file by row ID, where the row ID of a row is the byte offset of its line
+ * (as recorded by CsvLineReader when indexes are built).
+ * Reads go through a small reusable buffer; when row IDs are fetched in ascending order consecutive rows are usually
+ * served from the same buffer fill.
+ * Rows are parsed into Tuples with the column types given at construction.
+ */
+public final class CsvRowFetcher implements Closeable {
+    private static final int DEFAULT_BUFFER_SIZE = 8192;
+
+    private final Path file;
+    private final FileChannel channel;
+    private final long size;
+    private final DataType[] types;
+    private ByteBuffer buf;
+    private long bufStart = -1;
+
+    public CsvRowFetcher(Path file, DataType[] types) throws IOException {
+        if (file == null) throw new NullPointerException("file");
+        if (types == null) throw new NullPointerException("types");
+        this.file = file;
+        this.types = types;
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        this.size = channel.size();
+        this.buf = ByteBuffer.allocate(DEFAULT_BUFFER_SIZE);
+        this.buf.limit(0);
+    }
+
+    // Returns the row whose line starts at the given byte offset.
+    public Tuple fetch(long offset) throws IOException {
+        while (true) {
+            if (bufStart < 0 || offset < bufStart || offset >= bufStart + buf.limit()) {
+                fill(offset);
+                if (buf.limit() == 0) throw new IOException("Row ID " + offset + " is past the end of " + file);
+            }
+
+            int start = (int) (offset - bufStart);
+            int limit = buf.limit();
+            int nl = start;
+            byte[] bytes = buf.array();
+            while (nl < limit && bytes[nl] != '\n') nl++;
+
+            boolean atEof = bufStart + limit >= size;
+            if (nl == limit && !atEof) {
+                // The line does not fit in what is buffered: refill from the line start, growing the buffer if needed
+                if (start == 0) buf = ByteBuffer.allocate(buf.capacity() * 2);
+                fill(offset);
+                continue;
+            }
+
+            int end = nl;
+            if (end > start && bytes[end - 1] == '\r') end--;
+            String line = new String(bytes, start, end - start, StandardCharsets.UTF_8);
+            return Tuple.parse(CsvRows.split(line), types);
+        }
+    }
+
+    private void fill(long offset) throws IOException {
+        buf.clear();
+        while (buf.hasRemaining()) {
+            int n = channel.read(buf, offset + buf.position());
+            if (n < 0) break;
+        }
+        buf.flip();
+        bufStart = offset;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,31 @@
+package ed.inf.adbs.lightdb.storage;
+
+/**
+ * Shared definition of how a line of a table's CSV file is split into field values.
+ * Fields are separated by commas and trimmed so that values are canonical regardless of CSV spacing.
+ */
+public final class CsvRows {
+    private static final String DELIMITER_REGEX = ",";
+
+    private CsvRows() {}
+
+    public static String[] split(String line) {
+        if (line == null) throw new NullPointerException("line");
+
+        String[] values = line.split(DELIMITER_REGEX, -1);
+        for (int i = 0; i < values.length; i++) {
+            values[i] = values[i].trim();
+        }
+        return values;
+    }
+
+    // True if the value can be stored as a 64-bit integer without losing its textual form.
+    public static boolean isCanonicalLong(String value) {
+        if (value.isEmpty() || value.length() > 20) return false;
+        try {
+            return Long.toString(Long.parseLong(value)).equals(value);
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+}
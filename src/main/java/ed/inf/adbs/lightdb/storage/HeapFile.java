@@ -0,0 +1,133 @@
+package ed.inf.adbs.lightdb.storage;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import ed.inf.adbs.lightdb.Tuple;
+import ed.inf.adbs.lightdb.catalog.DataType;
+
+/**
+ * Read side of the heap file format.
+ *
+ * A heap file is a sequence of HeapPage.PAGE_SIZE pages. Page 0 is the header: it records the number of data pages,
+ * the row count, the size and modification time of the source CSV (used to detect stale copies) and the column names.
+ * Pages 1..pageCount hold the rows as slotted records, addressed by RecordId. All page reads go through the shared
+ * BufferPool, so repeated scans of a hot table are served from memory.
+ */
+public final class HeapFile {
+    static final int MAGIC = 0x4C444248; // "LDBH"
+    static final int VERSION = 1;
+
+    private final Path file;
+    private final int pageCount;
+    private final long rowCount;
+    private final long sourceSize;
+    private final long sourceModified;
+    private final List<String> columnNames;
+
+    private HeapFile(Path file, int pageCount, long rowCount, long sourceSize, long sourceModified, List<String> columnNames) {
+        this.file = file;
+        this.pageCount = pageCount;
+        this.rowCount = rowCount;
+        this.sourceSize = sourceSize;
+        this.sourceModified = sourceModified;
+        this.columnNames = Collections.unmodifiableList(columnNames);
+    }
+
+    // Reads the header page of the heap file.
+    public static HeapFile open(Path file) throws IOException {
+        if (file == null) throw new NullPointerException("file");
+
+        byte[] header;
+        try (BufferPool.PinnedPage page = BufferPool.getInstance().pin(file, 0)) {
+            header = page.data().clone();
+        }
+
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(header))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a heap file: " + file);
+            }
+            int version = in.readInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported heap file version " + version + " in " + file);
+            }
+
+            int pageCount = in.readInt();
+            long rowCount = in.readLong();
+            long sourceSize = in.readLong();
+            long sourceModified = in.readLong();
+
+            int nCols = in.readInt();
+            List<String> names = new ArrayList<String>(nCols);
+            for (int i = 0; i < nCols; i++) names.add(in.readUTF());
+
+            return new HeapFile(file, pageCount, rowCount, sourceSize, sourceModified, names);
+        }
+    }
+
+    // True if the file holds a heap copy that was produced from the current contents of sourceCsv.
+    public static boolean isFresh(Path file, Path sourceCsv) {
+        if (!Files.isRegularFile(file) || !Files.isRegularFile(sourceCsv)) return false;
+        try {
+            HeapFile heap = open(file);
+            return heap.sourceSize == Files.size(sourceCsv)
+                    && heap.sourceModified == Files.getLastModifiedTime(sourceCsv).toMillis();
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    public int getPageCount() {
+        return pageCount;
+    }
+
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    public List<String> getColumnNames() {
+        return columnNames;
+    }
+
+    // Decodes every record of a data page (1..pageCount).
+    public List<Tuple> readPage(int pageNo) throws IOException {
+        return readPage(pageNo, null);
+    }
+
+    // Decodes every record of a data page, parsing the fields according to the given column types (if not null).
+    public List<Tuple> readPage(int pageNo, DataType[] types) throws IOException {
+        checkPage(pageNo);
+        try (BufferPool.PinnedPage pinned = BufferPool.getInstance().pin(file, pageNo)) {
+            HeapPage page = HeapPage.wrap(pinned.data());
+            int slots = page.getSlotCount();
+            List<Tuple> rows = new ArrayList<Tuple>(slots);
+            for (int s = 0; s < slots; s++) rows.add((types == null) ? page.read(s) : page.read(s, types));
+            return rows;
+        }
+    }
+
+    // Fetches a single row by its record ID.
+    public Tuple fetch(long rid) throws IOException {
+        int pageNo = RecordId.pageNo(rid);
+        checkPage(pageNo);
+        try (BufferPool.PinnedPage pinned = BufferPool.getInstance().pin(file, pageNo)) {
+            return HeapPage.wrap(pinned.data()).read(RecordId.slot(rid));
+        }
+    }
+
+    private void checkPage(int pageNo) {
+        if (pageNo < 1 || pageNo > pageCount) {
+            throw new IndexOutOfBoundsException("Page " + pageNo + " out of range, " + file + " has " + pageCount + " data pages");
+        }
+    }
+}
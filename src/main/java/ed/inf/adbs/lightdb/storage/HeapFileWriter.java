@@ -0,0 +1,104 @@
+package ed.inf.adbs.lightdb.storage;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Converts a table's CSV file into the heap file format read by HeapFile.
+ *
+ * Rows are appended to slotted pages in CSV order in a single pass; a page is written out as soon as the next row
+ * no longer fits. The header page is written last, once the page and row counts are known.
+ * The output is written to a temporary sibling file and moved into place only once complete, after the old
+ * file's pages have been dropped from the BufferPool.
+ */
+public final class HeapFileWriter {
+    private HeapFileWriter() {}
+
+    public static HeapFile convert(Path csvFile, List<String> columnNames, Path targetFile) throws IOException {
+        if (csvFile == null) throw new NullPointerException("csvFile");
+        if (columnNames == null) throw new NullPointerException("columnNames");
+        if (targetFile == null) throw new NullPointerException("targetFile");
+
+        int nCols = columnNames.size();
+        long sourceSize = Files.size(csvFile);
+        long sourceModified = Files.getLastModifiedTime(csvFile).toMillis();
+
+        Path tmpFile = targetFile.resolveSibling(targetFile.getFileName().toString() + ".tmp");
+        Files.createDirectories(tmpFile.toAbsolutePath().getParent());
+        int pageCount = 0;
+        long rowCount = 0;
+
+        try (BufferedReader reader = Files.newBufferedReader(csvFile, StandardCharsets.UTF_8);
+             OutputStream out = new BufferedOutputStream(Files.newOutputStream(tmpFile), 1 << 16)) {
+            // Reserve page 0 for the header
+            out.write(new byte[HeapPage.PAGE_SIZE]);
+
+            byte[] data = new byte[HeapPage.PAGE_SIZE];
+            HeapPage page = HeapPage.format(data);
+
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] values = CsvRows.split(line);
+                if (values.length != nCols) {
+                    throw new IOException("Row " + rowCount + " has " + values.length + " values but the schema has " + nCols + " columns");
+                }
+                byte[] record = HeapPage.encode(values);
+
+                if (page.insert(record) < 0) {
+                    out.write(data);
+                    pageCount++;
+                    page = HeapPage.format(data);
+                    page.insert(record);
+                }
+                rowCount++;
+            }
+
+            if (page.getSlotCount() > 0) {
+                out.write(data);
+                pageCount++;
+            }
+        }
+
+        writeHeader(tmpFile, pageCount, rowCount, sourceSize, sourceModified, columnNames);
+
+        BufferPool.getInstance().invalidate(targetFile);
+        Files.move(tmpFile, targetFile, StandardCopyOption.REPLACE_EXISTING);
+
+        return HeapFile.open(targetFile);
+    }
+
+    private static void writeHeader(Path file, int pageCount, long rowCount, long sourceSize, long sourceModified,
+                                    List<String> columnNames) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(HeapPage.PAGE_SIZE);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(HeapFile.MAGIC);
+            out.writeInt(HeapFile.VERSION);
+            out.writeInt(pageCount);
+            out.writeLong(rowCount);
+            out.writeLong(sourceSize);
+            out.writeLong(sourceModified);
+            out.writeInt(columnNames.size());
+            for (String name : columnNames) out.writeUTF(name);
+        }
+        if (bytes.size() > HeapPage.PAGE_SIZE) {
+            throw new IOException("Heap file header does not fit in one page (" + columnNames.size() + " columns)");
+        }
+
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            ByteBuffer src = ByteBuffer.wrap(bytes.toByteArray());
+            while (src.hasRemaining()) ch.write(src, src.position());
+        }
+    }
+}
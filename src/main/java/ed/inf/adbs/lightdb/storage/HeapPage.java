@@ -0,0 +1,130 @@
+package ed.inf.adbs.lightdb.storage;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import ed.inf.adbs.lightdb.Tuple;
+import ed.inf.adbs.lightdb.catalog.DataType;
+
+/**
+ * A fixed-size slotted page of a heap file.
+ *
+ * Layout: a 4-byte header (slot count, start of the record area), followed by the slot directory, which grows
+ * towards the end of the page; records are packed from the end of the page backwards. Each slot holds the offset
+ * and length of one record, so a record is addressed by its slot number and never has to move within the page.
+ * A record is a field count followed by each field as a length-prefixed UTF-8 string.
+ */
+public final class HeapPage {
+    public static final int PAGE_SIZE = 8192;
+
+    private static final int HEADER_SIZE = 4;
+    private static final int SLOT_SIZE = 4;
+
+    private final ByteBuffer buf;
+
+    private HeapPage(ByteBuffer buf) {
+        this.buf = buf;
+    }
+
+    // Wraps the bytes of an existing page.
+    public static HeapPage wrap(byte[] data) {
+        if (data.length != PAGE_SIZE) throw new IllegalArgumentException("Page must be " + PAGE_SIZE + " bytes");
+        return new HeapPage(ByteBuffer.wrap(data));
+    }
+
+    // Creates an empty page in the given buffer.
+    public static HeapPage format(byte[] data) {
+        HeapPage page = wrap(data);
+        Arrays.fill(data, (byte) 0);
+        page.setSlotCount(0);
+        page.setRecordStart(PAGE_SIZE);
+        return page;
+    }
+
+    public int getSlotCount() {
+        return buf.getShort(0) & 0xFFFF;
+    }
+
+    // Stores an encoded record, returning its slot number, or -1 if the page has no room left.
+    public int insert(byte[] record) {
+        int slots = getSlotCount();
+        int freeStart = HEADER_SIZE + slots * SLOT_SIZE;
+        int recordStart = getRecordStart();
+        if (recordStart - freeStart < record.length + SLOT_SIZE) return -1;
+
+        int offset = recordStart - record.length;
+        for (int i = 0; i < record.length; i++) buf.put(offset + i, record[i]);
+
+        buf.putShort(freeStart, (short) offset);
+        buf.putShort(freeStart + 2, (short) record.length);
+        setSlotCount(slots + 1);
+        setRecordStart(offset);
+        return slots;
+    }
+
+    // Decodes the record in the given slot.
+    public Tuple read(int slot) {
+        return new Tuple(Arrays.asList(fields(slot)));
+    }
+
+    // Decodes the record in the given slot, parsing each field according to its column type.
+    public Tuple read(int slot, DataType[] types) {
+        return Tuple.parse(fields(slot), types);
+    }
+
+    private String[] fields(int slot) {
+        if (slot < 0 || slot >= getSlotCount()) {
+            throw new IndexOutOfBoundsException("Slot " + slot + " out of range, page has " + getSlotCount());
+        }
+        int p = buf.getShort(HEADER_SIZE + slot * SLOT_SIZE) & 0xFFFF;
+
+        int fields = buf.getShort(p) & 0xFFFF;
+        p += 2;
+        String[] values = new String[fields];
+        for (int f = 0; f < fields; f++) {
+            int len = buf.getShort(p) & 0xFFFF;
+            p += 2;
+            values[f] = new String(buf.array(), p, len, StandardCharsets.UTF_8);
+            p += len;
+        }
+        return values;
+    }
+
+    // Encodes a row as a record; fails if it could never fit in a single page.
+    public static byte[] encode(String[] values) {
+        byte[][] fields = new byte[values.length][];
+        int size = 2;
+        for (int i = 0; i < values.length; i++) {
+            fields[i] = values[i].getBytes(StandardCharsets.UTF_8);
+            size += 2 + fields[i].length;
+        }
+        if (size > maxRecordSize()) {
+            throw new IllegalArgumentException("Row of " + size + " bytes does not fit in a " + PAGE_SIZE + "-byte page");
+        }
+
+        ByteBuffer out = ByteBuffer.allocate(size);
+        out.putShort((short) values.length);
+        for (byte[] f : fields) {
+            out.putShort((short) f.length);
+            out.put(f);
+        }
+        return out.array();
+    }
+
+    static int maxRecordSize() {
+        return PAGE_SIZE - HEADER_SIZE - SLOT_SIZE;
+    }
+
+    private int getRecordStart() {
+        return buf.getShort(2) & 0xFFFF;
+    }
+
+    private void setSlotCount(int n) {
+        buf.putShort(0, (short) n);
+    }
+
+    private void setRecordStart(int offset) {
+        buf.putShort(2, (short) offset);
+    }
+}
@@ -0,0 +1,114 @@
+package ed.inf.adbs.lightdb.storage;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import ed.inf.adbs.lightdb.Tuple;
+
+/**
+ * Reads the rows of a CSV file through memory-mapped windows of the file (FileChannel.map).
+ *
+ * Each row is returned as a MappedCsvTuple that points into the mapped window, so no bytes are copied and no Strings
+ * are created while scanning. Files larger than one window are mapped piece by piece; a window always starts at the
+ * beginning of a line, so a line never straddles two windows. Windows stay mapped for as long as tuples refer to them.
+ * Line terminators are "\n" or "\r\n", matching BufferedReader.readLine for the files LightDB reads.
+ * A reader can also be restricted to a byte range of the file whose bounds are line starts (see CsvChunks).
+ */
+public final class MappedCsvReader implements Closeable {
+    static final long DEFAULT_WINDOW_SIZE = 64L << 20;
+
+    private final Path file;
+    private final FileChannel channel;
+    private final long regionStart;
+    private final long regionEnd;
+    private final long windowSize;
+
+    private MappedByteBuffer window;
+    private long windowStart;
+    private int pos;
+
+    public MappedCsvReader(Path file) throws IOException {
+        this(file, 0, Long.MAX_VALUE, DEFAULT_WINDOW_SIZE);
+    }
+
+    // Reads only the rows that start in [start, end). Both bounds must be line starts (or end of file).
+    public MappedCsvReader(Path file, long start, long end) throws IOException {
+        this(file, start, end, DEFAULT_WINDOW_SIZE);
+    }
+
+    MappedCsvReader(Path file, long windowSize) throws IOException {
+        this(file, 0, Long.MAX_VALUE, windowSize);
+    }
+
+    MappedCsvReader(Path file, long start, long end, long windowSize) throws IOException {
+        if (file == null) throw new NullPointerException("file");
+        if (windowSize <= 0 || windowSize > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("windowSize out of range: " + windowSize);
+        }
+        if (start < 0 || end < start) {
+            throw new IllegalArgumentException("Invalid region [" + start + ", " + end + ")");
+        }
+        this.file = file;
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        this.regionStart = start;
+        this.regionEnd = Math.min(end, channel.size());
+        this.windowSize = windowSize;
+        this.window = null;
+        this.windowStart = start;
+        this.pos = 0;
+    }
+
+    // Returns the next row, or null at the end of the file.
+    public Tuple next() throws IOException {
+        while (true) {
+            if (window == null || pos >= window.limit()) {
+                long next = (window == null) ? windowStart : windowStart + pos;
+                if (next >= regionEnd) return null;
+                map(next);
+            }
+
+            int limit = window.limit();
+            int nl = pos;
+            while (nl < limit && window.get(nl) != '\n') nl++;
+
+            if (nl == limit && windowStart + limit < regionEnd) {
+                // The line continues past this window: remap so that it starts at the line.
+                if (pos == 0) {
+                    throw new IOException("Line longer than the mapping window (" + windowSize + " bytes) in " + file);
+                }
+                map(windowStart + pos);
+                continue;
+            }
+
+            int start = pos;
+            int end = nl;
+            if (end > start && window.get(end - 1) == '\r') end--;
+            pos = nl + 1;
+
+            return new MappedCsvTuple(window, start, end);
+        }
+    }
+
+    // Rewinds to the beginning of the file (or region).
+    public void rewind() {
+        window = null;
+        windowStart = regionStart;
+        pos = 0;
+    }
+
+    private void map(long offset) throws IOException {
+        long length = Math.min(windowSize, regionEnd - offset);
+        window = channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+        windowStart = offset;
+        pos = 0;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
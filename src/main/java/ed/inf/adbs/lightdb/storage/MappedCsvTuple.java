@@ -0,0 +1,144 @@
+package ed.inf.adbs.lightdb.storage;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import ed.inf.adbs.lightdb.Tuple;
+
+/**
+ * A tuple backed directly by one line of a memory-mapped CSV file.
+ *
+ * Nothing is copied when the tuple is created. Field boundaries are located on the first field access and cached;
+ * each field is decoded into a String only when get(int) asks for it, and getLong(int) parses integers straight
+ * from the mapped bytes without creating a String at all. Parsed integers are cached too, so each field is parsed at
+ * most once however many operators read it.
+ * Fields are trimmed exactly like CsvRows.split, so the tuple is equal to the one a buffered scan produces.
+ */
+public final class MappedCsvTuple extends Tuple {
+    private final ByteBuffer buf;
+    private final int lineStart;
+    private final int lineEnd;
+
+    // [start0, end0, start1, end1, ...] of the trimmed fields, located on first access
+    private int[] bounds;
+    private String[] decoded;
+    private long[] longs;
+    private boolean[] parsed;
+
+    MappedCsvTuple(ByteBuffer buf, int lineStart, int lineEnd) {
+        this.buf = buf;
+        this.lineStart = lineStart;
+        this.lineEnd = lineEnd;
+    }
+
+    @Override
+    public int size() {
+        return bounds().length / 2;
+    }
+
+    @Override
+    public String get(int index) {
+        int[] b = bounds();
+        if (index < 0 || index >= b.length / 2) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + b.length / 2);
+        }
+        if (decoded == null) decoded = new String[b.length / 2];
+
+        String v = decoded[index];
+        if (v == null) {
+            v = decode(b[2 * index], b[2 * index + 1]);
+            decoded[index] = v;
+        }
+        return v;
+    }
+
+    @Override
+    public long getLong(int index) {
+        int[] b = bounds();
+        if (index < 0 || index >= b.length / 2) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + b.length / 2);
+        }
+        if (parsed == null) {
+            parsed = new boolean[b.length / 2];
+            longs = new long[b.length / 2];
+        } else if (parsed[index]) {
+            return longs[index];
+        }
+
+        long v = parseLong(b, index);
+        longs[index] = v;
+        parsed[index] = true;
+        return v;
+    }
+
+    private long parseLong(int[] b, int index) {
+        if (decoded != null && decoded[index] != null) return Long.parseLong(decoded[index]);
+
+        int p = b[2 * index];
+        int end = b[2 * index + 1];
+
+        boolean negative = false;
+        if (p < end) {
+            byte sign = buf.get(p);
+            if (sign == '-' || sign == '+') {
+                negative = sign == '-';
+                p++;
+            }
+        }
+
+        // Up to 18 digits cannot overflow; anything longer (or empty) takes the general path for exact error handling.
+        if (p == end || end - p > 18) return Long.parseLong(get(index));
+
+        long v = 0;
+        for (; p < end; p++) {
+            int d = buf.get(p) - '0';
+            if (d < 0 || d > 9) throw new NumberFormatException("For input string: \"" + get(index) + "\"");
+            v = v * 10 + d;
+        }
+        return negative ? -v : v;
+    }
+
+    // Locates the trimmed field boundaries within the line.
+    private int[] bounds() {
+        if (bounds != null) return bounds;
+
+        int fields = 1;
+        for (int p = lineStart; p < lineEnd; p++) {
+            if (buf.get(p) == ',') fields++;
+        }
+
+        int[] b = new int[2 * fields];
+        int f = 0;
+        int start = lineStart;
+        for (int p = lineStart; p <= lineEnd; p++) {
+            if (p == lineEnd || buf.get(p) == ',') {
+                int s = start;
+                int e = p;
+                while (s < e && (buf.get(s) & 0xFF) <= ' ') s++;
+                while (e > s && (buf.get(e - 1) & 0xFF) <= ' ') e--;
+                b[f++] = s;
+                b[f++] = e;
+                start = p + 1;
+            }
+        }
+
+        bounds = b;
+        return b;
+    }
+
+    private String decode(int start, int end) {
+        char[] chars = new char[end - start];
+        for (int p = start; p < end; p++) {
+            byte c = buf.get(p);
+            if (c < 0) return decodeUtf8(start, end);
+            chars[p - start] = (char) c;
+        }
+        return new String(chars);
+    }
+
+    private String decodeUtf8(int start, int end) {
+        byte[] bytes = new byte[end - start];
+        for (int p = start; p < end; p++) bytes[p - start] = buf.get(p);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,30 @@
+package ed.inf.adbs.lightdb.storage;
+
+/**
+ * Record IDs of rows stored in a heap file, packed into a single long as (page number, slot number).
+ * Packing keeps record IDs allocation-free, so indexes and row-id lists can hold them in primitive arrays.
+ */
+public final class RecordId {
+    private static final int SLOT_BITS = 16;
+    private static final long SLOT_MASK = (1L << SLOT_BITS) - 1;
+
+    private RecordId() {}
+
+    public static long of(int pageNo, int slot) {
+        if (pageNo < 0) throw new IllegalArgumentException("pageNo must be >= 0: " + pageNo);
+        if (slot < 0 || slot > SLOT_MASK) throw new IllegalArgumentException("slot out of range: " + slot);
+        return ((long) pageNo << SLOT_BITS) | slot;
+    }
+
+    public static int pageNo(long rid) {
+        return (int) (rid >>> SLOT_BITS);
+    }
+
+    public static int slot(long rid) {
+        return (int) (rid & SLOT_MASK);
+    }
+
+    public static String toString(long rid) {
+        return "(" + pageNo(rid) + ", " + slot(rid) + ")";
+    }
+}
@@ -0,0 +1,228 @@
+package ed.inf.adbs.lightdb.storage;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+
+/**
+ * Block-level min/max summaries (a zone map) of a table's CSV file.
+ *
+ * The file is divided into blocks of a fixed number of rows. For each block the zone map records the byte range of
+ * its lines and, per column, the smallest and largest integer value. A column that holds a non-integer or empty
+ * value anywhere in a block gets the unbounded range [Long.MIN_VALUE, Long.MAX_VALUE] for that block, so it can
+ * never be used to skip it. Like the converted storage formats, a zone map records the size and modification time of
+ * its source CSV so that stale copies are detected and rebuilt.
+ */
+public final class ZoneMap {
+    static final int MAGIC = 0x4C44425A; // "LDBZ"
+    static final int VERSION = 1;
+    public static final int DEFAULT_ROWS_PER_BLOCK = 1024;
+
+    private final long sourceSize;
+    private final long sourceModified;
+    private final int columnCount;
+    private final long[] blockStart;
+    private final long[] blockEnd;
+    // [block * columnCount + column]
+    private final long[] min;
+    private final long[] max;
+
+    private ZoneMap(long sourceSize, long sourceModified, int columnCount,
+                    long[] blockStart, long[] blockEnd, long[] min, long[] max) {
+        this.sourceSize = sourceSize;
+        this.sourceModified = sourceModified;
+        this.columnCount = columnCount;
+        this.blockStart = blockStart;
+        this.blockEnd = blockEnd;
+        this.min = min;
+        this.max = max;
+    }
+
+    // Returns the zone map stored in zoneFile if it is up to date with csv, otherwise builds and stores a new one.
+    public static ZoneMap loadOrBuild(Path csv, int columnCount, Path zoneFile) throws IOException {
+        if (Files.isRegularFile(zoneFile)) {
+            ZoneMap existing = read(zoneFile);
+            if (existing.columnCount == columnCount && existing.isFreshFor(csv)) return existing;
+        }
+
+        ZoneMap built = build(csv, columnCount, DEFAULT_ROWS_PER_BLOCK);
+        built.write(zoneFile);
+        return built;
+    }
+
+    // Summarises the CSV in a single sequential pass.
+    public static ZoneMap build(Path csv, int columnCount, int rowsPerBlock) throws IOException {
+        if (rowsPerBlock < 1) throw new IllegalArgumentException("rowsPerBlock must be >= 1");
+
+        long sourceSize = Files.size(csv);
+        long sourceModified = Files.getLastModifiedTime(csv).toMillis();
+
+        GrowableLongs starts = new GrowableLongs();
+        GrowableLongs ends = new GrowableLongs();
+        GrowableLongs mins = new GrowableLongs();
+        GrowableLongs maxs = new GrowableLongs();
+
+        long[] blockMin = new long[columnCount];
+        long[] blockMax = new long[columnCount];
+
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(csv), 1 << 16)) {
+            CsvLineReader reader = new CsvLineReader(in);
+            long offset = 0;
+            int rowsInBlock = 0;
+
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (rowsInBlock == 0) {
+                    starts.add(offset);
+                    Arrays.fill(blockMin, Long.MAX_VALUE);
+                    Arrays.fill(blockMax, Long.MIN_VALUE);
+                }
+
+                String[] values = CsvRows.split(line);
+                for (int c = 0; c < columnCount; c++) {
+                    String v = (c < values.length) ? values[c] : "";
+                    if (blockMin[c] == Long.MIN_VALUE && blockMax[c] == Long.MAX_VALUE) continue;
+
+                    if (CsvRows.isCanonicalLong(v)) {
+                        long x = Long.parseLong(v);
+                        if (x < blockMin[c]) blockMin[c] = x;
+                        if (x > blockMax[c]) blockMax[c] = x;
+                    } else {
+                        blockMin[c] = Long.MIN_VALUE;
+                        blockMax[c] = Long.MAX_VALUE;
+                    }
+                }
+
+                offset = reader.position();
+                if (++rowsInBlock == rowsPerBlock) {
+                    ends.add(offset);
+                    for (int c = 0; c < columnCount; c++) {
+                        mins.add(blockMin[c]);
+                        maxs.add(blockMax[c]);
+                    }
+                    rowsInBlock = 0;
+                }
+            }
+
+            if (rowsInBlock > 0) {
+                ends.add(offset);
+                for (int c = 0; c < columnCount; c++) {
+                    mins.add(blockMin[c]);
+                    maxs.add(blockMax[c]);
+                }
+            }
+        }
+
+        return new ZoneMap(sourceSize, sourceModified, columnCount,
+                starts.toArray(), ends.toArray(), mins.toArray(), maxs.toArray());
+    }
+
+    public static ZoneMap read(Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC) throw new IOException("Not a zone map: " + file);
+            int version = in.readInt();
+            if (version != VERSION) throw new IOException("Unsupported zone map version " + version + " in " + file);
+
+            long sourceSize = in.readLong();
+            long sourceModified = in.readLong();
+            int columnCount = in.readInt();
+            int blocks = in.readInt();
+
+            long[] starts = new long[blocks];
+            long[] ends = new long[blocks];
+            long[] mins = new long[blocks * columnCount];
+            long[] maxs = new long[blocks * columnCount];
+            for (int b = 0; b < blocks; b++) {
+                starts[b] = in.readLong();
+                ends[b] = in.readLong();
+                for (int c = 0; c < columnCount; c++) {
+                    mins[b * columnCount + c] = in.readLong();
+                    maxs[b * columnCount + c] = in.readLong();
+                }
+            }
+            return new ZoneMap(sourceSize, sourceModified, columnCount, starts, ends, mins, maxs);
+        }
+    }
+
+    // Writes the zone map to a temporary sibling file, then moves it into place.
+    public void write(Path file) throws IOException {
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        Path tmp = file.resolveSibling(file.getFileName().toString() + ".tmp");
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(sourceSize);
+            out.writeLong(sourceModified);
+            out.writeInt(columnCount);
+            out.writeInt(getBlockCount());
+            for (int b = 0; b < getBlockCount(); b++) {
+                out.writeLong(blockStart[b]);
+                out.writeLong(blockEnd[b]);
+                for (int c = 0; c < columnCount; c++) {
+                    out.writeLong(min[b * columnCount + c]);
+                    out.writeLong(max[b * columnCount + c]);
+                }
+            }
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    // True if the zone map was built from the current contents of the CSV.
+    public boolean isFreshFor(Path csv) {
+        try {
+            return Files.isRegularFile(csv)
+                    && sourceSize == Files.size(csv)
+                    && sourceModified == Files.getLastModifiedTime(csv).toMillis();
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    public int getBlockCount() {
+        return blockStart.length;
+    }
+
+    public int getColumnCount() {
+        return columnCount;
+    }
+
+    // Byte offset of the first line of the block.
+    public long getBlockStart(int block) {
+        return blockStart[block];
+    }
+
+    // Byte offset just past the last line of the block.
+    public long getBlockEnd(int block) {
+        return blockEnd[block];
+    }
+
+    public long getMin(int block, int column) {
+        return min[block * columnCount + column];
+    }
+
+    public long getMax(int block, int column) {
+        return max[block * columnCount + column];
+    }
+
+    private static final class GrowableLongs {
+        private long[] a = new long[64];
+        private int n;
+
+        void add(long v) {
+            if (n == a.length) a = Arrays.copyOf(a, n * 2);
+            a[n++] = v;
+        }
+
+        long[] toArray() {
+            return Arrays.copyOf(a, n);
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package ed.inf.adbs.lightdb.util;
+
+import net.sf.jsqlparser.expression.Expression;
+import net.sf.jsqlparser.expression.LongValue;
+import net.sf.jsqlparser.expression.Parenthesis;
+import net.sf.jsqlparser.expression.operators.relational.ComparisonOperator;
+import net.sf.jsqlparser.expression.operators.relational.EqualsTo;
+import net.sf.jsqlparser.expression.operators.relational.GreaterThan;
+import net.sf.jsqlparser.expression.operators.relational.GreaterThanEquals;
+import net.sf.jsqlparser.expression.operators.relational.MinorThan;
+import net.sf.jsqlparser.expression.operators.relational.MinorThanEquals;
+import net.sf.jsqlparser.expression.operators.relational.NotEqualsTo;
+import net.sf.jsqlparser.schema.Column;
+
+import java.util.Locale;
+
+/**
+ * A predicate of the form "column op constant", recognised in a WHERE conjunct.
+ * "constant op column" is normalised by flipping the operator, so the column is always on the left.
+ * Used wherever a conjunct can be answered from metadata about a column (zone maps, indexes) instead of row by row.
+ */
+
+public final class ColumnComparison {
+
+    public enum Op {
+        EQ, NE, LT, LE, GT, GE;
+
+        // The operator with its operands swapped: (c op v) == (v flip(op) c).
+        Op flip() {
+            switch (this) {
+                case LT: return GT;
+                case LE: return GE;
+                case GT: return LT;
+                case GE: return LE;
+                default: return this;
+            }
+        }
+    }
+
+    private final String tableName;
+    private final String columnName;
+    private final Op op;
+    private final long value;
+
+    public ColumnComparison(String tableName, String columnName, Op op, long value) {
+        if (columnName == null) throw new NullPointerException("columnName cannot be null");
+        if (op == null) throw new NullPointerException("op cannot be null");
+        this.tableName = tableName == null ? null : norm(tableName);
+        this.columnName = norm(columnName);
+        this.op = op;
+        this.value = value;
+    }
+
+    // Recognises a column-versus-constant comparison; returns null for any other expression.
+    public static ColumnComparison of(Expression e) {
+        while (e instanceof Parenthesis) e = ((Parenthesis) e).getExpression();
+        if (!(e instanceof ComparisonOperator)) return null;
+
+        Op op = opOf((ComparisonOperator) e);
+        if (op == null) return null;
+
+        Expression left = ((ComparisonOperator) e).getLeftExpression();
+        Expression right = ((ComparisonOperator) e).getRightExpression();
+
+        if (left instanceof Column && right instanceof LongValue) {
+            return of((Column) left, op, ((LongValue) right).getValue());
+        }
+        if (left instanceof LongValue && right instanceof Column) {
+            return of((Column) right, op.flip(), ((LongValue) left).getValue());
+        }
+        return null;
+    }
+
+    private static ColumnComparison of(Column c, Op op, long value) {
+        String table = (c.getTable() == null) ? null : c.getTable().getName();
+        return new ColumnComparison(table, c.getColumnName(), op, value);
+    }
+
+    private static Op opOf(ComparisonOperator e) {
+        if (e instanceof EqualsTo) return Op.EQ;
+        if (e instanceof NotEqualsTo) return Op.NE;
+        if (e instanceof MinorThan) return Op.LT;
+        if (e instanceof MinorThanEquals) return Op.LE;
+        if (e instanceof GreaterThan) return Op.GT;
+        if (e instanceof GreaterThanEquals) return Op.GE;
+        return null;
+    }
+
+    // Table qualifier as written in the query (normalised), or null if unqualified.
+    public String getTableName() {
+        return tableName;
+    }
+
+    public String getColumnName() {
+        return columnName;
+    }
+
+    public Op getOp() {
+        return op;
+    }
+
+    public long getValue() {
+        return value;
+    }
+
+    // True if some value in [min, max] could satisfy the comparison.
+    public boolean mayMatch(long min, long max) {
+        switch (op) {
+            case EQ: return min <= value && value <= max;
+            case NE: return !(min == value && max == value);
+            case LT: return min < value;
+            case LE: return min <= value;
+            case GT: return max > value;
+            case GE: return max >= value;
+            default: throw new IllegalStateException("Unknown comparison operator: " + op);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return (tableName == null ? "" : tableName + ".") + columnName + " " + op + " " + value;
+    }
+
+    private static String norm(String s) {
+        return s.trim().toLowerCase(Locale.ROOT);
+    }
+}
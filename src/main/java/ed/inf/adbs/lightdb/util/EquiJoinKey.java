@@ -0,0 +1,96 @@
+package ed.inf.adbs.lightdb.util;
+
+import net.sf.jsqlparser.expression.Expression;
+import net.sf.jsqlparser.expression.Parenthesis;
+import net.sf.jsqlparser.expression.operators.relational.EqualsTo;
+import net.sf.jsqlparser.schema.Column;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * A predicate of the form "table1.column1 = table2.column2" between two different tables, recognised in a WHERE
+ * conjunct. Join operators that match rows by key (index lookups, hashing, sorting) are driven by these.
+ * Both columns must be qualified, since join predicates are classified by the tables they reference.
+ */
+
+public final class EquiJoinKey {
+    private final String leftTable;
+    private final String leftColumn;
+    private final String rightTable;
+    private final String rightColumn;
+
+    public EquiJoinKey(String leftTable, String leftColumn, String rightTable, String rightColumn) {
+        if (leftTable == null) throw new NullPointerException("leftTable cannot be null");
+        if (leftColumn == null) throw new NullPointerException("leftColumn cannot be null");
+        if (rightTable == null) throw new NullPointerException("rightTable cannot be null");
+        if (rightColumn == null) throw new NullPointerException("rightColumn cannot be null");
+        this.leftTable = norm(leftTable);
+        this.leftColumn = norm(leftColumn);
+        this.rightTable = norm(rightTable);
+        this.rightColumn = norm(rightColumn);
+    }
+
+    // Recognises an equality between columns of two different tables; returns null for any other expression.
+    public static EquiJoinKey of(Expression e) {
+        while (e instanceof Parenthesis) e = ((Parenthesis) e).getExpression();
+        if (!(e instanceof EqualsTo)) return null;
+
+        Expression left = ((EqualsTo) e).getLeftExpression();
+        Expression right = ((EqualsTo) e).getRightExpression();
+        if (!(left instanceof Column) || !(right instanceof Column)) return null;
+
+        Column l = (Column) left;
+        Column r = (Column) right;
+        if (l.getTable() == null || l.getTable().getName() == null) return null;
+        if (r.getTable() == null || r.getTable().getName() == null) return null;
+        if (norm(l.getTable().getName()).equals(norm(r.getTable().getName()))) return null;
+
+        return new EquiJoinKey(l.getTable().getName(), l.getColumnName(), r.getTable().getName(), r.getColumnName());
+    }
+
+    // Returns the conjuncts that join one of the outer tables (normalised names) to the inner table, each oriented
+    // so that the inner table is on the right.
+    public static List<EquiJoinKey> findAll(List<Expression> conjuncts, Set<String> outerTables, String innerTable) {
+        String inner = norm(innerTable);
+        List<EquiJoinKey> out = new ArrayList<EquiJoinKey>();
+        for (Expression e : conjuncts) {
+            EquiJoinKey k = of(e);
+            if (k == null) continue;
+            if (k.rightTable.equals(inner) && outerTables.contains(k.leftTable)) out.add(k);
+            else if (k.leftTable.equals(inner) && outerTables.contains(k.rightTable)) out.add(k.swap());
+        }
+        return out;
+    }
+
+    public EquiJoinKey swap() {
+        return new EquiJoinKey(rightTable, rightColumn, leftTable, leftColumn);
+    }
+
+    public String getLeftTable() {
+        return leftTable;
+    }
+
+    public String getLeftColumn() {
+        return leftColumn;
+    }
+
+    public String getRightTable() {
+        return rightTable;
+    }
+
+    public String getRightColumn() {
+        return rightColumn;
+    }
+
+    @Override
+    public String toString() {
+        return leftTable + "." + leftColumn + " = " + rightTable + "." + rightColumn;
+    }
+
+    private static String norm(String s) {
+        return s.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -57,6 +57,22 @@ public final class ExpressionUtils {
         return tables;
     }
 
+    /** Collect column names (without table qualifier) referenced by Column nodes inside an expression. */
+    public static Set<String> referencedColumns(Expression e){
+        final Set<String> columns = new HashSet<String>();
+
+        if (e == null) return columns;
+
+        e.accept(new ExpressionDeParser() {
+            @Override
+            public void visit(Column column){
+                columns.add(norm(column.getColumnName()));
+            }
+        });
+
+        return columns;
+    }
+
     private static String norm(String s){
         return s.trim().toLowerCase(Locale.ROOT);
     }
@@ -0,0 +1,62 @@
+package ed.inf.adbs.lightdb;
+
+import ed.inf.adbs.lightdb.catalog.DataType;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class BatchTest {
+
+    private static final DataType[] TYPES = {DataType.INT, DataType.STRING, DataType.DOUBLE};
+
+    // Does narrowing the selection in place keep the surviving rows, and do projections share it?
+    @Test
+    public void selectionAndProjection() {
+        Batch b = new Batch(3, 8);
+        for (int i = 0; i < 6; i++) b.appendParsed(new String[] {Integer.toString(i), "s" + i, i + ".5"}, TYPES);
+
+        int[] sel = b.selectionBuffer();
+        int kept = 0;
+        for (int k = 0; k < b.count(); k++) {
+            if (b.getLong(0, b.row(k)) % 2 == 1) sel[kept++] = b.row(k);
+        }
+        b.setSelection(sel, kept);
+
+        assertEquals(6, b.size());
+        assertEquals(3, b.count());
+        assertEquals(5, b.row(2));
+
+        Batch p = b.project(new int[] {2, 0});
+        assertEquals(3, p.count());
+        assertEquals("3.5, 3", p.toTuple(p.row(1)).toString());
+        assertEquals(DataType.DOUBLE, p.getType(0));
+        assertEquals(Arrays.asList("s3", "3"), b.toTuple(3, new int[] {1, 0}).asList());
+    }
+
+    // Do appended tuples and joined rows keep parsed fields, text fields and nulls?
+    @Test
+    public void appendTuplesAndJoinedRows() {
+        Batch left = new Batch(2, 4);
+        left.append(Tuple.parse(new String[] {"7", ""}, new DataType[] {DataType.INT, DataType.INT}));
+        left.append(new Tuple(Arrays.asList("8", "x")));
+
+        Batch right = new Batch(1, 4);
+        right.append(Tuple.ofLongs(-1));
+
+        Batch out = new Batch(3, 4);
+        out.appendJoined(left, 0, right, 0);
+        out.appendJoined(left, 1, right, 0);
+
+        assertEquals("7, , -1", out.toTuple(0).toString());
+        assertTrue(out.isNull(1, 0));
+        assertEquals(8L, out.getLong(0, 1));
+        assertEquals("x", out.get(1, 1));
+
+        StringBuilder sb = new StringBuilder();
+        out.appendRow(sb, 1);
+        assertEquals("8, x, -1", sb.toString());
+    }
+}
@@ -0,0 +1,97 @@
+package ed.inf.adbs.lightdb;
+
+import ed.inf.adbs.lightdb.catalog.DataType;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class TupleTest {
+
+    private static final DataType[] TYPES = {DataType.INT, DataType.DOUBLE, DataType.BOOLEAN, DataType.STRING, DataType.LONG};
+
+    // Do the typed accessors read parsed slots, with get(int) still giving back the original text?
+    @Test
+    public void typedAccessorsAndTextView() {
+        Tuple t = Tuple.parse(new String[] {"-7", "2.5", "true", "abc", ""}, TYPES);
+
+        assertEquals(-7L, t.getLong(0));
+        assertEquals(-7.0, t.getDouble(0), 0.0);
+        assertEquals(2.5, t.getDouble(1), 0.0);
+        assertTrue(t.getBoolean(2));
+        assertTrue(t.isNull(4));
+        assertFalse(t.isNull(3));
+        assertEquals(DataType.DOUBLE, t.getType(1));
+        assertEquals(Arrays.asList("-7", "2.5", "true", "abc", ""), t.asList());
+        assertEquals("-7, 2.5, true, abc, ", t.toString());
+    }
+
+    // Are parsed and text tuples with the same values equal with the same hash, including extreme integers?
+    @Test
+    public void equalityAndHashMatchTextTuples() {
+        long[] values = {0, 9, 10, -1, -10, 1234567890123L, Long.MAX_VALUE, Long.MIN_VALUE};
+        for (long v : values) {
+            String s = Long.toString(v);
+            Tuple parsed = Tuple.ofLongs(v);
+            Tuple text = new Tuple(Arrays.asList(s));
+            assertEquals(s, text, parsed);
+            assertEquals(s, parsed, text);
+            assertEquals(s, text.hashCode(), parsed.hashCode());
+        }
+        assertNotEquals(Tuple.ofLongs(1, 2), Tuple.ofLongs(1, 3));
+    }
+
+    // Do concat and project keep fields parsed, including over tuples holding only text?
+    @Test
+    public void concatAndProjectCarrySlots() {
+        Tuple a = Tuple.parse(new String[] {"1", "2.5", "false", "x", "5000000000"}, TYPES);
+        Tuple b = new Tuple(Arrays.asList("y", "3"));
+
+        Tuple c = Tuple.concat(a, b);
+        assertEquals("1, 2.5, false, x, 5000000000, y, 3", c.toString());
+        assertEquals(DataType.LONG, c.getType(4));
+        assertEquals(DataType.STRING, c.getType(6));
+        assertEquals(3L, c.getLong(6));
+
+        Tuple p = Tuple.project(c, new int[] {4, 5, 0});
+        assertEquals(Arrays.asList("5000000000", "y", "1"), p.asList());
+        assertEquals(5_000_000_000L, p.getLong(0));
+        assertEquals(DataType.INT, p.getType(2));
+    }
+
+    // Do join and projection views read through to the tuples they reference, and equal and hash like copies?
+    @Test
+    public void viewsMatchCopies() {
+        Tuple a = Tuple.parse(new String[] {"1", "2.5", "false", "x", "5000000000"}, TYPES);
+        Tuple b = new Tuple(Arrays.asList("y", "3"));
+        Tuple c = Tuple.ofLongs(-4, 8);
+
+        // A three-way join view, built left-deep as a join tree does
+        Tuple joined = Tuple.joined(Tuple.joined(a, b), c);
+        Tuple copied = Tuple.concat(Tuple.concat(a, b), c);
+        assertEquals(copied.toString(), joined.toString());
+        assertEquals(copied, joined);
+        assertEquals(joined, copied);
+        assertEquals(copied.hashCode(), joined.hashCode());
+        assertEquals(-4L, joined.getLong(7));
+        assertEquals(2.5, joined.getDouble(1), 0.0);
+        assertFalse(joined.getBoolean(2));
+        assertEquals(DataType.STRING, joined.getType(5));
+
+        // A projection of a projection of the join
+        int[] outer = {2, 0};
+        Tuple projected = Tuple.projected(Tuple.projected(joined, new int[] {8, 4, 6}), outer);
+        assertEquals(Tuple.project(Tuple.project(copied, new int[] {8, 4, 6}), outer), projected);
+        assertEquals("3, 8", projected.toString());
+        assertEquals(8L, projected.getLong(1));
+
+        // Materialising copies views into plain tuples, and keeps plain tuples as they are
+        Tuple kept = Tuple.materialise(joined);
+        assertEquals(Tuple.class, kept.getClass());
+        assertEquals(copied, kept);
+        assertEquals(DataType.LONG, kept.getType(4));
+        assertSame(a, Tuple.materialise(a));
+    }
+}
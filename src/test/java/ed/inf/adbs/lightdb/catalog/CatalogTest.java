@@ -153,6 +153,76 @@ public class CatalogTest {
         assertEquals(tableMeta.getDataFile(), retrieved.get().getDataFile());
     }
 
+    @Test
+    public void testStorageFormatPersistsAcrossRestart() throws Exception {
+        Catalog catalog = Catalog.getInstance();
+
+        List<ColumnMeta> columns = Arrays.asList(
+                new ColumnMeta("id", DataType.LONG, false)
+        );
+
+        TableMeta tableMeta = catalog.createTable("converted_table", columns);
+        Path storage = dbRoot.resolve("tables").resolve("converted_table.col");
+        catalog.updateTableStorage("converted_table", StorageFormat.COLUMNAR, storage);
+
+        resetCatalogSingleton();
+        Catalog.init(dbRoot);
+
+        TableMeta retrieved = Catalog.getInstance().getTable("converted_table").get();
+        assertEquals(StorageFormat.COLUMNAR, retrieved.getStorageFormat());
+        assertEquals(storage.toString(), retrieved.getStorageFile());
+        assertEquals(tableMeta.getDataFile(), retrieved.getDataFile());
+    }
+
+    @Test
+    public void testTableStatsPersistAcrossRestartAndDrop() throws Exception {
+        Catalog catalog = Catalog.getInstance();
+
+        Path csv = dbRoot.resolve("stats_table.csv");
+        Files.write(csv, "1, a\n2, \n3, c\n".getBytes("UTF-8"));
+        catalog.registerTable("stats_table", Arrays.asList(
+                new ColumnMeta("id", DataType.STRING, true),
+                new ColumnMeta("name", DataType.STRING, true)
+        ), csv);
+
+        TableStats stats = catalog.analyzeTable("stats_table");
+        assertEquals(3, stats.getRowCount());
+        assertTrue(stats.isFreshFor(csv));
+
+        resetCatalogSingleton();
+        Catalog.init(dbRoot);
+
+        assertEquals(Optional.of(stats), Catalog.getInstance().getTableStats("stats_table"));
+
+        Catalog.getInstance().dropTable("stats_table", false);
+        Catalog.getInstance().registerTable("stats_table", Arrays.asList(new ColumnMeta("id", DataType.STRING, true)), csv);
+        assertFalse(Catalog.getInstance().getTableStats("stats_table").isPresent());
+    }
+
+    @Test
+    public void testIndexesPersistAcrossRestartAndDrop() throws Exception {
+        Catalog catalog = Catalog.getInstance();
+
+        Path csv = dbRoot.resolve("indexed_table.csv");
+        Files.write(csv, "3, 1\n1, 2\n2, 3\n".getBytes("UTF-8"));
+        catalog.registerTable("indexed_table", Arrays.asList(
+                new ColumnMeta("id", DataType.STRING, true),
+                new ColumnMeta("val", DataType.STRING, true)
+        ), csv);
+
+        IndexMeta index = catalog.ensureIndex("indexed_table", "ID", IndexType.BTREE);
+        assertEquals("id", index.getColumnName());
+        assertTrue(index.isFreshFor(csv));
+
+        resetCatalogSingleton();
+        Catalog.init(dbRoot);
+
+        assertEquals(Optional.of(index), Catalog.getInstance().getIndex("indexed_table", "id", IndexType.BTREE));
+
+        Catalog.getInstance().dropTable("indexed_table", false);
+        Catalog.getInstance().registerTable("indexed_table", Arrays.asList(new ColumnMeta("id", DataType.STRING, true)), csv);
+        assertTrue(Catalog.getInstance().getIndexes("indexed_table").isEmpty());
+    }
 
 
 
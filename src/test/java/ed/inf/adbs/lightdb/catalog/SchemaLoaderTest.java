@@ -0,0 +1,115 @@
+package ed.inf.adbs.lightdb.catalog;
+
+import ed.inf.adbs.lightdb.Tuple;
+import ed.inf.adbs.lightdb.operator.ColumnarScanOperator;
+import ed.inf.adbs.lightdb.operator.ScanOperator;
+import ed.inf.adbs.lightdb.operator.util.TestDb;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class SchemaLoaderTest {
+
+    private TestDb db;
+
+    @After
+    public void tearDown() {
+        if (db != null) db.close();
+    }
+
+    private static DataType[] types(String table) {
+        return Catalog.getInstance().getTable(table).get().getColumnTypes();
+    }
+
+    // Are declared types kept, undeclared ones inferred, and do scans hand out tuples parsed to those types?
+    @Test
+    public void declaredAndInferredTypes() throws Exception {
+        db = TestDb.create()
+                .writeSchema("Student A B:LONG C:string D\n")
+                .writeTable("Student", "1, 2, 3, true\n-4, , 6, false\n");
+        db.initCatalog();
+
+        assertArrayEquals(new DataType[] {DataType.INT, DataType.LONG, DataType.STRING, DataType.BOOLEAN},
+                types("Student"));
+
+        ScanOperator scan = new ScanOperator("Student");
+        Tuple t = scan.getNextTuple();
+        assertEquals(DataType.INT, t.getType(0));
+        assertEquals(1L, t.getLong(0));
+        assertEquals(Arrays.asList("1", "2", "3", "true"), t.asList());
+        assertEquals("-4, , 6, false", scan.getNextTuple().toString());
+
+        // Reloading (e.g. on the next run) resolves the same types against the recorded statistics
+        Catalog.init(db.dbRoot);
+        SchemaLoader.loadIntoCatalog(db.schemaFile, db.dataDir, StorageFormat.COLUMNAR);
+        assertArrayEquals(new DataType[] {DataType.INT, DataType.LONG, DataType.STRING, DataType.BOOLEAN},
+                types("Student"));
+
+        List<String> columns = Arrays.asList("D", "A");
+        Tuple c = new ColumnarScanOperator("Student", columns).getNextTuple();
+        assertEquals("true, 1", c.toString());
+        assertEquals(1L, c.getLong(1));
+    }
+
+    // Does a column declared DOUBLE print its values back exactly as they are in the file?
+    @Test
+    public void doublesPrintBackAsWritten() throws Exception {
+        db = TestDb.create()
+                .writeSchema("Student A B:DOUBLE\n")
+                .writeTable("Student", "1, 1.5\n2, -0.25\n");
+        db.initCatalog();
+
+        assertArrayEquals(new DataType[] {DataType.INT, DataType.DOUBLE}, types("Student"));
+
+        ScanOperator scan = new ScanOperator("Student");
+        Tuple t = scan.getNextTuple();
+        assertEquals(1.5, t.getDouble(1), 0.0);
+        assertEquals("1, 1.5", t.toString());
+        assertEquals("2, -0.25", scan.getNextTuple().toString());
+    }
+
+    // Are whole numbers rejected in a column declared DOUBLE, which would print them back as "2.0" and "5.0E9"?
+    @Test
+    public void rejectsIntegersDeclaredDouble() throws Exception {
+        db = TestDb.create()
+                .writeSchema("Student A B:DOUBLE C:DOUBLE\n")
+                .writeTable("Student", "1, 2, 5000000000\n");
+        try {
+            db.initCatalog();
+            fail("expected the DOUBLE declaration to be rejected");
+        } catch (IllegalStateException expected) {
+            assertTrue(expected.getMessage().contains("declared DOUBLE"));
+        }
+    }
+
+    // Is a declared type that does not fit the data rejected, and an unknown type name reported?
+    @Test
+    public void rejectsMismatchedDeclarations() throws Exception {
+        db = TestDb.create()
+                .writeSchema("Student A:INT B\n")
+                .writeTable("Student", "1, 2\n5000000000, 3\n");
+        try {
+            db.initCatalog();
+            fail("expected the INT declaration to be rejected");
+        } catch (IllegalStateException expected) {
+            assertTrue(expected.getMessage().contains("declared INT"));
+        }
+        db.close();
+
+        db = TestDb.create()
+                .writeSchema("Student A:NUMBER\n")
+                .writeTable("Student", "1\n");
+        try {
+            db.initCatalog();
+            fail("expected the unknown type to be rejected");
+        } catch (IOException expected) {
+            assertTrue(expected.getMessage().contains("NUMBER"));
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package ed.inf.adbs.lightdb.catalog;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class TableAnalyserTest {
+
+    private Path csv;
+
+    @Before
+    public void setUp() throws Exception {
+        csv = Files.createTempFile("lightdb_analyse_", ".csv");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        Files.deleteIfExists(csv);
+    }
+
+    private TableStats analyse(String contents, String... columns) throws Exception {
+        Files.write(csv, contents.getBytes(StandardCharsets.UTF_8));
+        ColumnMeta[] cols = new ColumnMeta[columns.length];
+        for (int i = 0; i < columns.length; i++) cols[i] = new ColumnMeta(columns[i], DataType.STRING, true);
+        return TableAnalyser.analyse(new TableMeta(1, "t", Arrays.asList(cols), csv.toString()));
+    }
+
+    // Are row count, null count and min/max exact, with numeric order for integer columns and string order otherwise?
+    @Test
+    public void exactCountsAndBounds() throws Exception {
+        TableStats stats = analyse("10, b\n-3, \n200, a\n, c\n", "A", "B");
+
+        assertEquals(4, stats.getRowCount());
+
+        ColumnStats a = stats.getColumn("a").get();
+        assertTrue(a.isInteger());
+        assertEquals(1, a.getNullCount());
+        assertEquals(3, a.getDistinctCount());
+        assertEquals("-3", a.getMin());
+        assertEquals("200", a.getMax());
+
+        ColumnStats b = stats.getColumn("B").get();
+        assertFalse(b.isInteger());
+        assertEquals(1, b.getNullCount());
+        assertEquals("a", b.getMin());
+        assertEquals("c", b.getMax());
+        assertEquals(0, b.getHistogram().length);
+    }
+
+    // Is the distinct count of a large column close to exact, and is the histogram equi-depth?
+    @Test
+    public void distinctEstimateAndHistogram() throws Exception {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 50_000; i++) {
+            sb.append(i % 20_000).append('\n');
+        }
+        ColumnStats a = analyse(sb.toString(), "A").getColumns().get(0);
+
+        assertEquals(20_000, a.getDistinctCount(), 20_000 * 0.05);
+
+        long[] h = a.getHistogram();
+        assertEquals(TableAnalyser.HISTOGRAM_BUCKETS + 1, h.length);
+        assertEquals(0, h[0]);
+        assertEquals(19_999, h[h.length - 1]);
+        for (int i = 1; i < h.length; i++) assertTrue(h[i - 1] <= h[i]);
+
+        // 0..9999 occur three times and 10000..19999 twice, so 15000 of the 50000 values are below 5000
+        assertEquals(0.3, a.fractionBelow(5_000), 0.03);
+        assertEquals(1.0 / a.getDistinctCount(), a.equalitySelectivity(), 1e-12);
+    }
+
+    // Does an all-empty column produce null bounds and no distinct values?
+    @Test
+    public void allNullColumn() throws Exception {
+        ColumnStats a = analyse("\n\n", "A").getColumns().get(0);
+
+        assertEquals(2, a.getNullCount());
+        assertEquals(0, a.getDistinctCount());
+        assertNull(a.getMin());
+        assertNull(a.getMax());
+    }
+
+    // Is each column given the narrowest type that all its canonical values fit, falling back to STRING?
+    @Test
+    public void infersColumnTypes() throws Exception {
+        TableStats stats = analyse(
+                "1, 5000000000, 1.5, true, x, 1.0\n" +
+                "-2, 3, -0.25, false, 7, 2\n" +
+                ", , , , , \n",
+                "I", "L", "D", "B", "S", "M");
+
+        assertEquals(DataType.INT, stats.getColumn("I").get().getType());
+        assertEquals(DataType.LONG, stats.getColumn("L").get().getType());
+        assertEquals(DataType.DOUBLE, stats.getColumn("D").get().getType());
+        assertEquals(DataType.BOOLEAN, stats.getColumn("B").get().getType());
+        assertEquals(DataType.STRING, stats.getColumn("S").get().getType());
+        // "2" is not how Double.toString prints 2.0, so a typed column would not give it back unchanged
+        assertEquals(DataType.STRING, stats.getColumn("M").get().getType());
+        assertTrue(stats.getColumn("L").get().isInteger());
+        assertFalse(stats.getColumn("D").get().isInteger());
+    }
+}
@@ -0,0 +1,88 @@
+package ed.inf.adbs.lightdb.codegen;
+
+import ed.inf.adbs.lightdb.operator.Operator;
+import ed.inf.adbs.lightdb.operator.util.Helpers;
+import ed.inf.adbs.lightdb.operator.util.TestDb;
+import ed.inf.adbs.lightdb.planner.PlanBuilder;
+import ed.inf.adbs.lightdb.planner.PlannerOptions;
+
+import net.sf.jsqlparser.parser.CCJSqlParserUtil;
+import net.sf.jsqlparser.statement.select.Select;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class PipelineCodegenTest {
+
+    private TestDb db;
+
+    @Before
+    public void setUp() throws Exception {
+        // More rows than fit in one batch, so batch boundaries are crossed
+        StringBuilder students = new StringBuilder();
+        for (int i = 0; i < 2500; i++) {
+            students.append(i).append(", ").append(i % 7).append(", ").append(i % 100).append('\n');
+        }
+        db = TestDb.create()
+                .writeSchema("Student A B C\nEnrolled A E\n")
+                .writeTable("Student", students.toString())
+                .writeTable("Enrolled", "1, 2\n3, 4\n5, 6\n");
+        db.initCatalog();
+    }
+
+    @After
+    public void tearDown() {
+        db.close();
+    }
+
+    private static Operator plan(String sql, boolean codegen) throws Exception {
+        return PlanBuilder.build(((Select) CCJSqlParserUtil.parse(sql)).getPlainSelect(),
+                PlannerOptions.defaults().setCodegen(codegen));
+    }
+
+    // Do plans with generated pipelines return the same rows as interpreted plans, tuple- and batch-at-a-time?
+    @Test
+    public void generatedPlansMatchInterpreted() throws Exception {
+        String[] queries = {
+                "SELECT * FROM Student WHERE Student.B = 3",
+                "SELECT Student.C, Student.A FROM Student WHERE Student.B = 3 AND Student.A > 100",
+                "SELECT Student.A FROM Student WHERE Student.B = 1 OR (Student.C < 2 AND 5 <= Student.A)",
+                "SELECT Student.A FROM Student WHERE Student.A * 2 < Student.C",
+                "SELECT Student.B FROM Student",
+                "SELECT * FROM Student, Enrolled WHERE Student.A = Enrolled.A AND Student.B < 4",
+                "SELECT Student.B, SUM(Student.A * 2) FROM Student WHERE Student.C > 50 GROUP BY Student.B",
+        };
+
+        for (String sql : queries) {
+            assertEquals(sql, Helpers.collectAll(plan(sql, false)), Helpers.collectAll(plan(sql, true)));
+            assertEquals(sql, Helpers.collectAll(plan(sql, false)), Helpers.collectAllBatches(plan(sql, true)));
+        }
+    }
+
+    // Does a generated pipeline start over after a reset?
+    @Test
+    public void resetRescans() throws Exception {
+        Operator op = plan("SELECT Student.A FROM Student WHERE Student.B = 6", true);
+        List<String> first = Helpers.collectAllAndReset(op);
+        assertFalse(first.isEmpty());
+        assertEquals(first, Helpers.collectAll(op));
+    }
+
+    // Do queries that differ only in their constants and projected columns reuse the same generated class?
+    @Test
+    public void classesAreCachedByShape() throws Exception {
+        Helpers.collectAll(plan("SELECT Student.A FROM Student WHERE Student.B = 2", true));
+        int generated = PipelineCodegen.cachedClassCount();
+
+        Helpers.collectAll(plan("SELECT Student.C FROM Student WHERE Student.B = 5", true));
+        assertEquals(generated, PipelineCodegen.cachedClassCount());
+
+        Helpers.collectAll(plan("SELECT Student.C FROM Student WHERE Student.B = 5 OR Student.B > 90", true));
+        assertEquals(generated + 1, PipelineCodegen.cachedClassCount());
+    }
+}
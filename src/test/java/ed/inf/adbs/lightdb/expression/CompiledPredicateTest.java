@@ -0,0 +1,74 @@
+package ed.inf.adbs.lightdb.expression;
+
+import ed.inf.adbs.lightdb.Tuple;
+import ed.inf.adbs.lightdb.util.ColumnIndexResolver;
+
+import net.sf.jsqlparser.expression.Expression;
+import net.sf.jsqlparser.parser.CCJSqlParserUtil;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class CompiledPredicateTest {
+
+    private static final ColumnIndexResolver RESOLVER = new ColumnIndexResolver("T", Arrays.asList("A", "B", "C"));
+
+    private static final Tuple[] ROWS = {
+            Tuple.ofLongs(1, 2, 3),
+            Tuple.ofLongs(5, 5, 0),
+            Tuple.ofLongs(-4, 10, 7),
+            Tuple.ofLongs(3, 1, 3),
+    };
+
+    // Does the compiled predicate accept exactly the rows the interpreting evaluator accepts?
+    @Test
+    public void agreesWithSelectionExpressionEvaluator() throws Exception {
+        String[] predicates = {
+                "T.A = 1", "5 < T.B", "T.A <> T.B", "T.A >= T.C", "1 = 1", "2 > 3",
+                "T.A > 0 AND T.B < 10 AND T.C <= 3", "T.A = 5 OR (T.C = 7 OR B > 100)",
+                "(T.A < T.C AND T.B > 1) OR T.C = 0",
+        };
+
+        for (String where : predicates) {
+            Expression e = CCJSqlParserUtil.parseCondExpression(where);
+            CompiledPredicate compiled = CompiledPredicate.compile(e, RESOLVER);
+            for (Tuple row : ROWS) {
+                assertEquals(where + " on " + row, new SelectionExpressionEvaluator(RESOLVER, row).eval(e), compiled.test(row));
+            }
+        }
+    }
+
+    // Are products compared as integers? (The interpreting evaluator has no case for them.)
+    @Test
+    public void comparesProducts() throws Exception {
+        CompiledPredicate p = CompiledPredicate.compile(CCJSqlParserUtil.parseCondExpression("T.A * T.B <= 2 * T.C"), RESOLVER);
+
+        assertTrue(p.test(ROWS[0]));
+        assertFalse(p.test(ROWS[1]));
+        assertTrue(p.test(ROWS[2]));
+        assertTrue(p.test(ROWS[3]));
+    }
+
+    // Does a null predicate accept everything, and does an unknown column fail when the predicate is compiled?
+    @Test
+    public void nullAcceptsAllAndColumnsBindAtCompileTime() throws Exception {
+        assertTrue(CompiledPredicate.compile(null, RESOLVER).test(ROWS[0]));
+
+        try {
+            CompiledPredicate.compile(CCJSqlParserUtil.parseCondExpression("T.Z = 1"), RESOLVER);
+            fail("expected the unknown column to be rejected");
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    // Does a compiled SUM argument evaluate constants, columns, parentheses and products on each row?
+    @Test
+    public void evaluatesLongExpression() throws Exception {
+        CompiledLongExpression compiled = CompiledLongExpression.compile(CCJSqlParserUtil.parseExpression("(T.A * 3) * T.C"), RESOLVER);
+
+        long[] expected = {9, 0, -84, 27};
+        for (int i = 0; i < ROWS.length; i++) assertEquals(expected[i], compiled.eval(ROWS[i]));
+    }
+}
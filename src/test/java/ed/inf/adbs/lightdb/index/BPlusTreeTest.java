@@ -0,0 +1,132 @@
+package ed.inf.adbs.lightdb.index;
+
+import ed.inf.adbs.lightdb.storage.BufferPool;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class BPlusTreeTest {
+
+    private Path file;
+
+    @Before
+    public void setUp() throws Exception {
+        file = Files.createTempFile("lightdb_btree_", ".btree");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        BufferPool.getInstance().invalidate(file);
+        Files.deleteIfExists(file);
+    }
+
+    private static List<Long> rids(BPlusTree tree, KeyRange range) throws Exception {
+        List<Long> out = new ArrayList<Long>();
+        BPlusTree.Cursor c = tree.range(range);
+        while (c.next()) {
+            assertTrue(range.contains(c.key()));
+            out.add(c.rid());
+        }
+        return out;
+    }
+
+    // Do point and range lookups on a multi-level tree return exactly the matching entries in key order?
+    @Test
+    public void lookupsOnMultiLevelTree() throws Exception {
+        int n = BPlusTree.LEAF_CAPACITY * BPlusTree.INTERNAL_CAPACITY + 1000; // forces three levels
+        long[] keys = new long[n];
+        long[] rids = new long[n];
+        for (int i = 0; i < n; i++) {
+            keys[i] = 2L * i;   // even keys only
+            rids[i] = i;
+        }
+        BPlusTree tree = BPlusTreeBuilder.build(keys, rids, n, file);
+
+        assertEquals(3, tree.getHeight());
+        assertEquals(n, tree.getEntryCount());
+
+        assertEquals(Collections.singletonList(123_456L), rids(tree, KeyRange.point(246_912)));
+        assertTrue(rids(tree, KeyRange.point(246_913)).isEmpty());
+
+        List<Long> range = rids(tree, new KeyRange(999, 1011));
+        assertEquals(Arrays.asList(500L, 501L, 502L, 503L, 504L, 505L), range);
+
+        assertEquals(n, rids(tree, KeyRange.all()).size());
+        assertTrue(rids(tree, new KeyRange(-10, -1)).isEmpty());
+        assertTrue(rids(tree, new KeyRange(5, 4)).isEmpty());
+    }
+
+    // Are runs of a duplicated key that span several leaves (and separators) returned completely?
+    @Test
+    public void duplicatesSpanningLeaves() throws Exception {
+        int dup = 3 * BPlusTree.LEAF_CAPACITY;
+        int n = dup + 20;
+        long[] keys = new long[n];
+        long[] rids = new long[n];
+        for (int i = 0; i < n; i++) {
+            keys[i] = (i < 10) ? i : (i < 10 + dup ? 50 : 100 + i);
+            rids[i] = i;
+        }
+        BPlusTree tree = BPlusTreeBuilder.build(keys, rids, n, file);
+
+        List<Long> matches = rids(tree, KeyRange.point(50));
+        assertEquals(dup, matches.size());
+        assertEquals(Long.valueOf(10), matches.get(0));
+        assertEquals(Long.valueOf(9 + dup), matches.get(dup - 1));
+    }
+
+    // Can one cursor, opened empty, be repositioned for lookups in any order, as an index join does per outer row?
+    @Test
+    public void seekRepositionsCursor() throws Exception {
+        int n = 3 * BPlusTree.LEAF_CAPACITY;
+        long[] keys = new long[n];
+        long[] rids = new long[n];
+        for (int i = 0; i < n; i++) {
+            keys[i] = 2L * i;
+            rids[i] = i;
+        }
+        BPlusTree.Cursor cursor = BPlusTreeBuilder.build(keys, rids, n, file).cursor();
+
+        assertFalse(cursor.next());
+
+        long[] lookups = {2L * (n - 1), 10, 2L * BPlusTree.LEAF_CAPACITY, 0};
+        for (long key : lookups) {
+            assertTrue(cursor.seek(KeyRange.point(key)).next());
+            assertEquals(key / 2, cursor.rid());
+            assertFalse(cursor.next());
+        }
+        assertFalse(cursor.seek(KeyRange.point(11)).next());
+        assertFalse(cursor.seek(new KeyRange(5, 4)).next());
+    }
+
+    // Does an empty tree answer every lookup with nothing?
+    @Test
+    public void emptyTree() throws Exception {
+        BPlusTree tree = BPlusTreeBuilder.build(new long[0], new long[0], 0, file);
+
+        assertEquals(0, tree.getEntryCount());
+        assertTrue(rids(tree, KeyRange.all()).isEmpty());
+    }
+
+    // Does the index builder's sort order entries by key while keeping row IDs ascending within a key?
+    @Test
+    public void sortByKeyIsStable() {
+        long[] keys = {5, 1, 5, 3, 1, 5};
+        long[] rids = {0, 1, 2, 3, 4, 5};
+
+        IndexBuilder.sortByKey(keys, rids, keys.length);
+
+        assertArrayEquals(new long[] {1, 1, 3, 5, 5, 5}, keys);
+        assertArrayEquals(new long[] {1, 4, 3, 0, 2, 5}, rids);
+    }
+}
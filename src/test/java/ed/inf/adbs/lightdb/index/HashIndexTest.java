@@ -0,0 +1,84 @@
+package ed.inf.adbs.lightdb.index;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class HashIndexTest {
+
+    private Path file;
+
+    @Before
+    public void setUp() throws Exception {
+        file = Files.createTempFile("lightdb_hash_", ".hash");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        HashIndex.evict(file);
+        Files.deleteIfExists(file);
+    }
+
+    private static List<Long> rids(HashIndex.Probe probe, long key) {
+        List<Long> out = new ArrayList<Long>();
+        probe.find(key);
+        while (probe.next()) out.add(probe.rid());
+        return out;
+    }
+
+    // Does a probe find every row ID of a key (in row ID order), including duplicates, and nothing for absent keys?
+    @Test
+    public void probesFindAllMatches() throws Exception {
+        int n = 100_000;
+        long[] keys = new long[n];
+        long[] rids = new long[n];
+        for (int i = 0; i < n; i++) {
+            keys[i] = i / 4 - 10_000;   // four entries per key, negative keys included
+            rids[i] = 1000L + i;
+        }
+        HashIndex index = HashIndexBuilder.build(keys, rids, n, file);
+
+        assertEquals(n, index.getEntryCount());
+        assertEquals(32_768, index.getBucketCount());
+
+        HashIndex.Probe probe = index.probe();
+        assertEquals(Arrays.asList(1000L, 1001L, 1002L, 1003L), rids(probe, -10_000));
+        assertEquals(Arrays.asList(41_000L, 41_001L, 41_002L, 41_003L), rids(probe, 0));
+        assertTrue(rids(probe, 15_000).isEmpty());
+        assertTrue(rids(probe, Long.MIN_VALUE).isEmpty());
+
+        for (int k = -10_000; k < 15_000; k += 997) {
+            assertEquals(4, rids(probe, k).size());
+        }
+    }
+
+    // Can an index with no entries be built and probed?
+    @Test
+    public void emptyIndex() throws Exception {
+        HashIndex index = HashIndexBuilder.build(new long[0], new long[0], 0, file);
+
+        assertEquals(0, index.getEntryCount());
+        assertTrue(rids(index.probe(), 7).isEmpty());
+    }
+
+    // Is the mapping shared between openers, and replaced when the index is rebuilt?
+    @Test
+    public void mappingIsSharedUntilRebuilt() throws Exception {
+        HashIndex first = HashIndexBuilder.build(new long[] {1, 2}, new long[] {10, 20}, 2, file);
+        assertSame(first, HashIndex.open(file));
+
+        HashIndex second = HashIndexBuilder.build(new long[] {2, 3}, new long[] {30, 40}, 2, file);
+        assertNotSame(first, second);
+        assertSame(second, HashIndex.open(file));
+        assertTrue(rids(second.probe(), 1).isEmpty());
+        assertEquals(Arrays.asList(30L), rids(second.probe(), 2));
+    }
+}
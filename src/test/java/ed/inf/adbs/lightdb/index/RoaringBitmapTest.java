@@ -0,0 +1,105 @@
+package ed.inf.adbs.lightdb.index;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.Assert.*;
+
+public class RoaringBitmapTest {
+
+    // Sparse values (array containers), dense values (bitmap containers) and long runs, over several chunks.
+    private static TreeSet<Integer> randomSet(Random rnd) {
+        TreeSet<Integer> s = new TreeSet<Integer>();
+        for (int i = 0; i < 500; i++) s.add(rnd.nextInt(1 << 20));
+        for (int i = 0; i < 20_000; i++) s.add(65_536 + rnd.nextInt(30_000));
+        int start = 3 * 65_536 + rnd.nextInt(1000);
+        for (int i = 0; i < 50_000; i++) s.add(start + i);
+        return s;
+    }
+
+    private static RoaringBitmap bitmapOf(TreeSet<Integer> s) {
+        RoaringBitmap b = new RoaringBitmap();
+        for (int v : s) b.add(v);
+        return b;
+    }
+
+    private static List<Integer> values(RoaringBitmap b) {
+        List<Integer> out = new ArrayList<Integer>();
+        RoaringBitmap.Cursor c = b.cursor();
+        for (int v = c.next(); v >= 0; v = c.next()) out.add(v);
+        return out;
+    }
+
+    private static RoaringBitmap roundTrip(RoaringBitmap b) throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        b.write(new DataOutputStream(bytes));
+        return RoaringBitmap.read(ByteBuffer.wrap(bytes.toByteArray()));
+    }
+
+    // Do intersections and unions of mixed container types match the same operations on sorted sets?
+    @Test
+    public void andOrMatchSetOperations() {
+        Random rnd = new Random(7);
+        for (int round = 0; round < 4; round++) {
+            TreeSet<Integer> x = randomSet(rnd);
+            TreeSet<Integer> y = randomSet(rnd);
+            RoaringBitmap a = bitmapOf(x);
+            RoaringBitmap b = bitmapOf(y);
+            if (round % 2 == 1) {
+                a.runOptimize();
+                b.runOptimize();
+            }
+
+            TreeSet<Integer> and = new TreeSet<Integer>(x);
+            and.retainAll(y);
+            TreeSet<Integer> or = new TreeSet<Integer>(x);
+            or.addAll(y);
+
+            assertEquals(new ArrayList<Integer>(and), values(a.and(b)));
+            assertEquals(new ArrayList<Integer>(or), values(a.or(b)));
+            assertEquals(or.size(), a.or(b).getCardinality());
+            assertEquals(new ArrayList<Integer>(x), values(a));
+        }
+    }
+
+    // Does run optimization preserve the set, and does a bitmap survive serialization in every container form?
+    @Test
+    public void runOptimizeAndSerialization() throws Exception {
+        TreeSet<Integer> s = randomSet(new Random(11));
+        RoaringBitmap b = bitmapOf(s);
+
+        assertEquals(new ArrayList<Integer>(s), values(roundTrip(b)));
+        b.runOptimize();
+        assertEquals(new ArrayList<Integer>(s), values(b));
+        assertEquals(new ArrayList<Integer>(s), values(roundTrip(b)));
+
+        for (int v : new int[] {0, 65_535, 65_536, 3 * 65_536 + 999, 1 << 20}) {
+            assertEquals(s.contains(v), b.contains(v));
+        }
+        assertEquals(RoaringBitmap.of(1, 2, 3), RoaringBitmap.of(3, 2, 1));
+        assertTrue(new RoaringBitmap().isEmpty());
+        assertTrue(RoaringBitmap.of(1, 5).and(RoaringBitmap.of(2, 70_000)).isEmpty());
+    }
+
+    // Can values be added out of order, and are runs converted back when a value is added to them?
+    @Test
+    public void unorderedAddsAndMutatingRuns() {
+        RoaringBitmap b = new RoaringBitmap();
+        for (int v = 9999; v >= 0; v--) b.add(v);
+        b.runOptimize();
+        b.add(20_000);
+        b.add(5);
+
+        assertEquals(10_001, b.getCardinality());
+        assertTrue(b.contains(20_000));
+        assertFalse(b.contains(10_000));
+        assertEquals("{1, 2, 20000}", RoaringBitmap.of(20_000, 2, 1).toString());
+    }
+}
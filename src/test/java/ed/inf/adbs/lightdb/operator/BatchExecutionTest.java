@@ -0,0 +1,91 @@
+package ed.inf.adbs.lightdb.operator;
+
+import ed.inf.adbs.lightdb.Batch;
+import ed.inf.adbs.lightdb.operator.util.Helpers;
+import ed.inf.adbs.lightdb.operator.util.TestDb;
+import ed.inf.adbs.lightdb.planner.PlanBuilder;
+
+import net.sf.jsqlparser.parser.CCJSqlParserUtil;
+import net.sf.jsqlparser.statement.select.Select;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class BatchExecutionTest {
+
+    private TestDb db;
+
+    @Before
+    public void setUp() throws Exception {
+        // More rows than fit in one batch, so batch boundaries are crossed
+        StringBuilder students = new StringBuilder();
+        for (int i = 0; i < 2500; i++) {
+            students.append(i).append(", ").append(i % 7).append(", ").append(i % 100).append('\n');
+        }
+        StringBuilder enrolled = new StringBuilder();
+        for (int i = 0; i < 40; i++) {
+            enrolled.append(i * 3).append(", ").append(i % 5).append('\n');
+        }
+        db = TestDb.create()
+                .writeSchema("Student A B C\nEnrolled A E\n")
+                .writeTable("Student", students.toString())
+                .writeTable("Enrolled", enrolled.toString());
+        db.initCatalog();
+    }
+
+    @After
+    public void tearDown() {
+        db.close();
+    }
+
+    private static Operator plan(String sql) throws Exception {
+        return PlanBuilder.build(((Select) CCJSqlParserUtil.parse(sql)).getPlainSelect());
+    }
+
+    // Does draining a plan a batch at a time give the same rows, in the same order, as tuple-at-a-time?
+    @Test
+    public void batchesMatchTuples() throws Exception {
+        String[] queries = {
+                "SELECT * FROM Student",
+                "SELECT Student.C, Student.A FROM Student WHERE Student.B = 3 AND Student.A > 100",
+                "SELECT * FROM Student WHERE Student.B = 1 OR Student.C < 2",
+                "SELECT * FROM Student, Enrolled WHERE Student.A = Enrolled.A AND Student.B < Enrolled.E",
+                "SELECT Enrolled.E, Student.B FROM Student, Enrolled WHERE Student.C = Enrolled.A",
+                "SELECT * FROM Student, Enrolled WHERE Student.A < 3 AND Enrolled.A > 100",
+                "SELECT Student.B, SUM(Student.A * 2), SUM(1) FROM Student GROUP BY Student.B",
+                "SELECT SUM(Student.C) FROM Student, Enrolled WHERE Student.A = Enrolled.A",
+                "SELECT DISTINCT Student.B FROM Student ORDER BY Student.B"
+        };
+        for (String sql : queries) {
+            List<String> tuples = Helpers.collectAll(plan(sql));
+            List<String> batches = Helpers.collectAllBatches(plan(sql));
+            assertFalse(sql, tuples.isEmpty());
+            assertEquals(sql, tuples, batches);
+        }
+    }
+
+    // Are batches full until the last, and does reset restart a batch scan and a batch join?
+    @Test
+    public void batchSizesAndReset() throws Exception {
+        Operator scan = new ScanOperator("Student");
+        assertEquals(Operator.BATCH_SIZE, scan.getNextBatch().size());
+        assertEquals(Operator.BATCH_SIZE, scan.getNextBatch().size());
+        assertEquals(2500 - 2 * Operator.BATCH_SIZE, scan.getNextBatch().size());
+        assertNull(scan.getNextBatch());
+
+        scan.reset();
+        Batch first = scan.getNextBatch();
+        assertEquals("0, 0, 0", first.toTuple(first.row(0)).toString());
+
+        Operator join = plan("SELECT * FROM Student, Enrolled WHERE Student.A = Enrolled.A");
+        List<String> once = Helpers.collectAllBatches(join);
+        join.reset();
+        assertEquals(40, once.size());
+        assertEquals(once, Helpers.collectAllBatches(join));
+    }
+}
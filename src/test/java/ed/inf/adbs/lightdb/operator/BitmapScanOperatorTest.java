@@ -0,0 +1,104 @@
+package ed.inf.adbs.lightdb.operator;
+
+import ed.inf.adbs.lightdb.catalog.Catalog;
+import ed.inf.adbs.lightdb.catalog.IndexMeta;
+import ed.inf.adbs.lightdb.catalog.IndexType;
+import ed.inf.adbs.lightdb.catalog.TableMeta;
+import ed.inf.adbs.lightdb.index.BitmapIndex;
+import ed.inf.adbs.lightdb.index.KeyRange;
+import ed.inf.adbs.lightdb.index.RoaringBitmap;
+import ed.inf.adbs.lightdb.operator.util.Helpers;
+import ed.inf.adbs.lightdb.operator.util.TestDb;
+import ed.inf.adbs.lightdb.planner.PlanBuilder;
+
+import net.sf.jsqlparser.parser.CCJSqlParserUtil;
+import net.sf.jsqlparser.statement.select.Select;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class BitmapScanOperatorTest {
+
+    private TestDb db;
+
+    @Before
+    public void setUp() throws Exception {
+        // B has 5 distinct values, C has 4; D is never indexed
+        StringBuilder rows = new StringBuilder();
+        for (int i = 0; i < 5000; i++) {
+            rows.append(i).append(", ").append(i % 5).append(", ").append(i % 4)
+                    .append(", ").append(i % 11).append('\n');
+        }
+
+        db = TestDb.create()
+                .writeSchema("Student A B C D\n")
+                .writeTable("Student", rows.toString());
+        db.initCatalog();
+    }
+
+    @After
+    public void tearDown() {
+        db.close();
+    }
+
+    private List<String> expected(String where) throws Exception {
+        TableMeta meta = Catalog.getInstance().getTable("Student").get();
+        return Helpers.collectAll(new SelectOperator(new ScanOperator("Student"), CCJSqlParserUtil.parseCondExpression(where), meta));
+    }
+
+    private static List<String> run(String sql) throws Exception {
+        return Helpers.collectAll(PlanBuilder.build(((Select) CCJSqlParserUtil.parse(sql)).getPlainSelect()));
+    }
+
+    // Does a bitmap index number every row and return the rows of each value range?
+    @Test
+    public void indexLookupsReturnRowNumbers() throws Exception {
+        IndexMeta meta = Catalog.getInstance().ensureIndex("Student", "C", IndexType.BITMAP);
+        BitmapIndex index = BitmapIndex.open(Paths.get(meta.getIndexFile()));
+
+        assertEquals(5000, index.getRowCount());
+        assertEquals(4, index.getDistinctCount());
+        assertEquals(1250, index.lookup(KeyRange.point(0)).getCardinality());
+        assertTrue(index.lookup(KeyRange.point(3)).contains(7));
+        assertFalse(index.lookup(KeyRange.point(3)).contains(8));
+        assertEquals(2500, index.lookup(new KeyRange(2, Long.MAX_VALUE)).getCardinality());
+        assertTrue(index.lookup(KeyRange.point(4)).isEmpty());
+    }
+
+    // Does the scan fetch exactly the rows of the bitmap, in file order, and restart on reset?
+    @Test
+    public void fetchesRowsInBitmap() throws Exception {
+        IndexMeta meta = Catalog.getInstance().ensureIndex("Student", "B", IndexType.BITMAP);
+        BitmapScanOperator scan = new BitmapScanOperator("Student", meta, RoaringBitmap.of(4999, 0, 1234));
+
+        List<String> rows = Helpers.collectAllAndReset(scan);
+        assertEquals(Arrays.asList("0, 0, 0, 0", "1234, 4, 2, 2", "4999, 4, 3, 5"), rows);
+        assertEquals("0, 0, 0, 0", scan.getNextTuple().toString());
+    }
+
+    // Do AND/OR selections answered from bitmap indexes (with unindexed conjuncts applied afterwards) return the same rows?
+    @Test
+    public void plannerCombinesBitmaps() throws Exception {
+        Catalog.getInstance().ensureIndex("Student", "B", IndexType.BITMAP);
+        Catalog.getInstance().ensureIndex("Student", "C", IndexType.BITMAP);
+
+        String[] wheres = {
+                "Student.B = 1 AND Student.C = 2",
+                "(Student.B = 1 OR Student.B = 3) AND Student.C <> 2 AND Student.D > 5",
+                "Student.B = 4 AND (Student.C = 1 OR Student.D = 3)",
+                "Student.B >= 3 AND Student.C < 1"
+        };
+        for (String where : wheres) {
+            List<String> rows = run("SELECT * FROM Student WHERE " + where);
+            assertFalse(where, rows.isEmpty());
+            assertEquals(where, expected(where), rows);
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package ed.inf.adbs.lightdb.operator;
+
+import ed.inf.adbs.lightdb.Tuple;
+import ed.inf.adbs.lightdb.catalog.Catalog;
+import ed.inf.adbs.lightdb.catalog.TableMeta;
+import ed.inf.adbs.lightdb.operator.util.Helpers;
+import ed.inf.adbs.lightdb.operator.util.TestDb;
+
+import net.sf.jsqlparser.parser.CCJSqlParserUtil;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class BlockNestedLoopJoinOperatorTest {
+
+    private TestDb db;
+    private List<TableMeta> students;
+    private List<TableMeta> courses;
+    private List<TableMeta> enrolled;
+
+    @Before
+    public void setUp() throws Exception {
+        db = TestDb.create()
+                .writeSchema("Student A C\nCourse E F\nEnrolled A H\n")
+                .writeTable("Student", "1,10\n2,20\n3,30\n4,40\n5,50\n")
+                .writeTable("Course", "101,15\n102,35\n103,45\n104,5\n")
+                .writeTable("Enrolled", "1,100\n2,200\n1,150\n6,600\n");
+        db.initCatalog();
+        students = Arrays.asList(Catalog.getInstance().getTable("Student").get());
+        courses = Arrays.asList(Catalog.getInstance().getTable("Course").get());
+        enrolled = Arrays.asList(Catalog.getInstance().getTable("Enrolled").get());
+    }
+
+    @After
+    public void tearDown() {
+        db.close();
+    }
+
+    // Counts the resets of the scan it wraps, i.e. how many times the inner input is read again.
+    private static final class CountingScan extends Operator {
+        private final Operator scan = new ScanOperator("Course");
+        int resets;
+
+        @Override
+        public Tuple getNextTuple() {
+            return scan.getNextTuple();
+        }
+
+        @Override
+        public void reset() {
+            resets++;
+            scan.reset();
+        }
+    }
+
+    // The tuple-at-a-time nested-loop join: one-row blocks and an inner input rescanned for each of them
+    private List<String> nestedLoop(String on) throws Exception {
+        return Helpers.collectAll(blocks(on, new ScanOperator("Course"), 1, 0));
+    }
+
+    private BlockNestedLoopJoinOperator blocks(String on, Operator inner, int blockRows, int innerCacheRows) throws Exception {
+        return new BlockNestedLoopJoinOperator(new ScanOperator("Student"), inner,
+                CCJSqlParserUtil.parseCondExpression(on), students, courses, blockRows, innerCacheRows);
+    }
+
+    // Does a theta join return the nested-loop join's rows, whatever the block size?
+    @Test
+    public void matchesNestedLoopJoin() throws Exception {
+        String on = "Student.C < Course.F";
+        List<String> expected = Helpers.sorted(nestedLoop(on));
+        assertEquals(8, expected.size());
+
+        for (int blockRows : new int[] {1, 2, 5, 100}) {
+            assertEquals(expected, Helpers.sorted(Helpers.collectAll(blocks(on, new ScanOperator("Course"), blockRows, 100))));
+        }
+        assertEquals(expected, Helpers.sorted(Helpers.collectAll(new BlockNestedLoopJoinOperator(new ScanOperator("Student"),
+                new ScanOperator("Course"), CCJSqlParserUtil.parseCondExpression(on), students, courses))));
+    }
+
+    // Within a block, are the rows returned by inner row?
+    @Test
+    public void returnsBlockRowsByInnerRow() throws Exception {
+        List<String> rows = Helpers.collectAll(blocks("Student.C < Course.F", new ScanOperator("Course"), 5, 100));
+        assertEquals(Arrays.asList("1, 10, 101, 15",
+                "1, 10, 102, 35", "2, 20, 102, 35", "3, 30, 102, 35",
+                "1, 10, 103, 45", "2, 20, 103, 45", "3, 30, 103, 45", "4, 40, 103, 45"), rows);
+    }
+
+    // Do batch and push execution return the rows in the same order as getNextTuple, whether or not the inner input
+    // fits the cache?
+    @Test
+    public void batchAndPushMatchTuples() throws Exception {
+        for (String on : new String[] {"Student.C < Course.F", "Student.A * 10 + 5 = Course.F OR Student.C > Course.F * 2"}) {
+            List<String> expected = Helpers.collectAll(blocks(on, new ScanOperator("Course"), 2, 100));
+
+            for (int blockRows : new int[] {1, 2, 5, 100}) {
+                for (int cacheRows : new int[] {0, 2, 100}) {
+                    BlockNestedLoopJoinOperator join = blocks(on, new ScanOperator("Course"), blockRows, cacheRows);
+                    List<String> tuples = Helpers.collectAllAndReset(join);
+                    List<String> batches = Helpers.collectAllBatches(join);
+                    join.reset();
+                    List<String> pushed = Helpers.collectAllPushed(join);
+
+                    assertEquals(Helpers.sorted(expected), Helpers.sorted(tuples));
+                    assertEquals(tuples, batches);
+                    assertEquals(tuples, pushed);
+                }
+            }
+        }
+
+        BlockNestedLoopJoinOperator keyed = new BlockNestedLoopJoinOperator(new ScanOperator("Student"),
+                new ScanOperator("Enrolled"), CCJSqlParserUtil.parseCondExpression("Student.A = Enrolled.A"),
+                students, enrolled, 2, 100);
+        assertEquals(Arrays.asList("1, 10, 1, 100", "2, 20, 2, 200", "1, 10, 1, 150"), Helpers.collectAllBatches(keyed));
+    }
+
+    // Is a cached inner input read only once, across blocks and resets?
+    @Test
+    public void readsCachedInnerOnce() throws Exception {
+        CountingScan inner = new CountingScan();
+        BlockNestedLoopJoinOperator join = blocks("Student.C < Course.F", inner, 2, 100);
+
+        List<String> first = Helpers.collectAllAndReset(join);
+        assertEquals(Helpers.sorted(nestedLoop("Student.C < Course.F")), Helpers.sorted(first));
+        assertEquals(first, Helpers.collectAll(join));
+        assertEquals(0, inner.resets);
+    }
+
+    // Is an inner input too large for the cache rescanned once per block instead?
+    @Test
+    public void rescansInnerThatDoesNotFit() throws Exception {
+        CountingScan inner = new CountingScan();
+        BlockNestedLoopJoinOperator join = blocks("Student.C < Course.F", inner, 2, 2);
+
+        assertEquals(Helpers.sorted(nestedLoop("Student.C < Course.F")), Helpers.sorted(Helpers.collectAll(join)));
+        assertEquals(2, inner.resets); // three blocks of Student: the first pass reads Course as it is
+    }
+
+    // Does a condition that combines comparisons with OR match the nested-loop join?
+    @Test
+    public void appliesDisjunctions() throws Exception {
+        String on = "Student.A * 10 + 5 = Course.F OR Student.C > Course.F * 2";
+        List<String> expected = Helpers.sorted(nestedLoop(on));
+        assertFalse(expected.isEmpty());
+        assertEquals(expected, Helpers.sorted(Helpers.collectAll(blocks(on, new ScanOperator("Course"), 2, 100))));
+    }
+
+    // Are column equalities matched on the keys, with every pair for a duplicated key, left fields first?
+    @Test
+    public void matchesKeyEqualities() throws Exception {
+        BlockNestedLoopJoinOperator join = new BlockNestedLoopJoinOperator(new ScanOperator("Student"),
+                new ScanOperator("Enrolled"), CCJSqlParserUtil.parseCondExpression("Student.A = Enrolled.A"),
+                students, enrolled, 2, 100);
+
+        assertEquals(Arrays.asList("1, 10, 1, 100", "2, 20, 2, 200", "1, 10, 1, 150"), Helpers.collectAll(join));
+    }
+
+    // Does a missing condition produce the cross product of the two inputs?
+    @Test
+    public void nullConditionIsCrossProduct() throws Exception {
+        List<String> rows = Helpers.collectAll(new BlockNestedLoopJoinOperator(new ScanOperator("Student"),
+                new ScanOperator("Course"), null, students, courses, 1, 100));
+
+        assertEquals(20, rows.size());
+        assertEquals(Arrays.asList("1, 10, 101, 15", "1, 10, 102, 35", "1, 10, 103, 45", "1, 10, 104, 5"), rows.subList(0, 4));
+    }
+}
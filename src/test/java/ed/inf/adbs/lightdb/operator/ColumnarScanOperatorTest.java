@@ -0,0 +1,103 @@
+package ed.inf.adbs.lightdb.operator;
+
+import ed.inf.adbs.lightdb.catalog.Catalog;
+import ed.inf.adbs.lightdb.catalog.SchemaLoader;
+import ed.inf.adbs.lightdb.catalog.StorageFormat;
+import ed.inf.adbs.lightdb.catalog.TableMeta;
+import ed.inf.adbs.lightdb.operator.util.Helpers;
+import ed.inf.adbs.lightdb.operator.util.TestDb;
+import ed.inf.adbs.lightdb.planner.PlanBuilder;
+
+import net.sf.jsqlparser.parser.CCJSqlParserUtil;
+import net.sf.jsqlparser.statement.select.Select;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ColumnarScanOperatorTest {
+
+    private TestDb db;
+
+    @Before
+    public void setUp() throws Exception {
+        db = TestDb.create()
+                .writeSchema("Student A B C\n")
+                .writeTable("Student",
+                        "1, 2, x\n" +
+                        "4, 5, y z\n" +
+                        "7, 8, \n");
+
+        db.initCatalog(StorageFormat.COLUMNAR);
+    }
+
+    @After
+    public void tearDown() {
+        db.close();
+    }
+
+    // Does loading with COLUMNAR convert the CSV and record the copy as the table's storage?
+    @Test
+    public void loadRecordsColumnarStorage() {
+        TableMeta meta = Catalog.getInstance().getTable("Student").get();
+
+        assertEquals(StorageFormat.COLUMNAR, meta.getStorageFormat());
+        assertNotEquals(meta.getDataFile(), meta.getStorageFile());
+        assertTrue(Files.isDirectory(Paths.get(meta.getStorageFile())));
+    }
+
+    // Does a full columnar scan return the same rows as the CSV scan?
+    @Test
+    public void scanAllColumnsMatchesCsv() {
+        List<String> columnar = Helpers.collectAll(new ColumnarScanOperator("Student", Arrays.asList("A", "B", "C")));
+        List<String> csv = Helpers.collectAll(new ScanOperator("Student"));
+
+        assertEquals(csv, columnar);
+    }
+
+    // Are only the requested columns returned, in the requested order? Does reset rewind all column readers?
+    @Test
+    public void scanSubsetOfColumnsAndReset() {
+        ColumnarScanOperator scan = new ColumnarScanOperator("Student", Arrays.asList("C", "A"));
+
+        assertEquals(Arrays.asList("x, 1", "y z, 4", ", 7"), Helpers.collectAllAndReset(scan));
+        assertEquals("x, 1", scan.getNextTuple().toString());
+    }
+
+    // Is the conversion reused while the CSV is unchanged, and redone once the CSV changes?
+    @Test
+    public void conversionIsReusedUntilCsvChanges() throws Exception {
+        TableMeta before = Catalog.getInstance().getTable("Student").get();
+        Path header = Paths.get(before.getStorageFile()).resolve("columns.meta");
+        FileTime converted = Files.getLastModifiedTime(header);
+
+        SchemaLoader.loadIntoCatalog(db.schemaFile, db.dataDir, StorageFormat.COLUMNAR);
+        assertEquals(converted, Files.getLastModifiedTime(header));
+
+        db.writeTable("Student", "9, 9, 9\n");
+        Files.setLastModifiedTime(db.dataDir.resolve("Student.csv"), FileTime.fromMillis(converted.toMillis() + 10_000));
+        SchemaLoader.loadIntoCatalog(db.schemaFile, db.dataDir, StorageFormat.COLUMNAR);
+
+        assertEquals(Collections.singletonList("9, 9, 9"),
+                Helpers.collectAll(new ColumnarScanOperator("Student", Arrays.asList("A", "B", "C"))));
+    }
+
+    // Does the planner pick the columnar scan and still apply predicates and projections correctly?
+    @Test
+    public void plannerUsesColumnarScan() throws Exception {
+        Select sel = (Select) CCJSqlParserUtil.parse("SELECT Student.B FROM Student WHERE Student.A > 1;");
+        Operator root = PlanBuilder.build(sel.getPlainSelect());
+
+        assertEquals(Arrays.asList("5", "8"), Helpers.collectAll(root));
+    }
+}
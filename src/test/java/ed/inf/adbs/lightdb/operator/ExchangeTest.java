@@ -0,0 +1,188 @@
+package ed.inf.adbs.lightdb.operator;
+
+import ed.inf.adbs.lightdb.Tuple;
+import ed.inf.adbs.lightdb.catalog.Catalog;
+import ed.inf.adbs.lightdb.catalog.TableMeta;
+import ed.inf.adbs.lightdb.operator.util.Helpers;
+import ed.inf.adbs.lightdb.operator.util.TestDb;
+import ed.inf.adbs.lightdb.planner.PlanBuilder;
+import ed.inf.adbs.lightdb.planner.PlannerOptions;
+
+import net.sf.jsqlparser.parser.CCJSqlParserUtil;
+import net.sf.jsqlparser.statement.select.Select;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ExchangeTest {
+
+    private TestDb db;
+
+    @Before
+    public void setUp() throws Exception {
+        // Enough rows that every partition receives several chunks
+        StringBuilder students = new StringBuilder();
+        for (int i = 0; i < 3000; i++) {
+            students.append(i).append(", ").append(i % 7).append(", ").append(i % 100).append('\n');
+        }
+        StringBuilder enrolled = new StringBuilder();
+        for (int i = 0; i < 300; i++) {
+            enrolled.append(i * 10).append(", ").append(i % 5).append('\n');
+        }
+        db = TestDb.create()
+                .writeSchema("Student A B C\nEnrolled A E\nCourse E F\n")
+                .writeTable("Student", students.toString())
+                .writeTable("Enrolled", enrolled.toString())
+                .writeTable("Course", "0, 10\n1, 11\n2, 12\n3, 13\n");
+        db.initCatalog();
+    }
+
+    @After
+    public void tearDown() {
+        db.close();
+    }
+
+    private static Operator plan(String sql, int parallelism) throws Exception {
+        return PlanBuilder.build(((Select) CCJSqlParserUtil.parse(sql)).getPlainSelect(),
+                PlannerOptions.defaults().setParallelism(parallelism));
+    }
+
+    // Does a hash partition send every row to exactly one output, with equal keys in the same one?
+    @Test
+    public void hashPartitionSplitsRowsByKey() {
+        List<Operator> outputs = Exchange.hashPartition(new ScanOperator("Student"), new int[]{1}, 4, false);
+
+        List<String> all = new ArrayList<String>();
+        List<Long> seenKeys = new ArrayList<Long>();
+        for (Operator out : outputs) {
+            List<Long> keys = new ArrayList<Long>();
+            Tuple t;
+            while ((t = out.getNextTuple()) != null) {
+                all.add(t.toString());
+                if (!keys.contains(t.getLong(1))) keys.add(t.getLong(1));
+            }
+            for (Long k : keys) assertFalse("key in two partitions: " + k, seenKeys.contains(k));
+            seenKeys.addAll(keys);
+        }
+
+        assertEquals(Helpers.sorted(Helpers.collectAll(new ScanOperator("Student"))), Helpers.sorted(all));
+    }
+
+    // Does joining the matching partitions of two inputs hash-partitioned on their join keys return the serial join?
+    @Test
+    public void hashPartitionedJoinMatchesSerial() throws Exception {
+        List<TableMeta> students = Arrays.asList(Catalog.getInstance().getTable("Student").get());
+        List<TableMeta> enrolled = Arrays.asList(Catalog.getInstance().getTable("Enrolled").get());
+        String on = "Student.A = Enrolled.A";
+
+        List<Operator> left = Exchange.hashPartition(new ScanOperator("Student"), new int[]{0}, 3, false);
+        List<Operator> right = Exchange.hashPartition(new ScanOperator("Enrolled"), new int[]{0}, 3, false);
+        List<Operator> joins = new ArrayList<Operator>();
+        for (int p = 0; p < 3; p++) {
+            joins.add(new HashJoinOperator(left.get(p), right.get(p), CCJSqlParserUtil.parseCondExpression(on),
+                    students, enrolled, false));
+        }
+
+        List<String> expected = Helpers.sorted(Helpers.collectAll(new HashJoinOperator(new ScanOperator("Student"),
+                new ScanOperator("Enrolled"), CCJSqlParserUtil.parseCondExpression(on), students, enrolled, false)));
+        assertEquals(300, expected.size());
+        assertEquals(expected, Helpers.sorted(Helpers.collectAll(new GatherOperator(joins))));
+    }
+
+    // Does a round-robin exchange send every row to exactly one output, spreading them evenly?
+    @Test
+    public void roundRobinDealsRowsOut() {
+        List<Operator> outputs = Exchange.roundRobin(new ScanOperator("Student"), 4, false);
+
+        List<String> all = new ArrayList<String>();
+        for (Operator out : outputs) {
+            List<String> rows = Helpers.collectAll(out);
+            assertEquals(750, rows.size());
+            all.addAll(rows);
+        }
+
+        assertEquals(Helpers.sorted(Helpers.collectAll(new ScanOperator("Student"))), Helpers.sorted(all));
+    }
+
+    // Does every output of a broadcast see every row, and a replayable one see them again after a reset?
+    @Test
+    public void broadcastOutputsReplay() {
+        List<String> expected = Helpers.sorted(Helpers.collectAll(new ScanOperator("Enrolled")));
+        List<Operator> outputs = Exchange.broadcast(new ScanOperator("Enrolled"), 3, true);
+
+        for (Operator out : outputs) {
+            assertEquals(expected, Helpers.sorted(Helpers.collectAllAndReset(out)));
+            assertEquals(expected, Helpers.sorted(Helpers.collectAll(out)));
+        }
+    }
+
+    // Does a gather merge the rows of all its inputs?
+    @Test
+    public void gatherMergesInputs() {
+        List<Operator> inputs = Exchange.roundRobin(new ScanOperator("Student"), 3, false);
+        GatherOperator gather = new GatherOperator(inputs);
+
+        assertEquals(Helpers.sorted(Helpers.collectAll(new ScanOperator("Student"))), Helpers.sorted(Helpers.collectAll(gather)));
+    }
+
+    // Do plans with partitioned joins (joins without column equalities) return the same rows as serial plans,
+    // pulled, batched and pushed?
+    @Test
+    public void partitionedPlansMatchSerial() throws Exception {
+        String[] queries = {
+                "SELECT * FROM Enrolled, Course WHERE Enrolled.E < Course.E AND Enrolled.A < 200",
+                "SELECT * FROM Enrolled, Course WHERE Enrolled.E + Course.F = 14 OR Enrolled.A = Course.E",
+                "SELECT Student.A, Course.F FROM Student, Course WHERE Student.B > Course.E AND Student.C < 3",
+                "SELECT Course.E, SUM(Enrolled.A) FROM Enrolled, Course WHERE Enrolled.E <= Course.E GROUP BY Course.E",
+        };
+
+        for (String sql : queries) {
+            List<String> expected = Helpers.sorted(Helpers.collectAll(plan(sql, 1)));
+            assertFalse(sql, expected.isEmpty());
+            assertEquals(sql, expected, Helpers.sorted(Helpers.collectAll(plan(sql, 4))));
+            assertEquals(sql, expected, Helpers.sorted(Helpers.collectAllBatches(plan(sql, 4))));
+            assertEquals(sql, expected, Helpers.sorted(Helpers.collectAllPushed(plan(sql, 4))));
+        }
+    }
+
+    // Does resetting a partitioned plan part-way through stop its workers and run it again in full?
+    @Test
+    public void resetMidQueryRestarts() throws Exception {
+        String sql = "SELECT * FROM Student, Course WHERE Student.B < Course.E";
+        Operator op = plan(sql, 3);
+        for (int i = 0; i < 5; i++) assertNotNull(op.getNextTuple());
+
+        op.reset();
+
+        assertEquals(Helpers.sorted(Helpers.collectAll(plan(sql, 1))), Helpers.sorted(Helpers.collectAll(op)));
+    }
+
+    // Is a failure in a partition rethrown to the consumer of the gather?
+    @Test
+    public void failuresPropagate() {
+        Operator failing = new Operator() {
+            @Override
+            public Tuple getNextTuple() {
+                throw new IllegalStateException("boom");
+            }
+
+            @Override
+            public void reset() {}
+        };
+        GatherOperator gather = new GatherOperator(Arrays.asList(new ScanOperator("Enrolled"), failing));
+
+        try {
+            Helpers.collectAll(gather);
+            fail("Expected the partition's failure");
+        } catch (RuntimeException e) {
+            assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package ed.inf.adbs.lightdb.operator;
+
+import ed.inf.adbs.lightdb.catalog.Catalog;
+import ed.inf.adbs.lightdb.catalog.TableMeta;
+import ed.inf.adbs.lightdb.operator.util.Helpers;
+import ed.inf.adbs.lightdb.operator.util.TestDb;
+
+import net.sf.jsqlparser.expression.Expression;
+import net.sf.jsqlparser.parser.CCJSqlParserUtil;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class HashJoinOperatorTest {
+
+    private TestDb db;
+    private List<TableMeta> students;
+    private List<TableMeta> enrolled;
+
+    @Before
+    public void setUp() throws Exception {
+        db = TestDb.create()
+                .writeSchema("Student A B\nEnrolled A H\n")
+                .writeTable("Student", "1,10\n2,20\n1,30\n4,40\n")
+                .writeTable("Enrolled", "1,100\n2,200\n3,300\n1,150\n");
+        db.initCatalog();
+        students = Arrays.asList(Catalog.getInstance().getTable("Student").get());
+        enrolled = Arrays.asList(Catalog.getInstance().getTable("Enrolled").get());
+    }
+
+    @After
+    public void tearDown() {
+        db.close();
+    }
+
+    // A tuple-at-a-time nested-loop join, which returns its rows by left row
+    private BlockNestedLoopJoinOperator nestedLoop(String on) throws Exception {
+        return new BlockNestedLoopJoinOperator(new ScanOperator("Student"), new ScanOperator("Enrolled"),
+                CCJSqlParserUtil.parseCondExpression(on), students, enrolled, 1, 0);
+    }
+
+    private HashJoinOperator hash(String on, boolean buildLeft) throws Exception {
+        return new HashJoinOperator(new ScanOperator("Student"), new ScanOperator("Enrolled"),
+                CCJSqlParserUtil.parseCondExpression(on), students, enrolled, buildLeft);
+    }
+
+    // Does building on the right return the nested-loop join's rows, in the same order?
+    @Test
+    public void matchesNestedLoopJoin() throws Exception {
+        String on = "Student.A = Enrolled.A";
+        List<String> expected = Helpers.collectAll(nestedLoop(on));
+
+        assertEquals(Arrays.asList("1, 10, 1, 100", "1, 10, 1, 150", "2, 20, 2, 200", "1, 30, 1, 100", "1, 30, 1, 150"), expected);
+        assertEquals(expected, Helpers.collectAll(hash(on, false)));
+        assertEquals(expected, Helpers.collectAllPushed(hash(on, false)));
+    }
+
+    // Does building on the left still produce the left fields first?
+    @Test
+    public void buildLeftKeepsFieldOrder() throws Exception {
+        String on = "Enrolled.A = Student.A";
+        assertEquals(Helpers.sorted(Helpers.collectAll(nestedLoop(on))), Helpers.sorted(Helpers.collectAll(hash(on, true))));
+        assertEquals(Helpers.sorted(Helpers.collectAll(nestedLoop(on))), Helpers.sorted(Helpers.collectAllBatches(hash(on, true))));
+    }
+
+    // Is the rest of the condition applied to the matching pairs?
+    @Test
+    public void appliesResidual() throws Exception {
+        String on = "Student.A = Enrolled.A AND Student.B * 10 < Enrolled.H";
+        List<String> expected = Helpers.collectAll(nestedLoop(on));
+
+        assertEquals(Arrays.asList("1, 10, 1, 150"), expected);
+        assertEquals(expected, Helpers.collectAll(hash(on, false)));
+    }
+
+    // Does a reset restart the probe side against the same table?
+    @Test
+    public void resetProbesAgain() throws Exception {
+        HashJoinOperator join = hash("Student.A = Enrolled.A", false);
+        List<String> first = Helpers.collectAllAndReset(join);
+
+        assertEquals(5, first.size());
+        assertEquals(first, Helpers.collectAll(join));
+    }
+
+    // Do joins sharing one build side each see all of its rows?
+    @Test
+    public void sharedBuildServesEveryProbe() throws Exception {
+        Expression on = CCJSqlParserUtil.parseCondExpression("Student.A = Enrolled.A");
+        List<Operator> joins = HashJoinOperator.shared(
+                Arrays.<Operator>asList(new ScanOperator("Student"), new ScanOperator("Student")),
+                new ScanOperator("Enrolled"), on, students, enrolled);
+
+        List<String> expected = Helpers.collectAll(nestedLoop("Student.A = Enrolled.A"));
+        for (Operator join : joins) assertEquals(expected, Helpers.collectAll(join));
+    }
+
+    // Is a condition without a column equality rejected?
+    @Test(expected = IllegalArgumentException.class)
+    public void requiresEquality() throws Exception {
+        hash("Student.A < Enrolled.A", false);
+    }
+}
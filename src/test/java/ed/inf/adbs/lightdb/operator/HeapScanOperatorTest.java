@@ -0,0 +1,120 @@
+package ed.inf.adbs.lightdb.operator;
+
+import ed.inf.adbs.lightdb.catalog.Catalog;
+import ed.inf.adbs.lightdb.catalog.SchemaLoader;
+import ed.inf.adbs.lightdb.catalog.StorageFormat;
+import ed.inf.adbs.lightdb.catalog.TableMeta;
+import ed.inf.adbs.lightdb.operator.util.Helpers;
+import ed.inf.adbs.lightdb.operator.util.TestDb;
+import ed.inf.adbs.lightdb.planner.PlanBuilder;
+import ed.inf.adbs.lightdb.storage.BufferPool;
+import ed.inf.adbs.lightdb.storage.HeapFile;
+import ed.inf.adbs.lightdb.storage.RecordId;
+
+import net.sf.jsqlparser.parser.CCJSqlParserUtil;
+import net.sf.jsqlparser.statement.select.Select;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class HeapScanOperatorTest {
+
+    private TestDb db;
+
+    @Before
+    public void setUp() throws Exception {
+        BufferPool.configure(16);
+
+        StringBuilder rows = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            rows.append(i).append(", ").append(i % 10).append(", name").append(i).append('\n');
+        }
+
+        db = TestDb.create()
+                .writeSchema("Student A B C\nCourse D E\n")
+                .writeTable("Student", rows.toString())
+                .writeTable("Course", "1, x\n2, \n");
+
+        db.initCatalog(StorageFormat.HEAP);
+    }
+
+    @After
+    public void tearDown() {
+        // Drops the pool's open file handles before the files are deleted
+        BufferPool.configure(16);
+        db.close();
+    }
+
+    // Does loading with HEAP convert the CSV into a multi-page heap file and record it as the table's storage?
+    @Test
+    public void loadRecordsHeapStorage() throws Exception {
+        TableMeta meta = Catalog.getInstance().getTable("Student").get();
+
+        assertEquals(StorageFormat.HEAP, meta.getStorageFormat());
+        HeapFile heap = HeapFile.open(Paths.get(meta.getStorageFile()));
+        assertEquals(1000, heap.getRowCount());
+        assertTrue(heap.getPageCount() > 1);
+    }
+
+    // Does a heap scan return the same rows, in the same order, as the CSV scan (including empty fields)?
+    @Test
+    public void scanMatchesCsv() {
+        assertEquals(Helpers.collectAll(new ScanOperator("Student")), Helpers.collectAll(new HeapScanOperator("Student")));
+        assertEquals(Arrays.asList("1, x", "2, "), Helpers.collectAll(new HeapScanOperator("Course")));
+    }
+
+    // Is a re-scan after reset served from the buffer pool?
+    @Test
+    public void resetRescansFromBufferPool() {
+        HeapScanOperator scan = new HeapScanOperator("Student");
+        List<String> first = Helpers.collectAllAndReset(scan);
+
+        long misses = BufferPool.getInstance().getMisses();
+        assertEquals(first, Helpers.collectAll(scan));
+        assertEquals(misses, BufferPool.getInstance().getMisses());
+    }
+
+    // Can a row be fetched back by its record ID?
+    @Test
+    public void fetchByRecordId() throws Exception {
+        HeapFile heap = HeapFile.open(Paths.get(Catalog.getInstance().getTable("Student").get().getStorageFile()));
+        int perPage = heap.readPage(1).size();
+
+        assertEquals("0, 0, name0", heap.fetch(RecordId.of(1, 0)).toString());
+        assertEquals(perPage + 3 + ", " + (perPage + 3) % 10 + ", name" + (perPage + 3),
+                heap.fetch(RecordId.of(2, 3)).toString());
+    }
+
+    // Is the heap file rebuilt once the CSV changes?
+    @Test
+    public void conversionIsRedoneWhenCsvChanges() throws Exception {
+        db.writeTable("Course", "3, y\n");
+        Path csv = Paths.get(Catalog.getInstance().getTable("Course").get().getDataFile());
+        Files.setLastModifiedTime(csv, FileTime.fromMillis(Files.getLastModifiedTime(csv).toMillis() + 5000));
+
+        SchemaLoader.loadIntoCatalog(db.schemaFile, db.dataDir, StorageFormat.HEAP);
+
+        assertEquals(Arrays.asList("3, y"), Helpers.collectAll(new HeapScanOperator("Course")));
+    }
+
+    // Does the planner read HEAP tables with a HeapScanOperator and still produce correct join results?
+    @Test
+    public void plannerUsesHeapScan() throws Exception {
+        Select select = (Select) CCJSqlParserUtil.parse(
+                "SELECT Student.A, Course.E FROM Student, Course WHERE Student.A = Course.D");
+
+        List<String> rows = Helpers.collectAll(PlanBuilder.build(select.getPlainSelect()));
+
+        assertEquals(Arrays.asList("1, x", "2, "), rows);
+    }
+}
@@ -0,0 +1,146 @@
+package ed.inf.adbs.lightdb.operator;
+
+import ed.inf.adbs.lightdb.catalog.Catalog;
+import ed.inf.adbs.lightdb.catalog.IndexMeta;
+import ed.inf.adbs.lightdb.catalog.IndexType;
+import ed.inf.adbs.lightdb.catalog.TableMeta;
+import ed.inf.adbs.lightdb.index.KeyRange;
+import ed.inf.adbs.lightdb.operator.util.Helpers;
+import ed.inf.adbs.lightdb.operator.util.TestDb;
+import ed.inf.adbs.lightdb.planner.PlanBuilder;
+import ed.inf.adbs.lightdb.util.EquiJoinKey;
+
+import net.sf.jsqlparser.expression.Expression;
+import net.sf.jsqlparser.parser.CCJSqlParserUtil;
+import net.sf.jsqlparser.statement.select.Select;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class IndexNestedLoopJoinOperatorTest {
+
+    private TestDb db;
+
+    @Before
+    public void setUp() throws Exception {
+        StringBuilder students = new StringBuilder();
+        for (int i = 0; i < 200; i++) students.append(i).append(", ").append(i % 7).append('\n');
+
+        // Enrolled.A has duplicates and values without a student
+        StringBuilder enrolled = new StringBuilder();
+        for (int i = 0; i < 500; i++) enrolled.append(i % 250).append(", ").append(i).append(", ").append(i % 3).append('\n');
+
+        db = TestDb.create()
+                .writeSchema("Student A B\nEnrolled A H C\n")
+                .writeTable("Student", students.toString())
+                .writeTable("Enrolled", enrolled.toString());
+        db.initCatalog();
+    }
+
+    @After
+    public void tearDown() {
+        db.close();
+    }
+
+    private static TableMeta meta(String table) {
+        return Catalog.getInstance().getTable(table).get();
+    }
+
+    private static List<String> run(String sql) throws Exception {
+        return Helpers.collectAll(PlanBuilder.build(((Select) CCJSqlParserUtil.parse(sql)).getPlainSelect()));
+    }
+
+    // Does probing the inner hash index produce the same rows as a nested loop join, with the inner selection applied?
+    @Test
+    public void matchesNestedLoopJoin() throws Exception {
+        IndexMeta index = Catalog.getInstance().ensureIndex("Enrolled", "A", IndexType.HASH);
+        Expression on = CCJSqlParserUtil.parseCondExpression("Student.A = Enrolled.A");
+        Expression innerWhere = CCJSqlParserUtil.parseCondExpression("Enrolled.C = 1");
+
+        List<TableMeta> outer = Collections.singletonList(meta("Student"));
+        IndexNestedLoopJoinOperator join = new IndexNestedLoopJoinOperator(new ScanOperator("Student"), outer,
+                EquiJoinKey.of(on), index, innerWhere, meta("Enrolled"), on);
+
+        BlockNestedLoopJoinOperator nlj = new BlockNestedLoopJoinOperator(new ScanOperator("Student"),
+                new SelectOperator(new ScanOperator("Enrolled"), innerWhere, meta("Enrolled")),
+                on, outer, Collections.singletonList(meta("Enrolled")));
+
+        List<String> expected = Helpers.collectAll(nlj);
+        assertFalse(expected.isEmpty());
+        assertEquals(Helpers.sorted(expected), Helpers.sorted(Helpers.collectAllAndReset(join)));
+        assertEquals(Helpers.sorted(expected), Helpers.sorted(Helpers.collectAll(join)));
+    }
+
+    // Does probing a B+-tree index instead return the same rows?
+    @Test
+    public void probesBPlusTreeIndex() throws Exception {
+        IndexMeta index = Catalog.getInstance().ensureIndex("Enrolled", "A", IndexType.BTREE);
+        Expression on = CCJSqlParserUtil.parseCondExpression("Student.A = Enrolled.A");
+
+        List<TableMeta> outer = Collections.singletonList(meta("Student"));
+        IndexNestedLoopJoinOperator join = new IndexNestedLoopJoinOperator(new ScanOperator("Student"), outer,
+                EquiJoinKey.of(on), index, null, meta("Enrolled"), on);
+
+        // One-row blocks return the rows by outer row, as the index join does
+        BlockNestedLoopJoinOperator nlj = new BlockNestedLoopJoinOperator(new ScanOperator("Student"),
+                new ScanOperator("Enrolled"), on, outer, Collections.singletonList(meta("Enrolled")), 1, 0);
+
+        List<String> expected = Helpers.collectAll(nlj);
+        assertEquals(400, expected.size());
+        assertEquals(expected, Helpers.collectAllAndReset(join));
+        assertEquals(expected, Helpers.collectAllPushed(join));
+    }
+
+    // Are only the inner columns of the given output schema appended to the outer tuple? (The probe alone enforces the key.)
+    @Test
+    public void appendsOnlyOutputColumns() throws Exception {
+        IndexMeta index = Catalog.getInstance().ensureIndex("Enrolled", "A", IndexType.HASH);
+        Expression on = CCJSqlParserUtil.parseCondExpression("Student.A = Enrolled.A");
+        TableMeta innerOutput = meta("Enrolled").withColumns(Arrays.asList(meta("Enrolled").getColumns().get(1)));
+
+        IndexNestedLoopJoinOperator join = new IndexNestedLoopJoinOperator(
+                new IndexScanOperator("Student", Catalog.getInstance().ensureIndex("Student", "A", IndexType.HASH), KeyRange.point(3)),
+                Collections.singletonList(meta("Student")), EquiJoinKey.of(on), index, null, innerOutput, null);
+
+        assertEquals(Arrays.asList("3, 3, 3", "3, 3, 253"), Helpers.collectAll(join));
+    }
+
+    // Does a planned join over a hash-indexed inner column return the same rows as without the index?
+    @Test
+    public void plannerProbesHashIndexForEquiJoin() throws Exception {
+        String sql = "SELECT Student.B, Enrolled.H FROM Student, Enrolled "
+                + "WHERE Enrolled.A = Student.A AND Student.B = 2 AND Enrolled.C > 0 AND Student.A < Enrolled.H";
+
+        List<String> expected = Helpers.sorted(run(sql));
+        assertFalse(expected.isEmpty());
+
+        Catalog.getInstance().ensureIndex("Enrolled", "A", IndexType.HASH);
+        assertEquals(expected, Helpers.sorted(run(sql)));
+    }
+
+    // With statistics, is the index probed only for a selective outer input?
+    @Test
+    public void plannerProbesIndexForSelectiveOuter() throws Exception {
+        Catalog.getInstance().ensureIndex("Enrolled", "A", IndexType.BTREE);
+        Catalog.getInstance().analyzeTable("Student");
+        Catalog.getInstance().analyzeTable("Enrolled");
+
+        String selective = "SELECT * FROM Student, Enrolled WHERE Student.A = Enrolled.A AND Student.B = 2";
+        Operator root = PlanBuilder.build(((Select) CCJSqlParserUtil.parse(selective)).getPlainSelect());
+        assertTrue(root.getClass().getName(), root instanceof IndexNestedLoopJoinOperator);
+        assertEquals(58, Helpers.collectAll(root).size());
+
+        // All 200 students are more than 30% of the 500 enrolments: reading Enrolled once is cheaper
+        String all = "SELECT * FROM Student, Enrolled WHERE Student.A = Enrolled.A";
+        root = PlanBuilder.build(((Select) CCJSqlParserUtil.parse(all)).getPlainSelect());
+        assertFalse(root.getClass().getName(), root instanceof IndexNestedLoopJoinOperator);
+        assertEquals(400, Helpers.collectAll(root).size());
+    }
+}
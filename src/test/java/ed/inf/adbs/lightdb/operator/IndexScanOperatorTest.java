@@ -0,0 +1,132 @@
+package ed.inf.adbs.lightdb.operator;
+
+import ed.inf.adbs.lightdb.catalog.Catalog;
+import ed.inf.adbs.lightdb.catalog.IndexMeta;
+import ed.inf.adbs.lightdb.catalog.IndexType;
+import ed.inf.adbs.lightdb.catalog.TableMeta;
+import ed.inf.adbs.lightdb.index.KeyRange;
+import ed.inf.adbs.lightdb.operator.util.Helpers;
+import ed.inf.adbs.lightdb.operator.util.TestDb;
+import ed.inf.adbs.lightdb.planner.PlanBuilder;
+
+import net.sf.jsqlparser.parser.CCJSqlParserUtil;
+import net.sf.jsqlparser.statement.select.Select;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class IndexScanOperatorTest {
+
+    private TestDb db;
+
+    @Before
+    public void setUp() throws Exception {
+        // B is unclustered with duplicates; C has a null (empty) value
+        StringBuilder rows = new StringBuilder();
+        for (int i = 0; i < 3000; i++) {
+            rows.append(i).append(", ").append((i * 7919) % 1000).append(", ").append(i == 42 ? "" : "x").append('\n');
+        }
+
+        db = TestDb.create()
+                .writeSchema("Student A B C\n")
+                .writeTable("Student", rows.toString());
+        db.initCatalog();
+    }
+
+    @After
+    public void tearDown() {
+        db.close();
+    }
+
+    private List<String> expected(String where) throws Exception {
+        TableMeta meta = Catalog.getInstance().getTable("Student").get();
+        return Helpers.collectAll(new SelectOperator(new ScanOperator("Student"), CCJSqlParserUtil.parseCondExpression(where), meta));
+    }
+
+    private static long b(int a) {
+        return (a * 7919L) % 1000;
+    }
+
+    // Do equality and range lookups through the index return exactly the rows a filtered scan returns?
+    @Test
+    public void lookupsMatchFilteredScan() throws Exception {
+        IndexMeta index = Catalog.getInstance().ensureIndex("Student", "B", IndexType.BTREE);
+
+        List<String> eq = Helpers.collectAll(new IndexScanOperator("Student", index, KeyRange.point(17)));
+        assertEquals(3, eq.size());
+        assertEquals(Helpers.sorted(expected("Student.B = 17")), Helpers.sorted(eq));
+
+        List<String> range = Helpers.collectAll(new IndexScanOperator("Student", index, new KeyRange(10, 19)));
+        assertEquals(Helpers.sorted(expected("Student.B >= 10 AND Student.B <= 19")), Helpers.sorted(range));
+    }
+
+    // Does an equality lookup through a hash index return the same rows, and is a range lookup rejected?
+    @Test
+    public void hashIndexAnswersEqualityOnly() throws Exception {
+        IndexMeta index = Catalog.getInstance().ensureIndex("Student", "B", IndexType.HASH);
+
+        IndexScanOperator scan = new IndexScanOperator("Student", index, KeyRange.point(17));
+        assertEquals(Helpers.sorted(expected("Student.B = 17")), Helpers.sorted(Helpers.collectAllAndReset(scan)));
+        assertEquals(Helpers.sorted(expected("Student.B = 17")), Helpers.sorted(Helpers.collectAll(scan)));
+        assertTrue(Helpers.collectAll(new IndexScanOperator("Student", index, KeyRange.point(1000))).isEmpty());
+
+        try {
+            new IndexScanOperator("Student", index, new KeyRange(10, 19));
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException expected) {
+            // hash indexes have no key order
+        }
+    }
+
+    // Are rows returned in key order, and does reset repeat the lookup?
+    @Test
+    public void rowsInKeyOrderAndReset() throws Exception {
+        IndexMeta index = Catalog.getInstance().ensureIndex("Student", "A", IndexType.BTREE);
+        IndexScanOperator scan = new IndexScanOperator("Student", index, new KeyRange(2997, Long.MAX_VALUE));
+
+        List<String> rows = Helpers.collectAllAndReset(scan);
+        assertEquals(Arrays.asList("2997, " + b(2997) + ", x", "2998, " + b(2998) + ", x", "2999, " + b(2999) + ", x"), rows);
+        assertEquals("2997, " + b(2997) + ", x", scan.getNextTuple().toString());
+    }
+
+    // Is an existing up-to-date index reused, and is a column with non-integer values rejected?
+    @Test
+    public void ensureIndexReusesAndValidates() throws Exception {
+        IndexMeta first = Catalog.getInstance().ensureIndex("Student", "A", IndexType.BTREE);
+        assertEquals(first, Catalog.getInstance().ensureIndex("Student", "A", IndexType.BTREE));
+        assertEquals(Collections.singletonList(first), Catalog.getInstance().getIndexes("Student"));
+
+        try {
+            Catalog.getInstance().ensureIndex("Student", "C", IndexType.BTREE);
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException expected) {
+            // C holds strings
+        }
+    }
+
+    // Does the planner answer selective queries on an indexed column correctly, combined with other conjuncts?
+    @Test
+    public void plannerUsesIndexForSelectiveConjunct() throws Exception {
+        Catalog.getInstance().ensureIndex("Student", "A", IndexType.BTREE);
+        Select select = (Select) CCJSqlParserUtil.parse(
+                "SELECT Student.B FROM Student WHERE Student.A > 100 AND 105 >= Student.A AND Student.B > 500");
+
+        List<String> rows = Helpers.collectAll(PlanBuilder.build(select.getPlainSelect()));
+
+        // The index returns rows in A order
+        List<String> expected = new ArrayList<String>();
+        for (int a = 101; a <= 105; a++) {
+            if (b(a) > 500) expected.add(Long.toString(b(a)));
+        }
+        assertFalse(expected.isEmpty());
+        assertEquals(expected, rows);
+    }
+}
@@ -0,0 +1,103 @@
+package ed.inf.adbs.lightdb.operator;
+
+import ed.inf.adbs.lightdb.operator.util.Helpers;
+import ed.inf.adbs.lightdb.operator.util.TestDb;
+import ed.inf.adbs.lightdb.planner.PlanBuilder;
+import ed.inf.adbs.lightdb.planner.PlannerOptions;
+
+import net.sf.jsqlparser.parser.CCJSqlParserUtil;
+import net.sf.jsqlparser.statement.select.Select;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class MorselScanOperatorTest {
+
+    private TestDb db;
+
+    @Before
+    public void setUp() throws Exception {
+        StringBuilder students = new StringBuilder();
+        for (int i = 0; i < 3000; i++) {
+            students.append(i).append(", ").append(i % 7).append(", ").append(i % 100).append('\n');
+        }
+        // Skewed: most rows share one join key
+        StringBuilder enrolled = new StringBuilder();
+        for (int i = 0; i < 400; i++) {
+            enrolled.append(i < 300 ? 3 : i).append(", ").append(i % 5).append('\n');
+        }
+        db = TestDb.create()
+                .writeSchema("Student A B C\nEnrolled A E\n")
+                .writeTable("Student", students.toString())
+                .writeTable("Enrolled", enrolled.toString());
+        db.initCatalog();
+    }
+
+    @After
+    public void tearDown() {
+        db.close();
+    }
+
+    private static Operator plan(String sql, boolean morsels) throws Exception {
+        return PlanBuilder.build(((Select) CCJSqlParserUtil.parse(sql)).getPlainSelect(),
+                PlannerOptions.defaults().setParallelism(4).setMorselDriven(morsels));
+    }
+
+    // Do the scans of one table together return every row exactly once, however the morsels are shared out?
+    @Test
+    public void scansShareTheTable() {
+        List<String> all = new ArrayList<String>();
+        for (Operator scan : MorselScanOperator.workers("Student", null, 3, 256)) {
+            all.addAll(Helpers.collectAll(scan));
+        }
+
+        assertEquals(Helpers.sorted(Helpers.collectAll(new ScanOperator("Student"))), Helpers.sorted(all));
+    }
+
+    // Does resetting the scans hand the morsels out again, once, even if a scan was part-way through one?
+    @Test
+    public void resetRewindsMorsels() {
+        List<Operator> scans = MorselScanOperator.workers("Student", null, 2, 512);
+        assertNotNull(scans.get(0).getNextTuple());
+        for (Operator scan : scans) scan.reset();
+
+        assertEquals(3000, Helpers.collectAll(new GatherOperator(scans)).size());
+    }
+
+    // Do morsel-driven plans return the same rows as plans without morsels, pulled, batched and pushed?
+    @Test
+    public void morselPlansMatchSerial() throws Exception {
+        String[] queries = {
+                "SELECT * FROM Student WHERE Student.B = 3",
+                "SELECT Student.A, Enrolled.E FROM Student, Enrolled WHERE Student.A = Enrolled.A",
+                "SELECT * FROM Enrolled, Student WHERE Student.A = Enrolled.A AND Student.C < 50",
+                "SELECT Student.B, SUM(Student.C) FROM Student GROUP BY Student.B",
+                "SELECT SUM(Student.A * Enrolled.E) FROM Student, Enrolled WHERE Student.A = Enrolled.A",
+                "SELECT DISTINCT Enrolled.E FROM Enrolled, Student WHERE Enrolled.A = Student.A ORDER BY Enrolled.E",
+        };
+
+        for (String sql : queries) {
+            List<String> expected = Helpers.sorted(Helpers.collectAll(plan(sql, false)));
+            assertFalse(sql, expected.isEmpty());
+            assertEquals(sql, expected, Helpers.sorted(Helpers.collectAll(plan(sql, true))));
+            assertEquals(sql, expected, Helpers.sorted(Helpers.collectAllBatches(plan(sql, true))));
+            assertEquals(sql, expected, Helpers.sorted(Helpers.collectAllPushed(plan(sql, true))));
+        }
+    }
+
+    // Does a reset morsel-driven aggregation compute the same groups again?
+    @Test
+    public void resetAggregatesAgain() throws Exception {
+        Operator op = plan("SELECT Student.B, SUM(Student.A) FROM Student GROUP BY Student.B", true);
+        List<String> first = Helpers.sorted(Helpers.collectAllAndReset(op));
+
+        assertEquals(7, first.size());
+        assertEquals(first, Helpers.sorted(Helpers.collectAll(op)));
+    }
+}
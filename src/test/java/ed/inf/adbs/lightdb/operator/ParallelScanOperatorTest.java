@@ -0,0 +1,81 @@
+package ed.inf.adbs.lightdb.operator;
+
+import ed.inf.adbs.lightdb.catalog.Catalog;
+import ed.inf.adbs.lightdb.catalog.TableMeta;
+import ed.inf.adbs.lightdb.operator.util.Helpers;
+import ed.inf.adbs.lightdb.operator.util.TestDb;
+
+import net.sf.jsqlparser.expression.Expression;
+import net.sf.jsqlparser.parser.CCJSqlParserUtil;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ParallelScanOperatorTest {
+
+    private TestDb db;
+
+    @Before
+    public void setUp() throws Exception {
+        StringBuilder rows = new StringBuilder();
+        for (int i = 0; i < 2000; i++) {
+            rows.append(i).append(", ").append(i % 7).append(", ").append(i * 3).append('\n');
+        }
+
+        db = TestDb.create()
+                .writeSchema("Student A B C\n")
+                .writeTable("Student", rows.toString());
+        db.initCatalog();
+    }
+
+    @After
+    public void tearDown() {
+        db.close();
+    }
+
+    // Does a parallel scan over many small chunks return exactly the rows of a sequential scan?
+    @Test
+    public void parallelScanReturnsAllRows() {
+        List<String> expected = Helpers.collectAll(new ScanOperator("Student"));
+        List<String> actual = Helpers.collectAll(new ParallelScanOperator("Student", null, 4, 512));
+
+        assertEquals(Helpers.sorted(expected), Helpers.sorted(actual));
+    }
+
+    // Is the pushed-down predicate applied in the workers with the same result as Scan + Select?
+    @Test
+    public void predicateMatchesSelectOperator() throws Exception {
+        Expression where = CCJSqlParserUtil.parseCondExpression("Student.B = 3 AND Student.A < 1500");
+        TableMeta meta = Catalog.getInstance().getTable("Student").get();
+
+        List<String> expected = Helpers.collectAll(new SelectOperator(new ScanOperator("Student"), where, meta));
+        List<String> actual = Helpers.collectAll(new ParallelScanOperator("Student", where, 3, 256));
+
+        assertFalse(expected.isEmpty());
+        assertEquals(Helpers.sorted(expected), Helpers.sorted(actual));
+    }
+
+    // Does reset part-way through cancel the running scan and start a complete new one?
+    @Test
+    public void resetMidScanRestarts() {
+        ParallelScanOperator scan = new ParallelScanOperator("Student", null, 4, 512);
+        for (int i = 0; i < 10; i++) assertNotNull(scan.getNextTuple());
+
+        scan.reset();
+
+        assertEquals(2000, Helpers.collectAll(scan).size());
+    }
+
+    // Does an empty table produce no rows instead of waiting for workers that never started?
+    @Test
+    public void emptyTableProducesNothing() throws Exception {
+        db.writeTable("Student", "");
+
+        assertNull(new ParallelScanOperator("Student", null, 4).getNextTuple());
+    }
+}
@@ -0,0 +1,80 @@
+package ed.inf.adbs.lightdb.operator;
+
+import ed.inf.adbs.lightdb.operator.util.Helpers;
+import ed.inf.adbs.lightdb.operator.util.TestDb;
+import ed.inf.adbs.lightdb.planner.PlanBuilder;
+
+import net.sf.jsqlparser.parser.CCJSqlParserUtil;
+import net.sf.jsqlparser.statement.select.Select;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class PushExecutionTest {
+
+    private TestDb db;
+
+    @Before
+    public void setUp() throws Exception {
+        StringBuilder students = new StringBuilder();
+        for (int i = 0; i < 2500; i++) {
+            students.append(i).append(", ").append(i % 7).append(", ").append(i % 100).append('\n');
+        }
+        StringBuilder enrolled = new StringBuilder();
+        for (int i = 0; i < 40; i++) {
+            enrolled.append(i * 3).append(", ").append(i % 5).append('\n');
+        }
+        db = TestDb.create()
+                .writeSchema("Student A B C\nEnrolled A E\nCourse E F\n")
+                .writeTable("Student", students.toString())
+                .writeTable("Enrolled", enrolled.toString())
+                .writeTable("Course", "0, 10\n1, 11\n2, 12\n2, 13\n");
+        db.initCatalog();
+    }
+
+    @After
+    public void tearDown() {
+        db.close();
+    }
+
+    private static Operator plan(String sql) throws Exception {
+        return PlanBuilder.build(((Select) CCJSqlParserUtil.parse(sql)).getPlainSelect());
+    }
+
+    // Does running a plan push-based give the same rows, in the same order, as pulling tuples from it?
+    @Test
+    public void pushedMatchesPulled() throws Exception {
+        String[] queries = {
+                "SELECT * FROM Student",
+                "SELECT Student.C, Student.A FROM Student WHERE Student.B = 3 AND Student.A > 100",
+                "SELECT * FROM Student, Enrolled WHERE Student.A = Enrolled.A AND Student.B < Enrolled.E",
+                "SELECT Enrolled.E, Student.B FROM Student, Enrolled WHERE Student.C = Enrolled.A",
+                "SELECT * FROM Student, Enrolled WHERE Student.A < 3 AND Enrolled.A > 100",
+                "SELECT * FROM Enrolled, Course WHERE Enrolled.E = Course.E AND Enrolled.A > Course.F",
+                "SELECT * FROM Student, Enrolled, Course WHERE Student.A = Enrolled.A AND Enrolled.E = Course.E",
+                "SELECT Student.B, SUM(Student.A * 2), SUM(1) FROM Student GROUP BY Student.B",
+                "SELECT SUM(Student.C) FROM Student, Enrolled WHERE Student.A = Enrolled.A",
+                "SELECT DISTINCT Student.B FROM Student ORDER BY Student.B",
+                "SELECT DISTINCT Student.C FROM Student WHERE Student.B = 2",
+        };
+        for (String sql : queries) {
+            List<String> pulled = Helpers.collectAll(plan(sql));
+            assertFalse(sql, pulled.isEmpty());
+            assertEquals(sql, pulled, Helpers.collectAllPushed(plan(sql)));
+        }
+    }
+
+    // Does a plan run push-based again after a reset?
+    @Test
+    public void pushAfterReset() throws Exception {
+        Operator op = plan("SELECT Student.B, SUM(Student.C) FROM Student, Enrolled WHERE Student.A = Enrolled.A GROUP BY Student.B");
+        List<String> once = Helpers.collectAllPushed(op);
+        op.reset();
+        assertEquals(once, Helpers.collectAllPushed(op));
+    }
+}
@@ -0,0 +1,161 @@
+package ed.inf.adbs.lightdb.operator;
+
+import ed.inf.adbs.lightdb.catalog.Catalog;
+import ed.inf.adbs.lightdb.catalog.TableMeta;
+import ed.inf.adbs.lightdb.operator.util.Helpers;
+import ed.inf.adbs.lightdb.operator.util.TestDb;
+import ed.inf.adbs.lightdb.planner.PlanBuilder;
+import ed.inf.adbs.lightdb.planner.PlannerOptions;
+
+import net.sf.jsqlparser.parser.CCJSqlParserUtil;
+import net.sf.jsqlparser.statement.select.Select;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class RadixHashJoinOperatorTest {
+
+    private TestDb db;
+    private List<TableMeta> students;
+    private List<TableMeta> enrolled;
+
+    @Before
+    public void setUp() throws Exception {
+        // Enough rows for every worker to partition a chunk of its own, with duplicate keys on both sides
+        StringBuilder student = new StringBuilder();
+        for (int i = 0; i < 6000; i++) student.append(i % 3000).append(',').append(i % 7).append('\n');
+        StringBuilder enrol = new StringBuilder();
+        for (int i = 0; i < 20000; i++) enrol.append(i % 4000).append(',').append(i % 5).append(',').append(i).append('\n');
+
+        db = TestDb.create()
+                .writeSchema("Student A B\nEnrolled A C H\nEmpty A\nTagged A T:STRING\n")
+                .writeTable("Student", student.toString())
+                .writeTable("Enrolled", enrol.toString())
+                .writeTable("Empty", "")
+                .writeTable("Tagged", "1,x\n2,y\n");
+        db.initCatalog();
+        students = Arrays.asList(Catalog.getInstance().getTable("Student").get());
+        enrolled = Arrays.asList(Catalog.getInstance().getTable("Enrolled").get());
+    }
+
+    @After
+    public void tearDown() {
+        db.close();
+    }
+
+    private List<String> hashJoin(String on) throws Exception {
+        return Helpers.collectAll(new HashJoinOperator(new ScanOperator("Enrolled"), new ScanOperator("Student"),
+                CCJSqlParserUtil.parseCondExpression(on), enrolled, students));
+    }
+
+    private RadixHashJoinOperator radix(String on, int workers, int partitionRows) throws Exception {
+        return new RadixHashJoinOperator(new ScanOperator("Enrolled"), new ScanOperator("Student"),
+                CCJSqlParserUtil.parseCondExpression(on), enrolled, students, workers, partitionRows);
+    }
+
+    // Does the radix join return the hash join's rows, whatever the number of workers and partitions?
+    @Test
+    public void matchesHashJoin() throws Exception {
+        String on = "Enrolled.A = Student.A";
+        List<String> expected = Helpers.sorted(hashJoin(on));
+        assertEquals(30000, expected.size());
+
+        for (int workers : new int[] {1, 2, 4}) {
+            for (int partitionRows : new int[] {16, RadixHashJoinOperator.PARTITION_ROWS, 1 << 20}) {
+                assertEquals(workers + "/" + partitionRows, expected, Helpers.sorted(Helpers.collectAll(radix(on, workers, partitionRows))));
+            }
+        }
+    }
+
+    // Are several key columns and the rest of the condition applied?
+    @Test
+    public void appliesKeysAndResidual() throws Exception {
+        String on = "Enrolled.A = Student.A AND Student.B = Enrolled.C AND Enrolled.H > 10000";
+        List<String> expected = Helpers.sorted(hashJoin(on));
+        assertFalse(expected.isEmpty());
+        assertEquals(expected, Helpers.sorted(Helpers.collectAll(radix(on, 4, 64))));
+        assertEquals(expected, Helpers.sorted(Helpers.collectAllPushed(radix(on, 4, 64))));
+    }
+
+    // Does a reset part-way through run the join again in full, in the same order?
+    @Test
+    public void resetRestartsTheJoin() throws Exception {
+        RadixHashJoinOperator join = radix("Enrolled.A = Student.A", 4, 32);
+        List<String> first = Helpers.collectAllAndReset(join);
+
+        for (int i = 0; i < 100; i++) assertNotNull(join.getNextTuple());
+        join.reset();
+
+        assertEquals(first, Helpers.collectAll(join));
+    }
+
+    // Does an empty input give an empty result?
+    @Test
+    public void emptyInput() throws Exception {
+        List<TableMeta> empty = Arrays.asList(Catalog.getInstance().getTable("Empty").get());
+        RadixHashJoinOperator join = new RadixHashJoinOperator(new ScanOperator("Enrolled"), new ScanOperator("Empty"),
+                CCJSqlParserUtil.parseCondExpression("Enrolled.A = Empty.A"), enrolled, empty, 4, 16);
+        assertTrue(Helpers.collectAll(join).isEmpty());
+
+        join = new RadixHashJoinOperator(new ScanOperator("Empty"), new ScanOperator("Enrolled"),
+                CCJSqlParserUtil.parseCondExpression("Enrolled.A = Empty.A"), empty, enrolled, 4, 16);
+        assertTrue(Helpers.collectAll(join).isEmpty());
+    }
+
+    // Is a failed partition reported (again on the next call), with the workers stopping instead of waiting?
+    @Test
+    public void failedPartitionStopsWorkers() throws Exception {
+        List<TableMeta> tagged = Arrays.asList(Catalog.getInstance().getTable("Tagged").get());
+        // Comparing the STRING column as a number fails on the workers
+        RadixHashJoinOperator join = new RadixHashJoinOperator(new ScanOperator("Enrolled"), new ScanOperator("Tagged"),
+                CCJSqlParserUtil.parseCondExpression("Enrolled.A = Tagged.A AND Tagged.T < Enrolled.H"), enrolled, tagged, 4, 1);
+
+        for (int attempt = 0; attempt < 2; attempt++) {
+            try {
+                Helpers.collectAll(join);
+                fail("Expected the partition's failure");
+            } catch (RuntimeException expected) {
+                assertNotNull(expected.getCause());
+            }
+        }
+        assertTrue(Helpers.awaitNoThreadsIn(RadixHashJoinOperator.class, 5000));
+    }
+
+    private static Operator plan(String sql, int parallelism) throws Exception {
+        return PlanBuilder.build(((Select) CCJSqlParserUtil.parse(sql)).getPlainSelect(),
+                PlannerOptions.defaults().setParallelism(parallelism));
+    }
+
+    // With a parallelism above 1, are equi-joins planned as radix joins that return the serial plans' rows, pulled,
+    // batched and pushed?
+    @Test
+    public void plannedEquiJoinsMatchSerial() throws Exception {
+        assertTrue(plan("SELECT * FROM Student, Enrolled WHERE Student.A = Enrolled.A", 4) instanceof RadixHashJoinOperator);
+
+        String[] queries = {
+                "SELECT * FROM Student, Enrolled WHERE Student.A = Enrolled.A AND Student.B < Enrolled.C",
+                "SELECT Student.A, Enrolled.H FROM Tagged, Student, Enrolled WHERE Student.A = Enrolled.A AND Tagged.A = Student.A",
+                "SELECT Enrolled.C, SUM(Student.B) FROM Student, Enrolled WHERE Student.A = Enrolled.A GROUP BY Enrolled.C",
+        };
+
+        for (String sql : queries) {
+            List<String> expected = Helpers.sorted(Helpers.collectAll(plan(sql, 1)));
+            assertFalse(sql, expected.isEmpty());
+            assertEquals(sql, expected, Helpers.sorted(Helpers.collectAll(plan(sql, 4))));
+            assertEquals(sql, expected, Helpers.sorted(Helpers.collectAllBatches(plan(sql, 4))));
+            assertEquals(sql, expected, Helpers.sorted(Helpers.collectAllPushed(plan(sql, 4))));
+        }
+    }
+
+    // Is a condition without a column equality rejected?
+    @Test(expected = IllegalArgumentException.class)
+    public void requiresKeys() throws Exception {
+        radix("Enrolled.A < Student.A", 2, 16);
+    }
+}
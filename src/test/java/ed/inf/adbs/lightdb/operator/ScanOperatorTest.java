@@ -49,4 +49,23 @@ public class ScanOperatorTest {
         scan.reset();
         assertNotNull(scan.getNextTuple());
     }
-}
\ No newline at end of file
+
+    // Does MAPPED mode produce the same tuples as the buffered scan, and can it be reset?
+    @Test
+    public void mappedModeMatchesBuffered() {
+        ScanOperator buffered = new ScanOperator("Student");
+        ScanOperator mapped = new ScanOperator("Student", ScanMode.MAPPED);
+
+        Tuple b;
+        while ((b = buffered.getNextTuple()) != null) {
+            Tuple m = mapped.getNextTuple();
+            assertEquals(b, m);
+            assertEquals(b.hashCode(), m.hashCode());
+            assertEquals(Long.parseLong(b.get(2)), m.getLong(2));
+        }
+        assertNull(mapped.getNextTuple());
+
+        mapped.reset();
+        assertEquals("1, 2, 3", mapped.getNextTuple().toString());
+    }
+}
@@ -0,0 +1,133 @@
+package ed.inf.adbs.lightdb.operator;
+
+import ed.inf.adbs.lightdb.catalog.Catalog;
+import ed.inf.adbs.lightdb.catalog.IndexType;
+import ed.inf.adbs.lightdb.catalog.TableMeta;
+import ed.inf.adbs.lightdb.operator.util.Helpers;
+import ed.inf.adbs.lightdb.operator.util.TestDb;
+import ed.inf.adbs.lightdb.planner.PlanBuilder;
+
+import net.sf.jsqlparser.parser.CCJSqlParserUtil;
+import net.sf.jsqlparser.statement.select.Select;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class SortMergeJoinOperatorTest {
+
+    private TestDb db;
+    private List<TableMeta> students;
+    private List<TableMeta> enrolled;
+
+    @Before
+    public void setUp() throws Exception {
+        // Duplicate keys on both sides (1 and 2), and keys found on one side only
+        db = TestDb.create()
+                .writeSchema("Student A B\nEnrolled A H\n")
+                .writeTable("Student", "2,20\n1,10\n4,40\n1,30\n2,21\n6,60\n7,70\n8,80\n9,90\n")
+                .writeTable("Enrolled", "1,100\n3,300\n2,200\n1,150\n5,500\n");
+        db.initCatalog();
+        students = Arrays.asList(Catalog.getInstance().getTable("Student").get());
+        enrolled = Arrays.asList(Catalog.getInstance().getTable("Enrolled").get());
+    }
+
+    @After
+    public void tearDown() {
+        db.close();
+    }
+
+    private List<String> nestedLoop(String on) throws Exception {
+        return Helpers.collectAll(new BlockNestedLoopJoinOperator(new ScanOperator("Student"), new ScanOperator("Enrolled"),
+                CCJSqlParserUtil.parseCondExpression(on), students, enrolled));
+    }
+
+    private SortMergeJoinOperator merge(Operator left, Operator right, String on, boolean leftOrdered, boolean rightOrdered) throws Exception {
+        return new SortMergeJoinOperator(left, right, CCJSqlParserUtil.parseCondExpression(on), students, enrolled,
+                leftOrdered, rightOrdered);
+    }
+
+    // Are runs of duplicate keys on both sides joined pairwise, in key order?
+    @Test
+    public void joinsDuplicateRuns() throws Exception {
+        String on = "Student.A = Enrolled.A";
+        List<String> actual = Helpers.collectAll(merge(new ScanOperator("Student"), new ScanOperator("Enrolled"), on, false, false));
+
+        assertEquals(Helpers.sorted(nestedLoop(on)), Helpers.sorted(actual));
+        assertEquals(Arrays.asList("1, 10, 1, 100", "1, 10, 1, 150", "1, 30, 1, 100", "1, 30, 1, 150",
+                "2, 20, 2, 200", "2, 21, 2, 200"), actual);
+    }
+
+    // Is the rest of the condition applied to the matching pairs?
+    @Test
+    public void appliesResidual() throws Exception {
+        String on = "Student.A = Enrolled.A AND Student.B * 10 < Enrolled.H";
+        List<String> actual = Helpers.collectAll(merge(new ScanOperator("Student"), new ScanOperator("Enrolled"), on, false, false));
+
+        assertEquals(Arrays.asList("1, 10, 1, 150"), actual);
+    }
+
+    // Is an input declared ordered streamed as it is rather than sorted?
+    @Test
+    public void reusesExistingOrder() throws Exception {
+        String on = "Student.A = Enrolled.A";
+        List<String> studentOrder = Arrays.asList("Student.A");
+        Operator orderedStudents = new SortOperator(new ScanOperator("Student"), studentOrder,
+                Arrays.asList(Boolean.TRUE), Arrays.asList("Student.A", "Student.B"));
+
+        SortMergeJoinOperator join = merge(orderedStudents, new ScanOperator("Enrolled"), on, true, false);
+
+        assertEquals(Helpers.sorted(nestedLoop(on)), Helpers.sorted(Helpers.collectAllAndReset(join)));
+        assertEquals(Helpers.sorted(nestedLoop(on)), Helpers.sorted(Helpers.collectAll(join)));
+    }
+
+    // Does a reset merge the inputs again from the start?
+    @Test
+    public void resetMergesAgain() throws Exception {
+        SortMergeJoinOperator join = merge(new ScanOperator("Student"), new ScanOperator("Enrolled"),
+                "Student.A = Enrolled.A", false, false);
+        assertNotNull(join.getNextTuple());
+        join.reset();
+
+        assertEquals(6, Helpers.collectAll(join).size());
+    }
+
+    // Does the planner merge-join as soon as one input is read in key order through a B+-tree index, sorting the other?
+    @Test
+    public void plannerMergesIndexOrderedInputs() throws Exception {
+        // 100 students over 10 keys and 10 enrolments with one key each: too many students to probe Enrolled per row
+        StringBuilder studentRows = new StringBuilder();
+        for (int i = 0; i < 100; i++) studentRows.append(i % 10).append(',').append(i).append('\n');
+        StringBuilder enrolledRows = new StringBuilder();
+        for (int i = 0; i < 10; i++) enrolledRows.append(i).append(',').append(i * 100).append('\n');
+        db.writeTable("Student", studentRows.toString()).writeTable("Enrolled", enrolledRows.toString());
+        db.initCatalog();
+        Catalog.getInstance().analyzeTable("Student");
+        Catalog.getInstance().analyzeTable("Enrolled");
+
+        // Neither input is in key order: a hash join
+        String sql = "SELECT * FROM Student, Enrolled WHERE Student.A = Enrolled.A AND Student.A = 1 AND Enrolled.A = 1";
+        Operator root = PlanBuilder.build(((Select) CCJSqlParserUtil.parse(sql)).getPlainSelect());
+        assertTrue(root.getClass().getName(), root instanceof HashJoinOperator);
+        List<String> expected = Helpers.sorted(Helpers.collectAll(root));
+        assertEquals(10, expected.size());
+
+        // Student is read in key order and Enrolled is sorted
+        Catalog.getInstance().ensureIndex("Student", "A", IndexType.BTREE);
+        root = PlanBuilder.build(((Select) CCJSqlParserUtil.parse(sql)).getPlainSelect());
+        assertTrue(root.getClass().getName(), root instanceof SortMergeJoinOperator);
+        assertEquals(expected, Helpers.sorted(Helpers.collectAllAndReset(root)));
+        assertEquals(expected, Helpers.sorted(Helpers.collectAllPushed(root)));
+
+        // Both are read in key order
+        Catalog.getInstance().ensureIndex("Enrolled", "A", IndexType.BTREE);
+        root = PlanBuilder.build(((Select) CCJSqlParserUtil.parse(sql)).getPlainSelect());
+        assertTrue(root.getClass().getName(), root instanceof SortMergeJoinOperator);
+        assertEquals(expected, Helpers.sorted(Helpers.collectAll(root)));
+    }
+}
@@ -0,0 +1,115 @@
+package ed.inf.adbs.lightdb.operator;
+
+import ed.inf.adbs.lightdb.catalog.Catalog;
+import ed.inf.adbs.lightdb.catalog.TableMeta;
+import ed.inf.adbs.lightdb.operator.util.Helpers;
+import ed.inf.adbs.lightdb.operator.util.TestDb;
+import ed.inf.adbs.lightdb.planner.PlanBuilder;
+import ed.inf.adbs.lightdb.planner.PlannerOptions;
+import ed.inf.adbs.lightdb.util.ExpressionUtils;
+
+import net.sf.jsqlparser.expression.Expression;
+import net.sf.jsqlparser.parser.CCJSqlParserUtil;
+import net.sf.jsqlparser.statement.select.Select;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ZoneMapScanOperatorTest {
+
+    private TestDb db;
+
+    @Before
+    public void setUp() throws Exception {
+        // A is clustered (ascending), B cycles through 0..9, C is not an integer column
+        StringBuilder rows = new StringBuilder();
+        for (int i = 0; i < 5000; i++) {
+            rows.append(i).append(", ").append(i % 10).append(", c").append(i).append('\n');
+        }
+
+        db = TestDb.create()
+                .writeSchema("Student A B C\n")
+                .writeTable("Student", rows.toString());
+        db.initCatalog();
+    }
+
+    @After
+    public void tearDown() {
+        db.close();
+    }
+
+    private static List<Expression> conjuncts(String where) throws Exception {
+        return ExpressionUtils.splitConjuncts(CCJSqlParserUtil.parseCondExpression(where));
+    }
+
+    private static List<String> scanThenSelect(Operator scan, String where) throws Exception {
+        TableMeta meta = Catalog.getInstance().getTable("Student").get();
+        return Helpers.collectAll(new SelectOperator(scan, CCJSqlParserUtil.parseCondExpression(where), meta));
+    }
+
+    // Are blocks outside a range on a clustered column skipped, with the same result as a full scan?
+    @Test
+    public void rangeOnClusteredColumnSkipsBlocks() throws Exception {
+        String where = "Student.A < 1500 AND Student.B = 3";
+        ZoneMapScanOperator scan = new ZoneMapScanOperator("Student", conjuncts(where));
+
+        // Blocks are 1024 rows, so only the first two of five can hold A < 1500
+        assertEquals(3, scan.getBlocksSkipped());
+        assertEquals(scanThenSelect(new ScanOperator("Student"), where), scanThenSelect(scan, where));
+    }
+
+    // Is a constant on the left-hand side handled, and can an equality skip everything but one block?
+    @Test
+    public void flippedEqualityKeepsSingleBlock() throws Exception {
+        String where = "4321 = Student.A";
+        ZoneMapScanOperator scan = new ZoneMapScanOperator("Student", conjuncts(where));
+
+        assertEquals(4, scan.getBlocksSkipped());
+        assertEquals(Arrays.asList("4321, 1, c4321"), scanThenSelect(scan, where));
+    }
+
+    // Are predicates the zone map cannot decide (unclustered or non-comparison) left to the selection, and does reset rescan?
+    @Test
+    public void undecidablePredicatesSkipNothing() throws Exception {
+        ZoneMapScanOperator scan = new ZoneMapScanOperator("Student", conjuncts("Student.B = 3 AND Student.A = Student.B"));
+
+        assertEquals(0, scan.getBlocksSkipped());
+        assertEquals(5000, Helpers.collectAllAndReset(scan).size());
+        assertEquals("0, 0, c0", scan.getNextTuple().toString());
+    }
+
+    // Is the stored zone map rebuilt once the CSV changes?
+    @Test
+    public void zoneMapIsRebuiltWhenCsvChanges() throws Exception {
+        assertEquals(0, new ZoneMapScanOperator("Student", conjuncts("Student.A > 0")).getBlocksSkipped());
+
+        Path csv = Paths.get(Catalog.getInstance().getTable("Student").get().getDataFile());
+        FileTime before = Files.getLastModifiedTime(csv);
+        db.writeTable("Student", "7, 7, x\n");
+        Files.setLastModifiedTime(csv, FileTime.fromMillis(before.toMillis() + 10_000));
+
+        ZoneMapScanOperator scan = new ZoneMapScanOperator("Student", conjuncts("Student.A > 100"));
+        assertEquals(1, scan.getBlocksSkipped());
+        assertNull(scan.getNextTuple());
+    }
+
+    // Does the planner use the zone-map scan when enabled and still produce the correct answer?
+    @Test
+    public void plannerUsesZoneMapScanWhenEnabled() throws Exception {
+        Select select = (Select) CCJSqlParserUtil.parse("SELECT Student.C FROM Student WHERE Student.A >= 4998");
+
+        Operator root = PlanBuilder.build(select.getPlainSelect(), PlannerOptions.defaults().setZoneMaps(true));
+
+        assertEquals(Arrays.asList("c4998", "c4999"), Helpers.collectAll(root));
+    }
+}
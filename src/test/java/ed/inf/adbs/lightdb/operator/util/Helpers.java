@@ -1,10 +1,13 @@
 package ed.inf.adbs.lightdb.operator.util;
 
+import ed.inf.adbs.lightdb.Batch;
 import ed.inf.adbs.lightdb.Tuple;
 import ed.inf.adbs.lightdb.operator.Operator;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 public final class Helpers {
 
@@ -28,6 +31,35 @@ public final class Helpers {
         return out;
     }
 
+    /**
+     * Collects all rows from an operator a batch at a time (the selected rows of each batch, in order).
+     */
+    public static List<String> collectAllBatches(Operator op) {
+        if (op == null) throw new NullPointerException("operator cannot be null");
+
+        List<String> out = new ArrayList<String>();
+        Batch b;
+
+        while ((b = op.getNextBatch()) != null) {
+            for (int k = 0; k < b.count(); k++) {
+                out.add(b.toTuple(b.row(k)).toString());
+            }
+        }
+
+        return out;
+    }
+
+    /**
+     * Collects all rows an operator pushes when run with produce().
+     */
+    public static List<String> collectAllPushed(Operator op) {
+        if (op == null) throw new NullPointerException("operator cannot be null");
+
+        List<String> out = new ArrayList<String>();
+        op.produce(t -> out.add(t.toString()));
+        return out;
+    }
+
     /**
      * Collects all tuples and resets the operator afterwards.
      * Useful for reuse inside the same test.
@@ -51,4 +83,38 @@ public final class Helpers {
 
         return out;
     }
-}
\ No newline at end of file
+
+    /**
+     * Returns a sorted copy of the rows, for comparing results whose order is not defined.
+     */
+    public static List<String> sorted(List<String> rows) {
+        List<String> out = new ArrayList<String>(rows);
+        Collections.sort(out);
+        return out;
+    }
+
+    /**
+     * Waits for up to timeoutMillis until no other thread is running code of the given class or its nested classes,
+     * e.g. for the workers of a parallel operator to exit.
+     * @return Whether no such thread was left.
+     */
+    public static boolean awaitNoThreadsIn(Class<?> c, long timeoutMillis) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        while (true) {
+            if (!anyThreadIn(c.getName())) return true;
+            if (System.currentTimeMillis() > deadline) return false;
+            Thread.sleep(20);
+        }
+    }
+
+    private static boolean anyThreadIn(String className) {
+        for (Map.Entry<Thread, StackTraceElement[]> e : Thread.getAllStackTraces().entrySet()) {
+            if (e.getKey() == Thread.currentThread()) continue;
+            for (StackTraceElement frame : e.getValue()) {
+                String name = frame.getClassName();
+                if (name.equals(className) || name.startsWith(className + "$")) return true;
+            }
+        }
+        return false;
+    }
+}
@@ -2,6 +2,7 @@ package ed.inf.adbs.lightdb.operator.util;
 
 import ed.inf.adbs.lightdb.catalog.Catalog;
 import ed.inf.adbs.lightdb.catalog.SchemaLoader;
+import ed.inf.adbs.lightdb.catalog.StorageFormat;
 
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
@@ -57,8 +58,15 @@ public final class TestDb implements AutoCloseable {
         SchemaLoader.loadIntoCatalog(schemaFile, dataDir);
     }
 
+    public void initCatalog(StorageFormat format) throws IOException {
+        Catalog.init(dbRoot);
+        SchemaLoader.loadIntoCatalog(schemaFile, dataDir, format);
+    }
+
+    // Deletes the database and resets the Catalog, so that later tests never see a catalog pointing at deleted files.
     @Override
     public void close() {
+        Catalog.resetForTests();
         try {
             Files.walk(tempRoot)
                     .sorted((a, b) -> b.compareTo(a)) // delete children first
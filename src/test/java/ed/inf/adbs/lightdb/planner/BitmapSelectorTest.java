@@ -0,0 +1,70 @@
+package ed.inf.adbs.lightdb.planner;
+
+import ed.inf.adbs.lightdb.catalog.Catalog;
+import ed.inf.adbs.lightdb.catalog.IndexType;
+import ed.inf.adbs.lightdb.catalog.TableMeta;
+import ed.inf.adbs.lightdb.operator.util.TestDb;
+import ed.inf.adbs.lightdb.util.ExpressionUtils;
+
+import net.sf.jsqlparser.parser.CCJSqlParserUtil;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class BitmapSelectorTest {
+
+    private TestDb db;
+
+    @Before
+    public void setUp() throws Exception {
+        StringBuilder rows = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            rows.append(i).append(", ").append(i % 10).append(", ").append(i % 4).append('\n');
+        }
+        db = TestDb.create()
+                .writeSchema("Student A B C\n")
+                .writeTable("Student", rows.toString());
+        db.initCatalog();
+
+        Catalog.getInstance().ensureIndex("Student", "B", IndexType.BITMAP);
+        Catalog.getInstance().ensureIndex("Student", "C", IndexType.BITMAP);
+    }
+
+    @After
+    public void tearDown() {
+        db.close();
+    }
+
+    private static BitmapSelector.Choice choose(String where) throws Exception {
+        TableMeta meta = Catalog.getInstance().getTable("Student").get();
+        return BitmapSelector.choose(meta, ExpressionUtils.splitConjuncts(CCJSqlParserUtil.parseCondExpression(where)));
+    }
+
+    // Are conjuncts intersected, disjuncts united, and unindexed conjuncts skipped, with an exact selectivity?
+    @Test
+    public void combinesBitmapsOfConjunctsAndDisjuncts() throws Exception {
+        BitmapSelector.Choice c = choose("(Student.B = 1 OR Student.B = 2) AND Student.C = 1 AND Student.A > 5");
+
+        // B = 2 rows are even, so only B = 1 rows can have C = 1: those with i % 20 == 1
+        assertNotNull(c);
+        assertEquals(50, c.rows.getCardinality());
+        assertTrue(c.rows.contains(1));
+        assertFalse(c.rows.contains(2));
+        assertEquals(0.05, c.selectivity, 1e-9);
+    }
+
+    // Are unselective results, disjunctions over unindexed columns and not-equals handled as expected?
+    @Test
+    public void leavesUnanswerableOrUnselectiveSelectionsToScan() throws Exception {
+        assertNull(choose("Student.C >= 1"));
+        assertNull(choose("Student.B = 1 OR Student.A = 5"));
+        assertNull(choose("Student.A = 5"));
+
+        BitmapSelector.Choice ne = choose("Student.B <> 3 AND Student.B < 3");
+        assertNotNull(ne);
+        assertEquals(300, ne.rows.getCardinality());
+    }
+}
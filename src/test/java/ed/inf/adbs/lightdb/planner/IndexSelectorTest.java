@@ -0,0 +1,83 @@
+package ed.inf.adbs.lightdb.planner;
+
+import ed.inf.adbs.lightdb.catalog.Catalog;
+import ed.inf.adbs.lightdb.catalog.IndexType;
+import ed.inf.adbs.lightdb.catalog.TableMeta;
+import ed.inf.adbs.lightdb.operator.util.TestDb;
+import ed.inf.adbs.lightdb.util.ExpressionUtils;
+
+import net.sf.jsqlparser.parser.CCJSqlParserUtil;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+
+import static org.junit.Assert.*;
+
+public class IndexSelectorTest {
+
+    private TestDb db;
+
+    @Before
+    public void setUp() throws Exception {
+        StringBuilder rows = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            rows.append(i).append(", ").append(i % 2).append('\n');
+        }
+        db = TestDb.create()
+                .writeSchema("Student A B\n")
+                .writeTable("Student", rows.toString());
+        db.initCatalog();
+
+        Catalog.getInstance().ensureIndex("Student", "A", IndexType.BTREE);
+        Catalog.getInstance().ensureIndex("Student", "B", IndexType.BTREE);
+    }
+
+    @After
+    public void tearDown() {
+        db.close();
+    }
+
+    private static IndexSelector.Choice choose(String where) throws Exception {
+        TableMeta meta = Catalog.getInstance().getTable("Student").get();
+        return IndexSelector.choose(meta, ExpressionUtils.splitConjuncts(CCJSqlParserUtil.parseCondExpression(where)));
+    }
+
+    // Is the most selective indexed column chosen, with the conjuncts on it combined into one key range?
+    @Test
+    public void choosesMostSelectiveIndex() throws Exception {
+        IndexSelector.Choice c = choose("Student.B = 1 AND Student.A >= 10 AND Student.A < 20");
+
+        assertNotNull(c);
+        assertEquals("a", c.index.getColumnName());
+        assertEquals(10, c.range.getLow());
+        assertEquals(19, c.range.getHigh());
+    }
+
+    // Are unselective predicates (per the statistics), not-equals and non-indexed shapes left to a scan?
+    @Test
+    public void unselectivePredicatesUseScan() throws Exception {
+        assertNull(choose("Student.B = 1"));
+        assertNull(choose("Student.A > 100"));
+        assertNull(choose("Student.A <> 5"));
+        assertNull(choose("Student.A = Student.B"));
+    }
+
+    // Is a stale index ignored once the CSV changes?
+    @Test
+    public void staleIndexIsIgnored() throws Exception {
+        assertNotNull(choose("Student.A = 5"));
+
+        Path csv = Paths.get(Catalog.getInstance().getTable("Student").get().getDataFile());
+        FileTime before = Files.getLastModifiedTime(csv);
+        db.writeTable("Student", "5, 5\n");
+        Files.setLastModifiedTime(csv, FileTime.fromMillis(before.toMillis() + 10_000));
+
+        assertNull(choose("Student.A = 5"));
+    }
+}
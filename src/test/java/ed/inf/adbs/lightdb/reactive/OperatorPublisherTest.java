@@ -0,0 +1,161 @@
+package ed.inf.adbs.lightdb.reactive;
+
+import ed.inf.adbs.lightdb.Tuple;
+import ed.inf.adbs.lightdb.operator.GatherOperator;
+import ed.inf.adbs.lightdb.operator.Operator;
+import ed.inf.adbs.lightdb.operator.util.Helpers;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class OperatorPublisherTest {
+
+    // Serves the integers 0 .. n-1 and counts how many rows were pulled.
+    private static final class Counting extends Operator {
+        private final int n;
+        private int next;
+        int pulled;
+
+        Counting(int n) {
+            this.n = n;
+        }
+
+        @Override
+        public Tuple getNextTuple() {
+            if (next >= n) return null;
+            pulled++;
+            return Tuple.ofLongs(next++);
+        }
+
+        @Override
+        public void reset() {
+            next = 0;
+        }
+    }
+
+    private static class Recorder implements Subscriber<Tuple> {
+        final List<String> rows = new ArrayList<String>();
+        volatile Subscription subscription;
+        volatile Throwable error;
+        final CountDownLatch finished = new CountDownLatch(1);
+
+        @Override
+        public void onSubscribe(Subscription subscription) {
+            this.subscription = subscription;
+        }
+
+        @Override
+        public synchronized void onNext(Tuple item) {
+            rows.add(item.toString());
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            error = throwable;
+            finished.countDown();
+        }
+
+        @Override
+        public void onComplete() {
+            finished.countDown();
+        }
+
+        synchronized int count() {
+            return rows.size();
+        }
+    }
+
+    // Are rows pulled from the plan only as far as the subscriber has asked for them?
+    @Test
+    public void pullsOnlyRequestedRows() throws Exception {
+        Counting op = new Counting(10);
+        Recorder r = new Recorder();
+        // Run drains on the calling thread, so each request has been served when it returns
+        new OperatorPublisher(op, Runnable::run).subscribe(r);
+
+        assertEquals(0, op.pulled);
+        r.subscription.request(3);
+        assertEquals(3, r.count());
+        assertEquals(3, op.pulled);
+
+        r.subscription.request(4);
+        assertEquals(7, op.pulled);
+        assertEquals(1, r.finished.getCount());
+
+        r.subscription.request(Long.MAX_VALUE);
+        assertTrue(r.finished.await(1, TimeUnit.SECONDS));
+        assertNull(r.error);
+        assertEquals(10, r.count());
+        assertEquals("9", r.rows.get(9));
+    }
+
+    // Does a subscriber that requests one row at a time from onNext receive every row, on the worker pool?
+    @Test
+    public void requestsFromOnNext() throws Exception {
+        Recorder r = new Recorder() {
+            @Override
+            public synchronized void onNext(Tuple item) {
+                super.onNext(item);
+                subscription.request(1);
+            }
+        };
+        new OperatorPublisher(new Counting(5000)).subscribe(r);
+        r.subscription.request(1);
+
+        assertTrue(r.finished.await(10, TimeUnit.SECONDS));
+        assertNull(r.error);
+        assertEquals(5000, r.count());
+    }
+
+    // Does cancelling stop the plan, and are invalid requests and second subscribers rejected?
+    @Test
+    public void cancelAndErrors() throws Exception {
+        Counting op = new Counting(10);
+        OperatorPublisher publisher = new OperatorPublisher(op, Runnable::run);
+
+        Recorder r = new Recorder();
+        publisher.subscribe(r);
+        r.subscription.request(2);
+        r.subscription.cancel();
+        r.subscription.request(5);
+        assertEquals(2, op.pulled);
+
+        Recorder second = new Recorder();
+        publisher.subscribe(second);
+        assertTrue(second.error instanceof IllegalStateException);
+
+        Recorder invalid = new Recorder();
+        new OperatorPublisher(new Counting(3), Runnable::run).subscribe(invalid);
+        invalid.subscription.request(0);
+        assertTrue(invalid.error instanceof IllegalArgumentException);
+    }
+
+    // Do the workers of a gathered plan exit when the subscriber cancels, and when it fails?
+    @Test
+    public void cancelAndErrorStopWorkers() throws Exception {
+        // Each input has far more rows than the gather's queue holds, so its worker blocks once the drain stops
+        Recorder r = new Recorder();
+        new OperatorPublisher(new GatherOperator(Arrays.<Operator>asList(new Counting(1_000_000), new Counting(1_000_000))),
+                Runnable::run).subscribe(r);
+        r.subscription.request(10);
+        assertEquals(10, r.count());
+
+        r.subscription.cancel();
+        assertTrue(Helpers.awaitNoThreadsIn(GatherOperator.class, 5000));
+
+        Recorder invalid = new Recorder();
+        new OperatorPublisher(new GatherOperator(Arrays.<Operator>asList(new Counting(1_000_000), new Counting(1_000_000))),
+                Runnable::run).subscribe(invalid);
+        invalid.subscription.request(10);
+        invalid.subscription.request(-1);
+        assertTrue(invalid.error instanceof IllegalArgumentException);
+        assertTrue(Helpers.awaitNoThreadsIn(GatherOperator.class, 5000));
+    }
+}
@@ -0,0 +1,163 @@
+package ed.inf.adbs.lightdb.storage;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+public class BufferPoolTest {
+
+    private Path file;
+
+    @Before
+    public void setUp() throws Exception {
+        // Five pages, each filled with its own page number
+        byte[] bytes = new byte[5 * HeapPage.PAGE_SIZE];
+        for (int p = 0; p < 5; p++) {
+            Arrays.fill(bytes, p * HeapPage.PAGE_SIZE, (p + 1) * HeapPage.PAGE_SIZE, (byte) p);
+        }
+        file = Files.createTempFile("lightdb_pool_", ".heap");
+        Files.write(file, bytes);
+
+        BufferPool.configure(3);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        BufferPool.getInstance().invalidate(file);
+        BufferPool.configure(BufferPool.DEFAULT_CAPACITY);
+        Files.deleteIfExists(file);
+    }
+
+    private static byte firstByte(int pageNo, Path file) throws Exception {
+        try (BufferPool.PinnedPage page = BufferPool.getInstance().pin(file, pageNo)) {
+            return page.data()[0];
+        }
+    }
+
+    // Are repeated reads of a cached page served from the pool?
+    @Test
+    public void cachedPagesAreHits() throws Exception {
+        BufferPool pool = BufferPool.getInstance();
+
+        assertEquals(1, firstByte(1, file));
+        assertEquals(1, firstByte(1, file));
+        assertEquals(2, firstByte(2, file));
+
+        assertEquals(1, pool.getHits());
+        assertEquals(2, pool.getMisses());
+    }
+
+    // Does CLOCK evict an unreferenced page and keep the page that was touched again?
+    @Test
+    public void clockEvictsUnreferencedPage() throws Exception {
+        BufferPool pool = BufferPool.getInstance();
+        firstByte(0, file);
+        firstByte(1, file);
+        firstByte(2, file);
+
+        // Loading page 3 clears every reference bit and evicts page 0
+        assertEquals(3, firstByte(3, file));
+        // Page 1 is touched again, so the next eviction skips it and takes page 2
+        firstByte(1, file);
+        firstByte(4, file);
+
+        long misses = pool.getMisses();
+        firstByte(1, file);
+        assertEquals(misses, pool.getMisses());
+        firstByte(2, file);
+        assertEquals(misses + 1, pool.getMisses());
+    }
+
+    // Are pinned pages never evicted, and is a full pool of pinned pages reported?
+    @Test
+    public void pinnedPagesAreNotEvicted() throws Exception {
+        BufferPool pool = BufferPool.getInstance();
+        BufferPool.PinnedPage p0 = pool.pin(file, 0);
+        BufferPool.PinnedPage p1 = pool.pin(file, 1);
+        BufferPool.PinnedPage p2 = pool.pin(file, 2);
+
+        try {
+            pool.pin(file, 3);
+            fail("Expected IllegalStateException");
+        } catch (IllegalStateException expected) {
+            // all frames pinned
+        }
+
+        p1.close();
+        assertEquals(3, firstByte(3, file));
+        assertEquals(0, p0.data()[0]);
+        assertEquals(2, p2.data()[0]);
+        p0.close();
+        p2.close();
+    }
+
+    // Does invalidate drop a file's pages so that a rewritten file is read afresh?
+    @Test
+    public void invalidateRereadsFile() throws Exception {
+        assertEquals(1, firstByte(1, file));
+
+        byte[] bytes = Files.readAllBytes(file);
+        Arrays.fill(bytes, HeapPage.PAGE_SIZE, 2 * HeapPage.PAGE_SIZE, (byte) 9);
+        BufferPool.getInstance().invalidate(file);
+        Files.write(file, bytes);
+
+        assertEquals(9, firstByte(1, file));
+    }
+
+    // Do threads pinning pages at the same time, with misses evicting each other's pages, always see the right bytes?
+    @Test
+    public void concurrentPinsSeeTheirPages() throws Exception {
+        BufferPool pool = BufferPool.getInstance();
+        AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+
+        // No more threads than frames, so that a free frame can always be found
+        Thread[] threads = new Thread[3];
+        for (int t = 0; t < threads.length; t++) {
+            final int seed = t;
+            threads[t] = new Thread(() -> {
+                try {
+                    for (int i = 0; i < 2000; i++) {
+                        int pageNo = (i * 7 + seed) % 5;
+                        try (BufferPool.PinnedPage page = pool.pin(file, pageNo)) {
+                            byte[] data = page.data();
+                            if (data[0] != pageNo || data[data.length - 1] != pageNo) {
+                                throw new AssertionError("page " + pageNo + " holds " + data[0]);
+                            }
+                        }
+                    }
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread t : threads) t.join();
+
+        if (failure.get() != null) throw new AssertionError(failure.get());
+        assertEquals(6000, pool.getHits() + pool.getMisses());
+    }
+
+    // Does a failed read release its frame?
+    @Test
+    public void failedReadReleasesFrame() throws Exception {
+        for (int i = 0; i < 4; i++) {
+            try {
+                firstByte(10, file);
+                fail("Expected IOException");
+            } catch (IOException expected) {
+                // past the end of the file
+            }
+        }
+        assertEquals(0, firstByte(0, file));
+        assertEquals(1, firstByte(1, file));
+        assertEquals(2, firstByte(2, file));
+    }
+}
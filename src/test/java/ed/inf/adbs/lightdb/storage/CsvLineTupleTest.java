@@ -0,0 +1,80 @@
+package ed.inf.adbs.lightdb.storage;
+
+import ed.inf.adbs.lightdb.Batch;
+import ed.inf.adbs.lightdb.Tuple;
+import ed.inf.adbs.lightdb.catalog.DataType;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class CsvLineTupleTest {
+
+    private static final DataType[] TYPES = {DataType.INT, DataType.STRING, DataType.DOUBLE, DataType.BOOLEAN, DataType.LONG};
+
+    // Does a lazy tuple read, trim and compare like the tuple Tuple.parse builds from the same line?
+    @Test
+    public void matchesEagerlyParsedTuple() {
+        String line = " -42 ,  hello world,1.5,true,";
+        Tuple lazy = new CsvLineTuple(line, TYPES);
+        Tuple eager = Tuple.parse(CsvRows.split(line), TYPES);
+
+        assertEquals(5, lazy.size());
+        assertEquals(-42L, lazy.getLong(0));
+        assertEquals("hello world", lazy.get(1));
+        assertEquals(1.5, lazy.getDouble(2), 0.0);
+        assertTrue(lazy.getBoolean(3));
+        assertTrue(lazy.isNull(4));
+        assertEquals(DataType.DOUBLE, lazy.getType(2));
+
+        assertEquals(eager, lazy);
+        assertEquals(lazy, eager);
+        assertEquals(eager.hashCode(), lazy.hashCode());
+        assertEquals(eager.toString(), lazy.toString());
+        assertEquals(Arrays.asList("-42", "hello world", "1.5", "true", ""), lazy.asList());
+    }
+
+    // Are untouched fields never parsed, and is a bad row only reported once it is read?
+    @Test
+    public void fieldsAreParsedOnFirstAccess() {
+        Tuple t = new CsvLineTuple("7, x, not a number", new DataType[] {DataType.INT, DataType.STRING, DataType.INT});
+        assertEquals(7L, t.getLong(0));
+        try {
+            t.getLong(2);
+            fail("Expected a NumberFormatException");
+        } catch (NumberFormatException expected) {
+        }
+
+        Tuple wide = new CsvLineTuple("1, 2", TYPES);
+        assertEquals(5, wide.size());
+        try {
+            wide.get(0);
+            fail("Expected an IllegalArgumentException");
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    // Do projections, concatenations and batches copy the parsed slots of a lazy tuple?
+    @Test
+    public void copiesKeepTypes() {
+        Tuple t = new CsvLineTuple("9223372036854775807, a, 2.25, false, 3", TYPES);
+        assertEquals(Long.MAX_VALUE, t.getLong(0));
+
+        Tuple p = Tuple.project(t, new int[] {4, 2, 1});
+        assertEquals(DataType.LONG, p.getType(0));
+        assertEquals(DataType.DOUBLE, p.getType(1));
+        assertEquals(DataType.STRING, p.getType(2));
+        assertEquals("3, 2.25, a", p.toString());
+
+        Tuple c = Tuple.concat(Tuple.ofLongs(1), t);
+        assertEquals(DataType.BOOLEAN, c.getType(4));
+        assertFalse(c.getBoolean(4));
+
+        Batch b = new Batch(5, 2);
+        b.append(t);
+        assertEquals(Long.MAX_VALUE, b.getLong(0, 0));
+        assertEquals(t, b.toTuple(0));
+    }
+}
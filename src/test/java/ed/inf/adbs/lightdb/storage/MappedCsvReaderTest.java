@@ -0,0 +1,128 @@
+package ed.inf.adbs.lightdb.storage;
+
+import ed.inf.adbs.lightdb.Tuple;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class MappedCsvReaderTest {
+
+    private Path file;
+
+    @Before
+    public void setUp() throws Exception {
+        file = Files.createTempFile("lightdb_mapped_", ".csv");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        Files.deleteIfExists(file);
+    }
+
+    private List<String> readAll(MappedCsvReader reader) throws Exception {
+        List<String> rows = new ArrayList<String>();
+        Tuple t;
+        while ((t = reader.next()) != null) rows.add(t.toString());
+        return rows;
+    }
+
+    // Are fields trimmed and CRLF line endings handled like the buffered scan? Is a missing final newline tolerated?
+    @Test
+    public void rowsMatchBufferedSplitting() throws Exception {
+        Files.write(file, "1, 200 ,x\r\n2,3,  y z\n4,5,6".getBytes(StandardCharsets.UTF_8));
+
+        try (MappedCsvReader reader = new MappedCsvReader(file)) {
+            assertEquals(Arrays.asList("1, 200, x", "2, 3, y z", "4, 5, 6"), readAll(reader));
+        }
+    }
+
+    // Do rows that straddle a window boundary come back intact when the file is mapped in small windows?
+    @Test
+    public void smallWindowsRemapAtLineStarts() throws Exception {
+        StringBuilder sb = new StringBuilder();
+        List<String> expected = new ArrayList<String>();
+        for (int i = 0; i < 100; i++) {
+            sb.append(i).append(", ").append(i * 7).append('\n');
+            expected.add(i + ", " + (i * 7));
+        }
+        Files.write(file, sb.toString().getBytes(StandardCharsets.UTF_8));
+
+        try (MappedCsvReader reader = new MappedCsvReader(file, 16)) {
+            assertEquals(expected, readAll(reader));
+            reader.rewind();
+            assertEquals(expected, readAll(reader));
+        }
+    }
+
+    // Does getLong parse straight from the bytes, including signs, and reject non-integers?
+    @Test
+    public void getLongParsesMappedBytes() throws Exception {
+        Files.write(file, " -42 ,+7,abc,12345678901234567890\n".getBytes(StandardCharsets.UTF_8));
+
+        try (MappedCsvReader reader = new MappedCsvReader(file)) {
+            Tuple t = reader.next();
+            assertEquals(-42L, t.getLong(0));
+            assertEquals(7L, t.getLong(1));
+            try {
+                t.getLong(2);
+                fail("Expected NumberFormatException");
+            } catch (NumberFormatException expected) {
+                // expected
+            }
+            try {
+                t.getLong(3);
+                fail("Expected NumberFormatException for overflow");
+            } catch (NumberFormatException expected) {
+                // expected
+            }
+            assertEquals(new Tuple(Arrays.asList("-42", "+7", "abc", "12345678901234567890")), t);
+        }
+    }
+
+    // Is a line too long for the window reported instead of silently split?
+    @Test
+    public void lineLongerThanWindowIsRejected() throws Exception {
+        Files.write(file, "1,2,3,4,5,6,7,8,9\n".getBytes(StandardCharsets.UTF_8));
+
+        try (MappedCsvReader reader = new MappedCsvReader(file, 4)) {
+            reader.next();
+            fail("Expected IOException");
+        } catch (java.io.IOException expected) {
+            assertTrue(expected.getMessage().contains("longer than the mapping window"));
+        }
+    }
+
+    // Do chunk readers over the CsvChunks ranges together return every row exactly once?
+    @Test
+    public void chunksCoverEveryRowOnce() throws Exception {
+        StringBuilder sb = new StringBuilder();
+        List<String> expected = new ArrayList<String>();
+        for (int i = 0; i < 500; i++) {
+            sb.append(i).append(",").append(i % 13).append('\n');
+            expected.add(i + ", " + (i % 13));
+        }
+        Files.write(file, sb.toString().getBytes(StandardCharsets.UTF_8));
+
+        long[] bounds = CsvChunks.split(file, 7, 10);
+        assertEquals(8, bounds.length);
+        assertEquals(Files.size(file), bounds[bounds.length - 1]);
+
+        List<String> actual = new ArrayList<String>();
+        for (int i = 0; i + 1 < bounds.length; i++) {
+            try (MappedCsvReader reader = new MappedCsvReader(file, bounds[i], bounds[i + 1])) {
+                actual.addAll(readAll(reader));
+            }
+        }
+        assertEquals(expected, actual);
+    }
+}
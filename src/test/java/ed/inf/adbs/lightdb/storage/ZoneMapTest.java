@@ -0,0 +1,67 @@
+package ed.inf.adbs.lightdb.storage;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.Assert.*;
+
+public class ZoneMapTest {
+
+    private Path csv;
+    private Path zoneFile;
+
+    @Before
+    public void setUp() throws Exception {
+        csv = Files.createTempFile("lightdb_zonemap_", ".csv");
+        zoneFile = csv.resolveSibling(csv.getFileName() + ".zonemap");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        Files.deleteIfExists(csv);
+        Files.deleteIfExists(zoneFile);
+    }
+
+    // Do blocks record line-aligned byte ranges and per-column min/max, with non-integer values making a column unbounded?
+    @Test
+    public void blocksRecordRangesAndBounds() throws Exception {
+        String contents = "5, 1\r\n3, x\n9, 2\n";
+        Files.write(csv, contents.getBytes(StandardCharsets.UTF_8));
+
+        ZoneMap zm = ZoneMap.build(csv, 2, 2);
+
+        assertEquals(2, zm.getBlockCount());
+        assertEquals(0, zm.getBlockStart(0));
+        assertEquals(contents.indexOf("9"), zm.getBlockEnd(0));
+        assertEquals(zm.getBlockEnd(0), zm.getBlockStart(1));
+        assertEquals(contents.length(), zm.getBlockEnd(1));
+
+        assertEquals(3, zm.getMin(0, 0));
+        assertEquals(5, zm.getMax(0, 0));
+        assertEquals(Long.MIN_VALUE, zm.getMin(0, 1));
+        assertEquals(Long.MAX_VALUE, zm.getMax(0, 1));
+        assertEquals(2, zm.getMin(1, 1));
+        assertEquals(2, zm.getMax(1, 1));
+    }
+
+    // Does a stored zone map round-trip, and is it reused only while the CSV is unchanged?
+    @Test
+    public void storedZoneMapRoundTripsAndDetectsStaleness() throws Exception {
+        Files.write(csv, "1, 2\n3, 4\n".getBytes(StandardCharsets.UTF_8));
+        ZoneMap built = ZoneMap.loadOrBuild(csv, 2, zoneFile);
+
+        ZoneMap read = ZoneMap.read(zoneFile);
+        assertEquals(built.getBlockCount(), read.getBlockCount());
+        assertEquals(1, read.getMin(0, 0));
+        assertEquals(4, read.getMax(0, 1));
+        assertTrue(read.isFreshFor(csv));
+
+        Files.write(csv, "10, 20\n".getBytes(StandardCharsets.UTF_8));
+        assertFalse(read.isFreshFor(csv));
+    }
+}